@@ -46,8 +46,6 @@ public class PostgreSQLConfigMonitor implements Runnable {
 
         while (running) {
             try {
-                database.connect();
-
                 logger.info("Updating ACME configuration");
                 // update the config in memory only
 
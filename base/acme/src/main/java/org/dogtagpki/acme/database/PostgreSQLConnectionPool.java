@@ -0,0 +1,205 @@
+//
+// Copyright Red Hat, Inc.
+//
+// SPDX-License-Identifier: GPL-2.0-or-later
+//
+package org.dogtagpki.acme.database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of JDBC connections to a PostgreSQL database.
+ *
+ * At most maxConnections connections are checked out at a time.
+ * Callers wait at most maxWait milliseconds for a connection
+ * (0 means wait indefinitely). An idle connection is validated
+ * before it is reused if it has been idle for longer than the
+ * validation interval, and replaced if it is no longer usable.
+ *
+ * Connections are reused most recently returned first so the
+ * driver's prepared statement cache stays warm on busy connections.
+ */
+public class PostgreSQLConnectionPool {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PostgreSQLConnectionPool.class);
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 10;
+    public static final int DEFAULT_MAX_WAIT = 30000; // milliseconds
+    public static final int DEFAULT_VALIDATION_INTERVAL = 30; // seconds
+    public static final int VALIDATION_TIMEOUT = 5; // seconds
+
+    static class IdleConnection {
+
+        Connection connection;
+        long returned;
+
+        IdleConnection(Connection connection, long returned) {
+            this.connection = connection;
+            this.returned = returned;
+        }
+    }
+
+    private String url;
+    private Properties info;
+
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    private int maxWait = DEFAULT_MAX_WAIT;
+    private long validationInterval = DEFAULT_VALIDATION_INTERVAL * 1000L;
+
+    private Semaphore permits; // connections which can still be checked out
+    private Deque<IdleConnection> connections = new ConcurrentLinkedDeque<>();
+
+    public PostgreSQLConnectionPool(String url, Properties info) {
+        this.url = url;
+        this.info = info;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxWait() {
+        return maxWait;
+    }
+
+    public void setMaxWait(int maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * @param validationInterval validation interval in seconds
+     */
+    public void setValidationInterval(int validationInterval) {
+        this.validationInterval = validationInterval * 1000L;
+    }
+
+    public void init() {
+        logger.info("PostgreSQLConnectionPool: max connections: " + maxConnections);
+        logger.info("PostgreSQLConnectionPool: max wait (ms): " + maxWait);
+        permits = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * Checks out a connection. The connection must be returned with
+     * {@link #returnConnection(Connection)} in a finally clause.
+     */
+    public Connection getConnection() throws Exception {
+
+        if (!permits.tryAcquire()) {
+            logger.warn("PostgreSQLConnectionPool: Waiting for connection to " + url);
+
+            if (maxWait <= 0) {
+                permits.acquire();
+
+            } else if (!permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("No database connection available after " + maxWait + " ms");
+            }
+        }
+
+        try {
+            IdleConnection idle;
+            while ((idle = connections.pollFirst()) != null) {
+
+                if (isUsable(idle)) {
+                    return idle.connection;
+                }
+
+                logger.info("PostgreSQLConnectionPool: Reconnecting to " + url);
+                close(idle.connection);
+            }
+
+            logger.info("PostgreSQLConnectionPool: Connecting to " + url);
+            return DriverManager.getConnection(url, info);
+
+        } catch (Exception e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    boolean isUsable(IdleConnection idle) {
+
+        Connection connection = idle.connection;
+
+        try {
+            if (connection.isClosed()) {
+                return false;
+            }
+
+            if (System.currentTimeMillis() - idle.returned < validationInterval) {
+                return true;
+            }
+
+            return connection.isValid(VALIDATION_TIMEOUT);
+
+        } catch (SQLException e) {
+            logger.warn("PostgreSQLConnectionPool: Unable to validate connection: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns a connection to the pool. Connections which are closed
+     * or which cannot be reset to auto-commit mode are discarded.
+     */
+    public void returnConnection(Connection connection) {
+
+        if (connection == null) {
+            return;
+        }
+
+        try {
+            if (connection.isClosed()) {
+                return;
+            }
+
+            if (!connection.getAutoCommit()) {
+                // discard any unfinished transaction
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+
+            connections.offerFirst(new IdleConnection(connection, System.currentTimeMillis()));
+
+        } catch (SQLException e) {
+            logger.warn("PostgreSQLConnectionPool: Discarding connection: " + e.getMessage());
+            close(connection);
+
+        } finally {
+            permits.release();
+        }
+    }
+
+    void close(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.warn("PostgreSQLConnectionPool: Unable to close connection: " + e.getMessage());
+        }
+    }
+
+    public int getIdleConnections() {
+        return connections.size();
+    }
+
+    public void shutdown() {
+
+        logger.info("PostgreSQLConnectionPool: Closing connections to " + url);
+
+        IdleConnection idle;
+        while ((idle = connections.pollFirst()) != null) {
+            close(idle.connection);
+        }
+    }
+}
@@ -9,11 +9,9 @@ import java.io.FileReader;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -41,11 +39,17 @@ public class PostgreSQLDatabase extends ACMEDatabase {
     public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PostgreSQLDatabase.class);
     public static Calendar UTC = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
 
+    public static final int DEFAULT_CLEANUP_BATCH_SIZE = 1000;
+
     protected Properties info;
     protected String url;
 
     protected Properties statements;
-    protected Connection connection;
+    protected PostgreSQLConnectionPool pool;
+    protected volatile boolean initialized;
+
+    // maximum number of expired records removed per transaction
+    protected int cleanupBatchSize = DEFAULT_CLEANUP_BATCH_SIZE;
 
     Boolean enabled;
     PostgreSQLConfigMonitor monitor;
@@ -68,6 +72,35 @@ public class PostgreSQLDatabase extends ACMEDatabase {
 
         url = (String) info.remove("url");
 
+        // the remaining parameters are passed to the JDBC driver,
+        // e.g. prepareThreshold or preparedStatementCacheQueries
+        // to tune the prepared statement cache of each connection
+
+        pool = new PostgreSQLConnectionPool(url, info);
+
+        String maxConnections = (String) info.remove("pool.maxConnections");
+        if (maxConnections != null) {
+            pool.setMaxConnections(Integer.parseInt(maxConnections));
+        }
+
+        String maxWait = (String) info.remove("pool.maxWait");
+        if (maxWait != null) {
+            pool.setMaxWait(Integer.parseInt(maxWait));
+        }
+
+        String validationInterval = (String) info.remove("pool.validationInterval");
+        if (validationInterval != null) {
+            pool.setValidationInterval(Integer.parseInt(validationInterval));
+        }
+
+        pool.init();
+
+        String batchSize = (String) info.remove("cleanup.batchSize");
+        if (batchSize != null) {
+            cleanupBatchSize = Integer.parseInt(batchSize);
+        }
+        logger.info("- cleanup batch size: " + cleanupBatchSize);
+
         String statementsFilename = info.getProperty(
                 "statements",
                 "/usr/share/pki/acme/database/postgresql/statements.conf");
@@ -107,49 +140,49 @@ public class PostgreSQLDatabase extends ACMEDatabase {
     }
 
     /**
-     * This method will create the initial connection, validate
-     * the current connection, or reestablish the connection if
-     * it's closed.
+     * This method will check out a validated connection from the pool
+     * and create the tables on first use. The connection must be
+     * returned with release() in a finally clause.
      *
      * This method should only be called by methods implementing
      * ACMEDatabase.
-     *
-     * TODO: Use connection pool.
      */
-    public void connect() throws Exception {
+    public Connection connect() throws Exception {
 
-        if (connection == null) { // create the initial connection
-            logger.info("Connecting to " + url);
-            connection = DriverManager.getConnection(url, info);
-            setup();
-            return;
-        }
+        Connection connection = pool.getConnection();
 
-        // validate the current connection
-        try (Statement st = connection.createStatement();
-            ResultSet rs = st.executeQuery("SELECT 1")) {
-
-        } catch (SQLException e) {
+        if (initialized) {
+            return connection;
+        }
 
-            if (connection.isClosed()) { // reestablish the connection
-                logger.info("Reconnecting to " + url);
-                connection = DriverManager.getConnection(url, info);
-                return;
+        try {
+            synchronized (this) {
+                if (!initialized) {
+                    setup(connection);
+                    initialized = true;
+                }
             }
 
-            logger.error("Unable to access database: " + e.getMessage());
-
-            // https://www.postgresql.org/docs/current/errcodes-appendix.html
-            logger.error("SQL state: " + e.getSQLState());
-
+        } catch (Exception e) {
+            release(connection);
             throw e;
         }
+
+        return connection;
+    }
+
+    /**
+     * This method will return a connection to the pool. An unfinished
+     * transaction on the connection will be rolled back.
+     */
+    public void release(Connection connection) {
+        pool.returnConnection(connection);
     }
 
     /**
      * This method will create the tables if they do not exist.
      */
-    public void setup() throws Exception {
+    public void setup(Connection connection) throws Exception {
 
         logger.info("Setting up database");
 
@@ -181,8 +214,46 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         }
     }
 
+    /**
+     * This method will execute a statement once for each ID in a
+     * single batch.
+     *
+     * @return the number of affected rows
+     */
+    int executeBatch(Connection connection, String name, Collection<String> ids) throws Exception {
+
+        String sql = statements.getProperty(name);
+        logger.info("SQL: " + sql);
+
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+
+            for (String id : ids) {
+                ps.setString(1, id);
+                ps.addBatch();
+            }
+
+            int rows = 0;
+            for (int count : ps.executeBatch()) {
+                if (count > 0) rows += count;
+            }
+
+            return rows;
+        }
+    }
+
     String getConfig(String id) throws Exception {
 
+        Connection connection = connect();
+        try {
+            return getConfig(connection, id);
+
+        } finally {
+            release(connection);
+        }
+    }
+
+    String getConfig(Connection connection, String id) throws Exception {
+
         logger.info("Getting config " + id);
 
         String sql = statements.getProperty("getConfig");
@@ -202,7 +273,7 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         }
     }
 
-    void addConfig(String id, String value) throws Exception {
+    void addConfig(Connection connection, String id, String value) throws Exception {
 
         logger.info("Setting config " + id + ": " + value);
 
@@ -216,7 +287,7 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         }
     }
 
-    int updateConfig(String id, String value) throws Exception {
+    int updateConfig(Connection connection, String id, String value) throws Exception {
 
         logger.info("Updating config " + id + ": " + value);
 
@@ -230,7 +301,7 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         }
     }
 
-    void removeConfig(String id) throws Exception {
+    void removeConfig(Connection connection, String id) throws Exception {
 
         logger.info("Removing config " + id);
 
@@ -243,17 +314,32 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         }
     }
 
-    void setConfig(String id, String value) throws Exception {
+    void setConfig(Connection connection, String id, String value) throws Exception {
 
         if (value == null) {
-            removeConfig(id);
+            removeConfig(connection, id);
             return;
         }
 
-        int updatedRows = updateConfig(id, value);
+        int updatedRows = updateConfig(connection, id, value);
         if (updatedRows > 0) return;
 
-        addConfig(id, value);
+        addConfig(connection, id, value);
+    }
+
+    void setConfig(String id, String value) throws Exception {
+
+        Connection connection = connect();
+        try {
+            connection.setAutoCommit(false);
+
+            setConfig(connection, id, value);
+
+            connection.commit();
+
+        } finally {
+            release(connection);
+        }
     }
 
     @Override
@@ -264,9 +350,6 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         // PostgreSQLConfigMonitor.
 
         if (monitor == null) {
-
-            connect();
-
             String value = getConfig("enabled");
             enabled = value == null ? null : Boolean.valueOf(value);
         }
@@ -277,15 +360,13 @@ public class PostgreSQLDatabase extends ACMEDatabase {
     @Override
     public void setEnabled(Boolean enabled) throws Exception {
 
-        connect();
-
         String value = enabled == null ? null : enabled.toString();
         setConfig("enabled", value);
 
         this.enabled = enabled;
     }
 
-    private ACMENonce getNonce(String nonceID) throws Exception {
+    private ACMENonce getNonce(Connection connection, String nonceID) throws Exception {
 
         logger.info("Getting nonce " + nonceID);
 
@@ -318,41 +399,49 @@ public class PostgreSQLDatabase extends ACMEDatabase {
     @Override
     public void addNonce(ACMENonce nonce) throws Exception {
 
-        connect();
+        Connection connection = connect();
+        try {
+            String nonceID = nonce.getID();
+            logger.info("Adding nonce " + nonceID);
 
-        String nonceID = nonce.getID();
-        logger.info("Adding nonce " + nonceID);
+            String sql = statements.getProperty("addNonce");
+            logger.info("SQL: " + sql);
 
-        String sql = statements.getProperty("addNonce");
-        logger.info("SQL: " + sql);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setString(1, nonceID);
 
-            ps.setString(1, nonceID);
+                Date creationTime = nonce.getCreationTime();
+                ps.setTimestamp(2, new Timestamp(creationTime.getTime()), UTC);
 
-            Date creationTime = nonce.getCreationTime();
-            ps.setTimestamp(2, new Timestamp(creationTime.getTime()), UTC);
+                Date expirationTime = nonce.getExpirationTime();
+                ps.setTimestamp(3, new Timestamp(expirationTime.getTime()), UTC);
 
-            Date expirationTime = nonce.getExpirationTime();
-            ps.setTimestamp(3, new Timestamp(expirationTime.getTime()), UTC);
+                ps.executeUpdate();
+            }
 
-            ps.executeUpdate();
+        } finally {
+            release(connection);
         }
     }
 
     @Override
     public ACMENonce removeNonce(String nonceID) throws Exception {
 
-        connect();
+        Connection connection = connect();
+        try {
+            ACMENonce nonce = getNonce(connection, nonceID);
+            if (nonce == null) return null;
 
-        ACMENonce nonce = getNonce(nonceID);
-        if (nonce == null) return null;
+            deleteNonce(connection, nonceID);
+            return nonce;
 
-        deleteNonce(nonceID);
-        return nonce;
+        } finally {
+            release(connection);
+        }
     }
 
-    private void deleteNonce(String nonceID) throws Exception {
+    private void deleteNonce(Connection connection, String nonceID) throws Exception {
 
         logger.info("Removing nonce " + nonceID);
 
@@ -368,20 +457,27 @@ public class PostgreSQLDatabase extends ACMEDatabase {
     @Override
     public void removeExpiredNonces(Date currentTime) throws Exception {
 
-        connect();
+        Connection connection = connect();
+        try {
+            while (true) {
+                logger.info("Getting expired nonces");
 
-        logger.info("Getting expired nonces");
+                Collection<String> nonceIDs = getExpiredNonceIDs(connection, currentTime);
+                if (nonceIDs.isEmpty()) break;
 
-        Collection<String> nonceIDs = getExpiredNonceIDs(currentTime);
+                logger.info("Removing " + nonceIDs.size() + " expired nonces");
 
-        logger.info("Removing expired nonces");
+                int rows = executeBatch(connection, "removeNonce", nonceIDs);
 
-        for (String nonceID : nonceIDs) {
-            deleteNonce(nonceID);
+                if (rows == 0 || nonceIDs.size() < cleanupBatchSize) break;
+            }
+
+        } finally {
+            release(connection);
         }
     }
 
-    private Collection<String> getExpiredNonceIDs(Date currentTime) throws Exception {
+    private Collection<String> getExpiredNonceIDs(Connection connection, Date currentTime) throws Exception {
 
         String sql = statements.getProperty("getExpiredNonceIDs");
         logger.info("SQL: " + sql);
@@ -389,6 +485,7 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         Collection<String> nonces = new ArrayList<>();
 
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setMaxRows(cleanupBatchSize);
             ps.setTimestamp(1, new Timestamp(currentTime.getTime()), UTC);
 
             try (ResultSet rs = ps.executeQuery()) {
@@ -406,42 +503,46 @@ public class PostgreSQLDatabase extends ACMEDatabase {
     @Override
     public ACMEAccount getAccount(String accountID) throws Exception {
 
-        connect();
+        Connection connection = connect();
+        try {
+            logger.info("Getting account " + accountID);
 
-        logger.info("Getting account " + accountID);
-
-        String sql = statements.getProperty("getAccount");
-        logger.info("SQL: " + sql);
+            String sql = statements.getProperty("getAccount");
+            logger.info("SQL: " + sql);
 
-        ACMEAccount account = new ACMEAccount();
+            ACMEAccount account = new ACMEAccount();
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, accountID);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setString(1, accountID);
 
-            try (ResultSet rs = ps.executeQuery()) {
+                try (ResultSet rs = ps.executeQuery()) {
 
-                if (!rs.next()) {
-                    return null;
-                }
+                    if (!rs.next()) {
+                        return null;
+                    }
 
-                account.setID(accountID);
+                    account.setID(accountID);
 
-                Timestamp created = rs.getTimestamp("created");
-                account.setCreationTime(new Date(created.getTime()));
+                    Timestamp created = rs.getTimestamp("created");
+                    account.setCreationTime(new Date(created.getTime()));
 
-                account.setStatus(rs.getString("status"));
+                    account.setStatus(rs.getString("status"));
 
-                String jwk = rs.getString("jwk");
-                account.setJWK(JWK.fromJSON(jwk));
+                    String jwk = rs.getString("jwk");
+                    account.setJWK(JWK.fromJSON(jwk));
+                }
             }
-        }
 
-        getAccountContacts(account);
+            getAccountContacts(connection, account);
 
-        return account;
+            return account;
+
+        } finally {
+            release(connection);
+        }
     }
 
-    private void getAccountContacts(ACMEAccount account) throws Exception {
+    private void getAccountContacts(Connection connection, ACMEAccount account) throws Exception {
 
         String accountID = account.getID();
         logger.info("Getting contacts for " + accountID);
@@ -471,54 +572,70 @@ public class PostgreSQLDatabase extends ACMEDatabase {
     @Override
     public void addAccount(ACMEAccount account) throws Exception {
 
-        connect();
+        Connection connection = connect();
+        try {
+            connection.setAutoCommit(false);
 
-        String accountID = account.getID();
-        logger.info("Adding account " + accountID);
+            String accountID = account.getID();
+            logger.info("Adding account " + accountID);
 
-        String sql = statements.getProperty("addAccount");
-        logger.info("SQL: " + sql);
+            String sql = statements.getProperty("addAccount");
+            logger.info("SQL: " + sql);
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
 
-            ps.setString(1, accountID);
+                ps.setString(1, accountID);
 
-            Date creationTime = account.getCreationTime();
-            ps.setTimestamp(2, creationTime == null ? null : new Timestamp(creationTime.getTime()), UTC);
+                Date creationTime = account.getCreationTime();
+                ps.setTimestamp(2, creationTime == null ? null : new Timestamp(creationTime.getTime()), UTC);
 
-            ps.setString(3, account.getStatus());
-            ps.setString(4, account.getJWK().toJSON());
+                ps.setString(3, account.getStatus());
+                ps.setString(4, account.getJWK().toJSON());
 
-            ps.executeUpdate();
-        }
+                ps.executeUpdate();
+            }
 
-        addAccountContacts(account);
+            addAccountContacts(connection, account);
+
+            connection.commit();
+
+        } finally {
+            release(connection);
+        }
     }
 
     @Override
     public void updateAccount(ACMEAccount account) throws Exception {
 
-        connect();
+        Connection connection = connect();
+        try {
+            connection.setAutoCommit(false);
 
-        String accountID = account.getID();
-        logger.info("Updating account " + accountID);
+            String accountID = account.getID();
+            logger.info("Updating account " + accountID);
 
-        String sql = statements.getProperty("updateAccount");
-        logger.info("SQL: " + sql);
+            String sql = statements.getProperty("updateAccount");
+            logger.info("SQL: " + sql);
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
 
-            ps.setString(1, account.getStatus());
-            ps.setString(2, accountID);
+                ps.setString(1, account.getStatus());
+                ps.setString(2, accountID);
 
-            ps.executeUpdate();
-        }
+                ps.executeUpdate();
+            }
+
+            removeAccountContacts(connection, accountID);
+            addAccountContacts(connection, account);
 
-        removeAccountContacts(accountID);
-        addAccountContacts(account);
+            connection.commit();
+
+        } finally {
+            release(connection);
+        }
     }
 
-    private void addAccountContacts(ACMEAccount account) throws Exception {
+    private void addAccountContacts(Connection connection, ACMEAccount account) throws Exception {
 
         String[] contacts = account.getContact();
         if (contacts == null) return;
@@ -536,12 +653,14 @@ public class PostgreSQLDatabase extends ACMEDatabase {
                 ps.setString(1, accountID);
                 ps.setString(2, contact);
 
-                ps.executeUpdate();
+                ps.addBatch();
             }
+
+            ps.executeBatch();
         }
     }
 
-    private void removeAccountContacts(String accountID) throws Exception {
+    private void removeAccountContacts(Connection connection, String accountID) throws Exception {
 
         logger.info("Removing contacts for account " + accountID);
 
@@ -559,203 +678,219 @@ public class PostgreSQLDatabase extends ACMEDatabase {
     @Override
     public ACMEOrder getOrder(String orderID) throws Exception {
 
-        connect();
-
-        logger.info("Getting order " + orderID);
+        Connection connection = connect();
+        try {
+            logger.info("Getting order " + orderID);
 
-        String sql = statements.getProperty("getOrder");
-        logger.info("SQL: " + sql);
+            String sql = statements.getProperty("getOrder");
+            logger.info("SQL: " + sql);
 
-        ACMEOrder order = new ACMEOrder();
+            ACMEOrder order = new ACMEOrder();
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, orderID);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setString(1, orderID);
 
-            try (ResultSet rs = ps.executeQuery()) {
+                try (ResultSet rs = ps.executeQuery()) {
 
-                if (!rs.next()) {
-                    return null;
-                }
+                    if (!rs.next()) {
+                        return null;
+                    }
 
-                order.setID(orderID);
-                order.setAccountID(rs.getString("account_id"));
+                    order.setID(orderID);
+                    order.setAccountID(rs.getString("account_id"));
 
-                Timestamp created = rs.getTimestamp("created");
-                order.setCreationTime(created == null ? null : new Date(created.getTime()));
+                    Timestamp created = rs.getTimestamp("created");
+                    order.setCreationTime(created == null ? null : new Date(created.getTime()));
 
-                order.setStatus(rs.getString("status"));
+                    order.setStatus(rs.getString("status"));
 
-                Timestamp expires = rs.getTimestamp("expires");
-                order.setExpirationTime(expires == null ? null : new Date(expires.getTime()));
+                    Timestamp expires = rs.getTimestamp("expires");
+                    order.setExpirationTime(expires == null ? null : new Date(expires.getTime()));
 
-                Timestamp notBefore = rs.getTimestamp("not_before");
-                order.setNotBeforeTime(notBefore == null ? null : new Date(notBefore.getTime()));
+                    Timestamp notBefore = rs.getTimestamp("not_before");
+                    order.setNotBeforeTime(notBefore == null ? null : new Date(notBefore.getTime()));
 
-                Timestamp notAfter = rs.getTimestamp("not_after");
-                order.setNotAfterTime(notAfter == null ? null : new Date(notAfter.getTime()));
+                    Timestamp notAfter = rs.getTimestamp("not_after");
+                    order.setNotAfterTime(notAfter == null ? null : new Date(notAfter.getTime()));
 
-                order.setCertID(rs.getString("cert_id"));
+                    order.setCertID(rs.getString("cert_id"));
+                }
             }
-        }
 
-        getOrderIdentifiers(order);
-        getOrderAuthorizations(order);
+            getOrderIdentifiers(connection, order);
+            getOrderAuthorizations(connection, order);
 
-        return order;
+            return order;
+
+        } finally {
+            release(connection);
+        }
     }
 
     @Override
     public Collection<ACMEOrder> getOrdersByAccount(String accountID) throws Exception {
 
-        connect();
+        Connection connection = connect();
+        try {
+            logger.info("Getting orders for account " + accountID);
 
-        logger.info("Getting orders for account " + accountID);
+            String sql = statements.getProperty("getOrdersByAccount");
+            logger.info("SQL: " + sql);
 
-        String sql = statements.getProperty("getOrdersByAccount");
-        logger.info("SQL: " + sql);
+            Collection<ACMEOrder> orders = new ArrayList<>();
 
-        Collection<ACMEOrder> orders = new ArrayList<>();
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setString(1, accountID);
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, accountID);
+                try (ResultSet rs = ps.executeQuery()) {
 
-            try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        ACMEOrder order = new ACMEOrder();
+                        order.setID(rs.getString("id"));
+                        order.setAccountID(accountID);
 
-                while (rs.next()) {
-                    ACMEOrder order = new ACMEOrder();
-                    order.setID(rs.getString("id"));
-                    order.setAccountID(accountID);
+                        Timestamp created = rs.getTimestamp("created");
+                        order.setCreationTime(created == null ? null : new Date(created.getTime()));
 
-                    Timestamp created = rs.getTimestamp("created");
-                    order.setCreationTime(created == null ? null : new Date(created.getTime()));
+                        order.setStatus(rs.getString("status"));
 
-                    order.setStatus(rs.getString("status"));
+                        Timestamp expires = rs.getTimestamp("expires");
+                        order.setExpirationTime(expires == null ? null : new Date(expires.getTime()));
 
-                    Timestamp expires = rs.getTimestamp("expires");
-                    order.setExpirationTime(expires == null ? null : new Date(expires.getTime()));
+                        Timestamp notBefore = rs.getTimestamp("not_before");
+                        order.setNotBeforeTime(notBefore == null ? null : new Date(notBefore.getTime()));
 
-                    Timestamp notBefore = rs.getTimestamp("not_before");
-                    order.setNotBeforeTime(notBefore == null ? null : new Date(notBefore.getTime()));
+                        Timestamp notAfter = rs.getTimestamp("not_after");
+                        order.setNotAfterTime(notAfter == null ? null : new Date(notAfter.getTime()));
 
-                    Timestamp notAfter = rs.getTimestamp("not_after");
-                    order.setNotAfterTime(notAfter == null ? null : new Date(notAfter.getTime()));
-
-                    order.setCertID(rs.getString("cert_id"));
+                        order.setCertID(rs.getString("cert_id"));
 
-                    getOrderIdentifiers(order);
-                    getOrderAuthorizations(order);
+                        getOrderIdentifiers(connection, order);
+                        getOrderAuthorizations(connection, order);
 
-                    orders.add(order);
+                        orders.add(order);
+                    }
                 }
             }
-        }
 
-        return orders;
+            return orders;
+
+        } finally {
+            release(connection);
+        }
     }
 
     @Override
     public Collection<ACMEOrder> getOrdersByAuthorizationAndStatus(String authzID, String status)
             throws Exception {
 
-        connect();
-
-        logger.info("Getting " + status + " orders for authorization " + authzID);
+        Connection connection = connect();
+        try {
+            logger.info("Getting " + status + " orders for authorization " + authzID);
 
-        String sql = statements.getProperty("getOrdersByAuthorizationAndStatus");
-        logger.info("SQL: " + sql);
+            String sql = statements.getProperty("getOrdersByAuthorizationAndStatus");
+            logger.info("SQL: " + sql);
 
-        Collection<ACMEOrder> orders = new ArrayList<>();
+            Collection<ACMEOrder> orders = new ArrayList<>();
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, authzID);
-            ps.setString(2, status);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setString(1, authzID);
+                ps.setString(2, status);
 
-            try (ResultSet rs = ps.executeQuery()) {
+                try (ResultSet rs = ps.executeQuery()) {
 
-                while (rs.next()) {
-                    ACMEOrder order = new ACMEOrder();
-                    order.setID(rs.getString("id"));
-                    order.setAccountID(rs.getString("account_id"));
+                    while (rs.next()) {
+                        ACMEOrder order = new ACMEOrder();
+                        order.setID(rs.getString("id"));
+                        order.setAccountID(rs.getString("account_id"));
 
-                    Timestamp created = rs.getTimestamp("created");
-                    order.setCreationTime(created == null ? null : new Date(created.getTime()));
+                        Timestamp created = rs.getTimestamp("created");
+                        order.setCreationTime(created == null ? null : new Date(created.getTime()));
 
-                    order.setStatus(rs.getString("status"));
+                        order.setStatus(rs.getString("status"));
 
-                    Timestamp expires = rs.getTimestamp("expires");
-                    order.setExpirationTime(expires == null ? null : new Date(expires.getTime()));
+                        Timestamp expires = rs.getTimestamp("expires");
+                        order.setExpirationTime(expires == null ? null : new Date(expires.getTime()));
 
-                    Timestamp notBefore = rs.getTimestamp("not_before");
-                    order.setNotBeforeTime(notBefore == null ? null : new Date(notBefore.getTime()));
+                        Timestamp notBefore = rs.getTimestamp("not_before");
+                        order.setNotBeforeTime(notBefore == null ? null : new Date(notBefore.getTime()));
 
-                    Timestamp notAfter = rs.getTimestamp("not_after");
-                    order.setNotAfterTime(notAfter == null ? null : new Date(notAfter.getTime()));
+                        Timestamp notAfter = rs.getTimestamp("not_after");
+                        order.setNotAfterTime(notAfter == null ? null : new Date(notAfter.getTime()));
 
-                    order.setCertID(rs.getString("cert_id"));
+                        order.setCertID(rs.getString("cert_id"));
 
-                    getOrderIdentifiers(order);
-                    getOrderAuthorizations(order);
+                        getOrderIdentifiers(connection, order);
+                        getOrderAuthorizations(connection, order);
 
-                    orders.add(order);
+                        orders.add(order);
+                    }
                 }
             }
-        }
 
-        return orders;
+            return orders;
+
+        } finally {
+            release(connection);
+        }
     }
 
     @Override
     public ACMEOrder getOrderByCertificate(String certID) throws Exception {
 
-        connect();
-
-        logger.info("Getting order for certificate " + certID);
+        Connection connection = connect();
+        try {
+            logger.info("Getting order for certificate " + certID);
 
-        String sql = statements.getProperty("getOrderByCertificate");
-        logger.info("SQL: " + sql);
+            String sql = statements.getProperty("getOrderByCertificate");
+            logger.info("SQL: " + sql);
 
-        ACMEOrder order = new ACMEOrder();
+            ACMEOrder order = new ACMEOrder();
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, certID);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setString(1, certID);
 
-            try (ResultSet rs = ps.executeQuery()) {
+                try (ResultSet rs = ps.executeQuery()) {
 
-                if (!rs.next()) {
-                    // no order found
-                    return null;
-                }
+                    if (!rs.next()) {
+                        // no order found
+                        return null;
+                    }
 
-                // order found
+                    // order found
 
-                order.setID(rs.getString("id"));
-                order.setAccountID(rs.getString("account_id"));
+                    order.setID(rs.getString("id"));
+                    order.setAccountID(rs.getString("account_id"));
 
-                Timestamp created = rs.getTimestamp("created");
-                order.setCreationTime(created == null ? null : new Date(created.getTime()));
+                    Timestamp created = rs.getTimestamp("created");
+                    order.setCreationTime(created == null ? null : new Date(created.getTime()));
 
-                order.setStatus(rs.getString("status"));
+                    order.setStatus(rs.getString("status"));
 
-                Timestamp expires = rs.getTimestamp("expires");
-                order.setExpirationTime(expires == null ? null : new Date(expires.getTime()));
+                    Timestamp expires = rs.getTimestamp("expires");
+                    order.setExpirationTime(expires == null ? null : new Date(expires.getTime()));
 
-                Timestamp notBefore = rs.getTimestamp("not_before");
-                order.setNotBeforeTime(notBefore == null ? null : new Date(notBefore.getTime()));
+                    Timestamp notBefore = rs.getTimestamp("not_before");
+                    order.setNotBeforeTime(notBefore == null ? null : new Date(notBefore.getTime()));
 
-                Timestamp notAfter = rs.getTimestamp("not_after");
-                order.setNotAfterTime(notAfter == null ? null : new Date(notAfter.getTime()));
+                    Timestamp notAfter = rs.getTimestamp("not_after");
+                    order.setNotAfterTime(notAfter == null ? null : new Date(notAfter.getTime()));
 
-                order.setCertID(certID);
+                    order.setCertID(certID);
+                }
             }
-        }
 
-        getOrderIdentifiers(order);
-        getOrderAuthorizations(order);
+            getOrderIdentifiers(connection, order);
+            getOrderAuthorizations(connection, order);
+
+            return order;
 
-        return order;
+        } finally {
+            release(connection);
+        }
     }
 
-    private Collection<String> getExpiredOrderIDs(Date currentTime) throws Exception {
+    private Collection<String> getExpiredOrderIDs(Connection connection, Date currentTime) throws Exception {
 
         String sql = statements.getProperty("getExpiredOrderIDs");
         logger.info("SQL: " + sql);
@@ -763,6 +898,7 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         Collection<String> orderIDs = new ArrayList<>();
 
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setMaxRows(cleanupBatchSize);
             ps.setTimestamp(1, new Timestamp(currentTime.getTime()), UTC);
 
             try (ResultSet rs = ps.executeQuery()) {
@@ -777,7 +913,7 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         return orderIDs;
     }
 
-    private void getOrderIdentifiers(ACMEOrder order) throws Exception {
+    private void getOrderIdentifiers(Connection connection, ACMEOrder order) throws Exception {
 
         String orderID = order.getID();
         logger.info("Getting identifiers for order " + orderID);
@@ -806,7 +942,7 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         }
     }
 
-    private void getOrderAuthorizations(ACMEOrder order) throws Exception {
+    private void getOrderAuthorizations(Connection connection, ACMEOrder order) throws Exception {
 
         String orderID = order.getID();
         logger.info("Getting authorizations for order " + orderID);
@@ -836,43 +972,51 @@ public class PostgreSQLDatabase extends ACMEDatabase {
     @Override
     public void addOrder(ACMEOrder order) throws Exception {
 
-        connect();
+        Connection connection = connect();
+        try {
+            connection.setAutoCommit(false);
 
-        String orderID = order.getID();
-        logger.info("Adding order " + orderID);
+            String orderID = order.getID();
+            logger.info("Adding order " + orderID);
 
-        String sql = statements.getProperty("addOrder");
-        logger.info("SQL: " + sql);
+            String sql = statements.getProperty("addOrder");
+            logger.info("SQL: " + sql);
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
 
-            ps.setString(1, orderID);
-            ps.setString(2, order.getAccountID());
+                ps.setString(1, orderID);
+                ps.setString(2, order.getAccountID());
 
-            Date creationTime = order.getCreationTime();
-            ps.setTimestamp(3, creationTime == null ? null : new Timestamp(creationTime.getTime()), UTC);
+                Date creationTime = order.getCreationTime();
+                ps.setTimestamp(3, creationTime == null ? null : new Timestamp(creationTime.getTime()), UTC);
 
-            ps.setString(4, order.getStatus());
+                ps.setString(4, order.getStatus());
 
-            Date expirationTime = order.getExpirationTime();
-            ps.setTimestamp(5, expirationTime == null ? null : new Timestamp(expirationTime.getTime()), UTC);
+                Date expirationTime = order.getExpirationTime();
+                ps.setTimestamp(5, expirationTime == null ? null : new Timestamp(expirationTime.getTime()), UTC);
 
-            Date notBefore = order.getNotBeforeTime();
-            ps.setTimestamp(6, notBefore == null ? null : new Timestamp(notBefore.getTime()), UTC);
+                Date notBefore = order.getNotBeforeTime();
+                ps.setTimestamp(6, notBefore == null ? null : new Timestamp(notBefore.getTime()), UTC);
 
-            Date notAfter = order.getNotAfterTime();
-            ps.setTimestamp(7, notAfter == null ? null : new Timestamp(notAfter.getTime()), UTC);
+                Date notAfter = order.getNotAfterTime();
+                ps.setTimestamp(7, notAfter == null ? null : new Timestamp(notAfter.getTime()), UTC);
 
-            ps.setString(8, order.getCertID());
+                ps.setString(8, order.getCertID());
 
-            ps.executeUpdate();
-        }
+                ps.executeUpdate();
+            }
 
-        addOrderIdentifiers(order);
-        addOrderAuthorizations(order);
+            addOrderIdentifiers(connection, order);
+            addOrderAuthorizations(connection, order);
+
+            connection.commit();
+
+        } finally {
+            release(connection);
+        }
     }
 
-    private void addOrderIdentifiers(ACMEOrder order) throws Exception {
+    private void addOrderIdentifiers(Connection connection, ACMEOrder order) throws Exception {
 
         ACMEIdentifier[] identifiers = order.getIdentifiers();
         if (identifiers == null) return;
@@ -883,33 +1027,22 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         String sql = statements.getProperty("addOrderIdentifiers");
         logger.info("SQL: " + sql);
 
-        for (ACMEIdentifier identifier : identifiers) {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
 
-            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (ACMEIdentifier identifier : identifiers) {
 
                 ps.setString(1, orderID);
                 ps.setString(2, identifier.getType());
                 ps.setString(3, identifier.getValue());
 
-                ps.executeUpdate();
+                ps.addBatch();
             }
-        }
-    }
-
-    private void removeOrderIdentifiers(String orderID) throws Exception {
-
-        logger.info("Removing identifiers for order " + orderID);
 
-        String sql = statements.getProperty("removeOrderIdentifiers");
-        logger.info("SQL: " + sql);
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, orderID);
-            ps.executeUpdate();
+            ps.executeBatch();
         }
     }
 
-    private void addOrderAuthorizations(ACMEOrder order) throws Exception {
+    private void addOrderAuthorizations(Connection connection, ACMEOrder order) throws Exception {
 
         String[] authzIDs = order.getAuthzIDs();
         if (authzIDs == null) return;
@@ -927,176 +1060,177 @@ public class PostgreSQLDatabase extends ACMEDatabase {
                 ps.setString(1, orderID);
                 ps.setString(2, authzID);
 
-                ps.executeUpdate();
+                ps.addBatch();
             }
-        }
-    }
-
-    private void removeOrderAuthorizations(String orderID) throws Exception {
-
-        logger.info("Removing authorizations for order " + orderID);
 
-        String sql = statements.getProperty("removeOrderAuthorizations");
-        logger.info("SQL: " + sql);
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, orderID);
-            ps.executeUpdate();
+            ps.executeBatch();
         }
     }
 
     @Override
     public void updateOrder(ACMEOrder order) throws Exception {
 
-        connect();
+        Connection connection = connect();
+        try {
+            String orderID = order.getID();
+            logger.info("Updating order " + orderID);
 
-        String orderID = order.getID();
-        logger.info("Updating order " + orderID);
+            String sql = statements.getProperty("updateOrder");
+            logger.info("SQL: " + sql);
 
-        String sql = statements.getProperty("updateOrder");
-        logger.info("SQL: " + sql);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setString(1, order.getStatus());
+                ps.setString(2, order.getCertID());
 
-            ps.setString(1, order.getStatus());
-            ps.setString(2, order.getCertID());
+                Date expirationTime = order.getExpirationTime();
+                ps.setTimestamp(3, expirationTime == null ? null : new Timestamp(expirationTime.getTime()), UTC);
 
-            Date expirationTime = order.getExpirationTime();
-            ps.setTimestamp(3, expirationTime == null ? null : new Timestamp(expirationTime.getTime()), UTC);
+                ps.setString(4, orderID);
 
-            ps.setString(4, orderID);
+                ps.executeUpdate();
+            }
 
-            ps.executeUpdate();
+        } finally {
+            release(connection);
         }
     }
 
-    private void removeOrder(String orderID) throws Exception {
-
-        removeOrderIdentifiers(orderID);
-        removeOrderAuthorizations(orderID);
-
-        logger.info("Removing order " + orderID);
+    @Override
+    public void removeExpiredOrders(Date currentTime) throws Exception {
 
-        String sql = statements.getProperty("removeOrder");
-        logger.info("SQL: " + sql);
+        Connection connection = connect();
+        try {
+            while (true) {
+                logger.info("Getting expired order IDs");
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, orderID);
-            ps.executeUpdate();
-        }
-    }
+                Collection<String> orderIDs = getExpiredOrderIDs(connection, currentTime);
+                if (orderIDs.isEmpty()) break;
 
-    @Override
-    public void removeExpiredOrders(Date currentTime) throws Exception {
+                logger.info("Removing " + orderIDs.size() + " expired orders");
 
-        connect();
+                // remove the orders with their identifiers and
+                // authorizations in a single transaction
+                connection.setAutoCommit(false);
 
-        logger.info("Getting expired order IDs");
+                executeBatch(connection, "removeOrderIdentifiers", orderIDs);
+                executeBatch(connection, "removeOrderAuthorizations", orderIDs);
+                int rows = executeBatch(connection, "removeOrder", orderIDs);
 
-        Collection<String> orderIDs = getExpiredOrderIDs(currentTime);
+                connection.commit();
+                connection.setAutoCommit(true);
 
-        logger.info("Removing expired orders");
+                if (rows == 0 || orderIDs.size() < cleanupBatchSize) break;
+            }
 
-        for (String orderID : orderIDs) {
-            removeOrder(orderID);
+        } finally {
+            release(connection);
         }
     }
 
     @Override
     public ACMEAuthorization getAuthorization(String authzID) throws Exception {
 
-        connect();
+        Connection connection = connect();
+        try {
+            logger.info("Getting authorization " + authzID);
 
-        logger.info("Getting authorization " + authzID);
+            String sql = statements.getProperty("getAuthorization");
+            logger.info("SQL: " + sql);
 
-        String sql = statements.getProperty("getAuthorization");
-        logger.info("SQL: " + sql);
+            ACMEAuthorization authorization = new ACMEAuthorization();
 
-        ACMEAuthorization authorization = new ACMEAuthorization();
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setString(1, authzID);
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, authzID);
+                try (ResultSet rs = ps.executeQuery()) {
 
-            try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
 
-                if (!rs.next()) {
-                    return null;
-                }
+                    authorization.setID(authzID);
+                    authorization.setAccountID(rs.getString("account_id"));
 
-                authorization.setID(authzID);
-                authorization.setAccountID(rs.getString("account_id"));
-
-                Timestamp created = rs.getTimestamp("created");
-                authorization.setCreationTime(created == null ? null : new Date(created.getTime()));
+                    Timestamp created = rs.getTimestamp("created");
+                    authorization.setCreationTime(created == null ? null : new Date(created.getTime()));
 
-                authorization.setStatus(rs.getString("status"));
+                    authorization.setStatus(rs.getString("status"));
 
-                Timestamp expires = rs.getTimestamp("expires");
-                authorization.setExpirationTime(expires == null ? null : new Date(expires.getTime()));
+                    Timestamp expires = rs.getTimestamp("expires");
+                    authorization.setExpirationTime(expires == null ? null : new Date(expires.getTime()));
 
-                ACMEIdentifier identifier = new ACMEIdentifier();
-                identifier.setType(rs.getString("identifier_type"));
-                identifier.setValue(rs.getString("identifier_value"));
-                authorization.setIdentifier(identifier);
+                    ACMEIdentifier identifier = new ACMEIdentifier();
+                    identifier.setType(rs.getString("identifier_type"));
+                    identifier.setValue(rs.getString("identifier_value"));
+                    authorization.setIdentifier(identifier);
 
-                boolean wildcard = rs.getBoolean("wildcard");
-                authorization.setWildcard(wildcard ? true : null);
+                    boolean wildcard = rs.getBoolean("wildcard");
+                    authorization.setWildcard(wildcard ? true : null);
+                }
             }
-        }
 
-        getAuthorizationChallenges(authorization);
+            getAuthorizationChallenges(connection, authorization);
+
+            return authorization;
 
-        return authorization;
+        } finally {
+            release(connection);
+        }
     }
 
     @Override
     public ACMEAuthorization getAuthorizationByChallenge(String challengeID) throws Exception {
 
-        connect();
+        Connection connection = connect();
+        try {
+            logger.info("Getting authorization for challenge " + challengeID);
 
-        logger.info("Getting authorization for challenge " + challengeID);
-
-        String sql = statements.getProperty("getAuthorizationByChallenge");
-        logger.info("SQL: " + sql);
+            String sql = statements.getProperty("getAuthorizationByChallenge");
+            logger.info("SQL: " + sql);
 
-        ACMEAuthorization authorization = new ACMEAuthorization();
+            ACMEAuthorization authorization = new ACMEAuthorization();
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, challengeID);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setString(1, challengeID);
 
-            try (ResultSet rs = ps.executeQuery()) {
+                try (ResultSet rs = ps.executeQuery()) {
 
-                if (!rs.next()) {
-                    return null;
-                }
+                    if (!rs.next()) {
+                        return null;
+                    }
 
-                authorization.setID(rs.getString("id"));
-                authorization.setAccountID(rs.getString("account_id"));
+                    authorization.setID(rs.getString("id"));
+                    authorization.setAccountID(rs.getString("account_id"));
 
-                Timestamp created = rs.getTimestamp("created");
-                authorization.setCreationTime(created == null ? null : new Date(created.getTime()));
+                    Timestamp created = rs.getTimestamp("created");
+                    authorization.setCreationTime(created == null ? null : new Date(created.getTime()));
 
-                authorization.setStatus(rs.getString("status"));
+                    authorization.setStatus(rs.getString("status"));
 
-                Timestamp expires = rs.getTimestamp("expires");
-                authorization.setExpirationTime(expires == null ? null : new Date(expires.getTime()));
+                    Timestamp expires = rs.getTimestamp("expires");
+                    authorization.setExpirationTime(expires == null ? null : new Date(expires.getTime()));
 
-                ACMEIdentifier identifier = new ACMEIdentifier();
-                identifier.setType(rs.getString("identifier_type"));
-                identifier.setValue(rs.getString("identifier_value"));
-                authorization.setIdentifier(identifier);
+                    ACMEIdentifier identifier = new ACMEIdentifier();
+                    identifier.setType(rs.getString("identifier_type"));
+                    identifier.setValue(rs.getString("identifier_value"));
+                    authorization.setIdentifier(identifier);
 
-                boolean wildcard = rs.getBoolean("wildcard");
-                authorization.setWildcard(wildcard ? true : null);
+                    boolean wildcard = rs.getBoolean("wildcard");
+                    authorization.setWildcard(wildcard ? true : null);
+                }
             }
-        }
 
-        getAuthorizationChallenges(authorization);
+            getAuthorizationChallenges(connection, authorization);
+
+            return authorization;
 
-        return authorization;
+        } finally {
+            release(connection);
+        }
     }
 
-    private Collection<String> getExpiredAuthorizationIDs(Date currentTime) throws Exception {
+    private Collection<String> getExpiredAuthorizationIDs(Connection connection, Date currentTime) throws Exception {
 
         String sql = statements.getProperty("getExpiredAuthorizationIDs");
         logger.info("SQL: " + sql);
@@ -1104,6 +1238,7 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         Collection<String> authzIDs = new ArrayList<>();
 
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setMaxRows(cleanupBatchSize);
             ps.setTimestamp(1, new Timestamp(currentTime.getTime()), UTC);
 
             try (ResultSet rs = ps.executeQuery()) {
@@ -1121,55 +1256,59 @@ public class PostgreSQLDatabase extends ACMEDatabase {
     @Override
     public Collection<ACMEAuthorization> getRevocationAuthorizations(String accountID, Date time) throws Exception {
 
-        connect();
+        Connection connection = connect();
+        try {
+            logger.info("Getting authorizations for account " + accountID);
 
-        logger.info("Getting authorizations for account " + accountID);
+            String sql = statements.getProperty("getRevocationAuthorizations");
+            logger.info("SQL: " + sql);
 
-        String sql = statements.getProperty("getRevocationAuthorizations");
-        logger.info("SQL: " + sql);
+            Collection<ACMEAuthorization> authorizations = new ArrayList<>();
 
-        Collection<ACMEAuthorization> authorizations = new ArrayList<>();
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setString(1, accountID);
+                ps.setTimestamp(2, new Timestamp(time.getTime()), UTC);
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, accountID);
-            ps.setTimestamp(2, new Timestamp(time.getTime()), UTC);
+                try (ResultSet rs = ps.executeQuery()) {
 
-            try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
 
-                while (rs.next()) {
+                        ACMEAuthorization authorization = new ACMEAuthorization();
 
-                    ACMEAuthorization authorization = new ACMEAuthorization();
+                        authorization.setID(rs.getString("id"));
+                        authorization.setAccountID(accountID);
 
-                    authorization.setID(rs.getString("id"));
-                    authorization.setAccountID(accountID);
+                        Timestamp created = rs.getTimestamp("created");
+                        authorization.setCreationTime(created == null ? null : new Date(created.getTime()));
 
-                    Timestamp created = rs.getTimestamp("created");
-                    authorization.setCreationTime(created == null ? null : new Date(created.getTime()));
+                        authorization.setStatus(rs.getString("status"));
 
-                    authorization.setStatus(rs.getString("status"));
+                        Timestamp expires = rs.getTimestamp("expires");
+                        authorization.setExpirationTime(expires == null ? null : new Date(expires.getTime()));
 
-                    Timestamp expires = rs.getTimestamp("expires");
-                    authorization.setExpirationTime(expires == null ? null : new Date(expires.getTime()));
+                        ACMEIdentifier identifier = new ACMEIdentifier();
+                        identifier.setType(rs.getString("identifier_type"));
+                        identifier.setValue(rs.getString("identifier_value"));
+                        authorization.setIdentifier(identifier);
 
-                    ACMEIdentifier identifier = new ACMEIdentifier();
-                    identifier.setType(rs.getString("identifier_type"));
-                    identifier.setValue(rs.getString("identifier_value"));
-                    authorization.setIdentifier(identifier);
+                        boolean wildcard = rs.getBoolean("wildcard");
+                        authorization.setWildcard(wildcard ? true : null);
 
-                    boolean wildcard = rs.getBoolean("wildcard");
-                    authorization.setWildcard(wildcard ? true : null);
-
-                    getAuthorizationChallenges(authorization);
+                        getAuthorizationChallenges(connection, authorization);
 
-                    authorizations.add(authorization);
+                        authorizations.add(authorization);
+                    }
                 }
             }
-        }
 
-        return authorizations;
+            return authorizations;
+
+        } finally {
+            release(connection);
+        }
     }
 
-    private void getAuthorizationChallenges(ACMEAuthorization authorization) throws Exception {
+    private void getAuthorizationChallenges(Connection connection, ACMEAuthorization authorization) throws Exception {
 
         String authzID = authorization.getID();
         logger.info("Getting challenges for authorization " + authzID);
@@ -1209,68 +1348,84 @@ public class PostgreSQLDatabase extends ACMEDatabase {
     @Override
     public void addAuthorization(ACMEAuthorization authorization) throws Exception {
 
-        connect();
+        Connection connection = connect();
+        try {
+            connection.setAutoCommit(false);
 
-        String authzID = authorization.getID();
-        logger.info("Adding authorization " + authzID);
+            String authzID = authorization.getID();
+            logger.info("Adding authorization " + authzID);
 
-        String sql = statements.getProperty("addAuthorization");
-        logger.info("SQL: " + sql);
+            String sql = statements.getProperty("addAuthorization");
+            logger.info("SQL: " + sql);
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
 
-            ps.setString(1, authzID);
-            ps.setString(2, authorization.getAccountID());
+                ps.setString(1, authzID);
+                ps.setString(2, authorization.getAccountID());
 
-            Date creationTime = authorization.getCreationTime();
-            ps.setTimestamp(3, creationTime == null ? null : new Timestamp(creationTime.getTime()), UTC);
+                Date creationTime = authorization.getCreationTime();
+                ps.setTimestamp(3, creationTime == null ? null : new Timestamp(creationTime.getTime()), UTC);
 
-            ps.setString(4, authorization.getStatus());
+                ps.setString(4, authorization.getStatus());
 
-            Date expirationTime = authorization.getExpirationTime();
-            ps.setTimestamp(5, expirationTime == null ? null : new Timestamp(expirationTime.getTime()), UTC);
+                Date expirationTime = authorization.getExpirationTime();
+                ps.setTimestamp(5, expirationTime == null ? null : new Timestamp(expirationTime.getTime()), UTC);
 
-            ACMEIdentifier identifier = authorization.getIdentifier();
-            ps.setString(6, identifier.getType());
-            ps.setString(7, identifier.getValue());
+                ACMEIdentifier identifier = authorization.getIdentifier();
+                ps.setString(6, identifier.getType());
+                ps.setString(7, identifier.getValue());
 
-            Boolean wildcard = authorization.getWildcard();
-            ps.setBoolean(8, wildcard == null ? false : wildcard);
+                Boolean wildcard = authorization.getWildcard();
+                ps.setBoolean(8, wildcard == null ? false : wildcard);
 
-            ps.executeUpdate();
-        }
+                ps.executeUpdate();
+            }
+
+            addAuthorizationChallenges(connection, authorization);
+
+            connection.commit();
 
-        addAuthorizationChallenges(authorization);
+        } finally {
+            release(connection);
+        }
     }
 
     @Override
     public void updateAuthorization(ACMEAuthorization authorization) throws Exception {
 
-        connect();
+        Connection connection = connect();
+        try {
+            connection.setAutoCommit(false);
 
-        String authzID = authorization.getID();
-        logger.info("Updating authorization " + authzID);
+            String authzID = authorization.getID();
+            logger.info("Updating authorization " + authzID);
 
-        String sql = statements.getProperty("updateAuthorization");
-        logger.info("SQL: " + sql);
+            String sql = statements.getProperty("updateAuthorization");
+            logger.info("SQL: " + sql);
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
 
-            ps.setString(1, authorization.getStatus());
+                ps.setString(1, authorization.getStatus());
 
-            Date expirationTime = authorization.getExpirationTime();
-            ps.setTimestamp(2, expirationTime == null ? null : new Timestamp(expirationTime.getTime()), UTC);
+                Date expirationTime = authorization.getExpirationTime();
+                ps.setTimestamp(2, expirationTime == null ? null : new Timestamp(expirationTime.getTime()), UTC);
 
-            ps.setString(3, authzID);
+                ps.setString(3, authzID);
 
-            ps.executeUpdate();
-        }
+                ps.executeUpdate();
+            }
+
+            removeAuthorizationChallenges(connection, authzID);
+            addAuthorizationChallenges(connection, authorization);
 
-        removeAuthorizationChallenges(authzID);
-        addAuthorizationChallenges(authorization);
+            connection.commit();
+
+        } finally {
+            release(connection);
+        }
     }
 
-    private void removeAuthorizationChallenges(String authzID) throws Exception {
+    private void removeAuthorizationChallenges(Connection connection, String authzID) throws Exception {
 
         logger.info("Removing challenges for authorization " + authzID);
 
@@ -1283,7 +1438,7 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         }
     }
 
-    private void addAuthorizationChallenges(ACMEAuthorization authorization) throws Exception {
+    private void addAuthorizationChallenges(Connection connection, ACMEAuthorization authorization) throws Exception {
 
         Collection<ACMEChallenge> challenges = authorization.getChallenges();
         if (challenges == null) return;
@@ -1307,78 +1462,84 @@ public class PostgreSQLDatabase extends ACMEDatabase {
                 Date validationTime = challenge.getValidationTime();
                 ps.setTimestamp(6, validationTime == null ? null : new Timestamp(validationTime.getTime()), UTC);
 
-                ps.executeUpdate();
+                ps.addBatch();
             }
-        }
-    }
 
-    private void removeAuthorization(String authzID) throws Exception {
-
-        removeAuthorizationChallenges(authzID);
-
-        logger.info("Removing authorization " + authzID);
-
-        String sql = statements.getProperty("removeAuthorization");
-        logger.info("SQL: " + sql);
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, authzID);
-            ps.executeUpdate();
+            ps.executeBatch();
         }
     }
 
     @Override
     public void removeExpiredAuthorizations(Date currentTime) throws Exception {
 
-        connect();
+        Connection connection = connect();
+        try {
+            while (true) {
+                logger.info("Getting expired authorization IDs");
+
+                Collection<String> authzIDs = getExpiredAuthorizationIDs(connection, currentTime);
+                if (authzIDs.isEmpty()) break;
+
+                logger.info("Removing " + authzIDs.size() + " expired authorizations");
 
-        logger.info("Getting expired authorization IDs");
+                // remove the authorizations with their challenges
+                // in a single transaction
+                connection.setAutoCommit(false);
 
-        Collection<String> authzIDs = getExpiredAuthorizationIDs(currentTime);
+                executeBatch(connection, "removeAuthorizationChallenges", authzIDs);
+                int rows = executeBatch(connection, "removeAuthorization", authzIDs);
 
-        logger.info("Removing expired authorization");
+                connection.commit();
+                connection.setAutoCommit(true);
 
-        for (String authzID : authzIDs) {
-            removeAuthorization(authzID);
+                if (rows == 0 || authzIDs.size() < cleanupBatchSize) break;
+            }
+
+        } finally {
+            release(connection);
         }
     }
 
     @Override
     public ACMECertificate getCertificate(String certID) throws Exception {
 
-        connect();
-
-        logger.info("Getting certificate " + certID);
+        Connection connection = connect();
+        try {
+            logger.info("Getting certificate " + certID);
 
-        String sql = statements.getProperty("getCertificate");
-        logger.info("SQL: " + sql);
+            String sql = statements.getProperty("getCertificate");
+            logger.info("SQL: " + sql);
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, certID);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setString(1, certID);
 
-            try (ResultSet rs = ps.executeQuery()) {
+                try (ResultSet rs = ps.executeQuery()) {
 
-                if (!rs.next()) {
-                    return null;
-                }
+                    if (!rs.next()) {
+                        return null;
+                    }
 
-                ACMECertificate certificate = new ACMECertificate();
-                certificate.setID(certID);
+                    ACMECertificate certificate = new ACMECertificate();
+                    certificate.setID(certID);
 
-                Timestamp created = rs.getTimestamp("created");
-                certificate.setCreationTime(created == null ? null : new Date(created.getTime()));
+                    Timestamp created = rs.getTimestamp("created");
+                    certificate.setCreationTime(created == null ? null : new Date(created.getTime()));
 
-                certificate.setData(rs.getBytes("data"));
+                    certificate.setData(rs.getBytes("data"));
 
-                Timestamp expires = rs.getTimestamp("expires");
-                certificate.setExpirationTime(expires == null ? null : new Date(expires.getTime()));
+                    Timestamp expires = rs.getTimestamp("expires");
+                    certificate.setExpirationTime(expires == null ? null : new Date(expires.getTime()));
 
-                return certificate;
+                    return certificate;
+                }
             }
+
+        } finally {
+            release(connection);
         }
     }
 
-    private Collection<String> getExpiredCertificateIDs(Date currentTime) throws Exception {
+    private Collection<String> getExpiredCertificateIDs(Connection connection, Date currentTime) throws Exception {
 
         String sql = statements.getProperty("getExpiredCertificateIDs");
         logger.info("SQL: " + sql);
@@ -1386,6 +1547,7 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         Collection<String> certIDs = new ArrayList<>();
 
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setMaxRows(cleanupBatchSize);
             ps.setTimestamp(1, new Timestamp(currentTime.getTime()), UTC);
 
             try (ResultSet rs = ps.executeQuery()) {
@@ -1403,55 +1565,53 @@ public class PostgreSQLDatabase extends ACMEDatabase {
     @Override
     public void addCertificate(String certID, ACMECertificate certificate) throws Exception {
 
-        connect();
-
-        logger.info("Adding certificate " + certID);
-
-        String sql = statements.getProperty("addCertificate");
-        logger.info("SQL: " + sql);
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-
-            ps.setString(1, certID);
+        Connection connection = connect();
+        try {
+            logger.info("Adding certificate " + certID);
 
-            Date creationTime = certificate.getCreationTime();
-            ps.setTimestamp(2, creationTime == null ? null : new Timestamp(creationTime.getTime()), UTC);
+            String sql = statements.getProperty("addCertificate");
+            logger.info("SQL: " + sql);
 
-            ps.setBytes(3, certificate.getData());
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
 
-            Date expirationTime = certificate.getExpirationTime();
-            ps.setTimestamp(4, expirationTime == null ? null : new Timestamp(expirationTime.getTime()), UTC);
+                ps.setString(1, certID);
 
-            ps.executeUpdate();
-        }
-    }
+                Date creationTime = certificate.getCreationTime();
+                ps.setTimestamp(2, creationTime == null ? null : new Timestamp(creationTime.getTime()), UTC);
 
-    private void removeCertificate(String certID) throws Exception {
+                ps.setBytes(3, certificate.getData());
 
-        logger.info("Removing certificate " + certID);
+                Date expirationTime = certificate.getExpirationTime();
+                ps.setTimestamp(4, expirationTime == null ? null : new Timestamp(expirationTime.getTime()), UTC);
 
-        String sql = statements.getProperty("removeCertificate");
-        logger.info("SQL: " + sql);
+                ps.executeUpdate();
+            }
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, certID);
-            ps.executeUpdate();
+        } finally {
+            release(connection);
         }
     }
 
     @Override
     public void removeExpiredCertificates(Date currentTime) throws Exception {
 
-        connect();
+        Connection connection = connect();
+        try {
+            while (true) {
+                logger.info("Getting expired certificate IDs");
+
+                Collection<String> certIDs = getExpiredCertificateIDs(connection, currentTime);
+                if (certIDs.isEmpty()) break;
 
-        logger.info("Getting expired certificaate IDs");
+                logger.info("Removing " + certIDs.size() + " expired certificates");
 
-        Collection<String> certIDs = getExpiredCertificateIDs(currentTime);
+                int rows = executeBatch(connection, "removeCertificate", certIDs);
 
-        logger.info("Removing expired certificates");
+                if (rows == 0 || certIDs.size() < cleanupBatchSize) break;
+            }
 
-        for (String certID : certIDs) {
-            removeCertificate(certID);
+        } finally {
+            release(connection);
         }
     }
 
@@ -1462,8 +1622,8 @@ public class PostgreSQLDatabase extends ACMEDatabase {
             monitor.stop();
         }
 
-        if (connection != null) {
-            connection.close();
+        if (pool != null) {
+            pool.shutdown();
         }
     }
 }
@@ -32,7 +32,7 @@ import com.netscape.certsrv.cert.CertRequestInfos;
 import com.netscape.certsrv.cert.CertReviewResponse;
 import com.netscape.certsrv.cert.CertRevokeRequest;
 import com.netscape.certsrv.client.ClientConfig;
-import com.netscape.certsrv.client.PKIClient;
+import com.netscape.certsrv.client.PKIClientPool;
 import com.netscape.certsrv.dbs.certdb.CertId;
 import com.netscape.certsrv.profile.ProfileAttribute;
 import com.netscape.certsrv.profile.ProfileInput;
@@ -47,6 +47,7 @@ public class PKIIssuer extends ACMEIssuer {
     public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PKIIssuer.class);
 
     private ClientConfig clientConfig = new ClientConfig();
+    private PKIClientPool clientPool;
     private String profile;
 
     public String getProfile() {
@@ -108,6 +109,62 @@ public class PKIIssuer extends ACMEIssuer {
 
         profile = config.getParameter("profile");
         logger.info("- profile: " + profile);
+
+        clientPool = new PKIClientPool(clientConfig);
+
+        String maxConnections = config.getParameter("pool.maxConnections");
+        if (maxConnections != null) {
+            clientPool.setMaxClients(Integer.parseInt(maxConnections));
+        }
+
+        String maxWait = config.getParameter("pool.maxWait");
+        if (maxWait != null) {
+            clientPool.setMaxWait(Integer.parseInt(maxWait));
+        }
+
+        String idleTimeout = config.getParameter("pool.idleTimeout");
+        if (idleTimeout != null) {
+            clientPool.setIdleTimeout(Integer.parseInt(idleTimeout));
+        }
+
+        // Each client logs in once when it is created and then reuses
+        // the session for all requests it handles.
+        //
+        // Here the agent credentials are stored in the ClientConfig and will
+        // be sent to the CA automatically if any of the methods being called
+        // requires REST authentication. However, the methods being called
+        // depend on the cert profile being used.
+        //
+        // If the profile has an authenticator, the request can be completed
+        // with the following methods:
+        // - CACertClient.getEnrollmentTemplate()
+        // - CACertClient.enrollRequest()
+        //
+        // The above methods do not require REST authentication, but the
+        // profile still requires authentication, so the credentials must be
+        // provided either through the request itself (i.e. using profile
+        // authentication) or by calling CAClient.login() (i.e. using REST
+        // authentication).
+        //
+        // If the profile does not have an authenticator, the request must
+        // be reviewed and approved with the following additional methods:
+        // - CACertClient.reviewRequest()
+        // - CACertClient.approveRequest()
+        //
+        // The above methods do require REST authentication so in this case
+        // it's not actually necessary to call CAClient.login(). However, to
+        // support both types of profiles the CAClient.login() needs to be
+        // called explicitly.
+        clientPool.setInitializer(pkiClient -> new CAClient(pkiClient).login());
+
+        clientPool.init();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (clientPool != null) {
+            clientPool.close();
+        }
     }
 
     @Override
@@ -115,37 +172,11 @@ public class PKIIssuer extends ACMEIssuer {
 
         logger.info("Issuing certificate");
 
-        try (PKIClient pkiClient = new PKIClient(clientConfig)) {
+        return clientPool.execute(pkiClient -> {
 
+            // the client has logged in when it was created
             CAClient caClient = new CAClient(pkiClient);
 
-            // Here the agent credentials are stored in the ClientConfig and will
-            // be sent to the CA automatically if any of the methods being called
-            // requires REST authentication. However, the methods being called
-            // depend on the cert profile being used.
-            //
-            // If the profile has an authenticator, the request can be completed
-            // with the following methods:
-            // - CACertClient.getEnrollmentTemplate()
-            // - CACertClient.enrollRequest()
-            //
-            // The above methods do not require REST authentication, but the
-            // profile still requires authentication, so the credentials must be
-            // provided either through the request itself (i.e. using profile
-            // authentication) or by calling CAClient.login() (i.e. using REST
-            // authentication).
-            //
-            // If the profile does not have an authenticator, the request must
-            // be reviewed and approved with the following additional methods:
-            // - CACertClient.reviewRequest()
-            // - CACertClient.approveRequest()
-            //
-            // The above methods do require REST authentication so in this case
-            // it's not actually necessary to call CAClient.login(). However, to
-            // support both types of profiles the CAClient.login() needs to be
-            // called explicitly.
-            caClient.login();
-
             CACertClient certClient = new CACertClient(caClient);
             CertEnrollmentRequest certEnrollmentRequest = certClient.getEnrollmentTemplate(profile);
 
@@ -195,7 +226,7 @@ public class PKIIssuer extends ACMEIssuer {
             logger.info("Serial number: " + id.toHexString());
             BigInteger serialNumber = id.toBigInteger();
             return Base64.encodeBase64URLSafeString(serialNumber.toByteArray());
-        }
+        });
     }
 
     @Override
@@ -204,7 +235,7 @@ public class PKIIssuer extends ACMEIssuer {
         CertId id = new CertId(new BigInteger(1, Base64.decodeBase64(certID)));
         logger.info("Serial number: " + id.toHexString());
 
-        try (PKIClient pkiClient = new PKIClient(clientConfig)) {
+        return clientPool.execute(pkiClient -> {
 
             CAClient caClient = new CAClient(pkiClient);
             CACertClient certClient = new CACertClient(caClient);
@@ -234,7 +265,7 @@ public class PKIIssuer extends ACMEIssuer {
             }
 
             return sw.toString();
-        }
+        });
     }
 
     @Override
@@ -263,7 +294,7 @@ public class PKIIssuer extends ACMEIssuer {
 
         logger.info("Reviewing certificate");
 
-        try (PKIClient pkiClient = new PKIClient(clientConfig)) {
+        clientPool.execute(pkiClient -> {
 
             CAClient caClient = new CAClient(pkiClient);
             CACertClient certClient = new CACertClient(caClient);
@@ -302,6 +333,8 @@ public class PKIIssuer extends ACMEIssuer {
                 String error = certRequestInfo.getErrorMessage();
                 throw new Exception("Unable to revoke certificate: " + error);
             }
-        }
+
+            return null;
+        });
     }
 }
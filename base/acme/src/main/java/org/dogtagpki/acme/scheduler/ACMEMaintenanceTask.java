@@ -8,6 +8,7 @@ package org.dogtagpki.acme.scheduler;
 import java.util.Date;
 
 import org.dogtagpki.acme.server.ACMEEngine;
+import org.dogtagpki.acme.server.ACMEValidationExecutor;
 
 /**
  * @author Endi S. Dewata
@@ -25,5 +26,10 @@ public class ACMEMaintenanceTask extends ACMETask {
 
         ACMEEngine engine = ACMEEngine.getInstance();
         engine.removeExpiredRecords(currentTime);
+
+        ACMEValidationExecutor validationExecutor = engine.getValidationExecutor();
+        if (validationExecutor != null) {
+            logger.info("Challenge validation: " + validationExecutor);
+        }
     }
 }
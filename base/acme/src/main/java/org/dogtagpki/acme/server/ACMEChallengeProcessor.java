@@ -29,6 +29,9 @@ public class ACMEChallengeProcessor implements Runnable {
     ACMEChallenge challenge;
     ACMEValidator validator;
 
+    ACMEValidationExecutor executor;
+    int attempts;
+
     public ACMEChallengeProcessor(
             ACMEAccount account,
             ACMEAuthorization authorization,
@@ -41,6 +44,14 @@ public class ACMEChallengeProcessor implements Runnable {
         this.validator = validator;
     }
 
+    public String getChallengeID() {
+        return challenge.getID();
+    }
+
+    public void setExecutor(ACMEValidationExecutor executor) {
+        this.executor = executor;
+    }
+
     @Override
     public void run() {
         try {
@@ -50,28 +61,37 @@ public class ACMEChallengeProcessor implements Runnable {
         }
     }
 
+    /**
+     * Makes one validation attempt. If the attempt fails and there are
+     * attempts left, another attempt is scheduled with the executor.
+     * Otherwise the authorization is finalized.
+     */
     public void processChallenge() throws Exception {
 
         String challengeID = challenge.getID();
-        logger.info("Processing challenge " + challengeID);
-
-        // TODO make retry parameters configurable
-        int maxAttempts = 5;
-        int delaySeconds = 5;
-        int attempts = 0;
-        ValidationResult r = null;
-
-        while (attempts++ < maxAttempts) {
-            try {
-                r = validator.validateChallenge(authorization, challenge);
-            } catch (Exception e) {
-                ACMEError error = new ACMEError();
-                error.setType("urn:ietf:params:acme:error:serverInternal");
-                error.setDetail("Internal server error: " + e);
-                r = ValidationResult.fail(error);
-            }
-            if (r.isOK()) break;
-            Thread.sleep(delaySeconds * 1000);
+        attempts++;
+        logger.info("Processing challenge " + challengeID + " (attempt " + attempts + ")");
+
+        long start = System.currentTimeMillis();
+        ValidationResult r;
+
+        try {
+            r = validator.validateChallenge(authorization, challenge);
+        } catch (Exception e) {
+            ACMEError error = new ACMEError();
+            error.setType("urn:ietf:params:acme:error:serverInternal");
+            error.setDetail("Internal server error: " + e);
+            r = ValidationResult.fail(error);
+        }
+
+        if (executor != null) {
+            executor.record(System.currentTimeMillis() - start, r.isOK());
+        }
+
+        if (!r.isOK() && executor != null && attempts < executor.getMaxAttempts()) {
+            logger.info("Retrying challenge " + challengeID + " in " + executor.getRetryDelay() + "s");
+            executor.scheduleRetry(this);
+            return;
         }
 
         if (r.isOK()) {
@@ -6,11 +6,13 @@
 package org.dogtagpki.acme.server;
 
 import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -20,6 +22,7 @@ import javax.ws.rs.core.UriInfo;
 import org.dogtagpki.acme.ACMEAccount;
 import org.dogtagpki.acme.ACMEAuthorization;
 import org.dogtagpki.acme.ACMEChallenge;
+import org.dogtagpki.acme.ACMEError;
 import org.dogtagpki.acme.ACMEHeader;
 import org.dogtagpki.acme.ACMENonce;
 import org.dogtagpki.acme.JWS;
@@ -92,8 +95,28 @@ public class ACMEChallengeService {
                     challenge,
                     validator);
 
-            // TODO: use thread pool
-            new Thread(processor).start();
+            try {
+                engine.getValidationExecutor().submit(processor);
+
+            } catch (RejectedExecutionException e) {
+
+                logger.warn("Unable to queue challenge " + challengeID + ": " + e.getMessage());
+
+                // let the client respond to the challenge again later
+                challenge.setStatus("pending");
+                engine.updateAuthorization(account, authorization);
+
+                ResponseBuilder builder = Response.status(Response.Status.SERVICE_UNAVAILABLE);
+                builder.type("application/problem+json");
+                builder.header("Retry-After", engine.getValidationExecutor().getRetryDelay());
+
+                ACMEError error = new ACMEError();
+                error.setType("urn:ietf:params:acme:error:rateLimited");
+                error.setDetail("Too many challenges are being validated. Try again later.");
+                builder.entity(error);
+
+                throw new WebApplicationException(builder.build());
+            }
 
         } else if (challengeStatus.equals("processing")) {
             // TODO: retry the challenge
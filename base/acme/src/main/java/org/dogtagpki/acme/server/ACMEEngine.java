@@ -91,6 +91,7 @@ public class ACMEEngine {
 
     private ACMEValidatorsConfig validatorsConfig;
     private Map<String, ACMEValidator> validators = new HashMap<>();
+    private ACMEValidationExecutor validationExecutor;
 
     private ACMEIssuerConfig issuerConfig;
     private ACMEIssuer issuer;
@@ -161,6 +162,10 @@ public class ACMEEngine {
         validators.put(name, validator);
     }
 
+    public ACMEValidationExecutor getValidationExecutor() {
+        return validationExecutor;
+    }
+
     public ACMEIssuerConfig getIssuerConfig() {
         return issuerConfig;
     }
@@ -226,6 +231,12 @@ public class ACMEEngine {
         logger.info("  - valid: " + policyConfig.getRetention().getValidOrders());
         logger.info("- certificate retention: " + policyConfig.getRetention().getCertificates());
 
+        ACMEValidationConfig validationConfig = config.getValidationConfig();
+        logger.info("- validation threads: " + validationConfig.getThreads());
+        logger.info("- validation queue size: " + validationConfig.getQueueSize());
+        logger.info("- validation max attempts: " + validationConfig.getMaxAttempts());
+        logger.info("- validation retry delay: " + validationConfig.getRetryDelay());
+
         policy = new ACMEPolicy(policyConfig);
     }
 
@@ -310,6 +321,14 @@ public class ACMEEngine {
         }
     }
 
+    public void initValidationExecutor() throws Exception {
+
+        logger.info("Initializing ACME validation executor");
+
+        validationExecutor = new ACMEValidationExecutor(config.getValidationConfig());
+        validationExecutor.init();
+    }
+
     public void initIssuer(String filename) throws Exception {
 
         File issuerConfigFile = new File(filename);
@@ -461,6 +480,7 @@ public class ACMEEngine {
         initMetadata(acmeConfDir + File.separator + "metadata.conf");
         initDatabase(acmeConfDir + File.separator + "database.conf");
         initValidators(acmeConfDir + File.separator + "validators.conf");
+        initValidationExecutor();
         initIssuer(acmeConfDir + File.separator + "issuer.conf");
         initScheduler(acmeConfDir + File.separator + "scheduler.conf");
         initMonitors(acmeConfDir + File.separator + "configsources.conf");
@@ -485,6 +505,13 @@ public class ACMEEngine {
         validators.clear();
     }
 
+    public void shutdownValidationExecutor() throws Exception {
+        if (validationExecutor == null) return;
+
+        validationExecutor.shutdown();
+        validationExecutor = null;
+    }
+
     public void shutdownIssuer() throws Exception {
         if (issuer == null) return;
 
@@ -521,6 +548,7 @@ public class ACMEEngine {
         shutdownMonitors();
         shutdownScheduler();
         shutdownIssuer();
+        shutdownValidationExecutor();
         shutdownValidators();
         shutdownDatabase();
 
@@ -29,6 +29,9 @@ public class ACMEEngineConfig implements JSONSerializer {
     @JsonProperty("policy")
     private ACMEPolicyConfig policyConfig = new ACMEPolicyConfig();
 
+    @JsonProperty("validation")
+    private ACMEValidationConfig validationConfig = new ACMEValidationConfig();
+
     public Boolean isEnabled() {
         return enabled;
     }
@@ -61,6 +64,14 @@ public class ACMEEngineConfig implements JSONSerializer {
         this.policyConfig = wildcard;
     }
 
+    public ACMEValidationConfig getValidationConfig() {
+        return validationConfig;
+    }
+
+    public void setValidationConfig(ACMEValidationConfig validationConfig) {
+        this.validationConfig = validationConfig;
+    }
+
     public static ACMEEngineConfig fromProperties(Properties props) throws Exception {
 
         ACMEEngineConfig config = new ACMEEngineConfig();
@@ -85,6 +96,13 @@ public class ACMEEngineConfig implements JSONSerializer {
 
                 ACMEPolicyConfig policyConfig = config.getPolicyConfig();
                 policyConfig.setProperty(policyKey, value);
+
+            } else if (key.startsWith("validation.")) {
+
+                String validationKey = key.substring(11);
+
+                ACMEValidationConfig validationConfig = config.getValidationConfig();
+                validationConfig.setProperty(validationKey, value);
             }
         }
 
@@ -0,0 +1,190 @@
+//
+// Copyright Red Hat, Inc.
+//
+// SPDX-License-Identifier: GPL-2.0-or-later
+//
+package org.dogtagpki.acme.server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.netscape.cmscore.util.ThreadFactories;
+
+/**
+ * Executor which validates ACME challenges.
+ *
+ * Challenges are validated by a bounded number of threads.
+ * Challenges which cannot be queued are rejected so the client
+ * can retry later.
+ *
+ * A failed validation attempt is retried after a delay by a scheduler
+ * instead of keeping a thread sleeping until the next attempt.
+ */
+public class ACMEValidationExecutor {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ACMEValidationExecutor.class);
+
+    private ACMEValidationConfig config;
+
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService retryScheduler;
+
+    private AtomicInteger pendingRetries = new AtomicInteger();
+    private AtomicLong rejected = new AtomicLong();
+
+    // latency of validation attempts
+    private ACMEValidationStats stats = new ACMEValidationStats();
+
+    public ACMEValidationExecutor(ACMEValidationConfig config) {
+        this.config = config;
+    }
+
+    public ACMEValidationConfig getConfig() {
+        return config;
+    }
+
+    public int getMaxAttempts() {
+        return config.getMaxAttempts();
+    }
+
+    public int getRetryDelay() {
+        return config.getRetryDelay();
+    }
+
+    public void init() throws Exception {
+
+        int threads = config.getThreads();
+        int queueSize = config.getQueueSize();
+
+        logger.info("ACMEValidationExecutor: threads: " + threads);
+        logger.info("ACMEValidationExecutor: queue size: " + queueSize);
+        logger.info("ACMEValidationExecutor: max attempts: " + config.getMaxAttempts());
+        logger.info("ACMEValidationExecutor: retry delay (s): " + config.getRetryDelay());
+
+        executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                ThreadFactories.createDaemonThreadFactory("ACMEValidator-"));
+        executor.allowCoreThreadTimeOut(true);
+
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ACMEValidationRetry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a challenge for validation.
+     *
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public void submit(ACMEChallengeProcessor processor) {
+
+        processor.setExecutor(this);
+
+        try {
+            executor.execute(processor);
+
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Queues a challenge for another validation attempt after the
+     * retry delay. If the queue is still full at that time the attempt
+     * is postponed again.
+     */
+    public void scheduleRetry(ACMEChallengeProcessor processor) {
+
+        pendingRetries.incrementAndGet();
+
+        retryScheduler.schedule(() -> {
+
+            pendingRetries.decrementAndGet();
+
+            try {
+                executor.execute(processor);
+
+            } catch (RejectedExecutionException e) {
+
+                if (executor.isShutdown()) {
+                    return;
+                }
+
+                logger.warn("ACMEValidationExecutor: Postponing challenge " + processor.getChallengeID());
+                rejected.incrementAndGet();
+                scheduleRetry(processor);
+            }
+
+        }, config.getRetryDelay(), TimeUnit.SECONDS);
+    }
+
+    /**
+     * Records a validation attempt.
+     *
+     * @param time validation time in milliseconds
+     * @param valid whether the challenge was validated
+     */
+    public void record(long time, boolean valid) {
+        stats.record(time, valid);
+    }
+
+    /**
+     * Returns the number of challenges waiting for a thread.
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Returns the number of challenges waiting for another attempt.
+     */
+    public int getPendingRetries() {
+        return pendingRetries.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public ACMEValidationStats getStats() {
+        return stats;
+    }
+
+    public void shutdown() throws Exception {
+
+        logger.info("ACMEValidationExecutor: Shutting down");
+
+        retryScheduler.shutdownNow();
+        executor.shutdown();
+
+        if (!executor.awaitTermination(config.getRetryDelay(), TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "queue=" + getQueueDepth()
+                + " active=" + getActiveCount()
+                + " retries=" + getPendingRetries()
+                + " rejected=" + getRejected()
+                + " " + stats;
+    }
+}
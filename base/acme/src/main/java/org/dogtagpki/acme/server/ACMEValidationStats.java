@@ -0,0 +1,61 @@
+//
+// Copyright Red Hat, Inc.
+//
+// SPDX-License-Identifier: GPL-2.0-or-later
+//
+package org.dogtagpki.acme.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of ACME challenge validation attempts.
+ */
+public class ACMEValidationStats {
+
+    private AtomicLong attempts = new AtomicLong();
+    private AtomicLong failures = new AtomicLong();
+    private AtomicLong totalTime = new AtomicLong();
+    private AtomicLong maxTime = new AtomicLong();
+
+    /**
+     * Records a validation attempt.
+     *
+     * @param time validation time in milliseconds
+     * @param valid whether the challenge was validated
+     */
+    public void record(long time, boolean valid) {
+
+        attempts.incrementAndGet();
+        totalTime.addAndGet(time);
+        maxTime.accumulateAndGet(time, Math::max);
+
+        if (!valid) {
+            failures.incrementAndGet();
+        }
+    }
+
+    public long getAttempts() {
+        return attempts.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getAverageTime() {
+        long n = attempts.get();
+        return n == 0 ? 0 : totalTime.get() / n;
+    }
+
+    public long getMaxTime() {
+        return maxTime.get();
+    }
+
+    @Override
+    public String toString() {
+        return "attempts=" + getAttempts()
+                + " failures=" + getFailures()
+                + " avg=" + getAverageTime() + "ms"
+                + " max=" + getMaxTime() + "ms";
+    }
+}
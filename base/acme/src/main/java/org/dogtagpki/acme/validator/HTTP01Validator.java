@@ -10,10 +10,12 @@ import java.net.URISyntaxException;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
 import org.dogtagpki.acme.ACMEAuthorization;
 import org.dogtagpki.acme.ACMEChallenge;
@@ -28,10 +30,61 @@ public class HTTP01Validator extends ACMEValidator {
 
     public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(HTTP01Validator.class);
 
+    public static final int DEFAULT_MAX_CONNECTIONS = 100;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 2;
+    public static final int DEFAULT_CONNECT_TIMEOUT = 10; // seconds
+    public static final int DEFAULT_READ_TIMEOUT = 10; // seconds
+
+    // shared by all validations so they are bounded by the same limits
+    private CloseableHttpClient httpClient;
+
     public HTTP01Validator() {
         super("HTTP-01", "http-01");
     }
 
+    int getParameter(String name, int defaultValue) {
+        String value = config == null ? null : config.getParameter(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    @Override
+    public void init() throws Exception {
+
+        int maxConnections = getParameter("maxConnections", DEFAULT_MAX_CONNECTIONS);
+        int maxConnectionsPerHost = getParameter("maxConnectionsPerHost", DEFAULT_MAX_CONNECTIONS_PER_HOST);
+        int connectTimeout = getParameter("connectTimeout", DEFAULT_CONNECT_TIMEOUT);
+        int readTimeout = getParameter("readTimeout", DEFAULT_READ_TIMEOUT);
+
+        logger.info("HTTP-01 max connections: " + maxConnections);
+        logger.info("HTTP-01 max connections per host: " + maxConnectionsPerHost);
+        logger.info("HTTP-01 connect timeout (s): " + connectTimeout);
+        logger.info("HTTP-01 read timeout (s): " + readTimeout);
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout * 1000)
+                .setSocketTimeout(readTimeout * 1000)
+                .setConnectionRequestTimeout(connectTimeout * 1000)
+                .build();
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .disableCookieManagement()
+                .build();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (httpClient == null) return;
+
+        httpClient.close();
+        httpClient = null;
+    }
+
     @Override
     public ValidationResult validateChallenge(
             ACMEAuthorization authorization,
@@ -110,18 +163,13 @@ public class HTTP01Validator extends ACMEValidator {
 
         logger.info("Retrieving " + validationURL);
 
-        CloseableHttpClient httpClient = HttpClients.createDefault();
         HttpGet httpGet = new HttpGet(validationURL);
-        CloseableHttpResponse httpResponse = httpClient.execute(httpGet);
 
         String response;
-        try {
+        try (CloseableHttpResponse httpResponse = httpClient.execute(httpGet)) {
             HttpEntity entity = httpResponse.getEntity();
             response = IOUtils.toString(entity.getContent(), "UTF-8").trim();
             EntityUtils.consume(entity);
-
-        } finally {
-            httpResponse.close();
         }
 
         logger.info("Response: " + response);
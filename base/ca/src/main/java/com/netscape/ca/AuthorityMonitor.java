@@ -30,27 +30,24 @@ import org.mozilla.jss.netscape.security.x509.X500Name;
 
 import com.netscape.certsrv.ca.AuthorityID;
 import com.netscape.certsrv.ca.ECAException;
-import com.netscape.certsrv.ldap.ELdapException;
 import com.netscape.certsrv.util.AsyncLoader;
+import com.netscape.cmscore.dbs.DBChangeEvent;
+import com.netscape.cmscore.dbs.DBChangeListener;
+import com.netscape.cmscore.dbs.DBChangeSubscription;
 import com.netscape.cmsutil.ldap.LDAPPostReadControl;
 import com.netscape.cmsutil.ldap.LDAPUtil;
 
 import netscape.ldap.LDAPAttribute;
-import netscape.ldap.LDAPConnection;
 import netscape.ldap.LDAPControl;
 import netscape.ldap.LDAPEntry;
-import netscape.ldap.LDAPException;
-import netscape.ldap.LDAPSearchConstraints;
-import netscape.ldap.LDAPSearchResults;
-import netscape.ldap.controls.LDAPEntryChangeControl;
-import netscape.ldap.controls.LDAPPersistSearchControl;
 import netscape.ldap.util.DN;
 
-public class AuthorityMonitor implements Runnable {
+public class AuthorityMonitor implements DBChangeListener {
 
     public final static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(AuthorityMonitor.class);
 
-    private boolean running = true;
+    private DN lwcaContainerDN;
+    private DBChangeSubscription subscription;
 
     public AsyncLoader loader = new AsyncLoader(10 /* 10s timeout */);
     public boolean foundHostCA;
@@ -71,157 +68,108 @@ public class AuthorityMonitor implements Runnable {
     public AuthorityMonitor() {
     }
 
-    @Override
-    public void run() {
-
-        int op = LDAPPersistSearchControl.ADD
-            | LDAPPersistSearchControl.MODIFY
-            | LDAPPersistSearchControl.DELETE
-            | LDAPPersistSearchControl.MODDN;
-
-        LDAPPersistSearchControl persistCtrl =
-            new LDAPPersistSearchControl(op, false, true, true);
+    /**
+     * Subscribes to the changes of the authority entries.
+     */
+    public void start() {
 
         CAEngine engine = CAEngine.getInstance();
         String lwcaContainerDNString = engine.getAuthorityBaseDN();
-        DN lwcaContainerDN = new DN(lwcaContainerDNString);
+        lwcaContainerDN = new DN(lwcaContainerDNString);
 
         logger.debug("AuthorityMonitor: Starting authority monitor");
 
-        while (running) {
+        subscription = new DBChangeSubscription("AuthorityMonitor", lwcaContainerDNString, this);
+        subscription.setAttributes(new String[] {"*", "entryUSN", "nsUniqueId", "numSubordinates"});
 
-            LDAPConnection conn = null;
+        engine.getDBSubsystem().getChangeNotifier().subscribe(subscription);
+    }
 
-            try {
-                conn = engine.getConnectionFactory().getConn();
-                LDAPSearchConstraints cons = conn.getSearchConstraints();
-                cons.setServerControls(persistCtrl);
-                cons.setBatchSize(1);
-                cons.setServerTimeLimit(0 /* seconds */);
-                String[] attrs = {"*", "entryUSN", "nsUniqueId", "numSubordinates"};
-
-                LDAPSearchResults results = conn.search(
-                    lwcaContainerDNString, LDAPConnection.SCOPE_SUB,
-                    "(objectclass=*)", attrs, false, cons);
-
-                /* Wait until the last possible moment before taking
-                 * the load lock so that we can continue to service
-                 * requests while LDAP is down.
-                 */
-                loader.startLoading();
-
-                while (running && results.hasMoreElements()) {
-
-                    LDAPEntry entry = results.next();
-                    DN entryDN = new DN(entry.getDN());
-
-                    if (entryDN.countRDNs() == lwcaContainerDN.countRDNs()) {
-                        /* This must be the base entry of the search, i.e. the
-                         * LWCA container.  Read numSubordinates to get the
-                         * expected number of LWCA entries to read.
-                         *
-                         * numSubordinates is not reliable; it may be too high
-                         * due to objects we cannot see (e.g. replication
-                         * conflict entries).  In that case AsyncLoader has a
-                         * watchdog timer to interrupt waiting threads after it
-                         * times out.
-                         */
-                        loader.setNumItems(Integer.valueOf(entry.getAttribute("numSubordinates").getStringValueArray()[0]));
-                        continue;
-                    }
-
-                    if (entryDN.countRDNs() > lwcaContainerDN.countRDNs() + 1) {
-                        /* This entry is unexpectedly deep.  We ignore it.
-                         * numSubordinates only counts immediate subordinates
-                         * (https://tools.ietf.org/html/draft-boreham-numsubordinates-01)
-                         * so don't increment() the AsyncLoader.
-                         */
-                        continue;
-                    }
-
-                    /* This entry is at the expected depth.  Is it a LWCA entry? */
-                    String[] objectClasses =
-                        entry.getAttribute("objectClass").getStringValueArray();
-
-                    if (!Arrays.asList(objectClasses).contains("authority")) {
-                        /* It is not a LWCA entry; ignore it.  But it does
-                         * contribute to numSubordinates so increment the loader. */
-                        loader.increment();
-                        continue;
-                    }
-
-                    LDAPEntryChangeControl changeControl = (LDAPEntryChangeControl)
-                        LDAPUtil.getControl(
-                            LDAPEntryChangeControl.class, results.getResponseControls());
-
-                    logger.debug("AuthorityMonitor: Processed change controls.");
-
-                    if (changeControl != null) {
-
-                        int changeType = changeControl.getChangeType();
-
-                        switch (changeType) {
-                        case LDAPPersistSearchControl.ADD:
-                            logger.debug("AuthorityMonitor: ADD");
-                            readAuthority(entry);
-                            break;
-                        case LDAPPersistSearchControl.DELETE:
-                            logger.debug("AuthorityMonitor: DELETE");
-                            handleDELETE(entry);
-                            break;
-                        case LDAPPersistSearchControl.MODIFY:
-                            logger.debug("AuthorityMonitor: MODIFY");
-                            // TODO how do we handle authorityID change?
-                            readAuthority(entry);
-                            break;
-                        case LDAPPersistSearchControl.MODDN:
-                            logger.debug("AuthorityMonitor: MODDN");
-                            handleMODDN(new DN(changeControl.getPreviousDN()), entry);
-                            break;
-                        default:
-                            logger.debug("AuthorityMonitor: unknown change type: " + changeType);
-                            break;
-                        }
-
-                    } else {
-                        logger.debug("AuthorityMonitor: immediate result");
-                        readAuthority(entry);
-                        loader.increment();
-                    }
-                }
-
-            } catch (ELdapException e) {
-
-                logger.warn("AuthorityMonitor: Failed to get LDAPConnection: " + e.getMessage(), e);
-                logger.warn("AuthorityMonitor: Retrying in 1 second.");
-
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException ex) {
-                    Thread.currentThread().interrupt();
-                }
-
-            } catch (LDAPException e) {
-
-                if (running) {
-                    logger.warn("AuthorityMonitor: Failed to execute LDAP search for lightweight CAs: " + e, e);
-                } else {
-                    logger.info("AuthorityMonitor: Shutting down: " + e.getMessage());
-                }
-
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-
-            } finally {
-                try {
-                    engine.getConnectionFactory().returnConn(conn);
-                } catch (Exception e) {
-                    logger.warn("AuthorityMonitor: Error releasing the LDAPConnection" + e.getMessage(), e);
-                }
+    @Override
+    public void changesStarted(boolean resumed) {
+
+        if (resumed) {
+            // only the missed changes follow
+            return;
+        }
+
+        /* Wait until the last possible moment before taking
+         * the load lock so that we can continue to service
+         * requests while LDAP is down.
+         */
+        loader.startLoading();
+    }
+
+    @Override
+    public void entryChanged(DBChangeEvent event) throws Exception {
+
+        LDAPEntry entry = event.getEntry();
+        DN entryDN = new DN(entry.getDN());
+        boolean immediate = event.getType() == DBChangeEvent.Type.ENTRY;
+
+        if (entryDN.countRDNs() == lwcaContainerDN.countRDNs()) {
+            if (!immediate) {
+                return;
             }
+            /* This must be the base entry of the search, i.e. the
+             * LWCA container.  Read numSubordinates to get the
+             * expected number of LWCA entries to read.
+             *
+             * numSubordinates is not reliable; it may be too high
+             * due to objects we cannot see (e.g. replication
+             * conflict entries).  In that case AsyncLoader has a
+             * watchdog timer to interrupt waiting threads after it
+             * times out.
+             */
+            loader.setNumItems(Integer.valueOf(entry.getAttribute("numSubordinates").getStringValueArray()[0]));
+            return;
+        }
+
+        if (entryDN.countRDNs() > lwcaContainerDN.countRDNs() + 1) {
+            /* This entry is unexpectedly deep.  We ignore it.
+             * numSubordinates only counts immediate subordinates
+             * (https://tools.ietf.org/html/draft-boreham-numsubordinates-01)
+             * so don't increment() the AsyncLoader.
+             */
+            return;
         }
 
-        logger.debug("AuthorityMonitor: stopping.");
+        /* This entry is at the expected depth.  Is it a LWCA entry? */
+        String[] objectClasses =
+            entry.getAttribute("objectClass").getStringValueArray();
+
+        if (!Arrays.asList(objectClasses).contains("authority")) {
+            /* It is not a LWCA entry; ignore it.  But it does
+             * contribute to numSubordinates so increment the loader. */
+            if (immediate) {
+                loader.increment();
+            }
+            return;
+        }
+
+        switch (event.getType()) {
+        case ADD:
+            logger.debug("AuthorityMonitor: ADD");
+            readAuthority(entry);
+            break;
+        case DELETE:
+            logger.debug("AuthorityMonitor: DELETE");
+            handleDELETE(entry);
+            break;
+        case MODIFY:
+            logger.debug("AuthorityMonitor: MODIFY");
+            // TODO how do we handle authorityID change?
+            readAuthority(entry);
+            break;
+        case MODDN:
+            logger.debug("AuthorityMonitor: MODDN");
+            handleMODDN(new DN(event.getPreviousDN()), entry);
+            break;
+        default:
+            logger.debug("AuthorityMonitor: immediate result");
+            readAuthority(entry);
+            loader.increment();
+        }
     }
 
     private synchronized void handleMODDN(DN oldDN, LDAPEntry entry) throws Exception {
@@ -401,15 +349,15 @@ public class AuthorityMonitor implements Runnable {
     }
 
     /**
-     * Stop the activityMonitor thread
-     *
-     * connectionFactory.reset() will disconnect all connections,
-     * causing the current conn.search() to throw.
-     * The search will not be restarted because 'running' has
-     * been set to false, and the monitor thread will exit.
+     * Stop monitoring the authority entries.
      */
     public void shutdown() {
-        running = false;
+
+        if (subscription != null) {
+            CAEngine engine = CAEngine.getInstance();
+            engine.getDBSubsystem().getChangeNotifier().unsubscribe(subscription);
+        }
+
         loader.shutdown();
     }
 }
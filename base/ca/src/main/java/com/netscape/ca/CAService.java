@@ -21,9 +21,13 @@ import java.io.IOException;
 import java.math.BigInteger;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.dogtagpki.ct.CTEngine;
 import org.dogtagpki.server.ca.CAEngine;
@@ -1013,6 +1017,77 @@ public class CAService implements IService {
     public void revokeCert(RevokedCertImpl crlentry, String requestId)
             throws EBaseException {
 
+        CertRecord certRec = markCertRevoked(crlentry);
+
+        // inform all CRLIssuingPoints about revoked certificate
+
+        for (CRLIssuingPoint ip : getCRLIssuingPoints(certRec)) {
+            ip.addRevokedCert(crlentry.getSerialNumber(), crlentry, requestId);
+        }
+    }
+
+    /**
+     * Marks certificate records as revoked and updates the CRL cache
+     * of each issuing point once for all revoked certificates.
+     *
+     * @param crlentries revocation information obtained from revocation request
+     * @param requestId revocation request id
+     * @return errors of the certificates that could not be revoked indexed
+     *         like the revocation information, or null if there are no errors
+     * @exception EBaseException failed to mark certificate record as revoked
+     */
+    public String[] revokeCerts(RevokedCertImpl[] crlentries, String requestId)
+            throws EBaseException {
+
+        Map<CRLIssuingPoint, Map<BigInteger, RevokedCertImpl>> crlUpdates = new LinkedHashMap<>();
+        String[] errors = null;
+
+        try {
+            for (int i = 0; i < crlentries.length; i++) {
+                RevokedCertImpl crlentry = crlentries[i];
+
+                CertRecord certRec;
+                try {
+                    certRec = markCertRevoked(crlentry);
+                } catch (ECAException e) {
+                    logger.error(CMS.getLogMessage("CMSCORE_CA_CANNOT_REVOKE", Integer.toString(i),
+                            requestId, e.toString()), e);
+                    if (errors == null) {
+                        errors = new String[crlentries.length];
+                    }
+                    errors[i] = e.toString();
+                    continue;
+                }
+
+                for (CRLIssuingPoint ip : getCRLIssuingPoints(certRec)) {
+                    crlUpdates
+                            .computeIfAbsent(ip, k -> new LinkedHashMap<>())
+                            .put(crlentry.getSerialNumber(), crlentry);
+                }
+            }
+
+        } finally {
+            // inform all CRLIssuingPoints about the certificates
+            // that have been revoked, even if the batch was aborted
+
+            for (Map.Entry<CRLIssuingPoint, Map<BigInteger, RevokedCertImpl>> entry : crlUpdates.entrySet()) {
+                entry.getKey().addRevokedCerts(entry.getValue(), requestId);
+            }
+        }
+
+        return errors;
+    }
+
+    /**
+     * Marks certificate record as revoked by adding revocation information.
+     *
+     * @param crlentry revocation information obtained from revocation request
+     * @return revoked certificate record
+     * @exception EBaseException failed to mark certificate record as revoked
+     */
+    private CertRecord markCertRevoked(RevokedCertImpl crlentry)
+            throws EBaseException {
+
         CAEngine engine = CAEngine.getInstance();
         CertificateRepository cr = engine.getCertificateRepository();
 
@@ -1104,37 +1179,48 @@ public class CAService implements IService {
             logger.info(CMS.getLogMessage("CMSCORE_CA_CERT_REVOKED",
                     serialno.toString(16)));
 
-            // inform all CRLIssuingPoints about revoked certificate
+        } catch (EBaseException e) {
+            String message = CMS.getLogMessage("CMSCORE_CA_ERROR_REVOCATION", serialno.toString(), e.toString());
+            logger.error(method + ":" + message, e);
+            throw e;
+        }
 
-            for (CRLIssuingPoint ip : engine.getCRLIssuingPoints()) {
-                if (ip != null) {
-                    boolean b = true;
+        return certRec;
+    }
 
-                    if (ip.isCACertsOnly()) {
-                        X509CertImpl cert = certRec.getCertificate();
+    /**
+     * Returns the CRL issuing points that include the certificate.
+     */
+    private List<CRLIssuingPoint> getCRLIssuingPoints(CertRecord certRec) {
 
-                        if (cert != null)
-                            b = cert.getBasicConstraintsIsCA();
-                    }
-                    if (ip.isProfileCertsOnly()) {
-                        MetaInfo metaInfo = certRec.getMetaInfo();
-                        if (metaInfo != null) {
-                            String profileId = (String) metaInfo.get("profileId");
-                            if (profileId != null) {
-                                b = ip.checkCurrentProfile(profileId);
-                            }
+        CAEngine engine = CAEngine.getInstance();
+        List<CRLIssuingPoint> issuingPoints = new ArrayList<>();
+
+        for (CRLIssuingPoint ip : engine.getCRLIssuingPoints()) {
+            if (ip != null) {
+                boolean b = true;
+
+                if (ip.isCACertsOnly()) {
+                    X509CertImpl cert = certRec.getCertificate();
+
+                    if (cert != null)
+                        b = cert.getBasicConstraintsIsCA();
+                }
+                if (ip.isProfileCertsOnly()) {
+                    MetaInfo metaInfo = certRec.getMetaInfo();
+                    if (metaInfo != null) {
+                        String profileId = (String) metaInfo.get("profileId");
+                        if (profileId != null) {
+                            b = ip.checkCurrentProfile(profileId);
                         }
                     }
-                    if (b)
-                        ip.addRevokedCert(serialno, crlentry, requestId);
                 }
+                if (b)
+                    issuingPoints.add(ip);
             }
-        } catch (EBaseException e) {
-            String message = CMS.getLogMessage("CMSCORE_CA_ERROR_REVOCATION", serialno.toString(), e.toString());
-            logger.error(method + ":" + message, e);
-            throw e;
         }
-        return;
+
+        return issuingPoints;
     }
 
     /**
@@ -1148,6 +1234,76 @@ public class CAService implements IService {
     void unrevokeCert(BigInteger serialNo, String requestId)
             throws EBaseException {
 
+        CertRecord certRec = markCertUnrevoked(serialNo);
+
+        // inform all CRLIssuingPoints about unrevoked certificate
+
+        for (CRLIssuingPoint ip : getCRLIssuingPoints(certRec)) {
+            ip.addUnrevokedCert(serialNo, requestId);
+        }
+    }
+
+    /**
+     * Unrevokes certificates on hold and updates the CRL cache
+     * of each issuing point once for all unrevoked certificates.
+     *
+     * @param serialNos serial numbers of the certificates
+     * @param requestId unrevocation request id
+     * @return errors of the certificates that could not be unrevoked indexed
+     *         like the serial numbers, or null if there are no errors
+     * @exception EBaseException failed to unrevoke certificate
+     */
+    String[] unrevokeCerts(BigInteger[] serialNos, String requestId)
+            throws EBaseException {
+
+        Map<CRLIssuingPoint, List<BigInteger>> crlUpdates = new LinkedHashMap<>();
+        String[] errors = null;
+
+        try {
+            for (int i = 0; i < serialNos.length; i++) {
+
+                CertRecord certRec;
+                try {
+                    certRec = markCertUnrevoked(serialNos[i]);
+                } catch (ECAException e) {
+                    logger.warn(CMS.getLogMessage("CMSCORE_CA_UNREVOKE_FAILED", serialNos[i].toString(),
+                            requestId), e);
+                    if (errors == null) {
+                        errors = new String[serialNos.length];
+                    }
+                    errors[i] = e.toString();
+                    continue;
+                }
+
+                for (CRLIssuingPoint ip : getCRLIssuingPoints(certRec)) {
+                    crlUpdates
+                            .computeIfAbsent(ip, k -> new ArrayList<>())
+                            .add(serialNos[i]);
+                }
+            }
+
+        } finally {
+            // inform all CRLIssuingPoints about the certificates
+            // that have been unrevoked, even if the batch was aborted
+
+            for (Map.Entry<CRLIssuingPoint, List<BigInteger>> entry : crlUpdates.entrySet()) {
+                entry.getKey().addUnrevokedCerts(entry.getValue(), requestId);
+            }
+        }
+
+        return errors;
+    }
+
+    /**
+     * Removes the revocation information of a certificate on hold.
+     *
+     * @param serialNo serial number of the certificate
+     * @return unrevoked certificate record
+     * @exception EBaseException failed to unrevoke certificate
+     */
+    private CertRecord markCertUnrevoked(BigInteger serialNo)
+            throws EBaseException {
+
         CAEngine engine = CAEngine.getInstance();
         CertificateRepository cr = engine.getCertificateRepository();
 
@@ -1193,31 +1349,6 @@ public class CAService implements IService {
 
                 logger.info(CMS.getLogMessage("CMSCORE_CA_CERT_UNREVOKED", serialNo.toString(16)));
 
-                // inform all CRLIssuingPoints about unrevoked certificate
-
-                for (CRLIssuingPoint ip : engine.getCRLIssuingPoints()) {
-                    if (ip != null) {
-                        boolean b = true;
-
-                        if (ip.isCACertsOnly()) {
-                            X509CertImpl cert = certRec.getCertificate();
-
-                            if (cert != null)
-                                b = cert.getBasicConstraintsIsCA();
-                        }
-                        if (ip.isProfileCertsOnly()) {
-                            MetaInfo metaInfo = certRec.getMetaInfo();
-                            if (metaInfo != null) {
-                                String profileId = (String) metaInfo.get("profileId");
-                                if (profileId != null) {
-                                    b = ip.checkCurrentProfile(profileId);
-                                }
-                            }
-                        }
-                        if (b)
-                            ip.addUnrevokedCert(serialNo, requestId);
-                    }
-                }
             } catch (EBaseException e) {
                 logger.error(CMS.getLogMessage("CMSCORE_CA_CERT_ERROR_UNREVOKE", serialNo.toString(16)), e);
                 throw e;
@@ -1228,7 +1359,7 @@ public class CAService implements IService {
                     "0x" + serialNo.toString(16)));
         }
 
-        return;
+        return certRec;
     }
 
     /**
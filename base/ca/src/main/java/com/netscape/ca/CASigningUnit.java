@@ -17,6 +17,7 @@
 // --- END COPYRIGHT BLOCK ---
 package com.netscape.ca;
 
+import java.io.InputStream;
 import java.security.SignatureException;
 
 import org.mozilla.jss.CryptoManager;
@@ -50,6 +51,8 @@ public final class CASigningUnit extends SigningUnit {
 
     public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CASigningUnit.class);
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     public CASigningUnit() {
     }
 
@@ -100,6 +103,7 @@ public final class CASigningUnit extends SigningUnit {
             try {
                 logger.debug("SigningUnit: Loading private key");
                 mPrivk = mManager.findPrivKeyByCert(mCert);
+                resetSigners();
 
             } catch (ObjectNotFoundException e) {
                 throw new CAMissingKeyException("Private key not found: " + mNickname + ": " + e.getMessage(), e);
@@ -145,6 +149,43 @@ public final class CASigningUnit extends SigningUnit {
     @Override
     public byte[] sign(byte[] data, String algname) throws Exception {
 
+        SignatureAlgorithm signAlg = getSigningAlgorithm(algname);
+        PooledSigner signer = getSigner(signAlg);
+        signer.signature.update(data);
+
+        byte[] signature = finishSign(signer.signature);
+        releaseSigner(signAlg, signer);
+
+        return signature;
+    }
+
+    /**
+     * Signs data read from a stream. The data is fed into the
+     * signature context in chunks so large objects such as full
+     * CRLs do not need to be held in memory.
+     *
+     * @param in the data to be signed
+     * @param algname is expected to be one of JCA's algorithm names.
+     */
+    public byte[] sign(InputStream in, String algname) throws Exception {
+
+        SignatureAlgorithm signAlg = getSigningAlgorithm(algname);
+        PooledSigner signer = getSigner(signAlg);
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int len;
+        while ((len = in.read(buffer)) != -1) {
+            signer.signature.update(buffer, 0, len);
+        }
+
+        byte[] signature = finishSign(signer.signature);
+        releaseSigner(signAlg, signer);
+
+        return signature;
+    }
+
+    private SignatureAlgorithm getSigningAlgorithm(String algname) throws Exception {
+
         if (!mInited) {
             throw new EBaseException("CASigningUnit not initialized");
         }
@@ -157,13 +198,11 @@ public final class CASigningUnit extends SigningUnit {
             signAlg = checkSigningAlgorithmFromName(algname);
         }
 
-        // XXX use a pool of signers based on alg ?
-        // XXX Map algor. name to id. hack: use hardcoded define for now.
         logger.info("CASigningUnit: Getting algorithm context for " + algname + " " + signAlg);
-        Signature signer = mToken.getSignatureContext(signAlg);
+        return signAlg;
+    }
 
-        signer.initSign(mPrivk);
-        signer.update(data);
+    private byte[] finishSign(Signature signer) throws Exception {
 
         /* debugging
         boolean testAutoShutdown = false;
@@ -0,0 +1,407 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.ca;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.mozilla.jss.netscape.security.x509.RevokedCertificate;
+
+import com.netscape.cmscore.cert.RevokedCertIndex;
+
+/**
+ * CRL cache of an issuing point used to check the revocation status
+ * of a certificate without locking.
+ *
+ * The index is the only copy of the entries of the full CRL. The
+ * entries written into the last CRL are kept in packed arrays sorted
+ * by serial number, and their encodings are kept by CRLStreamBuilder.
+ * Entries added, replaced, or removed since then are kept in small
+ * concurrent tables which take precedence over the packed arrays until
+ * they are merged into the next CRL.
+ *
+ * The delta CRL tables (revoked, unrevoked, and expired certificates)
+ * are owned by the issuing point since they are stored in the issuing
+ * point record. The index only keeps the revocation status of the
+ * certificates listed in them.
+ *
+ * Lookups only read volatile or immutable data. Updates are
+ * serialized by the issuing point.
+ */
+public class CRLCacheIndex {
+
+    private static final long NO_DATE = RevokedCertIndex.NO_DATE;
+
+    private volatile State state = new State(RevokedCertIndex.EMPTY);
+
+    private volatile int crlSize;
+
+    /**
+     * Returns the number of entries in the full CRL.
+     */
+    public int getCRLSize() {
+        return crlSize;
+    }
+
+    /**
+     * Returns the number of certificates in the delta CRL tables.
+     */
+    public int getChanges() {
+        return state.changes.size();
+    }
+
+    /**
+     * Returns the number of entries changed since the last CRL.
+     */
+    public int getCRLChanges() {
+        State current = state;
+        return current.added.size() + current.removed.size();
+    }
+
+    /**
+     * Returns the index of the entries written into the last CRL.
+     */
+    RevokedCertIndex getSnapshot() {
+        return state.snapshot;
+    }
+
+    public boolean containsCRLEntry(BigInteger serialNumber) {
+        return state.contains(serialNumber);
+    }
+
+    /**
+     * Adds or replaces an entry of the full CRL.
+     */
+    public synchronized void putCRLEntry(BigInteger serialNumber, RevokedCertificate entry) {
+
+        State current = state;
+
+        if (!current.contains(serialNumber)) {
+            crlSize++;
+        }
+
+        // readers check the added entries first
+        current.added.put(serialNumber, entry);
+        current.removed.remove(serialNumber);
+    }
+
+    /**
+     * Removes an entry of the full CRL.
+     */
+    public synchronized void removeCRLEntry(BigInteger serialNumber) {
+
+        State current = state;
+
+        if (!current.contains(serialNumber)) {
+            return;
+        }
+
+        crlSize--;
+
+        current.removed.add(serialNumber);
+        current.added.remove(serialNumber);
+    }
+
+    /**
+     * Returns the entries of the full CRL for CRLStreamBuilder.
+     */
+    public synchronized CRLEntries getCRLEntries() {
+        State current = state;
+        return new CRLEntries(
+                current.snapshot,
+                new HashMap<>(current.added),
+                new HashSet<>(current.removed),
+                crlSize);
+    }
+
+    /**
+     * Replaces the entries of the full CRL after they have been
+     * reloaded. Changes made since the last CRL are discarded.
+     */
+    public synchronized void setCRLEntries(RevokedCertIndex snapshot) {
+
+        State newState = new State(snapshot);
+        newState.changes.putAll(state.changes);
+
+        state = newState;
+        crlSize = snapshot.size();
+    }
+
+    /**
+     * Replaces the entries of the full CRL after the entries returned
+     * by getCRLEntries() have been written into a new CRL. Changes made
+     * since then are kept.
+     */
+    public synchronized void setCRLEntries(RevokedCertIndex snapshot, CRLEntries entries) {
+
+        State current = state;
+        State newState = new State(snapshot);
+        newState.changes.putAll(current.changes);
+
+        for (Map.Entry<BigInteger, RevokedCertificate> e : current.added.entrySet()) {
+            if (entries.added.get(e.getKey()) != e.getValue()) {
+                newState.added.put(e.getKey(), e.getValue());
+            }
+        }
+
+        for (BigInteger serialNumber : current.removed) {
+            if (!entries.removed.contains(serialNumber)) {
+                newState.removed.add(serialNumber);
+            }
+        }
+
+        int size = snapshot.size();
+
+        for (BigInteger serialNumber : newState.added.keySet()) {
+            if (!snapshot.contains(serialNumber)) {
+                size++;
+            }
+        }
+
+        for (BigInteger serialNumber : newState.removed) {
+            if (snapshot.contains(serialNumber) && !newState.added.containsKey(serialNumber)) {
+                size--;
+            }
+        }
+
+        state = newState;
+        crlSize = size;
+    }
+
+    /**
+     * Returns date of revoked certificate or null if the certificate
+     * is not listed as revoked. The arguments have the same meaning as
+     * in CRLIssuingPoint.getRevocationDateFromCache().
+     */
+    public Date getRevocationDate(
+            BigInteger serialNumber,
+            boolean checkDeltaCache,
+            boolean includeExpiredCerts) {
+
+        State current = state;
+        long time = current.getRevocationTime(serialNumber);
+
+        if (checkDeltaCache) {
+            Entry entry = current.changes.get(serialNumber);
+            if (entry != null) {
+                if (entry.unrevoked) {
+                    time = NO_DATE;
+                }
+                if (entry.revoked) {
+                    time = entry.revokedTime;
+                }
+                if (!includeExpiredCerts && entry.expired) {
+                    time = NO_DATE;
+                }
+            }
+        }
+
+        return time == NO_DATE ? null : new Date(time);
+    }
+
+    /**
+     * Reloads the revocation status of the certificates
+     * in the delta CRL tables.
+     */
+    public synchronized void rebuild(
+            Map<BigInteger, RevokedCertificate> revokedCerts,
+            Map<BigInteger, RevokedCertificate> unrevokedCerts,
+            Map<BigInteger, RevokedCertificate> expiredCerts) {
+
+        State current = state;
+        State newState = new State(current.snapshot, current.added, current.removed);
+
+        addChanges(newState, revokedCerts, revokedCerts, unrevokedCerts, expiredCerts);
+        addChanges(newState, unrevokedCerts, revokedCerts, unrevokedCerts, expiredCerts);
+        addChanges(newState, expiredCerts, revokedCerts, unrevokedCerts, expiredCerts);
+
+        state = newState;
+    }
+
+    private void addChanges(
+            State newState,
+            Map<BigInteger, RevokedCertificate> table,
+            Map<BigInteger, RevokedCertificate> revokedCerts,
+            Map<BigInteger, RevokedCertificate> unrevokedCerts,
+            Map<BigInteger, RevokedCertificate> expiredCerts) {
+
+        if (table == null) {
+            return;
+        }
+
+        // Hashtable enumerations do not fail on concurrent changes
+        Enumeration<BigInteger> serialNumbers = table instanceof Hashtable<BigInteger, RevokedCertificate> h
+                ? h.keys()
+                : Collections.enumeration(table.keySet());
+
+        while (serialNumbers.hasMoreElements()) {
+            BigInteger serialNumber = serialNumbers.nextElement();
+            newState.changes.put(serialNumber,
+                    Entry.create(serialNumber, revokedCerts, unrevokedCerts, expiredCerts));
+        }
+    }
+
+    /**
+     * Updates the revocation status of a certificate
+     * from the delta CRL tables.
+     */
+    public synchronized void update(
+            BigInteger serialNumber,
+            Map<BigInteger, RevokedCertificate> revokedCerts,
+            Map<BigInteger, RevokedCertificate> unrevokedCerts,
+            Map<BigInteger, RevokedCertificate> expiredCerts) {
+
+        Entry entry = Entry.create(serialNumber, revokedCerts, unrevokedCerts, expiredCerts);
+
+        if (entry == null) {
+            state.changes.remove(serialNumber);
+        } else {
+            state.changes.put(serialNumber, entry);
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void clear() {
+        state = new State(RevokedCertIndex.EMPTY);
+        crlSize = 0;
+    }
+
+    static class State {
+
+        final RevokedCertIndex snapshot;
+
+        // entries added or replaced since the snapshot
+        final Map<BigInteger, RevokedCertificate> added;
+
+        // entries removed since the snapshot
+        final Set<BigInteger> removed;
+
+        // revocation status in the delta CRL tables
+        final Map<BigInteger, Entry> changes = new ConcurrentHashMap<>();
+
+        State(RevokedCertIndex snapshot) {
+            this(snapshot, new ConcurrentHashMap<>(), ConcurrentHashMap.newKeySet());
+        }
+
+        State(RevokedCertIndex snapshot,
+                Map<BigInteger, RevokedCertificate> added,
+                Set<BigInteger> removed) {
+            this.snapshot = snapshot;
+            this.added = added;
+            this.removed = removed;
+        }
+
+        boolean contains(BigInteger serialNumber) {
+            if (added.containsKey(serialNumber)) {
+                return true;
+            }
+            return !removed.contains(serialNumber) && snapshot.contains(serialNumber);
+        }
+
+        long getRevocationTime(BigInteger serialNumber) {
+            RevokedCertificate entry = added.get(serialNumber);
+            if (entry != null) {
+                return RevokedCertIndex.getTime(entry);
+            }
+            if (removed.contains(serialNumber)) {
+                return NO_DATE;
+            }
+            return snapshot.getRevocationTime(serialNumber);
+        }
+    }
+
+    /**
+     * Entries of the full CRL as the entries of the last CRL and
+     * the entries added, replaced, or removed since then.
+     */
+    public static class CRLEntries {
+
+        final RevokedCertIndex snapshot;
+        final Map<BigInteger, RevokedCertificate> added;
+        final Set<BigInteger> removed;
+        final int size;
+
+        CRLEntries(
+                RevokedCertIndex snapshot,
+                Map<BigInteger, RevokedCertificate> added,
+                Set<BigInteger> removed,
+                int size) {
+            this.snapshot = snapshot;
+            this.added = added;
+            this.removed = removed;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Immutable state of a certificate in the delta CRL tables.
+     */
+    static class Entry {
+
+        final boolean revoked;
+        final long revokedTime;
+        final boolean unrevoked;
+        final boolean expired;
+
+        Entry(boolean revoked, long revokedTime, boolean unrevoked, boolean expired) {
+            this.revoked = revoked;
+            this.revokedTime = revokedTime;
+            this.unrevoked = unrevoked;
+            this.expired = expired;
+        }
+
+        /**
+         * Returns the state of a certificate or null
+         * if it is not listed in any table.
+         */
+        static Entry create(
+                BigInteger serialNumber,
+                Map<BigInteger, RevokedCertificate> revokedCerts,
+                Map<BigInteger, RevokedCertificate> unrevokedCerts,
+                Map<BigInteger, RevokedCertificate> expiredCerts) {
+
+            RevokedCertificate revokedCert = revokedCerts == null ? null : revokedCerts.get(serialNumber);
+            boolean unrevoked = unrevokedCerts != null && unrevokedCerts.containsKey(serialNumber);
+            boolean expired = expiredCerts != null && expiredCerts.containsKey(serialNumber);
+
+            if (revokedCert == null && !unrevoked && !expired) {
+                return null;
+            }
+
+            return new Entry(
+                    revokedCert != null,
+                    RevokedCertIndex.getTime(revokedCert),
+                    unrevoked,
+                    expired);
+        }
+    }
+}
@@ -19,10 +19,13 @@ package com.netscape.ca;
 
 import java.io.IOException;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
@@ -64,6 +67,7 @@ import com.netscape.certsrv.logging.event.FullCRLPublishingEvent;
 import com.netscape.certsrv.request.IRequestVirtualList;
 import com.netscape.certsrv.request.RequestId;
 import com.netscape.cmscore.apps.CMS;
+import com.netscape.cmscore.dbs.CRLCacheChange;
 import com.netscape.cmscore.dbs.CRLIssuingPointRecord;
 import com.netscape.cmscore.dbs.CRLRepository;
 import com.netscape.cmscore.dbs.CertRecord;
@@ -167,10 +171,31 @@ public class CRLIssuingPoint implements Runnable {
     /**
      * CRL cache
      */
-    private Hashtable<BigInteger, RevokedCertificate> mCRLCerts = new Hashtable<>();
     private Hashtable<BigInteger, RevokedCertificate> mRevokedCerts = new Hashtable<>();
     private Hashtable<BigInteger, RevokedCertificate> mUnrevokedCerts = new Hashtable<>();
     private Hashtable<BigInteger, RevokedCertificate> mExpiredCerts = new Hashtable<>();
+
+    // entries of the full CRL and lock-free view of the tables above
+    // for revocation status checks
+    private CRLCacheIndex mCRLCacheIndex = new CRLCacheIndex();
+
+    /**
+     * Streaming encoder for full CRLs
+     */
+    private CRLStreamBuilder mCRLStreamBuilder;
+
+    /**
+     * CRL cache changes appended to the issuing point record
+     * which have not been included in a full cache update yet
+     */
+    private List<CRLCacheChange> mSavedCRLCacheChanges = new ArrayList<>();
+
+    /**
+     * Whether CRL cache changes can be appended to the change log
+     * (requires the compact CRL cache format to be enabled)
+     */
+    private boolean mEnableCRLCacheLog;
+
     private boolean mIncludeExpiredCerts = false;
     private boolean mIncludeExpiredCertsOneExtraTime = false;
     private boolean mCACertsOnly = false;
@@ -581,6 +606,7 @@ public class CRLIssuingPoint implements Runnable {
 
         mCA = ca;
         mId = id;
+        mCRLStreamBuilder = new CRLStreamBuilder(ca);
 
         if (mId.equals(CertificateAuthority.PROP_MASTER_CRL)) {
             mCrlUpdateStatus = Request.CRL_UPDATE_STATUS;
@@ -608,6 +634,9 @@ public class CRLIssuingPoint implements Runnable {
         mCRLRepository = engine.getCRLRepository();
         mPublisherProcessor = engine.getPublisherProcessor();
 
+        mEnableCRLCacheLog = engine.getDBSubsystem().getEnableCompactCRLCache();
+        logger.debug("CRLIssuingPoint: - CRL cache log: " + mEnableCRLCacheLog);
+
         // read in config parameters.
         initConfig(mConfigStore);
 
@@ -1046,14 +1075,29 @@ public class CRLIssuingPoint implements Runnable {
                                     mNextUpdate = x509crl.getNextUpdate();
                                 }
 
-                                mCRLCerts = x509crl.getListOfRevokedCertificates();
-                                logger.debug("CRLIssuingPoint: - CRL certs: " + mCRLCerts.size());
+                                try {
+                                    mCRLCacheIndex.setCRLEntries(
+                                            mCRLStreamBuilder.reset(x509crl.getListOfRevokedCertificates()));
+                                    logger.debug("CRLIssuingPoint: - CRL certs: " + mCRLCacheIndex.getCRLSize());
+
+                                } catch (IOException e) {
+                                    // the cache will be reloaded from the database
+                                    logger.warn(CMS.getLogMessage("CMSCORE_CA_ISSUING_DECODE_CRL", e.toString()), e);
+                                    clearCRLCache();
+                                }
+
+                                replayCRLCacheChanges(crlRecord.getCRLCacheLog());
                             }
                             if (mFirstUnsaved != null && !mFirstUnsaved.equals(CRLIssuingPointRecord.CLEAN_CACHE)) {
                                 recoverCRLCache();
                             } else {
                                 mCRLCacheIsCleared = false;
                             }
+                            if (!getSavedCRLCacheChanges().isEmpty()) {
+                                // fold the replayed changes into the full cache
+                                updateCRLCacheRepository();
+                            }
+                            rebuildCRLCacheIndex();
                             mInitialized = CRLIssuingPointStatus.Initialized;
                         }
                         if (mPublishOnStart) {
@@ -1451,6 +1495,10 @@ public class CRLIssuingPoint implements Runnable {
         mEnable = false;
 
         setAutoUpdates();
+
+        if (mCRLStreamBuilder != null) {
+            mCRLStreamBuilder.clear();
+        }
     }
 
     /**
@@ -1550,7 +1598,8 @@ public class CRLIssuingPoint implements Runnable {
      * @return number of entries in the current CRL
      */
     public long getCRLSize() {
-        return (mCRLCerts.size() > 0 && mCRLSize == 0) ? mCRLCerts.size() : mCRLSize;
+        int crlSize = mCRLCacheIndex.getCRLSize();
+        return (crlSize > 0 && mCRLSize == 0) ? crlSize : mCRLSize;
     }
 
     /**
@@ -1590,17 +1639,32 @@ public class CRLIssuingPoint implements Runnable {
     }
 
     /**
-     * Returns all the revoked certificates from the CRL cache.
+     * Returns the revoked certificates from the CRL cache in serial number order.
      *
      * @param start first requested CRL entry
      * @param end next after last requested CRL entry
-     * @return set of all the revoked certificates or null if there are none.
+     * @return set of the requested revoked certificates or null if there are none.
      */
     public Set<RevokedCertificate> getRevokedCertificates(int start, int end) {
-        if (mCRLCacheIsCleared || mCRLCerts == null || mCRLCerts.isEmpty()) {
-            return null;
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+
+            if (mCRLCacheIsCleared || mCRLCacheIndex.getCRLSize() == 0) {
+                return null;
+            }
+
+            try {
+                return new LinkedHashSet<>(mCRLStreamBuilder.getEntries(
+                        mCRLCacheIndex.getCRLEntries(), start, end));
+
+            } catch (Exception e) {
+                // the entries file may have been replaced by a new CRL
+                logger.debug("CRLIssuingPoint: Unable to read CRL cache: " + e.getMessage());
+            }
         }
-        return new LinkedHashSet<>(mCRLCerts.values());
+
+        logger.warn("CRLIssuingPoint: Unable to read CRL cache");
+        return null;
     }
 
     /**
@@ -2182,13 +2246,20 @@ public class CRLIssuingPoint implements Runnable {
 
         logger.info("CRLIssuingPoint: Processing revoked certs");
 
-        CertRecordProcessor cp = new CertRecordProcessor(mCRLCerts, this, mAllowExtensions);
+        Hashtable<BigInteger, RevokedCertificate> crlCerts = new Hashtable<>();
+        CertRecordProcessor cp = new CertRecordProcessor(crlCerts, this, mAllowExtensions);
 
         String filter = getFilter();
         logger.info("CRLIssuingPoint: - filter: " + filter);
 
         CAEngine engine = CAEngine.getInstance();
         engine.certStatusUpdateTask.processRevokedCerts(cp, filter, mPageSize);
+
+        try {
+            mCRLCacheIndex.setCRLEntries(mCRLStreamBuilder.reset(crlCerts));
+        } catch (IOException e) {
+            throw new EBaseException("Unable to store CRL cache: " + e.getMessage(), e);
+        }
     }
 
     /**
@@ -2199,10 +2270,13 @@ public class CRLIssuingPoint implements Runnable {
         logger.info("CRLIssuingPoint: Clearing CRL cache");
 
         mCRLCacheIsCleared = true;
-        mCRLCerts.clear();
         mRevokedCerts.clear();
         mUnrevokedCerts.clear();
         mExpiredCerts.clear();
+        mCRLCacheIndex.clear();
+        if (mCRLStreamBuilder != null) {
+            mCRLStreamBuilder.clear();
+        }
         mSchemaCounter = 0;
     }
 
@@ -2216,6 +2290,7 @@ public class CRLIssuingPoint implements Runnable {
         mRevokedCerts.clear();
         mUnrevokedCerts.clear();
         mExpiredCerts.clear();
+        rebuildCRLCacheIndex();
         mSchemaCounter = 0;
     }
 
@@ -2246,7 +2321,7 @@ public class CRLIssuingPoint implements Runnable {
             logger.debug("CRLIssuingPoint: size: " + list.getSize());
             logger.debug("CRLIssuingPoint: index: " + list.getCurrentIndex());
 
-            CertRecordProcessor cp = new CertRecordProcessor(mCRLCerts, this, mAllowExtensions);
+            CertRecordProcessor cp = new CertRecordProcessor(null, this, mAllowExtensions);
             boolean includeCert = true;
 
             int s = list.getSize() - list.getCurrentIndex();
@@ -2440,13 +2515,13 @@ public class CRLIssuingPoint implements Runnable {
             if (certType == REVOKED_CERT) {
                 if (mUnrevokedCerts.containsKey(serialNumber)) {
                     mUnrevokedCerts.remove(serialNumber);
-                    if (mCRLCerts.containsKey(serialNumber)) {
+                    if (mCRLCacheIndex.containsCRLEntry(serialNumber)) {
                         Date revocationDate = revokedCert.getRevocationDate();
                         CRLExtensions entryExt = getRequiredEntryExtensions(revokedCert.getExtensions());
                         RevokedCertImpl newRevokedCert =
                                 new RevokedCertImpl(serialNumber, revocationDate, entryExt);
 
-                        mCRLCerts.put(serialNumber, newRevokedCert);
+                        mCRLCacheIndex.putCRLEntry(serialNumber, newRevokedCert);
                     }
 
                 } else {
@@ -2475,9 +2550,11 @@ public class CRLIssuingPoint implements Runnable {
                     mUnrevokedCerts.put(serialNumber, newRevokedCert);
                 }
             }
+
+            updateCRLCacheIndex(serialNumber);
         }
 
-        logger.debug("CRLIssuingPoint: - CRL certs: " + mCRLCerts.size());
+        logger.debug("CRLIssuingPoint: - CRL certs: " + mCRLCacheIndex.getCRLSize());
         logger.debug("CRLIssuingPoint: - revoked certs: " + mRevokedCerts.size());
         logger.debug("CRLIssuingPoint: - unrevoked certs: " + mUnrevokedCerts.size());
     }
@@ -2505,19 +2582,49 @@ public class CRLIssuingPoint implements Runnable {
         CertId certID = new CertId(serialNumber);
         logger.info("CRLIssuingPoint: Adding revoked cert " + certID.toHexString());
 
-        CertRecordProcessor cp = new CertRecordProcessor(mCRLCerts, this, mAllowExtensions);
-        boolean includeCert = cp.checkRevokedCertExtensions(revokedCert.getExtensions());
+        addRevokedCerts(Map.of(serialNumber, revokedCert), requestId);
+    }
+
+    /**
+     * Adds revoked certificates to delta-CRL cache. When the cache is
+     * saved on every change, all certificates are saved in a single
+     * update of the issuing point record.
+     *
+     * @param revokedCerts revocation information supplied by revocation request
+     * @param requestId revocation request id
+     */
+    public void addRevokedCerts(Map<BigInteger, RevokedCertImpl> revokedCerts, String requestId) {
+
+        logger.info("CRLIssuingPoint: Adding " + revokedCerts.size() + " revoked cert(s)");
+
+        if (!mEnable || !mEnableCRLCache) {
+            return;
+        }
+
+        CertRecordProcessor cp = new CertRecordProcessor(null, this, mAllowExtensions);
+        List<CRLCacheChange> changes = new ArrayList<>();
+
+        for (Map.Entry<BigInteger, RevokedCertImpl> entry : revokedCerts.entrySet()) {
+
+            BigInteger serialNumber = entry.getKey();
+            RevokedCertImpl revokedCert = entry.getValue();
+
+            if (!cp.checkRevokedCertExtensions(revokedCert.getExtensions())) {
+                continue;
+            }
 
-        if (mEnable && mEnableCRLCache && includeCert) {
             updateRevokedCert(REVOKED_CERT, serialNumber, revokedCert, requestId);
+            changes.add(new CRLCacheChange(CRLCacheChange.REVOKED, serialNumber, revokedCert));
+        }
 
-            if (mCacheUpdateInterval == 0) {
-                try {
+        if (mCacheUpdateInterval == 0 && !changes.isEmpty()) {
+            try {
+                if (!saveCRLCacheChanges(changes)) {
                     mCRLRepository.updateRevokedCerts(mId, mRevokedCerts, mUnrevokedCerts);
-                    mFirstUnsaved = CRLIssuingPointRecord.CLEAN_CACHE;
-                } catch (EBaseException e) {
-                    logger.warn(CMS.getLogMessage("CMSCORE_CA_ISSUING_STORE_REVOKED_CERT", mId, e.toString()), e);
                 }
+                mFirstUnsaved = CRLIssuingPointRecord.CLEAN_CACHE;
+            } catch (EBaseException e) {
+                logger.warn(CMS.getLogMessage("CMSCORE_CA_ISSUING_STORE_REVOKED_CERT", mId, e.toString()), e);
             }
         }
     }
@@ -2542,16 +2649,40 @@ public class CRLIssuingPoint implements Runnable {
         CertId certID = new CertId(serialNumber);
         logger.info("CRLIssuingPoint: Adding unrevoked cert " + certID.toHexString());
 
-        if (mEnable && mEnableCRLCache) {
+        addUnrevokedCerts(List.of(serialNumber), requestId);
+    }
+
+    /**
+     * Adds unrevoked certificates to delta-CRL cache. When the cache is
+     * saved on every change, all certificates are saved in a single
+     * update of the issuing point record.
+     *
+     * @param serialNumbers serial numbers of unrevoked certificates
+     * @param requestId unrevocation request id
+     */
+    public void addUnrevokedCerts(Collection<BigInteger> serialNumbers, String requestId) {
+
+        logger.info("CRLIssuingPoint: Adding " + serialNumbers.size() + " unrevoked cert(s)");
+
+        if (!mEnable || !mEnableCRLCache) {
+            return;
+        }
+
+        List<CRLCacheChange> changes = new ArrayList<>();
+
+        for (BigInteger serialNumber : serialNumbers) {
             updateRevokedCert(UNREVOKED_CERT, serialNumber, null, requestId);
+            changes.add(new CRLCacheChange(CRLCacheChange.UNREVOKED, serialNumber, null));
+        }
 
-            if (mCacheUpdateInterval == 0) {
-                try {
+        if (mCacheUpdateInterval == 0 && !changes.isEmpty()) {
+            try {
+                if (!saveCRLCacheChanges(changes)) {
                     mCRLRepository.updateRevokedCerts(mId, mRevokedCerts, mUnrevokedCerts);
-                    mFirstUnsaved = CRLIssuingPointRecord.CLEAN_CACHE;
-                } catch (EBaseException e) {
-                    logger.warn(CMS.getLogMessage("CMSCORE_CA_ISSUING_STORE_UNREVOKED_CERT", mId, e.toString()), e);
                 }
+                mFirstUnsaved = CRLIssuingPointRecord.CLEAN_CACHE;
+            } catch (EBaseException e) {
+                logger.warn(CMS.getLogMessage("CMSCORE_CA_ISSUING_STORE_UNREVOKED_CERT", mId, e.toString()), e);
             }
         }
     }
@@ -2578,12 +2709,19 @@ public class CRLIssuingPoint implements Runnable {
                 RevokedCertImpl newRevokedCert = new RevokedCertImpl(serialNumber,
                         new Date(), entryExt);
 
-                mExpiredCerts.put(serialNumber, newRevokedCert);
+                synchronized (cacheMonitor) {
+                    mExpiredCerts.put(serialNumber, newRevokedCert);
+                    updateCRLCacheIndex(serialNumber);
+                }
             }
 
             if (mCacheUpdateInterval == 0) {
                 try {
-                    mCRLRepository.updateExpiredCerts(mId, mExpiredCerts);
+                    CRLCacheChange change = new CRLCacheChange(CRLCacheChange.EXPIRED,
+                            serialNumber, mExpiredCerts.get(serialNumber));
+                    if (!saveCRLCacheChange(change)) {
+                        mCRLRepository.updateExpiredCerts(mId, mExpiredCerts);
+                    }
                 } catch (EBaseException e) {
                     logger.warn(CMS.getLogMessage("CMSCORE_CA_ISSUING_STORE_EXPIRED_CERT", mId, e.toString()), e);
                 }
@@ -2601,15 +2739,127 @@ public class CRLIssuingPoint implements Runnable {
     public void updateCRLCacheRepository() {
         synchronized (repositoryMonitor) {
             try {
+                List<CRLCacheChange> changes = getSavedCRLCacheChanges();
                 mCRLRepository.updateCRLCache(mId, Long.valueOf(mCRLSize),
                         mRevokedCerts, mUnrevokedCerts, mExpiredCerts);
                 mFirstUnsaved = CRLIssuingPointRecord.CLEAN_CACHE;
+                removeSavedCRLCacheChanges(changes);
             } catch (EBaseException e) {
                 logger.warn(CMS.getLogMessage("CMSCORE_CA_ISSUING_STORE_CRL_CACHE", e.toString()), e);
             }
         }
     }
 
+    /**
+     * Appends a single CRL cache change to the issuing point record
+     * instead of rewriting the whole cache.
+     *
+     * @param change CRL cache change
+     * @return false if the change could not be appended (e.g. the
+     *         database schema does not have the change log attribute yet
+     *         or the change log is disabled)
+     */
+    private boolean saveCRLCacheChange(CRLCacheChange change) {
+        return saveCRLCacheChanges(List.of(change));
+    }
+
+    /**
+     * Appends multiple CRL cache changes to the issuing point record
+     * in a single update.
+     *
+     * @param changes CRL cache changes
+     * @return false if the changes could not be appended or the
+     *         change log is disabled
+     */
+    private boolean saveCRLCacheChanges(List<CRLCacheChange> changes) {
+
+        if (!mEnableCRLCacheLog) {
+            return false;
+        }
+
+        try {
+            mCRLRepository.appendCRLCacheChanges(mId, changes);
+
+        } catch (EBaseException e) {
+            logger.warn("CRLIssuingPoint: Unable to append CRL cache changes: " + e.getMessage(), e);
+            return false;
+        }
+
+        synchronized (mSavedCRLCacheChanges) {
+            mSavedCRLCacheChanges.addAll(changes);
+        }
+
+        return true;
+    }
+
+    private List<CRLCacheChange> getSavedCRLCacheChanges() {
+        synchronized (mSavedCRLCacheChanges) {
+            return new ArrayList<>(mSavedCRLCacheChanges);
+        }
+    }
+
+    /**
+     * Removes CRL cache changes that have been included in
+     * a full cache update from the issuing point record.
+     */
+    private void removeSavedCRLCacheChanges(List<CRLCacheChange> changes) {
+
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        try {
+            mCRLRepository.removeCRLCacheChanges(mId, changes);
+
+        } catch (EBaseException e) {
+            logger.warn("CRLIssuingPoint: Unable to remove CRL cache changes: " + e.getMessage(), e);
+            return;
+        }
+
+        synchronized (mSavedCRLCacheChanges) {
+            mSavedCRLCacheChanges.removeAll(changes);
+        }
+    }
+
+    /**
+     * Applies CRL cache changes saved after the last full cache update.
+     */
+    private void replayCRLCacheChanges(List<CRLCacheChange> changes) {
+
+        if (changes == null || changes.isEmpty()) {
+            return;
+        }
+
+        logger.info("CRLIssuingPoint: Replaying " + changes.size() + " CRL cache change(s)");
+
+        for (CRLCacheChange change : changes) {
+            BigInteger serialNumber = change.getSerialNumber();
+
+            switch (change.getType()) {
+            case CRLCacheChange.REVOKED:
+                updateRevokedCert(REVOKED_CERT, serialNumber, (RevokedCertImpl) change.getEntry());
+                break;
+            case CRLCacheChange.UNREVOKED:
+                updateRevokedCert(UNREVOKED_CERT, serialNumber, null);
+                break;
+            case CRLCacheChange.EXPIRED:
+                if (change.getEntry() != null && !mExpiredCerts.containsKey(serialNumber)) {
+                    synchronized (cacheMonitor) {
+                        mExpiredCerts.put(serialNumber, change.getEntry());
+                        updateCRLCacheIndex(serialNumber);
+                    }
+                }
+                break;
+            default:
+                logger.warn("CRLIssuingPoint: Unknown CRL cache change type: " + change.getType());
+            }
+        }
+
+        synchronized (mSavedCRLCacheChanges) {
+            mSavedCRLCacheChanges.addAll(changes);
+        }
+    }
+
     /**
      * Returns true if delta-CRL is enabled.
      *
@@ -2674,7 +2924,7 @@ public class CRLIssuingPoint implements Runnable {
      * @return true if CRL cache is empty
      */
     public boolean isCRLCacheEmpty() {
-        return mCRLCerts == null || mCRLCerts.isEmpty();
+        return mCRLCacheIndex.getCRLSize() == 0;
     }
 
     /**
@@ -2700,25 +2950,31 @@ public class CRLIssuingPoint implements Runnable {
     public Date getRevocationDateFromCache(BigInteger serialNumber,
             boolean checkDeltaCache,
             boolean includeExpiredCerts) {
-        Date revocationDate = null;
+        return mCRLCacheIndex.getRevocationDate(
+                serialNumber,
+                checkDeltaCache && isDeltaCRLEnabled(),
+                includeExpiredCerts);
+    }
 
-        if (mCRLCerts.containsKey(serialNumber)) {
-            revocationDate = mCRLCerts.get(serialNumber).getRevocationDate();
-        }
+    /**
+     * Updates the revocation status of a certificate in the CRL cache index.
+     * Must be called with cacheMonitor held after changing the CRL cache.
+     */
+    private void updateCRLCacheIndex(BigInteger serialNumber) {
+        mCRLCacheIndex.update(serialNumber, mRevokedCerts, mUnrevokedCerts, mExpiredCerts);
+    }
 
-        if (checkDeltaCache && isDeltaCRLEnabled()) {
-            if (mUnrevokedCerts.containsKey(serialNumber)) {
-                revocationDate = null;
-            }
-            if (mRevokedCerts.containsKey(serialNumber)) {
-                revocationDate = mRevokedCerts.get(serialNumber).getRevocationDate();
-            }
-            if (!includeExpiredCerts && mExpiredCerts.containsKey(serialNumber)) {
-                revocationDate = null;
-            }
+    /**
+     * Reloads the revocation status of the certificates in the
+     * delta CRL tables after they have been reloaded or merged.
+     */
+    private void rebuildCRLCacheIndex() {
+        synchronized (cacheMonitor) {
+            mCRLCacheIndex.rebuild(mRevokedCerts, mUnrevokedCerts, mExpiredCerts);
         }
-
-        return revocationDate;
+        logger.debug("CRLIssuingPoint: - indexed CRL certs: " + mCRLCacheIndex.getCRLSize());
+        logger.debug("CRLIssuingPoint: - indexed CRL changes: " + mCRLCacheIndex.getCRLChanges());
+        logger.debug("CRLIssuingPoint: - indexed delta changes: " + mCRLCacheIndex.getChanges());
     }
 
     /**
@@ -2784,7 +3040,7 @@ public class CRLIssuingPoint implements Runnable {
         logger.debug("CRLIssuingPoint: - delta CRL enabled: " + isDeltaCRLEnabled());
         logger.debug("CRLIssuingPoint: - CRL cache enabled: " + mEnableCRLCache);
         logger.debug("CRLIssuingPoint: - cache recovery enabled: " + mCRLCacheIsCleared);
-        logger.debug("CRLIssuingPoint: - CRL certs: " + mCRLCerts.size());
+        logger.debug("CRLIssuingPoint: - CRL certs: " + mCRLCacheIndex.getCRLSize());
         logger.debug("CRLIssuingPoint: - revoked certs: " + mRevokedCerts.size());
         logger.debug("CRLIssuingPoint: - unrevoked certs: " + mUnrevokedCerts.size());
         logger.debug("CRLIssuingPoint: - expired certs: " + mExpiredCerts.size());
@@ -2897,13 +3153,17 @@ public class CRLIssuingPoint implements Runnable {
 
         // starting from the beginning
 
+        int crlSize = mCRLCacheIndex.getCRLSize();
+
         if ((!mEnableCRLCache) ||
-                ((mCRLCacheIsCleared && mCRLCerts.isEmpty() && clonedRevokedCerts.isEmpty() &&
+                ((mCRLCacheIsCleared && crlSize == 0 && clonedRevokedCerts.isEmpty() &&
                         clonedUnrevokedCerts.isEmpty() && clonedExpiredCerts.isEmpty()) ||
-                        (mCRLCerts.isEmpty() && (!clonedUnrevokedCerts.isEmpty())) ||
-                        (mCRLCerts.size() < clonedUnrevokedCerts.size()) ||
-                        (mCRLCerts.isEmpty() && (mCRLSize > 0)) ||
-                (mCRLCerts.size() > 0 && mCRLSize == 0))) {
+                        (crlSize == 0 && (!clonedUnrevokedCerts.isEmpty())) ||
+                        (crlSize < clonedUnrevokedCerts.size()) ||
+                        (crlSize == 0 && (mCRLSize > 0)) ||
+                (crlSize > 0 && mCRLSize == 0) ||
+                // entries of the last CRL are no longer available
+                !mCRLStreamBuilder.hasEntries(mCRLCacheIndex.getSnapshot()))) {
 
             mSplits[5] -= System.currentTimeMillis();
             mDeltaCRLSize = -1;
@@ -2943,18 +3203,18 @@ public class CRLIssuingPoint implements Runnable {
             mSplits[5] -= System.currentTimeMillis();
 
             if (mSchemaCounter == 0) {
-                if (((!mCRLCerts.isEmpty()) && ((!clonedRevokedCerts.isEmpty()) ||
+                if (((crlSize > 0) && ((!clonedRevokedCerts.isEmpty()) ||
                         (!clonedUnrevokedCerts.isEmpty()) || (!clonedExpiredCerts.isEmpty()))) ||
-                        (mCRLCerts.isEmpty() && (mCRLSize == 0) && (!clonedRevokedCerts.isEmpty()))) {
+                        (crlSize == 0 && (mCRLSize == 0) && (!clonedRevokedCerts.isEmpty()))) {
 
                     if (!clonedUnrevokedCerts.isEmpty()) {
                         for (Enumeration<BigInteger> e = clonedUnrevokedCerts.keys(); e.hasMoreElements();) {
                             BigInteger serialNumber = e.nextElement();
                             CertId certID = new CertId(serialNumber);
 
-                            if (mCRLCerts.containsKey(serialNumber)) {
+                            if (mCRLCacheIndex.containsCRLEntry(serialNumber)) {
                                 logger.info("CRLIssuingPoint: Removing unrevoked cert " + certID.toHexString() + " from cache");
-                                mCRLCerts.remove(serialNumber);
+                                mCRLCacheIndex.removeCRLEntry(serialNumber);
                             }
                             mUnrevokedCerts.remove(serialNumber);
                         }
@@ -2966,7 +3226,7 @@ public class CRLIssuingPoint implements Runnable {
                             CertId certID = new CertId(serialNumber);
 
                             logger.info("CRLIssuingPoint: Adding revoked cert " + certID.toHexString() + " to cache");
-                            mCRLCerts.put(serialNumber, mRevokedCerts.get(serialNumber));
+                            mCRLCacheIndex.putCRLEntry(serialNumber, mRevokedCerts.get(serialNumber));
                             mRevokedCerts.remove(serialNumber);
                         }
                     }
@@ -2981,9 +3241,7 @@ public class CRLIssuingPoint implements Runnable {
                                     mLastFullUpdate.after((mExpiredCerts.get(serialNumber)).getRevocationDate())) ||
                                     mLastFullUpdate == null) {
                                 logger.info("CRLIssuingPoint: Removing expired cert " + certID.toHexString() + " from cache");
-                                if (mCRLCerts.containsKey(serialNumber)) {
-                                    mCRLCerts.remove(serialNumber);
-                                }
+                                mCRLCacheIndex.removeCRLEntry(serialNumber);
                                 mExpiredCerts.remove(serialNumber);
                             }
                         }
@@ -2994,7 +3252,8 @@ public class CRLIssuingPoint implements Runnable {
             mSplits[5] += System.currentTimeMillis();
         }
 
-        logger.debug("CRLIssuingPoint: - CRL certs: " + mCRLCerts.size());
+        logger.debug("CRLIssuingPoint: - CRL certs: " + mCRLCacheIndex.getCRLSize());
+        rebuildCRLCacheIndex();
 
         clonedRevokedCerts.clear();
         clonedUnrevokedCerts.clear();
@@ -3209,12 +3468,13 @@ public class CRLIssuingPoint implements Runnable {
 
             mSplits[7] -= System.currentTimeMillis();
 
-            logger.debug("CRLIssuingPoint: - CRL certs: " + mCRLCerts.size());
+            CRLCacheIndex.CRLEntries crlEntries = mCRLCacheIndex.getCRLEntries();
+            logger.debug("CRLIssuingPoint: - CRL certs: " + crlEntries.size());
 
             // #56123 - dont generate CRL if no revoked certificates
             if (mConfigStore.getNoCRLIfNoRevokedCert()) {
 
-                if (mCRLCerts.size() == 0) {
+                if (crlEntries.size() == 0) {
                     logger.info("CRLIssuingPoint: Not generating full CRL since there are no revoked certificates");
                     auditor.log(FullCRLGenerationEvent.createSuccessEvent(
                             getAuditSubjectID(),
@@ -3223,16 +3483,18 @@ public class CRLIssuingPoint implements Runnable {
                 }
             }
 
-            logger.info("CRLIssuingPoint: Generating full CRL with " + mCRLCerts.size() + " cert(s)");
-            X509CRLImpl crl = new X509CRLImpl(mCA.getCRLX500Name(),
-                    AlgorithmId.get(signingAlgorithm),
-                    thisUpdate, nextUpdate, mCRLCerts, ext);
+            logger.info("CRLIssuingPoint: Generating full CRL with " + crlEntries.size() + " cert(s)");
+            byte[] newCRL = mCRLStreamBuilder.build(mCA.getCRLX500Name(),
+                    signingAlgorithm, thisUpdate, nextUpdate, crlEntries, ext);
+
+            // the entries are now in the entries file of the new CRL
+            mCRLCacheIndex.setCRLEntries(mCRLStreamBuilder.getIndex(), crlEntries);
 
-            logger.info("CRLIssuingPoint: Signing full CRL with " + signingAlgorithm);
-            newX509CRL = mCA.sign(crl, signingAlgorithm);
+            logger.debug("CRLIssuingPoint: - reused CRL entries: " + mCRLStreamBuilder.getReusedEntries());
+            logger.debug("CRLIssuingPoint: - encoded CRL entries: " + mCRLStreamBuilder.getEncodedEntries());
 
-            logger.info("CRLIssuingPoint: Encoding full CRL");
-            byte[] newCRL = newX509CRL.getEncoded();
+            // publishers only need the encoding and the CRL-level fields
+            newX509CRL = new X509CRLImpl(newCRL, false);
 
             mSplits[7] += System.currentTimeMillis();
 
@@ -3249,20 +3511,22 @@ public class CRLIssuingPoint implements Runnable {
             if (mSaveMemory) {
                 mCRLRepository.updateCRLIssuingPointRecord(
                         mId, newCRL, thisUpdate, nextUpdateDate,
-                        mNextCRLNumber, Long.valueOf(mCRLCerts.size()));
+                        mNextCRLNumber, Long.valueOf(crlEntries.size()));
                 updateCRLCacheRepository();
 
             } else {
+                List<CRLCacheChange> changes = getSavedCRLCacheChanges();
                 mCRLRepository.updateCRLIssuingPointRecord(
                         mId, newCRL, thisUpdate, nextUpdateDate,
-                        mNextCRLNumber, Long.valueOf(mCRLCerts.size()),
+                        mNextCRLNumber, Long.valueOf(crlEntries.size()),
                         mRevokedCerts, mUnrevokedCerts, mExpiredCerts);
                 mFirstUnsaved = CRLIssuingPointRecord.CLEAN_CACHE;
+                removeSavedCRLCacheChanges(changes);
             }
 
             mSplits[8] += System.currentTimeMillis();
 
-            mCRLSize = mCRLCerts.size();
+            mCRLSize = crlEntries.size();
             mCRLNumber = mNextCRLNumber;
             mDeltaCRLNumber = mCRLNumber;
             mNextCRLNumber = mCRLNumber.add(BigInteger.ONE);
@@ -0,0 +1,710 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.ca;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.mozilla.jss.netscape.security.util.BigInt;
+import org.mozilla.jss.netscape.security.util.DerOutputStream;
+import org.mozilla.jss.netscape.security.util.DerValue;
+import org.mozilla.jss.netscape.security.x509.AlgorithmId;
+import org.mozilla.jss.netscape.security.x509.CRLExtensions;
+import org.mozilla.jss.netscape.security.x509.RevokedCertImpl;
+import org.mozilla.jss.netscape.security.x509.RevokedCertificate;
+import org.mozilla.jss.netscape.security.x509.X500Name;
+
+import com.netscape.certsrv.base.EBaseException;
+import com.netscape.cmscore.apps.CMS;
+import com.netscape.cmscore.cert.RevokedCertIndex;
+
+/**
+ * This class builds a full CRL without constructing an in-memory
+ * X509CRLImpl. The revoked entries are written in serial number order
+ * straight to a temporary file in the instance's work directory, and
+ * the TBSCertList is streamed into the signature context.
+ *
+ * The entries file of the last CRL is kept on disk and it is the only
+ * copy of the entries of the CRL cache which are not changed since
+ * then. The CRLCacheIndex keeps their serial numbers and revocation
+ * dates in the same order. The next CRL is written by merging that file
+ * with the entries that were added, replaced, or removed since then, so
+ * only those entries are sorted and encoded, and the encoding of the
+ * other entries is copied from the file. No entry encodings are kept in
+ * memory.
+ *
+ * The builder is owned by a single CRLIssuingPoint and is only updated
+ * from its synchronized update path.
+ */
+public class CRLStreamBuilder {
+
+    public static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CRLStreamBuilder.class);
+
+    // Dates from year 2050 on must be encoded as GeneralizedTime (RFC 5280)
+    private static final long YR_2050 = 2524608000000L;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private CertificateAuthority ca;
+
+    // entries file of the last CRL and the index of the entries
+    // it contains in the same order
+    private volatile Entries lastEntries = new Entries(null, RevokedCertIndex.EMPTY);
+
+    private long reusedEntries;
+    private long encodedEntries;
+
+    public CRLStreamBuilder(CertificateAuthority ca) {
+        this.ca = ca;
+    }
+
+    /**
+     * Returns the number of entries whose encoding was copied
+     * from the last CRL when the last CRL was generated.
+     */
+    public long getReusedEntries() {
+        return reusedEntries;
+    }
+
+    /**
+     * Returns the number of entries that had to be encoded
+     * when the last CRL was generated.
+     */
+    public long getEncodedEntries() {
+        return encodedEntries;
+    }
+
+    /**
+     * Returns true if the entries file of the last CRL contains
+     * the entries of the given index.
+     */
+    public boolean hasEntries(RevokedCertIndex index) {
+
+        Entries entries = lastEntries;
+
+        if (entries.index != index) {
+            return false;
+        }
+
+        return index.size() == 0 || entries.file != null && entries.file.isFile();
+    }
+
+    /**
+     * Drops the entries of the last CRL. The CRL cache has
+     * to be reloaded before the next CRL can be generated.
+     */
+    public void clear() {
+        setLastEntries(null, RevokedCertIndex.EMPTY);
+    }
+
+    private void setLastEntries(File file, RevokedCertIndex index) {
+
+        Entries entries = lastEntries;
+        lastEntries = new Entries(file, index);
+
+        if (entries.file != null) {
+            entries.file.delete();
+        }
+    }
+
+    /**
+     * Replaces the entries of the last CRL with a complete table
+     * of revoked certificates, e.g. after the CRL cache is reloaded.
+     *
+     * @param entries revoked certificates indexed by serial number, can be null
+     * @return index of the new entries for CRLCacheIndex
+     * @exception IOException failed to write the entries
+     */
+    public RevokedCertIndex reset(Map<BigInteger, RevokedCertificate> entries) throws IOException {
+
+        clear();
+
+        if (entries == null || entries.isEmpty()) {
+            return RevokedCertIndex.EMPTY;
+        }
+
+        BigInteger[] serialNumbers = entries.keySet().toArray(new BigInteger[0]);
+        Arrays.sort(serialNumbers);
+
+        File entriesFile = File.createTempFile("crl-entries-", ".der", getTempDir());
+        boolean success = false;
+
+        try {
+            logger.info("CRLStreamBuilder: Writing CRL cache into " + entriesFile);
+            EntryWriter writer = new EntryWriter(entriesFile, serialNumbers.length);
+
+            try {
+                for (BigInteger serialNumber : serialNumbers) {
+                    writer.encode(serialNumber, entries.get(serialNumber));
+                }
+            } finally {
+                writer.close();
+            }
+
+            RevokedCertIndex index = writer.index.build();
+            setLastEntries(entriesFile, index);
+
+            success = true;
+            return index;
+
+        } finally {
+            if (!success) {
+                entriesFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Returns the entries of the CRL cache in serial number order.
+     *
+     * @param entries entries returned by CRLCacheIndex.getCRLEntries()
+     * @param start first requested entry
+     * @param end next after last requested entry
+     * @return requested entries
+     * @exception Exception failed to read the entries
+     */
+    public List<RevokedCertificate> getEntries(CRLCacheIndex.CRLEntries entries, int start, int end)
+            throws Exception {
+
+        List<RevokedCertificate> list = new ArrayList<>();
+
+        mergeEntries(entries, new EntryConsumer() {
+
+            int count;
+
+            @Override
+            public boolean accept(BigInteger serialNumber, RevokedCertificate entry, long time, byte[] encoding)
+                    throws Exception {
+
+                if (count >= end) {
+                    return false;
+                }
+
+                if (count >= start) {
+                    list.add(entry != null ? entry : new RevokedCertImpl(encoding));
+                }
+
+                count++;
+                return true;
+            }
+        });
+
+        return list;
+    }
+
+    /**
+     * Returns the directory for the temporary files, which is the
+     * work directory of the instance if available.
+     */
+    File getTempDir() {
+
+        String instanceDir = CMS.getInstanceDir();
+        if (instanceDir == null) {
+            return null; // use default temp dir
+        }
+
+        File workDir = new File(instanceDir, "work");
+        if (!workDir.isDirectory()) {
+            return null; // use default temp dir
+        }
+
+        return workDir;
+    }
+
+    /**
+     * Generates a signed full CRL.
+     *
+     * @param issuer CRL issuer name
+     * @param signingAlgorithm signing algorithm name
+     * @param thisUpdate thisUpdate time
+     * @param nextUpdate nextUpdate time, can be null
+     * @param entries entries returned by CRLCacheIndex.getCRLEntries()
+     * @param extensions CRL extensions, can be null
+     * @return DER-encoded signed CRL
+     * @exception Exception failed to generate CRL
+     */
+    public byte[] build(
+            X500Name issuer,
+            String signingAlgorithm,
+            Date thisUpdate,
+            Date nextUpdate,
+            CRLCacheIndex.CRLEntries entries,
+            CRLExtensions extensions) throws Exception {
+
+        File tempDir = getTempDir();
+        File entriesFile = File.createTempFile("crl-entries-", ".der", tempDir);
+        File tbsFile = File.createTempFile("crl-tbs-", ".der", tempDir);
+        boolean success = false;
+
+        try {
+            logger.info("CRLStreamBuilder: Writing CRL entries into " + entriesFile);
+            EntryWriter writer = new EntryWriter(entriesFile, entries.size());
+
+            try {
+                mergeEntries(entries, writer);
+
+            } catch (IOException e) {
+                // the CRL cache has to be reloaded
+                clear();
+                throw e;
+
+            } finally {
+                writer.close();
+            }
+
+            boolean hasEntryExtensions = writer.hasEntryExtensions;
+            long entriesLength = writer.length;
+
+            logger.info("CRLStreamBuilder: - entries: " + writer.count);
+            logger.info("CRLStreamBuilder: - reused entries: " + writer.reused);
+            logger.info("CRLStreamBuilder: - encoded entries: " + writer.encoded);
+
+            AlgorithmId algId = AlgorithmId.get(signingAlgorithm);
+
+            byte[] header = encodeHeader(
+                    extensions != null || hasEntryExtensions,
+                    algId, issuer, thisUpdate, nextUpdate);
+
+            byte[] trailer = null;
+            if (extensions != null) {
+                try (DerOutputStream out = new DerOutputStream()) {
+                    extensions.encode(out, true);
+                    trailer = out.toByteArray();
+                }
+            }
+
+            long tbsContentLength = header.length;
+            if (entriesLength > 0) {
+                tbsContentLength += 1 + lengthOfLength(entriesLength) + entriesLength;
+            }
+            if (trailer != null) {
+                tbsContentLength += trailer.length;
+            }
+
+            logger.info("CRLStreamBuilder: Writing TBSCertList");
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tbsFile), BUFFER_SIZE)) {
+
+                out.write(DerValue.tag_Sequence);
+                writeLength(out, tbsContentLength);
+                out.write(header);
+
+                if (entriesLength > 0) {
+                    out.write(DerValue.tag_Sequence);
+                    writeLength(out, entriesLength);
+                    copy(entriesFile, out);
+                }
+
+                if (trailer != null) {
+                    out.write(trailer);
+                }
+            }
+
+            logger.info("CRLStreamBuilder: Signing TBSCertList with " + signingAlgorithm);
+            byte[] signature;
+            try (InputStream in = new BufferedInputStream(new FileInputStream(tbsFile), BUFFER_SIZE)) {
+                signature = ca.signCRL(in, signingAlgorithm);
+            }
+
+            byte[] signatureInfo;
+            try (DerOutputStream out = new DerOutputStream()) {
+                algId.encode(out);
+                out.putBitString(signature);
+                signatureInfo = out.toByteArray();
+            }
+
+            long tbsLength = tbsFile.length();
+            long contentLength = tbsLength + signatureInfo.length;
+            long totalLength = 1 + lengthOfLength(contentLength) + contentLength;
+
+            if (totalLength > Integer.MAX_VALUE) {
+                throw new EBaseException("CRL too large: " + totalLength + " bytes");
+            }
+
+            logger.info("CRLStreamBuilder: Encoding signed CRL");
+            byte[] crl = new byte[(int) totalLength];
+            int offset = 0;
+
+            crl[offset++] = DerValue.tag_Sequence;
+            offset = putLength(crl, offset, contentLength);
+
+            try (InputStream in = new FileInputStream(tbsFile)) {
+                offset += in.readNBytes(crl, offset, (int) tbsLength);
+            }
+
+            System.arraycopy(signatureInfo, 0, crl, offset, signatureInfo.length);
+
+            // keep the entries for the next CRL
+            setLastEntries(entriesFile, writer.index.build());
+
+            reusedEntries = writer.reused;
+            encodedEntries = writer.encoded;
+
+            success = true;
+            return crl;
+
+        } finally {
+            if (!success) {
+                entriesFile.delete();
+            }
+            tbsFile.delete();
+        }
+    }
+
+    /**
+     * Returns the index of the entries in the entries file of the
+     * last CRL, to be passed to CRLCacheIndex.setCRLEntries().
+     */
+    public RevokedCertIndex getIndex() {
+        return lastEntries.index;
+    }
+
+    /**
+     * Passes the entries in serial number order to the consumer by
+     * merging the entries file of the last CRL with the entries that
+     * were added, replaced, or removed since then. Unchanged entries
+     * are passed as encodings, changed entries as objects.
+     */
+    void mergeEntries(CRLCacheIndex.CRLEntries entries, EntryConsumer consumer) throws Exception {
+
+        Entries last = lastEntries;
+        RevokedCertIndex index = entries.snapshot;
+
+        if (last.index != index) {
+            throw new EBaseException("CRL entries file does not match CRL cache");
+        }
+
+        BigInteger[] changes = entries.added.keySet().toArray(new BigInteger[0]);
+        Arrays.sort(changes);
+
+        int c = 0;
+
+        if (index.size() > 0) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(last.file), BUFFER_SIZE)) {
+
+                for (int i = 0; i < index.size(); i++) {
+
+                    BigInteger serialNumber = index.getSerialNumber(i);
+
+                    // pass the new entries preceding this entry
+                    while (c < changes.length && changes[c].compareTo(serialNumber) < 0) {
+                        if (!consumer.accept(changes[c], entries.added.get(changes[c]), 0, null)) {
+                            return;
+                        }
+                        c++;
+                    }
+
+                    byte[] encoding = readEntry(in);
+
+                    if (c < changes.length && changes[c].equals(serialNumber)) {
+                        // replaced entry
+                        if (!consumer.accept(serialNumber, entries.added.get(serialNumber), 0, null)) {
+                            return;
+                        }
+                        c++;
+                        continue;
+                    }
+
+                    if (entries.removed.contains(serialNumber)) {
+                        // removed entry
+                        continue;
+                    }
+
+                    if (!consumer.accept(serialNumber, null, index.getRevocationTime(i), encoding)) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        // pass the new entries following the last entry
+        while (c < changes.length) {
+            if (!consumer.accept(changes[c], entries.added.get(changes[c]), 0, null)) {
+                return;
+            }
+            c++;
+        }
+    }
+
+    /**
+     * Reads the next DER-encoded entry from an entries file.
+     */
+    static byte[] readEntry(InputStream in) throws IOException {
+
+        int tag = in.read();
+        int first = in.read();
+
+        if (tag < 0 || first < 0) {
+            throw new EOFException("Unexpected end of CRL entries");
+        }
+
+        int lengthBytes = 0;
+        long length = first;
+
+        if ((first & 0x80) != 0) {
+            lengthBytes = first & 0x7f;
+            length = 0;
+        }
+
+        byte[] header = new byte[2 + lengthBytes];
+        header[0] = (byte) tag;
+        header[1] = (byte) first;
+
+        for (int i = 0; i < lengthBytes; i++) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Unexpected end of CRL entries");
+            }
+            header[2 + i] = (byte) b;
+            length = (length << 8) | b;
+        }
+
+        byte[] encoding = Arrays.copyOf(header, header.length + (int) length);
+        if (in.readNBytes(encoding, header.length, (int) length) != length) {
+            throw new EOFException("Unexpected end of CRL entries");
+        }
+
+        return encoding;
+    }
+
+    /**
+     * Returns true if a DER-encoded entry contains extensions, i.e.
+     * if the entry contains more than the serial number and the
+     * revocation date.
+     */
+    static boolean hasExtensions(byte[] encoding) {
+
+        int offset = skipHeader(encoding, 0);
+
+        // serial number
+        offset = skipHeader(encoding, offset) + getLength(encoding, offset);
+
+        // revocation date
+        offset = skipHeader(encoding, offset) + getLength(encoding, offset);
+
+        return offset < encoding.length;
+    }
+
+    private static int skipHeader(byte[] encoding, int offset) {
+        int first = encoding[offset + 1] & 0xff;
+        return offset + 2 + ((first & 0x80) != 0 ? first & 0x7f : 0);
+    }
+
+    private static int getLength(byte[] encoding, int offset) {
+
+        int first = encoding[offset + 1] & 0xff;
+        if ((first & 0x80) == 0) {
+            return first;
+        }
+
+        int length = 0;
+        for (int i = 0; i < (first & 0x7f); i++) {
+            length = (length << 8) | (encoding[offset + 2 + i] & 0xff);
+        }
+
+        return length;
+    }
+
+    private byte[] encodeHeader(
+            boolean v2,
+            AlgorithmId algId,
+            X500Name issuer,
+            Date thisUpdate,
+            Date nextUpdate) throws IOException {
+
+        try (DerOutputStream out = new DerOutputStream()) {
+
+            if (v2) {
+                out.putInteger(new BigInt(1));
+            }
+
+            algId.encode(out);
+            issuer.encode(out);
+            putTime(out, thisUpdate);
+
+            if (nextUpdate != null) {
+                putTime(out, nextUpdate);
+            }
+
+            return out.toByteArray();
+        }
+    }
+
+    private void putTime(DerOutputStream out, Date date) throws IOException {
+        if (date.getTime() < YR_2050) {
+            out.putUTCTime(date);
+        } else {
+            out.putGeneralizedTime(date);
+        }
+    }
+
+    private void copy(File file, OutputStream out) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                out.write(buffer, 0, len);
+            }
+        }
+    }
+
+    static int lengthOfLength(long length) {
+        if (length < 0x80) {
+            return 1;
+        }
+        int n = 1;
+        while (length > 0) {
+            n++;
+            length >>= 8;
+        }
+        return n;
+    }
+
+    static void writeLength(OutputStream out, long length) throws IOException {
+        byte[] buffer = new byte[lengthOfLength(length)];
+        putLength(buffer, 0, length);
+        out.write(buffer);
+    }
+
+    static int putLength(byte[] buffer, int offset, long length) {
+
+        if (length < 0x80) {
+            buffer[offset++] = (byte) length;
+            return offset;
+        }
+
+        int n = lengthOfLength(length) - 1;
+        buffer[offset++] = (byte) (0x80 | n);
+
+        for (int i = n - 1; i >= 0; i--) {
+            buffer[offset++] = (byte) (length >> (8 * i));
+        }
+
+        return offset;
+    }
+
+    interface EntryConsumer {
+
+        /**
+         * Receives the next entry either as an object or as the
+         * encoding and revocation time copied from the last CRL.
+         *
+         * @return false to stop
+         */
+        boolean accept(BigInteger serialNumber, RevokedCertificate entry, long time, byte[] encoding)
+                throws Exception;
+    }
+
+    /**
+     * Entries file and the index of the entries it contains.
+     */
+    static class Entries {
+
+        final File file;
+        final RevokedCertIndex index;
+
+        Entries(File file, RevokedCertIndex index) {
+            this.file = file;
+            this.index = index;
+        }
+    }
+
+    static class EntryWriter implements EntryConsumer, AutoCloseable {
+
+        OutputStream out;
+
+        long count;
+        long length;
+        long reused;
+        long encoded;
+        boolean hasEntryExtensions;
+
+        // index of the entries in the order they are written
+        RevokedCertIndex.Builder index;
+
+        EntryWriter(File file, int size) throws IOException {
+            this.out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+            this.index = new RevokedCertIndex.Builder(size);
+        }
+
+        @Override
+        public boolean accept(BigInteger serialNumber, RevokedCertificate entry, long time, byte[] encoding)
+                throws IOException {
+
+            if (entry != null) {
+                encode(serialNumber, entry);
+            } else {
+                copy(serialNumber, time, encoding);
+            }
+
+            return true;
+        }
+
+        void encode(BigInteger serialNumber, RevokedCertificate entry) throws IOException {
+
+            byte[] encoding;
+            try (DerOutputStream der = new DerOutputStream()) {
+                ((RevokedCertImpl) entry).encode(der);
+                encoding = der.toByteArray();
+            }
+
+            if (entry.hasExtensions()) {
+                hasEntryExtensions = true;
+            }
+
+            write(serialNumber, RevokedCertIndex.getTime(entry), encoding);
+            encoded++;
+        }
+
+        void copy(BigInteger serialNumber, long time, byte[] encoding) throws IOException {
+
+            if (!hasEntryExtensions && hasExtensions(encoding)) {
+                hasEntryExtensions = true;
+            }
+
+            write(serialNumber, time, encoding);
+            reused++;
+        }
+
+        private void write(BigInteger serialNumber, long time, byte[] encoding) throws IOException {
+
+            out.write(encoding);
+            length += encoding.length;
+            count++;
+
+            index.add(serialNumber, time);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
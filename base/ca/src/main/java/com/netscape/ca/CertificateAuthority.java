@@ -22,6 +22,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
 import java.security.KeyPair;
 import java.security.MessageDigest;
@@ -871,6 +872,59 @@ public class CertificateAuthority extends Subsystem implements IAuthority, IOCSP
         return signedcrl;
     }
 
+    /**
+     * Signs an encoded TBSCertList read from a stream using the CRL
+     * signing unit. This is used by the streaming CRL builder so the
+     * whole CRL does not need to be assembled in memory before signing.
+     *
+     * @param tbsCertList the DER-encoded TBSCertList
+     * @param algname the algorithm name to use. If set to null the
+     *            default signing algorithm is used.
+     * @return the signature bytes
+     * @exception EBaseException failed to sign CRL
+     */
+    public byte[] signCRL(InputStream tbsCertList, String algname)
+            throws EBaseException {
+
+        CAEngine engine = CAEngine.getInstance();
+        ensureReady();
+
+        StatsSubsystem statsSub = (StatsSubsystem) engine.getSubsystem(StatsSubsystem.ID);
+        if (statsSub != null) {
+            statsSub.startTiming("signing");
+        }
+
+        try {
+            if (algname == null) {
+                algname = mSigningUnit.getDefaultAlgorithm();
+            }
+
+            return mCRLSigningUnit.sign(tbsCertList, algname);
+
+        } catch (IOException e) {
+            logger.error(CMS.getLogMessage("CMSCORE_CA_CA_SIGN_CRL", e.toString(), e.getMessage()), e);
+            throw new ECAException(
+                    CMS.getUserMessage("CMS_CA_SIGNING_CRL_FAILED", e.getMessage()), e);
+
+        } catch (SignatureException e) {
+            logger.error(CMS.getUserMessage("CMS_CA_SIGNING_OPERATION_FAILED", e.toString()), e);
+            engine.checkForAndAutoShutdown();
+            throw new EBaseException(e);
+
+        } catch (EBaseException e) {
+            throw e;
+
+        } catch (Exception e) {
+            logger.error("Unable to sign data: " + e.getMessage(), e);
+            throw new EBaseException(e);
+
+        } finally {
+            if (statsSub != null) {
+                statsSub.endTiming("signing");
+            }
+        }
+    }
+
     /**
      * Signs the given certificate info using specified signing algorithm
      * If no algorithm is specified the CA's default algorithm is used.
@@ -1307,6 +1361,22 @@ public class CertificateAuthority extends Subsystem implements IAuthority, IOCSP
         return mLookupTime;
     }
 
+    @Override
+    public long getOCSPNumSignedResponses() {
+        // every response is signed
+        return mNumOCSPRequest;
+    }
+
+    @Override
+    public long getOCSPResponseCacheHits() {
+        return 0;
+    }
+
+    @Override
+    public long getOCSPResponseCacheMisses() {
+        return 0;
+    }
+
     public ResponderID getResponderIDByName() {
         try {
             X500Name name = getOCSPX500Name();
@@ -55,20 +55,14 @@ class ServiceRevoke implements IServant {
 
         RevokedCertImpl revokedCerts[] =
                 new RevokedCertImpl[crlentries.length];
-        String svcerrors[] = null;
+
+        // revoke all certificates in one pass so that
+        // the CRL cache of each issuing point is updated once
+        String svcerrors[] = mService.revokeCerts(crlentries, request.getRequestId().toString());
 
         for (int i = 0; i < crlentries.length; i++) {
-            try {
-                mService.revokeCert(crlentries[i], request.getRequestId().toString());
+            if (svcerrors == null || svcerrors[i] == null) {
                 revokedCerts[i] = crlentries[i];
-            } catch (ECAException e) {
-                logger.error(CMS.getLogMessage("CMSCORE_CA_CANNOT_REVOKE", Integer.toString(i), request
-                        .getRequestId().toString(), e.toString()), e);
-                revokedCerts[i] = null;
-                if (svcerrors == null) {
-                    svcerrors = new String[revokedCerts.length];
-                }
-                svcerrors[i] = e.toString();
             }
         }
 
@@ -18,6 +18,8 @@
 package com.netscape.ca;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.dogtagpki.server.ca.CAEngine;
 import org.mozilla.jss.netscape.security.x509.X509CertImpl;
@@ -64,6 +66,10 @@ class ServiceUnrevoke implements IServant {
             oldCerts = new X509CertImpl[oldSerialNo.length];
         }
 
+        // unrevoke the valid certificates in one pass so that
+        // the CRL cache of each issuing point is updated once
+        List<Integer> indexes = new ArrayList<>();
+
         for (int i = 0; i < oldSerialNo.length; i++) {
             try {
                 if (oldSerialNo[i].compareTo(new BigInteger("0")) < 0) {
@@ -76,7 +82,7 @@ class ServiceUnrevoke implements IServant {
 
                     oldCerts[i] = certRec.getCertificate();
                 }
-                mService.unrevokeCert(oldSerialNo[i], request.getRequestId().toString());
+                indexes.add(i);
             } catch (ECAException e) {
                 logger.warn(CMS.getLogMessage("CMSCORE_CA_UNREVOKE_FAILED", oldSerialNo[i].toString(),
                         request.getRequestId().toString()), e);
@@ -87,6 +93,24 @@ class ServiceUnrevoke implements IServant {
             }
         }
 
+        BigInteger serialNos[] = new BigInteger[indexes.size()];
+        for (int i = 0; i < serialNos.length; i++) {
+            serialNos[i] = oldSerialNo[indexes.get(i)];
+        }
+
+        String errors[] = mService.unrevokeCerts(serialNos, request.getRequestId().toString());
+
+        if (errors != null) {
+            if (svcerrors == null) {
+                svcerrors = new String[oldSerialNo.length];
+            }
+            for (int i = 0; i < errors.length; i++) {
+                if (errors[i] != null) {
+                    svcerrors[indexes.get(i)] = errors[i];
+                }
+            }
+        }
+
         // if clone ca, send unrevoked cert serials to CLA
         if (CAService.mCLAConnector != null) {
             request.setRequestType(Request.CLA_UNCERT4CRL_REQUEST);
@@ -19,7 +19,6 @@ package com.netscape.cms.jobs;
 
 import java.text.DateFormat;
 import java.util.Date;
-import java.util.Enumeration;
 
 import org.dogtagpki.server.ca.CAEngine;
 import org.mozilla.jss.netscape.security.x509.X509CertImpl;
@@ -32,6 +31,7 @@ import com.netscape.cmscore.apps.CMS;
 import com.netscape.cmscore.base.ConfigStore;
 import com.netscape.cmscore.dbs.CertRecord;
 import com.netscape.cmscore.dbs.CertificateRepository;
+import com.netscape.cmscore.dbs.DBSearchCursor;
 import com.netscape.cmscore.jobs.JobConfig;
 import com.netscape.cmscore.jobs.JobsScheduler;
 import com.netscape.cmscore.ldap.CAPublisherProcessor;
@@ -164,10 +164,10 @@ public class UnpublishExpiredJob extends Job
         // a test for without CertRecord.META_LDAPPUBLISH
         //String filter = "(x509Cert.notAfter<="+ now +")";
 
-        Enumeration<Object> expired = null;
+        DBSearchCursor<CertRecord> expired = null;
 
         try {
-            expired = mRepository.findCertRecs(filter);
+            expired = mRepository.openCertificateCursor(filter, 0, 0, null);
             // bug 399150
             /*
              CertRecordList list = null;
@@ -191,122 +191,128 @@ public class UnpublishExpiredJob extends Job
         }
 
         // unpublish them and unpublish() will set inLdapPublishDir flag
-        while (expired != null && expired.hasMoreElements()) {
-            CertRecord rec = (CertRecord) expired.nextElement();
-
-            if (rec == null)
-                break;
-            X509CertImpl cert = rec.getCertificate();
-
-            if (mSummary == true)
-                buildItemParams(cert);
-
-            // get request id from cert record MetaInfo
-            MetaInfo minfo = null;
-
-            try {
-                minfo = (MetaInfo) rec.get(CertRecord.ATTR_META_INFO);
-            } catch (EBaseException e) {
-                negCount += 1;
-                if (mSummary == true)
-                    buildItemParams(EmailFormProcessor.TOKEN_STATUS, STATUS_FAILURE);
-                logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_META_INFO_ERROR",
-                                cert.getSerialNumber().toString(16) + e.getMessage()), e);
-            }
+        try {
+            while (expired != null && expired.hasNext()) {
+                CertRecord rec = expired.next();
 
-            String ridString = null;
+                if (rec == null)
+                    break;
+                X509CertImpl cert = rec.getCertificate();
 
-            try {
-                if (minfo != null)
-                    ridString = (String) minfo.get(CertRecord.META_REQUEST_ID);
-            } catch (EBaseException e) {
-                negCount += 1;
-                if (mSummary == true)
-                    buildItemParams(EmailFormProcessor.TOKEN_STATUS, STATUS_FAILURE);
-                logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_META_REQUEST_ERROR",
-                                cert.getSerialNumber().toString(16) + e.getMessage()), e);
-            } catch (NullPointerException e) {
-                // no requestId in MetaInfo...skip to next record
-                negCount += 1;
                 if (mSummary == true)
-                    buildItemParams(EmailFormProcessor.TOKEN_STATUS, STATUS_FAILURE);
-                logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_META_REQUEST_ERROR",
-                                cert.getSerialNumber().toString(16) + e.getMessage()), e);
-            }
+                    buildItemParams(cert);
 
-            if (ridString != null) {
-                RequestId rid = new RequestId(ridString);
-
-                // get request from request id
-                Request req = null;
+                // get request id from cert record MetaInfo
+                MetaInfo minfo = null;
 
                 try {
-                    req = requestRepository.readRequest(rid);
-                    if (req != null) {
-                        if (mSummary == true)
-                            buildItemParams(req);
-                    }
+                    minfo = (MetaInfo) rec.get(CertRecord.ATTR_META_INFO);
                 } catch (EBaseException e) {
                     negCount += 1;
                     if (mSummary == true)
                         buildItemParams(EmailFormProcessor.TOKEN_STATUS, STATUS_FAILURE);
-                    logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_FIND_REQUEST_ERROR",
+                    logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_META_INFO_ERROR",
                                     cert.getSerialNumber().toString(16) + e.getMessage()), e);
                 }
+
+                String ridString = null;
+
                 try {
-                    if ((mPublisherProcessor != null) &&
-                            mPublisherProcessor.isCertPublishingEnabled()) {
-                        mPublisherProcessor.unpublishCert(cert, req);
-                        if (mSummary == true)
-                            buildItemParams(EmailFormProcessor.TOKEN_STATUS, STATUS_SUCCESS);
-                        count += 1;
-                    } else {
-                        negCount += 1;
-                    }
-                } catch (Exception e) {
+                    if (minfo != null)
+                        ridString = (String) minfo.get(CertRecord.META_REQUEST_ID);
+                } catch (EBaseException e) {
                     negCount += 1;
                     if (mSummary == true)
                         buildItemParams(EmailFormProcessor.TOKEN_STATUS, STATUS_FAILURE);
-                    logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_UNPUBLISH_ERROR",
+                    logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_META_REQUEST_ERROR",
                                     cert.getSerialNumber().toString(16) + e.getMessage()), e);
-                }
-            } // ridString != null
-            else {
-                try {
-                    if ((mPublisherProcessor != null) &&
-                            mPublisherProcessor.isCertPublishingEnabled()) {
-                        mPublisherProcessor.unpublishCert(cert, null);
-                        if (mSummary == true)
-                            buildItemParams(EmailFormProcessor.TOKEN_STATUS, STATUS_SUCCESS);
-                        count += 1;
-                    } else {
-                        negCount += 1;
-                    }
-                } catch (Exception e) {
+                } catch (NullPointerException e) {
+                    // no requestId in MetaInfo...skip to next record
                     negCount += 1;
                     if (mSummary == true)
                         buildItemParams(EmailFormProcessor.TOKEN_STATUS, STATUS_FAILURE);
-                    logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_UNPUBLISH_ERROR",
+                    logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_META_REQUEST_ERROR",
                                     cert.getSerialNumber().toString(16) + e.getMessage()), e);
                 }
-            } // ridString == null
-
-            // inLdapPublishDir flag should have been set by the
-            // unpublish() method
-
-            // if summary is enabled, form the item content
-            if (mSummary) {
-                EmailFormProcessor emailItemFormProcessor = new EmailFormProcessor();
-                String c = emailItemFormProcessor.getEmailContent(itemForm,
-                        mItemParams);
-
-                // add item content to the item list
-                if (itemListContent == null) {
-                    itemListContent = c;
-                } else {
-                    itemListContent += c;
+
+                if (ridString != null) {
+                    RequestId rid = new RequestId(ridString);
+
+                    // get request from request id
+                    Request req = null;
+
+                    try {
+                        req = requestRepository.readRequest(rid);
+                        if (req != null) {
+                            if (mSummary == true)
+                                buildItemParams(req);
+                        }
+                    } catch (EBaseException e) {
+                        negCount += 1;
+                        if (mSummary == true)
+                            buildItemParams(EmailFormProcessor.TOKEN_STATUS, STATUS_FAILURE);
+                        logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_FIND_REQUEST_ERROR",
+                                        cert.getSerialNumber().toString(16) + e.getMessage()), e);
+                    }
+                    try {
+                        if ((mPublisherProcessor != null) &&
+                                mPublisherProcessor.isCertPublishingEnabled()) {
+                            mPublisherProcessor.unpublishCert(cert, req);
+                            if (mSummary == true)
+                                buildItemParams(EmailFormProcessor.TOKEN_STATUS, STATUS_SUCCESS);
+                            count += 1;
+                        } else {
+                            negCount += 1;
+                        }
+                    } catch (Exception e) {
+                        negCount += 1;
+                        if (mSummary == true)
+                            buildItemParams(EmailFormProcessor.TOKEN_STATUS, STATUS_FAILURE);
+                        logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_UNPUBLISH_ERROR",
+                                        cert.getSerialNumber().toString(16) + e.getMessage()), e);
+                    }
+                } // ridString != null
+                else {
+                    try {
+                        if ((mPublisherProcessor != null) &&
+                                mPublisherProcessor.isCertPublishingEnabled()) {
+                            mPublisherProcessor.unpublishCert(cert, null);
+                            if (mSummary == true)
+                                buildItemParams(EmailFormProcessor.TOKEN_STATUS, STATUS_SUCCESS);
+                            count += 1;
+                        } else {
+                            negCount += 1;
+                        }
+                    } catch (Exception e) {
+                        negCount += 1;
+                        if (mSummary == true)
+                            buildItemParams(EmailFormProcessor.TOKEN_STATUS, STATUS_FAILURE);
+                        logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_UNPUBLISH_ERROR",
+                                        cert.getSerialNumber().toString(16) + e.getMessage()), e);
+                    }
+                } // ridString == null
+
+                // inLdapPublishDir flag should have been set by the
+                // unpublish() method
+
+                // if summary is enabled, form the item content
+                if (mSummary) {
+                    EmailFormProcessor emailItemFormProcessor = new EmailFormProcessor();
+                    String c = emailItemFormProcessor.getEmailContent(itemForm,
+                            mItemParams);
+
+                    // add item content to the item list
+                    if (itemListContent == null) {
+                        itemListContent = c;
+                    } else {
+                        itemListContent += c;
+                    }
                 }
             }
+        } finally {
+            if (expired != null) {
+                expired.close();
+            }
         }
 
         // time for summary
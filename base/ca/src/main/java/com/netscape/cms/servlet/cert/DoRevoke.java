@@ -21,7 +21,6 @@ import java.io.IOException;
 import java.math.BigInteger;
 import java.security.cert.X509Certificate;
 import java.util.Date;
-import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Locale;
 import java.util.Vector;
@@ -62,6 +61,7 @@ import com.netscape.cmscore.authentication.AuthSubsystem;
 import com.netscape.cmscore.base.ArgBlock;
 import com.netscape.cmscore.dbs.CertRecord;
 import com.netscape.cmscore.dbs.CertificateRepository;
+import com.netscape.cmscore.dbs.DBSearchCursor;
 import com.netscape.cmscore.ldap.CAPublisherProcessor;
 import com.netscape.cmscore.request.Request;
 
@@ -418,45 +418,45 @@ public class DoRevoke extends CMSServlet {
         try {
             processor.createCRLExtension();
 
-            Enumeration<CertRecord> e = mCertDB.searchCertificates(revokeAll, totalRecordCount, mTimeLimits);
+            try (DBSearchCursor<CertRecord> e = mCertDB.openCertificateCursor(revokeAll, totalRecordCount, mTimeLimits, null)) {
+                while (e.hasNext()) {
+                    CertRecord targetRecord = e.next();
+                    X509CertImpl targetCert = targetRecord.getCertificate();
 
-            while (e != null && e.hasMoreElements()) {
-                CertRecord targetRecord = e.nextElement();
-                X509CertImpl targetCert = targetRecord.getCertificate();
+                    // Verify end-entity cert is not revoked.
+                    // TODO: This should be checked during authentication.
+                    if (eeSerialNumber != null &&
+                        eeSerialNumber.equals(targetCert.getSerialNumber()) &&
+                        targetRecord.getStatus().equals(CertRecord.STATUS_REVOKED)) {
 
-                // Verify end-entity cert is not revoked.
-                // TODO: This should be checked during authentication.
-                if (eeSerialNumber != null &&
-                    eeSerialNumber.equals(targetCert.getSerialNumber()) &&
-                    targetRecord.getStatus().equals(CertRecord.STATUS_REVOKED)) {
+                        String message = CMS.getLogMessage("CA_CERTIFICATE_ALREADY_REVOKED_1",
+                                targetRecord.getSerialNumber().toString(16));
+                        logger.error(message);
 
-                    String message = CMS.getLogMessage("CA_CERTIFICATE_ALREADY_REVOKED_1",
-                            targetRecord.getSerialNumber().toString(16));
-                    logger.error(message);
+                        throw new ECMSGWException(CMS.getLogMessage("CMSGW_UNAUTHORIZED"));
+                    }
 
-                    throw new ECMSGWException(CMS.getLogMessage("CMSGW_UNAUTHORIZED"));
-                }
+                    ArgBlock rarg = new ArgBlock();
+                    rarg.addStringValue("serialNumber", targetCert.getSerialNumber().toString(16));
+
+                    try {
+                        if (engine.getEnableNonces() &&
+                            !processor.isMemberOfSubsystemGroup(clientCert)) {
+                            // validate nonce for each certificate
+                            Long nonce = nonceMap.get(targetRecord.getSerialNumber());
+                            processor.validateNonce(req, "cert-revoke", targetRecord.getSerialNumber(), nonce);
+                        }
 
-                ArgBlock rarg = new ArgBlock();
-                rarg.addStringValue("serialNumber", targetCert.getSerialNumber().toString(16));
+                        processor.validateCertificateToRevoke(eeSubjectDN, targetRecord, false);
+                        processor.addCertificateToRevoke(targetCert);
+                        rarg.addStringValue("error", null);
 
-                try {
-                    if (engine.getEnableNonces() &&
-                        !processor.isMemberOfSubsystemGroup(clientCert)) {
-                        // validate nonce for each certificate
-                        Long nonce = nonceMap.get(targetRecord.getSerialNumber());
-                        processor.validateNonce(req, "cert-revoke", targetRecord.getSerialNumber(), nonce);
+                    } catch (PKIException ex) {
+                        rarg.addStringValue("error", ex.getMessage());
                     }
 
-                    processor.validateCertificateToRevoke(eeSubjectDN, targetRecord, false);
-                    processor.addCertificateToRevoke(targetCert);
-                    rarg.addStringValue("error", null);
-
-                } catch (PKIException ex) {
-                    rarg.addStringValue("error", ex.getMessage());
+                    argSet.addRepeatRecord(rarg);
                 }
-
-                argSet.addRepeatRecord(rarg);
             }
 
             int count = processor.getCertificates().size();
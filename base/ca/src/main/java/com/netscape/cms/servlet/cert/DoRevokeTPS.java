@@ -21,7 +21,6 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigInteger;
 import java.util.Date;
-import java.util.Enumeration;
 import java.util.Locale;
 import java.util.Vector;
 
@@ -62,6 +61,7 @@ import com.netscape.cmscore.authentication.AuthSubsystem;
 import com.netscape.cmscore.base.ArgBlock;
 import com.netscape.cmscore.dbs.CertRecord;
 import com.netscape.cmscore.dbs.CertificateRepository;
+import com.netscape.cmscore.dbs.DBSearchCursor;
 import com.netscape.cmscore.ldap.CAPublisherProcessor;
 import com.netscape.cmscore.logging.Auditor;
 import com.netscape.cmscore.request.CertRequestRepository;
@@ -274,6 +274,14 @@ public class DoRevokeTPS extends CAServlet {
             }
 
             String pp = o_status + "&" + errorString;
+
+            // let the client know which certs are revoked in case
+            // the filter matched only some of them
+            String revokedSerials = header.getValueAsString(IRemoteRequest.CA_RESPONSE_REVOKED_SERIALS, null);
+            if (authorized && error == null && revokedSerials != null) {
+                pp += "&" + IRemoteRequest.CA_RESPONSE_REVOKED_SERIALS + "=" + revokedSerials;
+            }
+
             byte[] b = pp.getBytes();
             resp.setContentType("application/x-www-form-urlencoded");
             resp.setContentLength(b.length);
@@ -358,6 +366,21 @@ public class DoRevokeTPS extends CAServlet {
                     serial = serial.substring(0, serial.length() - 1);
                 }
                 auditSerialNumber = serial;
+
+            } else if (tokens.length > 2) {
+                // multiple certs, e.g. (|(certRecordId=1)(certRecordId=2))
+                StringBuilder serials = new StringBuilder();
+                for (int i = 1; i < tokens.length; i++) {
+                    int end = tokens[i].indexOf(')');
+                    if (end < 0) {
+                        continue;
+                    }
+                    if (serials.length() > 0) {
+                        serials.append(",");
+                    }
+                    serials.append(tokens[i].substring(0, end));
+                }
+                auditSerialNumber = serials.toString();
             }
         }
 
@@ -366,6 +389,10 @@ public class DoRevokeTPS extends CAServlet {
         int count = 0;
         X509CertImpl[] oldCerts;
 
+        // decimal serial numbers of the certs that are revoked
+        // by this request or were already revoked
+        StringBuilder revokedSerials = new StringBuilder();
+
         try {
             Vector<X509CertImpl> oldCertsV = new Vector<>();
             Vector<RevokedCertImpl> revCertImplsV = new Vector<>();
@@ -393,75 +420,76 @@ public class DoRevokeTPS extends CAServlet {
                 entryExtn.set(invalidityDateExtn.getName(), invalidityDateExtn);
             }
 
-            Enumeration<CertRecord> e = mCertDB.searchCertificates(revokeAll,
-                    totalRecordCount, mTimeLimits);
-
             boolean alreadyRevokedCertFound = false;
             boolean badCertsRequested = false;
-            while (e != null && e.hasMoreElements()) {
-                CertRecord rec = e.nextElement();
+            try (DBSearchCursor<CertRecord> e = mCertDB.openCertificateCursor(revokeAll, totalRecordCount, mTimeLimits, null)) {
+                while (e.hasNext()) {
+                    CertRecord rec = e.next();
 
-                if (rec == null) {
-                    badCertsRequested = true;
-                    continue;
-                }
-                X509CertImpl xcert = rec.getCertificate();
-                ArgBlock rarg = new ArgBlock();
-
-                // we do not want to revoke the CA certificate accidentially
-                if (xcert != null && isSystemCertificate(xcert.getSerialNumber())) {
-                    logger.warn("DoRevokeTPS: skipped revocation request for system certificate "
-                            + xcert.getSerialNumber());
-                    badCertsRequested = true;
-                    continue;
-                }
+                    if (rec == null) {
+                        badCertsRequested = true;
+                        continue;
+                    }
+                    X509CertImpl xcert = rec.getCertificate();
+                    ArgBlock rarg = new ArgBlock();
+
+                    // we do not want to revoke the CA certificate accidentially
+                    if (xcert != null && isSystemCertificate(xcert.getSerialNumber())) {
+                        logger.warn("DoRevokeTPS: skipped revocation request for system certificate "
+                                + xcert.getSerialNumber());
+                        badCertsRequested = true;
+                        continue;
+                    }
 
-                if (xcert != null) {
-                    RevocationReason recRevReason = null;
-                    if (rec.getStatus().equals(CertRecord.STATUS_REVOKED)) {
-                        try {
-                            recRevReason = rec.getRevReason();
-                        } catch (Exception ex) {
-                            logger.error(method + ex.getMessage(), e);
-                            throw new EBaseException(ex);
+                    if (xcert != null) {
+                        RevocationReason recRevReason = null;
+                        if (rec.getStatus().equals(CertRecord.STATUS_REVOKED)) {
+                            try {
+                                recRevReason = rec.getRevReason();
+                            } catch (Exception ex) {
+                                logger.error(method + ex.getMessage(), e);
+                                throw new EBaseException(ex);
+                            }
+                            if (recRevReason == null) {
+                                msg = "existing revoked cert missing revocation reason";
+                                logger.error(method + msg);
+                                throw new EBaseException(msg);
+                            }
                         }
-                        if (recRevReason == null) {
-                            msg = "existing revoked cert missing revocation reason";
-                            logger.error(method + msg);
-                            throw new EBaseException(msg);
+
+                        rarg.addStringValue("serialNumber",
+                                xcert.getSerialNumber().toString(16));
+
+                        boolean updateRevocation = true;
+                        if ((rec.getStatus().equals(CertRecord.STATUS_REVOKED) &&
+                                revReason == RevocationReason.KEY_COMPROMISE)) {
+                            updateRevocation = false;
+                            if ((recRevReason == RevocationReason.SUPERSEDED) ||
+                                    (rec.isCertOnHold())) {
+                                updateRevocation = true;
+                                logger.debug(method + "Certificate 0x" + xcert.getSerialNumber().toString(16)
+                                        + " has been revoked, but reason is changed");
+                            } else {
+                                alreadyRevokedCertFound = true;
+                                addSerialNumber(revokedSerials, xcert.getSerialNumber());
+                                logger.debug("Certificate 0x" + xcert.getSerialNumber().toString(16) + " has been revoked.");
+                            }
                         }
-                    }
+                        if (updateRevocation) {
+                            oldCertsV.addElement(xcert);
 
-                    rarg.addStringValue("serialNumber",
-                            xcert.getSerialNumber().toString(16));
+                            RevokedCertImpl revCertImpl = new RevokedCertImpl(xcert.getSerialNumber(),
+                                    new Date(), entryExtn);
 
-                    boolean updateRevocation = true;
-                    if ((rec.getStatus().equals(CertRecord.STATUS_REVOKED) &&
-                            revReason == RevocationReason.KEY_COMPROMISE)) {
-                        updateRevocation = false;
-                        if ((recRevReason == RevocationReason.SUPERSEDED) ||
-                                (rec.isCertOnHold())) {
-                            updateRevocation = true;
+                            revCertImplsV.addElement(revCertImpl);
+                            addSerialNumber(revokedSerials, xcert.getSerialNumber());
                             logger.debug(method + "Certificate 0x" + xcert.getSerialNumber().toString(16)
-                                    + " has been revoked, but reason is changed");
-                        } else {
-                            alreadyRevokedCertFound = true;
-                            logger.debug("Certificate 0x" + xcert.getSerialNumber().toString(16) + " has been revoked.");
+                                    + " is going to be revoked.");
+                            count++;
                         }
+                    } else {
+                        badCertsRequested = true;
                     }
-                    if (updateRevocation) {
-                        oldCertsV.addElement(xcert);
-
-                        RevokedCertImpl revCertImpl = new RevokedCertImpl(xcert.getSerialNumber(),
-                                new Date(), entryExtn);
-
-                        revCertImplsV.addElement(revCertImpl);
-                        logger.debug(method + "Certificate 0x" + xcert.getSerialNumber().toString(16)
-                                + " is going to be revoked.");
-                        count++;
-                    }
-                } else {
-                    badCertsRequested = true;
                 }
             }
 
@@ -470,6 +498,7 @@ public class DoRevokeTPS extends CAServlet {
                 // requested happened to be already revoked. Don't return error.
                 if (alreadyRevokedCertFound == true && badCertsRequested == false) {
                     logger.debug(method + "Only have previously revoked certs in the list.");
+                    header.addStringValue(IRemoteRequest.CA_RESPONSE_REVOKED_SERIALS, revokedSerials.toString());
 
                     auditor.log(new CertStatusChangeRequestEvent(
                             auditSubjectID,
@@ -644,6 +673,7 @@ public class DoRevokeTPS extends CAServlet {
                 }
 
                 header.addStringValue("revoked", "yes");
+                header.addStringValue(IRemoteRequest.CA_RESPONSE_REVOKED_SERIALS, revokedSerials.toString());
 
                 Integer updateCRLResult =
                         revReq.getExtDataInInteger(Request.CRL_UPDATE_STATUS);
@@ -895,4 +925,11 @@ public class DoRevokeTPS extends CAServlet {
 
         return requestType;
     }
+
+    private void addSerialNumber(StringBuilder serials, BigInteger serialNumber) {
+        if (serials.length() > 0) {
+            serials.append(",");
+        }
+        serials.append(serialNumber);
+    }
 }
@@ -50,6 +50,7 @@ import com.netscape.cms.servlet.base.CMSServlet;
 import com.netscape.cms.servlet.common.CMSRequest;
 import com.netscape.cms.servlet.common.ECMSGWException;
 import com.netscape.cmscore.apps.CMS;
+import com.netscape.cmscore.dbs.CertRecord;
 import com.netscape.cmscore.dbs.CertificateRepository;
 import com.netscape.cmscore.ldap.CAPublisherProcessor;
 import com.netscape.cmscore.logging.Auditor;
@@ -130,6 +131,7 @@ public class DoUnrevokeTPS extends CMSServlet {
 
         BigInteger[] serialNumbers;
         EBaseException error = null;
+        String unrevokedSerials = null;
 
         Locale[] locale = new Locale[1];
 
@@ -185,7 +187,11 @@ public class DoUnrevokeTPS extends CMSServlet {
                 return;
             }
 
-            process(serialNumbers, req, resp, locale[0], initiative);
+            unrevokedSerials = process(serialNumbers, req, resp, locale[0], initiative);
+
+            if (unrevokedSerials == null || unrevokedSerials.isEmpty()) {
+                error = new EBaseException(CMS.getUserMessage("CMS_CA_UNREVOKE_FAILED"));
+            }
         } catch (NumberFormatException e) {
             logger.error(CMS.getLogMessage("CMSGW_INVALID_SERIAL_NUM_FORMAT"), e);
             error = new EBaseException(CMS.getUserMessage(getLocale(req), "CMS_BASE_INVALID_NUMBER_FORMAT"), e);
@@ -204,6 +210,13 @@ public class DoUnrevokeTPS extends CMSServlet {
             }
 
             String pp = o_status + "&" + errorString;
+
+            // let the client know which certs are taken off hold
+            // in case only some of them could be unrevoked
+            if (error == null) {
+                pp += "&" + IRemoteRequest.CA_RESPONSE_UNREVOKED_SERIALS + "=" + unrevokedSerials;
+            }
+
             byte[] b = pp.getBytes();
             resp.setContentType("application/x-www-form-urlencoded");
             resp.setContentLength(b.length);
@@ -238,9 +251,11 @@ public class DoUnrevokeTPS extends CMSServlet {
      * @param resp HTTP servlet response
      * @param locale the system locale
      * @param initiative string containing the audit format
+     * @return comma-separated decimal serial numbers of the certificates
+     *         taken off-hold, or null if the request was not processed
      * @exception EBaseException an error has occurred
      */
-    private void process(BigInteger[] serialNumbers,
+    private String process(BigInteger[] serialNumbers,
             HttpServletRequest req,
             HttpServletResponse resp,
             Locale locale, String initiative)
@@ -251,13 +266,21 @@ public class DoUnrevokeTPS extends CMSServlet {
 
         Auditor auditor = engine.getAuditor();
         String auditSubjectID = auditSubjectID();
-        String auditSerialNumber = auditSerialNumber(serialNumbers[0].toString());
+        StringBuilder serials = new StringBuilder();
+        for (BigInteger serialNumber : serialNumbers) {
+            if (serials.length() > 0) {
+                serials.append(",");
+            }
+            serials.append(serialNumber);
+        }
+        String auditSerialNumber = auditSerialNumber(serials.toString());
         String auditRequestType = OFF_HOLD;
         RequestStatus auditApprovalStatus = null;
         String auditReasonNum = String.valueOf(OFF_HOLD_REASON);
 
         Request unrevReq = null;
         X509CertImpl[] certs;
+        String unrevokedSerials = null;
 
         try {
             String snList = "";
@@ -293,7 +316,7 @@ public class DoUnrevokeTPS extends CMSServlet {
                         unrevReq,
                         auditSerialNumber,
                         auditRequestType));
-            return;
+            return null;
         }
 
         try {
@@ -313,34 +336,17 @@ public class DoUnrevokeTPS extends CMSServlet {
                     || ((type.equals(Request.CLA_UNCERT4CRL_REQUEST)) && (status == RequestStatus.SVC_PENDING))) {
 
                 Integer result = unrevReq.getExtDataInInteger(Request.RESULT);
+                unrevokedSerials = getUnrevokedSerials(certRepository, serialNumbers);
 
                 if (result != null && result.equals(Request.RES_SUCCESS)) {
-                    if (certs[0] != null) {
-                        logger.info(
-                                AuditFormat.DOUNREVOKEFORMAT,
-                                unrevReq.getRequestId(),
-                                initiative,
-                                "completed",
-                                certs[0].getSubjectName(),
-                                "0x" + serialNumbers[0].toString(16)
-                        );
-                    }
+                    logUnrevoke(unrevReq, initiative, "completed", certs, serialNumbers);
                 } else {
                     String error = unrevReq.getExtDataInString(Request.ERROR);
 
                     if (error != null) {
                         o_status = "status=3";
                         errorString = "error=" + error;
-                        if (certs[0] != null) {
-                            logger.info(
-                                    AuditFormat.DOUNREVOKEFORMAT,
-                                    unrevReq.getRequestId(),
-                                    initiative,
-                                    "completed with error: " + error,
-                                    certs[0].getSubjectName(),
-                                    "0x" + serialNumbers[0].toString(16)
-                            );
-                        }
+                        logUnrevoke(unrevReq, initiative, "completed with error: " + error, certs, serialNumbers);
                     }
                 }
 
@@ -433,30 +439,12 @@ public class DoUnrevokeTPS extends CMSServlet {
             } else if (status == RequestStatus.PENDING) {
                 o_status = "status=2";
                 errorString = "error=" + status.toString();
-                if (certs[0] != null) {
-                    logger.info(
-                            AuditFormat.DOUNREVOKEFORMAT,
-                            unrevReq.getRequestId(),
-                            initiative,
-                            "pending",
-                            certs[0].getSubjectName(),
-                            "0x" + serialNumbers[0].toString(16)
-                    );
-                }
+                logUnrevoke(unrevReq, initiative, "pending", certs, serialNumbers);
             } else {
                 o_status = "status=2";
                 errorString = "error=Undefined request status";
 
-                if (certs[0] != null) {
-                    logger.info(
-                            AuditFormat.DOUNREVOKEFORMAT,
-                                unrevReq.getRequestId(),
-                                initiative,
-                                status,
-                                certs[0].getSubjectName(),
-                                "0x" + serialNumbers[0].toString(16)
-                        );
-                }
+                logUnrevoke(unrevReq, initiative, status, certs, serialNumbers);
             }
 
             // store a message in the signed audit log file
@@ -496,6 +484,48 @@ public class DoUnrevokeTPS extends CMSServlet {
                             auditApprovalStatus));
             }
         }
+
+        return unrevokedSerials;
+    }
+
+    /**
+     * Returns the comma-separated decimal serial numbers of the certificates
+     * that are valid after the request, i.e. taken off-hold by the request.
+     */
+    private String getUnrevokedSerials(CertificateRepository certRepository, BigInteger[] serialNumbers)
+            throws EBaseException {
+
+        StringBuilder serials = new StringBuilder();
+        for (BigInteger serialNumber : serialNumbers) {
+            CertRecord certRecord = certRepository.readCertificateRecord(serialNumber);
+            if (!CertRecord.STATUS_VALID.equals(certRecord.getStatus())) {
+                continue;
+            }
+            if (serials.length() > 0) {
+                serials.append(",");
+            }
+            serials.append(serialNumber);
+        }
+
+        return serials.toString();
+    }
+
+    private void logUnrevoke(Request unrevReq, String initiative, Object status,
+            X509CertImpl[] certs, BigInteger[] serialNumbers) {
+
+        for (int i = 0; i < certs.length; i++) {
+            if (certs[i] == null) {
+                continue;
+            }
+            logger.info(
+                    AuditFormat.DOUNREVOKEFORMAT,
+                    unrevReq.getRequestId(),
+                    initiative,
+                    status,
+                    certs[i].getSubjectName(),
+                    "0x" + serialNumbers[i].toString(16)
+            );
+        }
     }
 
     private BigInteger[] getSerialNumbers(HttpServletRequest req)
@@ -20,7 +20,6 @@ package com.netscape.cms.servlet.cert;
 import java.io.IOException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.Locale;
 import java.util.Map;
 
@@ -50,6 +49,7 @@ import com.netscape.cmscore.apps.CMS;
 import com.netscape.cmscore.base.ArgBlock;
 import com.netscape.cmscore.dbs.CertRecord;
 import com.netscape.cmscore.dbs.CertificateRepository;
+import com.netscape.cmscore.dbs.DBSearchCursor;
 import com.netscape.cmscore.security.JssSubsystem;
 
 /**
@@ -257,47 +257,46 @@ public class ReasonToRevoke extends CMSServlet {
              * revokeAll, null, totalRecordCount);
              * Enumeration e = list.getCertRecords(0, totalRecordCount - 1);
              **/
-            Enumeration<CertRecord> e = mCertDB.searchCertificates(revokeAll,
-                    totalRecordCount, mTimeLimits);
-
             ArrayList<String> noncesList = new ArrayList<>();
             int count = 0;
 
-            while (e != null && e.hasMoreElements()) {
-                CertRecord rec = e.nextElement();
-
-                if (rec == null)
-                    continue;
-                X509CertImpl xcert = rec.getCertificate();
-
-                if (xcert != null)
-
-                    if (mCA != null && engine.getEnableNonces()) {
-                        // generate nonce
-                        long n = mRandom.nextLong();
-                        // store nonce in session
-                        Map<Object, Long> nonces = engine.getNonces(req, "cert-revoke");
-                        nonces.put(xcert.getSerialNumber(), n);
-                        // store serial number and nonce
-                        noncesList.add(xcert.getSerialNumber()+":"+n);
-                    }
-
-                    if (!(rec.getStatus().equals(CertRecord.STATUS_REVOKED))) {
-                        count++;
-                        ArgBlock rarg = new ArgBlock();
-
-                        rarg.addStringValue("serialNumber",
-                                xcert.getSerialNumber().toString(16));
-                        rarg.addStringValue("serialNumberDecimal",
-                                xcert.getSerialNumber().toString());
-                        rarg.addStringValue("subject",
-                                xcert.getSubjectName().toString());
-                        rarg.addLongValue("validNotBefore",
-                                xcert.getNotBefore().getTime() / 1000);
-                        rarg.addLongValue("validNotAfter",
-                                xcert.getNotAfter().getTime() / 1000);
-                        argSet.addRepeatRecord(rarg);
-                    }
+            try (DBSearchCursor<CertRecord> e = mCertDB.openCertificateCursor(revokeAll, totalRecordCount, mTimeLimits, null)) {
+                while (e.hasNext()) {
+                    CertRecord rec = e.next();
+
+                    if (rec == null)
+                        continue;
+                    X509CertImpl xcert = rec.getCertificate();
+
+                    if (xcert != null)
+
+                        if (mCA != null && engine.getEnableNonces()) {
+                            // generate nonce
+                            long n = mRandom.nextLong();
+                            // store nonce in session
+                            Map<Object, Long> nonces = engine.getNonces(req, "cert-revoke");
+                            nonces.put(xcert.getSerialNumber(), n);
+                            // store serial number and nonce
+                            noncesList.add(xcert.getSerialNumber()+":"+n);
+                        }
+
+                        if (!(rec.getStatus().equals(CertRecord.STATUS_REVOKED))) {
+                            count++;
+                            ArgBlock rarg = new ArgBlock();
+
+                            rarg.addStringValue("serialNumber",
+                                    xcert.getSerialNumber().toString(16));
+                            rarg.addStringValue("serialNumberDecimal",
+                                    xcert.getSerialNumber().toString());
+                            rarg.addStringValue("subject",
+                                    xcert.getSubjectName().toString());
+                            rarg.addLongValue("validNotBefore",
+                                    xcert.getNotBefore().getTime() / 1000);
+                            rarg.addLongValue("validNotAfter",
+                                    xcert.getNotAfter().getTime() / 1000);
+                            argSet.addRepeatRecord(rarg);
+                        }
+                }
             }
 
             header.addIntegerValue("verifiedRecordCount", count);
@@ -58,6 +58,7 @@ import com.netscape.cmscore.apps.CMS;
 import com.netscape.cmscore.base.ArgBlock;
 import com.netscape.cmscore.dbs.CertRecord;
 import com.netscape.cmscore.dbs.CertificateRepository;
+import com.netscape.cmscore.dbs.DBSearchCursor;
 import com.netscape.cmscore.dbs.RevocationInfo;
 import com.netscape.cmsutil.ldap.LDAPUtil;
 
@@ -620,19 +621,19 @@ public class SrchCerts extends CMSServlet {
                     + "filter=" + filter + " maxreturns=" + maxResults + " timelimit=" + timeLimit);
 
             // Do the search with the optional sortAtribute field, giving an assured list of certs sorted by serialno
-            Enumeration<CertRecord> e = mCertDB.searchCertificates(filter, maxResults, timeLimit, "serialno");
-
             int count = 0;
 
-            while (e != null && e.hasMoreElements()) {
-                CertRecord rec = e.nextElement();
+            try (DBSearchCursor<CertRecord> e = mCertDB.openCertificateCursor(filter, maxResults, timeLimit, "serialno")) {
+                while (e.hasNext()) {
+                    CertRecord rec = e.next();
 
-                if (rec != null) {
-                    count++;
-                    ArgBlock rarg = new ArgBlock();
+                    if (rec != null) {
+                        count++;
+                        ArgBlock rarg = new ArgBlock();
 
-                    fillRecordIntoArg(rec, rarg);
-                    argSet.addRepeatRecord(rarg);
+                        fillRecordIntoArg(rec, rarg);
+                        argSet.addRepeatRecord(rarg);
+                    }
                 }
             }
 
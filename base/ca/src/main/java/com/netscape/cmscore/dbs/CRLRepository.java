@@ -20,6 +20,7 @@ package com.netscape.cmscore.dbs;
 import java.math.BigInteger;
 import java.util.Date;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Vector;
 
 import org.mozilla.jss.netscape.security.x509.RevokedCertificate;
@@ -375,6 +376,55 @@ public class CRLRepository extends Repository {
         modifyCRLIssuingPointRecord(id, mods);
     }
 
+    /**
+     * Appends a single change to the CRL cache log of the issuing point
+     * record. Only the encoded change is written, regardless of the size
+     * of the CRL cache.
+     *
+     * @param id issuing point record id
+     * @param change CRL cache change
+     * @exception EBaseException failed to update issuing point record
+     */
+    public void appendCRLCacheChange(String id, CRLCacheChange change)
+            throws EBaseException {
+        appendCRLCacheChanges(id, List.of(change));
+    }
+
+    /**
+     * Appends multiple changes to the CRL cache log of the issuing point
+     * record in a single modify operation.
+     *
+     * @param id issuing point record id
+     * @param changes CRL cache changes
+     * @exception EBaseException failed to update issuing point record
+     */
+    public void appendCRLCacheChanges(String id, List<CRLCacheChange> changes)
+            throws EBaseException {
+
+        ModificationSet mods = new ModificationSet();
+        mods.add(CRLIssuingPointRecord.ATTR_CRL_CACHE_LOG, Modification.MOD_ADD, changes);
+        mods.add(CRLIssuingPointRecord.ATTR_FIRST_UNSAVED, Modification.MOD_REPLACE, CRLIssuingPointRecord.CLEAN_CACHE);
+
+        modifyCRLIssuingPointRecord(id, mods);
+    }
+
+    /**
+     * Removes CRL cache changes which have been included in a full
+     * CRL cache update from the issuing point record.
+     *
+     * @param id issuing point record id
+     * @param changes CRL cache changes to remove
+     * @exception EBaseException failed to update issuing point record
+     */
+    public void removeCRLCacheChanges(String id, List<CRLCacheChange> changes)
+            throws EBaseException {
+
+        ModificationSet mods = new ModificationSet();
+        mods.add(CRLIssuingPointRecord.ATTR_CRL_CACHE_LOG, Modification.MOD_DELETE, changes);
+
+        modifyCRLIssuingPointRecord(id, mods);
+    }
+
     /**
      * Updates CRL issuing point record with recently expired certificates info.
      *
@@ -43,7 +43,6 @@ import com.netscape.certsrv.request.RequestId;
 import com.netscape.cmscore.apps.DatabaseConfig;
 import com.netscape.cmscore.apps.EngineConfig;
 
-import netscape.ldap.LDAPSearchResults;
 
 /**
  * A classrepresents a certificate repository.
@@ -1064,31 +1063,28 @@ public class CertificateRepository extends Repository {
      * Finds a list of certificate records that satisifies
      * the filter.
      *
+     * @deprecated The records are held in memory. Use
+     * <code>openCertificateCursor</code> instead.
+     *
      * @param filter search filter
      * @param maxSize max size to return
      * @param timeLimit timeout value
      * @return a list of certificates
      * @exception EBaseException failed to search
      */
+    @Deprecated
     public Enumeration<CertRecord> searchCertificates(String filter, int maxSize, int timeLimit)
             throws EBaseException {
-
-        Vector<CertRecord> v = new Vector<>();
-
-        logger.debug("searchCertificateswith time limit filter " + filter);
-        try (DBSSession s = dbSubsystem.createSession()) {
-            DBSearchResults sr = s.search(mBaseDN, filter, maxSize, timeLimit);
-            while (sr.hasMoreElements()) {
-                v.add((CertRecord) sr.nextElement());
-            }
-        }
-        return v.elements();
+        return searchCertificates(filter, maxSize, timeLimit, null);
     }
 
     /**
      * Finds a list of certificate records that satisifies
      * the filter.
      *
+     * @deprecated The records are held in memory. Use
+     * <code>openCertificateCursor</code> instead.
+     *
      * @param filter search filter
      * @param maxSize max size to return
      * @param timeLimit timeout value
@@ -1096,20 +1092,100 @@ public class CertificateRepository extends Repository {
      * @return a list of certificates
      * @exception EBaseException failed to search
      */
+    @Deprecated
     public Enumeration<CertRecord> searchCertificates(String filter, int maxSize,
             int timeLimit,String sortAttribute) throws EBaseException {
 
         Vector<CertRecord> v = new Vector<>();
 
-        logger.debug("searchCertificateswith time limit filter " + filter);
-        try (DBSSession s = dbSubsystem.createSession()) {
-            DBSearchResults sr = s.search(mBaseDN, filter, maxSize, timeLimit,sortAttribute);
-            while (sr.hasMoreElements()) {
-                v.add((CertRecord) sr.nextElement());
+        try (DBSearchCursor<CertRecord> cursor = openCertificateCursor(filter, maxSize, timeLimit, sortAttribute)) {
+            while (cursor.hasNext()) {
+                v.add(cursor.next());
             }
         }
         return v.elements();
+    }
 
+    /**
+     * Opens a cursor over the certificate records that satisfy
+     * the filter. The records are retrieved from the database one
+     * page at a time as the cursor is consumed, so the memory used
+     * does not depend on the number of matching records.
+     *
+     * The cursor holds a database connection until it is closed.
+     *
+     * @param filter search filter
+     * @param maxSize max size to return, 0 for no limit
+     * @param timeLimit timeout value
+     * @param sortAttribute Attribute of CertRecord to sort the results
+     * @return cursor over the certificate records
+     * @exception EBaseException failed to search
+     */
+    public DBSearchCursor<CertRecord> openCertificateCursor(String filter, int maxSize,
+            int timeLimit, String sortAttribute) throws EBaseException {
+        return openCertificateCursor(filter, null, maxSize, timeLimit, sortAttribute);
+    }
+
+    /**
+     * Opens a cursor over the certificate records that satisfy
+     * the filter, retrieving only the specified attributes.
+     *
+     * The attributes are CertRecord attribute names, e.g.
+     * {@code CertRecord.ATTR_ID}, {@code CertRecord.ATTR_CERT_STATUS},
+     * {@code CertRecord.ATTR_REVO_INFO}, or
+     * {@code CertificateValidity.NOT_BEFORE} and
+     * {@code CertificateValidity.NOT_AFTER} for the validity without
+     * the certificate. The certificate is only retrieved if
+     * {@code CertRecord.ATTR_X509CERT} is specified.
+     *
+     * @param filter search filter
+     * @param attrs attributes to retrieve, or null for all attributes
+     * @param maxSize max size to return, 0 for no limit
+     * @param timeLimit timeout value
+     * @param sortAttribute Attribute of CertRecord to sort the results
+     * @return cursor over the certificate records
+     * @exception EBaseException failed to search
+     */
+    public DBSearchCursor<CertRecord> openCertificateCursor(String filter, String[] attrs,
+            int maxSize, int timeLimit, String sortAttribute) throws EBaseException {
+
+        logger.debug("openCertificateCursor filter " + filter
+                + " attrs " + Arrays.toString(attrs));
+
+        return openCursor(filter, getCursorAttributes(attrs), maxSize, timeLimit, sortAttribute);
+    }
+
+    /**
+     * Opens a cursor over the certificate records that satisfy
+     * the filter. The records may be retrieved from a read replica,
+     * so this should only be used for listing and searching where
+     * slightly stale results are acceptable.
+     *
+     * @param filter search filter
+     * @param maxSize max size to return, 0 for no limit
+     * @param timeLimit timeout value
+     * @param sortAttribute Attribute of CertRecord to sort the results
+     * @return cursor over the certificate records
+     * @exception EBaseException failed to search
+     */
+    public DBSearchCursor<CertRecord> openReadOnlyCertificateCursor(String filter, int maxSize,
+            int timeLimit, String sortAttribute) throws EBaseException {
+
+        logger.debug("openReadOnlyCertificateCursor filter " + filter);
+
+        return openReadOnlyCursor(filter, null, maxSize, timeLimit, sortAttribute);
+    }
+
+    String[] getCursorAttributes(String[] attrs) {
+
+        if (attrs == null || Arrays.asList(attrs).contains("objectclass")) {
+            return attrs;
+        }
+
+        // required to create the records
+        String[] list = Arrays.copyOf(attrs, attrs.length + 1);
+        list[attrs.length] = "objectclass";
+        return list;
     }
 
 
@@ -1248,6 +1324,37 @@ public class CertificateRepository extends Repository {
         }
     }
 
+    /**
+     * Finds a list of certificate records that satisifies
+     * the filter. The records may be retrieved from a read replica,
+     * so this should only be used for listing and searching where
+     * slightly stale results are acceptable.
+     *
+     * @param filter search filter
+     * @param attrs selected attribute
+     * @param sortKey key to use for sorting the returned elements
+     * @param pageSize page size
+     * @return a list of certificates
+     * @exception EBaseException failed to search
+     */
+    public CertRecordList findReadOnlyCertRecordsInList(String filter,
+            String attrs[], String sortKey, int pageSize)
+            throws EBaseException {
+
+        logger.debug("CertificateRepository.findReadOnlyCertRecordsInList()");
+
+        try (DBSSession session = dbSubsystem.createReadOnlySession()) {
+            DBVirtualList<CertRecord> list = session.<CertRecord>createVirtualList(
+                    mBaseDN,
+                    filter,
+                    attrs,
+                    sortKey,
+                    pageSize);
+
+            return new CertRecordList(list);
+        }
+    }
+
     /**
      * Finds a list of certificate records that satisifies
      * the filter.
@@ -1812,7 +1919,8 @@ public class CertificateRepository extends Repository {
         String[] attrs = null;
 
         if (mConsistencyCheck == false) {
-            attrs = new String[] { "objectclass", CertRecord.ATTR_ID, CertRecord.ATTR_X509CERT };
+            // only the validity is needed, not the certificate
+            attrs = new String[] { "objectclass", CertRecord.ATTR_ID, CertificateValidity.NOT_BEFORE };
         }
 
         logger.debug("getInvalidCertificatesByNotBeforeDate filter " + ldapfilter);
@@ -1846,7 +1954,8 @@ public class CertificateRepository extends Repository {
         String[] attrs = null;
 
         if (mConsistencyCheck == false) {
-            attrs = new String[] { "objectclass", CertRecord.ATTR_ID, CertRecord.ATTR_X509CERT };
+            // only the validity is needed, not the certificate
+            attrs = new String[] { "objectclass", CertRecord.ATTR_ID, CertificateValidity.NOT_AFTER };
         }
 
         logger.debug("getValidCertsByNotAfterDate filter " + ldapfilter);
@@ -1876,7 +1985,7 @@ public class CertificateRepository extends Repository {
 
         if (mConsistencyCheck == false) {
             attrs = new String[] { "objectclass", CertRecord.ATTR_REVOKED_ON, CertRecord.ATTR_ID,
-                        CertRecord.ATTR_REVO_INFO, CertificateValidity.NOT_AFTER, CertRecord.ATTR_X509CERT };
+                        CertRecord.ATTR_REVO_INFO, CertificateValidity.NOT_AFTER };
         }
 
         logger.debug("getRevokedCertificatesByNotAfterDate filter " + ldapfilter);
@@ -2034,12 +2143,6 @@ public class CertificateRepository extends Repository {
         return e;
     }
 
-    LDAPSearchResults searchForModifiedCertificateRecords(DBSSession session) throws EBaseException {
-        logger.debug("Starting persistent search.");
-        String filter = "(" + CertRecord.ATTR_CERT_STATUS + "=*)";
-        return session.persistentSearch(mBaseDN, filter, null);
-    }
-
     /**
      * Checks if the presented certificate belongs to the repository
      * and is revoked.
@@ -17,11 +17,6 @@
 // --- END COPYRIGHT BLOCK ---
 package com.netscape.cmscore.dbs;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
-
 import org.dogtagpki.server.ca.CAEngine;
 import org.mozilla.jss.netscape.security.x509.RevokedCertImpl;
 
@@ -29,52 +24,45 @@ import com.netscape.ca.CRLIssuingPoint;
 import com.netscape.certsrv.base.EBaseException;
 
 import netscape.ldap.LDAPAttributeSet;
+import netscape.ldap.LDAPConnection;
 import netscape.ldap.LDAPEntry;
-import netscape.ldap.LDAPSearchResults;
+import netscape.ldap.controls.LDAPPersistSearchControl;
 
-public class RetrieveModificationsTask implements Runnable {
+public class RetrieveModificationsTask implements DBChangeListener {
 
     public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RetrieveModificationsTask.class);
 
     CertificateRepository repository;
 
-    DBSSession session;
-    LDAPSearchResults results;
-
-    ScheduledExecutorService executorService;
+    DBChangeSubscription subscription;
 
     public RetrieveModificationsTask(CertificateRepository repository) {
         this.repository = repository;
-
-        executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
-            @Override
-            public Thread newThread(Runnable r) {
-                return new Thread(r, "RetrieveModificationsTask");
-            }
-        });
-    }
-
-    public void start() {
-
-        // schedule task to run immediately
-        executorService.schedule(this, 0, TimeUnit.MINUTES);
     }
 
-    public void connect() throws EBaseException {
-
-        if (session != null) return;
+    public void start() throws EBaseException {
 
         CAEngine engine = CAEngine.getInstance();
         DBSubsystem dbSubsystem = engine.getDBSubsystem();
 
-        try {
-            session = dbSubsystem.createSession();
-            results = repository.searchForModifiedCertificateRecords(session);
+        logger.debug("Starting persistent search.");
+        String filter = "(" + CertRecord.ATTR_CERT_STATUS + "=*)";
 
-        } catch (EBaseException e) {
-            close(); // avoid leaks
-            throw e;
-        }
+        subscription = new DBChangeSubscription("RetrieveModificationsTask", repository.getBaseDN(), this);
+        subscription.setScope(LDAPConnection.SCOPE_ONE);
+        subscription.setFilter(dbSubsystem.getRegistry().getFilter(filter));
+        subscription.setChangeTypes(LDAPPersistSearchControl.MODIFY);
+        subscription.setChangesOnly(true);
+
+        dbSubsystem.getChangeNotifier().subscribe(subscription);
+    }
+
+    @Override
+    public void entryChanged(DBChangeEvent event) {
+        LDAPEntry entry = event.getEntry();
+        logger.debug("Processing " + entry.getDN() + ".");
+        retrieveModifications(entry);
+        logger.debug("Done processing " + entry.getDN() + ".");
     }
 
     /**
@@ -144,63 +132,12 @@ public class RetrieveModificationsTask implements Runnable {
         }
     }
 
-    public void close() {
-
-        if (session == null) return;
-
-        // make sure the search is abandoned
-        if (results != null) try { session.abandon(results); } catch (Exception e) { e.printStackTrace(); }
-
-        // close session
-        try { session.close(); } catch (Exception e) { e.printStackTrace(); }
-
-        session = null;
-    }
-
-    @Override
-    public void run() {
-        try {
-            // make sure it's connected
-            connect();
-
-            // results.hasMoreElements() will block until next result becomes available
-            // or return false if the search is abandoned or the connection is closed
-
-            logger.debug("Waiting for next result.");
-            if (results.hasMoreElements()) {
-                LDAPEntry entry = results.next();
-
-                logger.debug("Processing "+entry.getDN()+".");
-                retrieveModifications(entry);
-                logger.debug("Done processing "+entry.getDN()+".");
-
-                // wait for next result immediately
-                executorService.schedule(this, 0, TimeUnit.MINUTES);
-
-            } else {
-                if (executorService.isShutdown()) {
-                    logger.debug("Task has been shutdown.");
-
-                } else {
-                    logger.debug("Persistence search ended.");
-                    close();
-
-                    logger.debug("Retrying in 1 minute.");
-                    executorService.schedule(this, 1, TimeUnit.MINUTES);
-                }
-            }
+    public void stop() {
 
-        } catch (Exception e) {
-            logger.warn("RetrieveModificationsTask: " + e.getMessage(), e);
-            close();
+        if (subscription == null) return;
 
-            logger.warn("Retrying in 1 minute.");
-            executorService.schedule(this, 1, TimeUnit.MINUTES);
-        }
-    }
-
-    public void stop() {
-        executorService.shutdown();
-        close();
+        CAEngine engine = CAEngine.getInstance();
+        engine.getDBSubsystem().getChangeNotifier().unsubscribe(subscription);
+        subscription = null;
     }
 }
@@ -39,11 +39,13 @@ import com.netscape.cms.profile.common.ProfileConfig;
 import com.netscape.cmscore.base.ConfigStorage;
 import com.netscape.cmscore.base.ConfigStore;
 import com.netscape.cmscore.base.LDAPConfigStorage;
+import com.netscape.cmscore.dbs.DBChangeEvent;
+import com.netscape.cmscore.dbs.DBChangeListener;
+import com.netscape.cmscore.dbs.DBChangeSubscription;
 import com.netscape.cmscore.ldapconn.LDAPConfig;
 import com.netscape.cmscore.ldapconn.LdapBoundConnFactory;
 import com.netscape.cmscore.registry.PluginInfo;
 import com.netscape.cmscore.registry.PluginRegistry;
-import com.netscape.cmsutil.ldap.LDAPUtil;
 
 import netscape.ldap.LDAPAttribute;
 import netscape.ldap.LDAPAttributeSet;
@@ -51,16 +53,12 @@ import netscape.ldap.LDAPConnection;
 import netscape.ldap.LDAPDN;
 import netscape.ldap.LDAPEntry;
 import netscape.ldap.LDAPException;
-import netscape.ldap.LDAPSearchConstraints;
-import netscape.ldap.LDAPSearchResults;
-import netscape.ldap.controls.LDAPEntryChangeControl;
-import netscape.ldap.controls.LDAPPersistSearchControl;
 import netscape.ldap.util.DN;
 
 
 public class LDAPProfileSubsystem
         extends ProfileSubsystem
-        implements Runnable {
+        implements DBChangeListener {
 
     public final static Logger logger = LoggerFactory.getLogger(LDAPProfileSubsystem.class);
 
@@ -69,8 +67,7 @@ public class LDAPProfileSubsystem
 
     private LdapBoundConnFactory dbFactory;
 
-    private boolean stopped = false;
-    private Thread monitor;
+    private DBChangeSubscription subscription;
 
     /* Map of profileId -> entryUSN for the most recent view
      * of the profile entry that this instance has seen */
@@ -114,8 +111,19 @@ public class LDAPProfileSubsystem
         profileContainerDNString = "ou=certificateProfiles,ou=ca," + basedn;
         profileContainerDN = new DN(profileContainerDNString);
 
-        monitor = new Thread(this, "ProfileChangeMonitor");
-        monitor.start();
+        LDAPConnection conn = dbFactory.getConn();
+        try {
+            ensureProfilesOU(conn);
+        } finally {
+            dbFactory.returnConn(conn);
+        }
+
+        logger.info("Profile change monitor: starting.");
+
+        subscription = new DBChangeSubscription("ProfileChangeMonitor", profileContainerDNString, this);
+        subscription.setAttributes(new String[] {"*", "entryUSN", "nsUniqueId", "numSubordinates"});
+        engine.getDBSubsystem().getChangeNotifier().subscribe(subscription);
+
         try {
             loader.awaitLoadDone();
         } catch (InterruptedException e) {
@@ -379,8 +387,13 @@ public class LDAPProfileSubsystem
      */
     @Override
     public void shutdown() {
-        stopped = true;
-        monitor = null;
+
+        if (subscription != null) {
+            logger.info("Profile change monitor: stopping.");
+            engine.getDBSubsystem().getChangeNotifier().unsubscribe(subscription);
+            subscription = null;
+        }
+
         forgetAllProfiles();
     }
 
@@ -422,134 +435,93 @@ public class LDAPProfileSubsystem
     }
 
     @Override
-    public void run() {
-        int op = LDAPPersistSearchControl.ADD
-            | LDAPPersistSearchControl.MODIFY
-            | LDAPPersistSearchControl.DELETE
-            | LDAPPersistSearchControl.MODDN;
-        LDAPPersistSearchControl persistCtrl =
-            new LDAPPersistSearchControl(op, false, true, true);
+    public void changesStarted(boolean resumed) {
 
-        LDAPConnection conn = null;
+        if (resumed) {
+            // only the missed changes follow
+            return;
+        }
 
-        logger.info("Profile change monitor: starting.");
+        /* Wait until the last possible moment before taking
+         * the load lock and dropping all profiles, so that
+         * we can continue to service requests while LDAP is
+         * down.
+         *
+         * Once we reconnect without a position to resume from,
+         * we need to forget all profiles and reload in case some
+         * were removed in the interim.
+         */
+        loader.startLoading();
+        forgetAllProfiles();
+    }
 
-        while (!stopped) {
-            try {
-                conn = dbFactory.getConn();
-                ensureProfilesOU(conn);
-                LDAPSearchConstraints cons = conn.getSearchConstraints();
-                cons.setServerControls(persistCtrl);
-                cons.setBatchSize(1);
-                cons.setServerTimeLimit(0 /* seconds */);
-                String[] attrs = {"*", "entryUSN", "nsUniqueId", "numSubordinates"};
-                LDAPSearchResults results = conn.search(
-                    profileContainerDNString, LDAPConnection.SCOPE_SUB,
-                    "(objectclass=*)", attrs, false, cons);
-
-                /* Wait until the last possible moment before taking
-                 * the load lock and dropping all profiles, so that
-                 * we can continue to service requests while LDAP is
-                 * down.
-                 *
-                 * Once we reconnect, we need to forget all profiles
-                 * and reload in case some were removed in the
-                 * interim.
-                 */
-                loader.startLoading();
-                forgetAllProfiles();
-
-                while (!stopped && results.hasMoreElements()) {
-                    LDAPEntry entry = results.next();
-                    DN entryDN = new DN(entry.getDN());
-
-                    if (entryDN.countRDNs() == profileContainerDN.countRDNs()) {
-                        /* This is the profile container.  Read numSubordinates to get
-                         * the expected number of profiles entries to read.
-                         *
-                         * numSubordinates is not reliable; it may be too high
-                         * due to objects we cannot see (e.g. replication conflict
-                         * entries).  In that case AsyncLoader has a watchdog
-                         * timer to interrupt waiting threads.
-                         */
-                        loader.setNumItems(Integer.valueOf(entry.getAttribute("numSubordinates").getStringValueArray()[0]));
-                        continue;
-                    }
-
-                    if (entryDN.countRDNs() > profileContainerDN.countRDNs() + 1) {
-                        /* This entry is unexpectedly deep.  We ignore it.
-                         * numSubordinates only counts immediate subordinates
-                         * (https://tools.ietf.org/html/draft-boreham-numsubordinates-01)
-                         * so don't increment() the AsyncLoader.
-                         */
-                        continue;
-                    }
-
-                    /* This entry is at the expected depth.  Is it a certProfile? */
-                    String[] objectClasses =
-                        entry.getAttribute("objectClass").getStringValueArray();
-                    if (!Arrays.asList(objectClasses).contains("certProfile")) {
-                        /* It is not a certProfile; ignore it.  But it does
-                         * contribute to numSubordinates so increment the loader. */
-                        loader.increment();
-                        continue;
-                    }
-
-                    /* We have a profile.  Process it. */
-
-                    LDAPEntryChangeControl changeControl = (LDAPEntryChangeControl)
-                        LDAPUtil.getControl(
-                            LDAPEntryChangeControl.class, results.getResponseControls());
-                    logger.debug("Profile change monitor: Processed change controls.");
-                    if (changeControl != null) {
-                        int changeType = changeControl.getChangeType();
-                        switch (changeType) {
-                        case LDAPPersistSearchControl.ADD:
-                            logger.debug("Profile change monitor: ADD");
-                            readProfile(entry);
-                            break;
-                        case LDAPPersistSearchControl.DELETE:
-                            logger.debug("Profile change monitor: DELETE");
-                            handleDELETE(entry);
-                            break;
-                        case LDAPPersistSearchControl.MODIFY:
-                            logger.debug("Profile change monitor: MODIFY");
-                            readProfile(entry);
-                            break;
-                        case LDAPPersistSearchControl.MODDN:
-                            logger.debug("Profile change monitor: MODDN");
-                            handleMODDN(new DN(changeControl.getPreviousDN()), entry);
-                            break;
-                        default:
-                            logger.warn("Profile change monitor: unknown change type: " + changeType);
-                            break;
-                        }
-                    } else {
-                        logger.debug("Profile change monitor: immediate result");
-                        readProfile(entry);
-                        loader.increment();
-                    }
-                }
-            } catch (ELdapException e) {
-                logger.warn("Profile change monitor: failed to get LDAPConnection. Retrying in 1 second.");
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException ex) {
-                    Thread.currentThread().interrupt();
-                }
-            } catch (LDAPException e) {
-                logger.error("Profile change monitor: Caught exception: " + e, e);
-            } finally {
-                if (conn != null) {
-                    try {
-                        dbFactory.returnConn(conn);
-                        conn = null;
-                    } catch (Exception e) {
-                        logger.error("Profile change monitor: Error releasing the LDAPConnection" + e, e);
-                    }
-                }
+    @Override
+    public void entryChanged(DBChangeEvent event) {
+
+        LDAPEntry entry = event.getEntry();
+        DN entryDN = new DN(entry.getDN());
+        boolean immediate = event.getType() == DBChangeEvent.Type.ENTRY;
+
+        if (entryDN.countRDNs() == profileContainerDN.countRDNs()) {
+            if (!immediate) {
+                return;
             }
+            /* This is the profile container.  Read numSubordinates to get
+             * the expected number of profiles entries to read.
+             *
+             * numSubordinates is not reliable; it may be too high
+             * due to objects we cannot see (e.g. replication conflict
+             * entries).  In that case AsyncLoader has a watchdog
+             * timer to interrupt waiting threads.
+             */
+            loader.setNumItems(Integer.valueOf(entry.getAttribute("numSubordinates").getStringValueArray()[0]));
+            return;
+        }
+
+        if (entryDN.countRDNs() > profileContainerDN.countRDNs() + 1) {
+            /* This entry is unexpectedly deep.  We ignore it.
+             * numSubordinates only counts immediate subordinates
+             * (https://tools.ietf.org/html/draft-boreham-numsubordinates-01)
+             * so don't increment() the AsyncLoader.
+             */
+            return;
+        }
+
+        /* This entry is at the expected depth.  Is it a certProfile? */
+        String[] objectClasses =
+            entry.getAttribute("objectClass").getStringValueArray();
+        if (!Arrays.asList(objectClasses).contains("certProfile")) {
+            /* It is not a certProfile; ignore it.  But it does
+             * contribute to numSubordinates so increment the loader. */
+            if (immediate) {
+                loader.increment();
+            }
+            return;
+        }
+
+        /* We have a profile.  Process it. */
+
+        switch (event.getType()) {
+        case ADD:
+            logger.debug("Profile change monitor: ADD");
+            readProfile(entry);
+            break;
+        case DELETE:
+            logger.debug("Profile change monitor: DELETE");
+            handleDELETE(entry);
+            break;
+        case MODIFY:
+            logger.debug("Profile change monitor: MODIFY");
+            readProfile(entry);
+            break;
+        case MODDN:
+            logger.debug("Profile change monitor: MODDN");
+            handleMODDN(new DN(event.getPreviousDN()), entry);
+            break;
+        default:
+            logger.debug("Profile change monitor: immediate result");
+            readProfile(entry);
+            loader.increment();
         }
-        logger.info("Profile change monitor: stopping.");
     }
 }
@@ -582,7 +582,7 @@ public class CAEngine extends CMSEngine {
         CertificateAuthority hostCA = getCA();
 
         authorityMonitor = new AuthorityMonitor();
-        new Thread(authorityMonitor, "AuthorityMonitor").start();
+        authorityMonitor.start();
 
         try {
             logger.info("CAEngine: Waiting for authorities to load");
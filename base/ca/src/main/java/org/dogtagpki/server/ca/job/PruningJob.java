@@ -8,10 +8,9 @@ package org.dogtagpki.server.ca.job;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
-import java.util.Enumeration;
 
 import org.dogtagpki.server.ca.CAEngine;
-import org.mozilla.jss.netscape.security.x509.X509CertImpl;
+import org.mozilla.jss.netscape.security.x509.CertificateValidity;
 
 import com.netscape.certsrv.base.EBaseException;
 import com.netscape.certsrv.base.IExtendedPluginInfo;
@@ -22,6 +21,7 @@ import com.netscape.certsrv.request.RequestStatus;
 import com.netscape.cms.jobs.Job;
 import com.netscape.cmscore.dbs.CertRecord;
 import com.netscape.cmscore.dbs.CertificateRepository;
+import com.netscape.cmscore.dbs.DBSearchCursor;
 import com.netscape.cmscore.dbs.Repository.IDGenerator;
 import com.netscape.cmscore.jobs.JobConfig;
 import com.netscape.cmscore.jobs.JobsScheduler;
@@ -148,11 +148,10 @@ public class PruningJob extends Job implements IExtendedPluginInfo {
 
     public void pruneCertRecord(CertRecord certRecord) throws Exception {
 
-        X509CertImpl cert = certRecord.getCertificate();
-        CertId certID = new CertId(cert.getSerialNumber());
+        CertId certID = new CertId(certRecord.getSerialNumber());
 
         logger.info("PruningJob: Removing cert " + certID.toHexString());
-        certRepository.deleteCertificateRecord(cert.getSerialNumber());
+        certRepository.deleteCertificateRecord(certRecord.getSerialNumber());
 
         MetaInfo metaInfo = (MetaInfo) certRecord.get(CertRecord.ATTR_META_INFO);
         if (metaInfo == null) {
@@ -185,20 +184,28 @@ public class PruningJob extends Job implements IExtendedPluginInfo {
         String filter = "(&(x509Cert.notAfter<=" + time + ")(!(x509Cert.notAfter=" + time + ")))";
         logger.info("PruningJob: - filter: " + filter);
 
-        Enumeration<CertRecord> certRecords = certRepository.searchCertificates(
-                filter, certSearchSizeLimit, certSearchTimeLimit);
+        // the certificates themselves are not needed
+        String[] attrs = {
+                CertRecord.ATTR_ID,
+                CertRecord.ATTR_META_INFO,
+                CertificateValidity.NOT_AFTER
+        };
 
-        while (certRecords.hasMoreElements()) {
-            CertRecord certRecord = certRecords.nextElement();
+        try (DBSearchCursor<CertRecord> certRecords = certRepository.openCertificateCursor(
+                filter, attrs, certSearchSizeLimit, certSearchTimeLimit, null)) {
 
-            CertId certID = new CertId(certRecord.getSerialNumber());
-            logger.info("PruningJob: Pruning cert " + certID.toHexString());
-            logger.info("PruningJob: - expired: " + certRecord.getNotAfter());
+            while (certRecords.hasNext()) {
+                CertRecord certRecord = certRecords.next();
 
-            try {
-                pruneCertRecord(certRecord);
-            } catch (Exception e) {
-                logger.warn("Unable to prune cert " + certID.toHexString() + ": " + e.getMessage(), e);
+                CertId certID = new CertId(certRecord.getSerialNumber());
+                logger.info("PruningJob: Pruning cert " + certID.toHexString());
+                logger.info("PruningJob: - expired: " + certRecord.getNotAfter());
+
+                try {
+                    pruneCertRecord(certRecord);
+                } catch (Exception e) {
+                    logger.warn("Unable to prune cert " + certID.toHexString() + ": " + e.getMessage(), e);
+                }
             }
         }
     }
@@ -20,11 +20,13 @@ package org.dogtagpki.server.ca.rest;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.math.BigInteger;
 import java.security.Principal;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 
 import javax.ws.rs.core.Response;
@@ -195,51 +197,8 @@ public class AgentCertService extends PKIService implements AgentCertResource {
         }
 
         try {
-            X509Certificate clientCert = null;
-            try {
-                clientCert = CAProcessor.getSSLClientCertificate(servletRequest);
-            } catch (EBaseException e) {
-                // No client certificate, ignore.
-            }
-
-            CertRecord clientRecord = null;
-            BigInteger clientSerialNumber = null;
-            String clientSubjectDN = null;
-
-            if (clientCert != null) {
-                clientSerialNumber = clientCert.getSerialNumber();
-                clientSubjectDN = clientCert.getSubjectDN().toString();
-
-                X500Name x500issuerDN = (X500Name) clientCert.getIssuerDN();
-                /*
-                 * internal revocation check only to be conducted for certs
-                 * issued by this CA
-                 * For client certs issued by external CAs, TLS mutual auth
-                 * would have completed the authenticaton/verification if
-                 * OCSP was enabled;
-                 * Furthermore, prior to the actual revocation, client cert
-                 * is mapped against the agent group database for proper
-                 * privilege regardless of the issuer.
-                 */
-                if (x500issuerDN.equals(caX500DN)) {
-                    logger.info("CertService.revokeCert: client cert issued by this CA");
-                    clientRecord = processor.getCertificateRecord(clientSerialNumber);
-
-                    // Verify client cert is not revoked.
-                    // TODO: This should be checked during authentication.
-                    if (clientRecord.getStatus().equals(CertRecord.STATUS_REVOKED)) {
-                        throw new UnauthorizedException(CMS.getLogMessage("CMSGW_UNAUTHORIZED"));
-                    }
-                } else {
-                    logger.info("CertService.revokeCert: client cert not issued by this CA");
-                    if (engine.getAllowExtCASignedAgentCerts()) {
-                        logger.info("CertService.revokeCert: allowExtCASignedAgentCerts true;");
-                    } else {
-                        logger.error("CertService.revokeCert: allowExtCASignedAgentCerts false;");
-                        throw new UnauthorizedException(CMS.getLogMessage("CMSGW_UNAUTHORIZED"));
-                    }
-                }
-            }
+            X509Certificate clientCert = getClientCertificate(processor, caX500DN);
+            String clientSubjectDN = clientCert == null ? null : clientCert.getSubjectDN().toString();
 
             if (engine.getEnableNonces() &&
                 !processor.isMemberOfSubsystemGroup(clientCert)) {
@@ -247,8 +206,7 @@ public class AgentCertService extends PKIService implements AgentCertResource {
 
             }
 
-            // Find target cert record if different from client cert.
-            CertRecord targetRecord = clientRecord != null && id.toBigInteger().equals(clientSerialNumber) ? clientRecord : processor.getCertificateRecord(id);
+            CertRecord targetRecord = processor.getCertificateRecord(id);
             X509CertImpl targetCert = targetRecord.getCertificate();
 
             processor.createCRLExtension();
@@ -309,6 +267,191 @@ public class AgentCertService extends PKIService implements AgentCertResource {
         }
     }
 
+    /**
+     * Returns the SSL client certificate of the revocation request,
+     * or null if there is no client certificate.
+     *
+     * @throws UnauthorizedException if the client certificate is revoked
+     * or issued by an external CA which is not allowed
+     */
+    X509Certificate getClientCertificate(RevocationProcessor processor, X500Name caX500DN) throws EBaseException {
+
+        CAEngine engine = CAEngine.getInstance();
+
+        X509Certificate clientCert = null;
+        try {
+            clientCert = CAProcessor.getSSLClientCertificate(servletRequest);
+        } catch (EBaseException e) {
+            // No client certificate, ignore.
+        }
+
+        if (clientCert == null) {
+            return null;
+        }
+
+        X500Name x500issuerDN = (X500Name) clientCert.getIssuerDN();
+        /*
+         * internal revocation check only to be conducted for certs
+         * issued by this CA
+         * For client certs issued by external CAs, TLS mutual auth
+         * would have completed the authenticaton/verification if
+         * OCSP was enabled;
+         * Furthermore, prior to the actual revocation, client cert
+         * is mapped against the agent group database for proper
+         * privilege regardless of the issuer.
+         */
+        if (x500issuerDN.equals(caX500DN)) {
+            logger.info("CertService.revokeCert: client cert issued by this CA");
+            CertRecord clientRecord = processor.getCertificateRecord(clientCert.getSerialNumber());
+
+            // Verify client cert is not revoked.
+            // TODO: This should be checked during authentication.
+            if (clientRecord.getStatus().equals(CertRecord.STATUS_REVOKED)) {
+                throw new UnauthorizedException(CMS.getLogMessage("CMSGW_UNAUTHORIZED"));
+            }
+        } else {
+            logger.info("CertService.revokeCert: client cert not issued by this CA");
+            if (engine.getAllowExtCASignedAgentCerts()) {
+                logger.info("CertService.revokeCert: allowExtCASignedAgentCerts true;");
+            } else {
+                logger.error("CertService.revokeCert: allowExtCASignedAgentCerts false;");
+                throw new UnauthorizedException(CMS.getLogMessage("CMSGW_UNAUTHORIZED"));
+            }
+        }
+
+        return clientCert;
+    }
+
+    @Override
+    public Response revokeCerts(CertRevokeRequest request) {
+
+        if (request == null) {
+            logger.warn("revokeCerts: request is null");
+            throw new BadRequestException("Unable to revoke certs: invalid request");
+        }
+
+        List<CertId> ids = getSerialNumbers(request);
+        logger.info("Revoking " + ids.size() + " certificate(s)");
+
+        RevocationReason revReason = RevocationReason.valueOf(request.getReason());
+        if (revReason == null) {
+            logger.warn("CertService.revokeCerts: request reason not recognised, set as Unspecified");
+            revReason = RevocationReason.UNSPECIFIED;
+        }
+        if (revReason == RevocationReason.REMOVE_FROM_CRL) {
+            return unrevokeCerts(request);
+        }
+
+        CAEngine engine = CAEngine.getInstance();
+
+        X500Name caX500DN = null;
+        RevocationProcessor processor;
+        try {
+            processor = new RevocationProcessor("caDoRevoke-agent", getLocale(headers));
+            processor.setCMSEngine(engine);
+            processor.init();
+
+            processor.setStartTime(new Date().getTime());
+
+            // TODO: set initiative based on auth info
+            processor.setInitiative(AuditFormat.FROMAGENT);
+
+            processor.setRevocationReason(revReason);
+            processor.setRequestType(revReason == RevocationReason.CERTIFICATE_HOLD
+                    ? RevocationProcessor.ON_HOLD : RevocationProcessor.REVOKE);
+            processor.setInvalidityDate(request.getInvalidityDate());
+            processor.setComments(request.getComments());
+
+            processor.setAuthority(authority);
+
+            caX500DN = authority.getCACert().getSubjectName();
+
+        } catch (EBaseException e) {
+            logger.error("Unable to revoke certificates: " + e.getMessage(), e);
+            throw new PKIException("Unable to revoke certificates: " + e.getMessage(), e);
+        }
+
+        try {
+            X509Certificate clientCert = getClientCertificate(processor, caX500DN);
+            String clientSubjectDN = clientCert == null ? null : clientCert.getSubjectDN().toString();
+
+            if (engine.getEnableNonces() &&
+                !processor.isMemberOfSubsystemGroup(clientCert)) {
+
+                // nonces are issued for each certificate, so the request
+                // must provide them in the same order as the serial numbers
+                List<CertId> serialNumbers = request.getSerialNumbers();
+                List<Long> nonces = request.getNonces();
+                if (nonces == null || nonces.size() != serialNumbers.size()) {
+                    throw new BadRequestException("Unable to revoke certificates: Missing nonces");
+                }
+
+                for (int i = 0; i < serialNumbers.size(); i++) {
+                    processor.validateNonce(servletRequest, "cert-revoke", serialNumbers.get(i).toBigInteger(), nonces.get(i));
+                }
+            }
+
+            processor.createCRLExtension();
+
+            // TODO remove hardcoded role names and consult authzmgr
+            // (so that we can handle externally-authenticated principals)
+            GenericPrincipal principal =
+                (GenericPrincipal) servletRequest.getUserPrincipal();
+            String subjectDN = principal.hasRole("Certificate Manager Agents") ?
+                    null : clientSubjectDN;
+
+            for (CertId id : ids) {
+                CertRecord targetRecord = getCertificateRecord(processor, id);
+                processor.validateCertificateToRevoke(subjectDN, targetRecord, false);
+                processor.addCertificateToRevoke(targetRecord.getCertificate());
+            }
+
+            processor.createRevocationRequest();
+
+            auditChangeRequest(processor, ids, ILogger.SUCCESS);
+
+        } catch (PKIException e) {
+            logger.warn("Unable to pre-process revocation request: " + e.getMessage());
+            auditChangeRequest(processor, ids, ILogger.FAILURE);
+            throw e;
+
+        } catch (EBaseException e) {
+            logger.error("Unable to pre-process revocation request: " + e.getMessage(), e);
+            auditChangeRequest(processor, ids, ILogger.FAILURE);
+            throw new PKIException("Unable to revoke certificates: " + e.getMessage(), e);
+
+        } catch (IOException e) {
+            logger.error("Unable to pre-process revocation request: " + e.getMessage(), e);
+            auditChangeRequest(processor, ids, ILogger.FAILURE);
+            throw new PKIException("Unable to revoke certificates: " + e.getMessage(), e);
+        }
+
+        // all certificates are revoked by a single request, so the
+        // repository and the CRL caches are updated in one pass
+
+        try {
+            processor.processRevocationRequest();
+
+            auditChangeRequestProcessed(processor, ids, ILogger.SUCCESS);
+
+        } catch (EBaseException e) {
+            logger.error("Unable to process revocation request: " + e.getMessage(), e);
+            auditChangeRequestProcessed(processor, ids, ILogger.FAILURE);
+            throw new PKIException("Unable to revoke certificates: " + e.getMessage(), e);
+        }
+
+        try {
+            Request certRequest = processor.getRequest();
+            CertRequestDAO dao = new CertRequestDAO();
+            CertRequestInfo requestInfo = dao.getRequest(certRequest.getRequestId(), uriInfo);
+            return createOKResponse(requestInfo);
+
+        } catch (EBaseException e) {
+            logger.error("Unable to create revocation response: " + e.getMessage(), e);
+            throw new PKIException("Unable to create revocation response: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public Response unrevokeCert(CertId id) {
 
@@ -387,6 +530,119 @@ public class AgentCertService extends PKIService implements AgentCertResource {
         }
     }
 
+    @Override
+    public Response unrevokeCerts(CertRevokeRequest request) {
+
+        if (request == null) {
+            logger.warn("unrevokeCerts: request is null");
+            throw new BadRequestException("Unable to unrevoke certs: invalid request");
+        }
+
+        List<CertId> ids = getSerialNumbers(request);
+        logger.info("Unrevoking " + ids.size() + " certificate(s)");
+
+        CAEngine engine = (CAEngine) getCMSEngine();
+        RevocationProcessor processor;
+
+        try {
+            processor = new RevocationProcessor("caDoUnrevoke", getLocale(headers));
+            processor.setCMSEngine(engine);
+            processor.init();
+
+            // TODO: set initiative based on auth info
+            processor.setInitiative(AuditFormat.FROMAGENT);
+
+            processor.setRevocationReason(RevocationReason.CERTIFICATE_HOLD);
+            processor.setAuthority(authority);
+
+        } catch (EBaseException e) {
+            logger.error("Unable to create revocation processor: " + e.getMessage(), e);
+            throw new PKIException("Unable to unrevoke certificates: " + e.getMessage(), e);
+        }
+
+        try {
+            for (CertId id : ids) {
+                // check cert actually exists
+                getCertificateRecord(processor, id);
+                processor.addSerialNumberToUnrevoke(id.toBigInteger());
+            }
+
+            processor.createUnrevocationRequest();
+
+            auditChangeRequest(processor, ids, ILogger.SUCCESS);
+
+        } catch (PKIException e) {
+            logger.warn("Unable to pre-process unrevocation request: " + e.getMessage());
+            auditChangeRequest(processor, ids, ILogger.FAILURE);
+            throw e;
+
+        } catch (EBaseException e) {
+            logger.error("Unable to pre-process unrevocation request: " + e.getMessage(), e);
+            auditChangeRequest(processor, ids, ILogger.FAILURE);
+            throw new PKIException("Unable to unrevoke certificates: " + e.getMessage(), e);
+        }
+
+        try {
+            processor.processUnrevocationRequest();
+
+            auditChangeRequestProcessed(processor, ids, ILogger.SUCCESS);
+
+        } catch (EBaseException e) {
+            logger.error("Unable to process unrevocation request: " + e.getMessage(), e);
+            auditChangeRequestProcessed(processor, ids, ILogger.FAILURE);
+            throw new PKIException("Unable to unrevoke certificates: " + e.getMessage(), e);
+        }
+
+        try {
+            Request certRequest = processor.getRequest();
+            CertRequestDAO dao = new CertRequestDAO();
+            return createOKResponse(dao.getRequest(certRequest.getRequestId(), uriInfo));
+
+        } catch (EBaseException e) {
+            logger.error("Unable to create unrevocation response: " + e.getMessage(), e);
+            throw new PKIException("Unable to create unrevocation response: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the distinct serial numbers of a bulk revocation request.
+     */
+    List<CertId> getSerialNumbers(CertRevokeRequest request) {
+
+        List<CertId> serialNumbers = request.getSerialNumbers();
+        if (serialNumbers == null || serialNumbers.isEmpty()) {
+            logger.warn("Unable to revoke certs: Missing serial numbers");
+            throw new BadRequestException("Unable to revoke certs: Missing serial numbers");
+        }
+
+        return new ArrayList<>(new LinkedHashSet<>(serialNumbers));
+    }
+
+    CertRecord getCertificateRecord(RevocationProcessor processor, CertId id) throws EBaseException {
+        try {
+            return processor.getCertificateRecord(id);
+        } catch (EDBRecordNotFoundException e) {
+            throw new CertNotFoundException(id);
+        }
+    }
+
+    /**
+     * Audits the status change of each certificate in the request.
+     */
+    void auditChangeRequest(RevocationProcessor processor, List<CertId> ids, String status) {
+        for (CertId id : ids) {
+            processor.setSerialNumber(id);
+            processor.auditChangeRequest(status);
+        }
+    }
+
+    void auditChangeRequestProcessed(RevocationProcessor processor, List<CertId> ids, String status) {
+        for (CertId id : ids) {
+            processor.setSerialNumber(id);
+            processor.auditChangeRequestProcessed(status);
+        }
+    }
+
     CertData getCert(CertRetrievalRequest data, boolean generateNonce) throws Exception {
 
         CAEngine engine = CAEngine.getInstance();
@@ -24,10 +24,7 @@ import java.security.Principal;
 import java.security.PublicKey;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.Enumeration;
-import java.util.List;
 import java.util.Map;
 
 import javax.ws.rs.core.Response;
@@ -64,6 +61,7 @@ import com.netscape.cms.servlet.cert.FilterBuilder;
 import com.netscape.cmscore.dbs.CertRecord;
 import com.netscape.cmscore.dbs.CertRecordList;
 import com.netscape.cmscore.dbs.CertificateRepository;
+import com.netscape.cmscore.dbs.DBSearchCursor;
 import com.netscape.cmscore.dbs.RevocationInfo;
 import com.netscape.cmscore.security.JssSubsystem;
 import com.netscape.cmsutil.ldap.LDAPUtil;
@@ -81,6 +79,16 @@ public class CertService extends PKIService implements CertResource {
     public static final int DEFAULT_MAXTIME = 0;
     public static final int DEFAULT_MAXRESULTS = 20;
 
+    // filters with VLV indexes sorted by serial number (see vlv.ldif)
+    private static final String[] VLV_FILTERS = {
+            "(certstatus=*)",
+            "(certstatus=VALID)",
+            "(certstatus=INVALID)",
+            "(certstatus=EXPIRED)",
+            "(certstatus=REVOKED)",
+            "(certstatus=REVOKED_EXPIRED)"
+    };
+
     public CertService() {
 
         CAEngine engine = CAEngine.getInstance();
@@ -138,6 +146,15 @@ public class CertService extends PKIService implements CertResource {
         return filter;
     }
 
+    private boolean isVLVSearch(String filter) {
+        for (String vlvFilter : VLV_FILTERS) {
+            if (vlvFilter.equalsIgnoreCase(filter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     String createSearchFilter(CertSearchRequest data) {
         if (data == null) {
             return null;
@@ -161,27 +178,41 @@ public class CertService extends PKIService implements CertResource {
 
         CertDataInfos infos = new CertDataInfos();
         try {
-            Enumeration<CertRecord> e = repo.searchCertificates(filter, maxResults, maxTime);
-            if (e == null) {
-                throw new EBaseException("search results are null");
+            if (isVLVSearch(filter)) {
+                // retrieve the requested page and the total from the VLV index
+                CertRecordList list = repo.findReadOnlyCertRecordsInList(filter, null, "serialno", size);
+                int total = list.getSize();
+                logger.info("Search results: " + total);
+
+                // limit the results like the non-VLV search
+                if (maxResults > 0 && total > maxResults) {
+                    total = maxResults;
+                }
+                infos.setTotal(total);
+
+                for (int i = start; i < start + size && i < total; i++) {
+                    CertRecord rec = list.getCertRecord(i);
+                    if (rec == null) continue;
+                    infos.addEntry(createCertDataInfo(rec));
+                }
+
+                return createOKResponse(infos);
             }
 
-            // store non-null results in a list
-            List<CertDataInfo> results = new ArrayList<>();
-            while (e.hasMoreElements()) {
-                CertRecord rec = e.nextElement();
-                if (rec == null) continue;
-                results.add(createCertDataInfo(rec));
+            // count the results but only convert the requested page
+            int total = 0;
+            try (DBSearchCursor<CertRecord> cursor = repo.openReadOnlyCertificateCursor(filter, maxResults, maxTime, null)) {
+                while (cursor.hasNext()) {
+                    CertRecord rec = cursor.next();
+                    if (total >= start && total < start + size) {
+                        infos.addEntry(createCertDataInfo(rec));
+                    }
+                    total++;
+                }
             }
 
-            int total = results.size();
             logger.info("Search results: " + total);
             infos.setTotal(total);
-
-            // return entries in the requested page
-            for (int i = start; i < start + size && i < total ; i++) {
-                infos.addEntry(results.get(i));
-            }
         } catch (Exception e) {
             logger.error("Unable to list certificates: " + e.getMessage(), e);
             throw new PKIException("Unable to list certificates: " + e.getMessage(), e);
@@ -209,7 +240,7 @@ public class CertService extends PKIService implements CertResource {
 
         CertDataInfos infos = new CertDataInfos();
         try {
-            CertRecordList list = repo.findCertRecordsInList(filter, null, "serialno", size);
+            CertRecordList list = repo.findReadOnlyCertRecordsInList(filter, null, "serialno", size);
             int total = list.getSize();
             logger.info("Search results: " + total);
 
@@ -57,4 +57,14 @@ public class CAAgentCertClient extends Client {
     public CertRequestInfo unrevokeCert(CertId id) throws Exception {
         return post(id.toHexString() + "/unrevoke", CertRequestInfo.class);
     }
+
+    public CertRequestInfo revokeCerts(CertRevokeRequest request) throws Exception {
+        Entity<CertRevokeRequest> entity = client.entity(request);
+        return post("revoke", null, entity, CertRequestInfo.class);
+    }
+
+    public CertRequestInfo unrevokeCerts(CertRevokeRequest request) throws Exception {
+        Entity<CertRevokeRequest> entity = client.entity(request);
+        return post("unrevoke", null, entity, CertRequestInfo.class);
+    }
 }
@@ -114,6 +114,14 @@ public class CACertClient extends Client {
         return agentCertClient.unrevokeCert(id);
     }
 
+    public CertRequestInfo revokeCerts(CertRevokeRequest request) throws Exception {
+        return agentCertClient.revokeCerts(request);
+    }
+
+    public CertRequestInfo unrevokeCerts(CertRevokeRequest request) throws Exception {
+        return agentCertClient.unrevokeCerts(request);
+    }
+
     public CertRequestInfos enrollRequest(
             CertEnrollmentRequest data, AuthorityID aid, X500Name adn) throws Exception {
         return certRequestClient.enrollRequest(data, aid, adn);
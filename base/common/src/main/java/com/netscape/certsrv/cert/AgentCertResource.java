@@ -13,6 +13,18 @@ import com.netscape.certsrv.dbs.certdb.CertId;
 @Path("agent/certs")
 public interface AgentCertResource {
 
+    @POST
+    @Path("revoke")
+    @ACLMapping("certs")
+    @AuthMethodMapping("certs")
+    public Response revokeCerts(CertRevokeRequest request);
+
+    @POST
+    @Path("unrevoke")
+    @ACLMapping("certs")
+    @AuthMethodMapping("certs")
+    public Response unrevokeCerts(CertRevokeRequest request);
+
     @GET
     @Path("{id}")
     @ACLMapping("certs")
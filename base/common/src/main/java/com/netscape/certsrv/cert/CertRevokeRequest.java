@@ -20,7 +20,9 @@ package com.netscape.certsrv.cert;
 
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
@@ -40,6 +42,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.netscape.certsrv.dbs.certdb.CertId;
 import com.netscape.certsrv.util.JSONSerializer;
 
 /**
@@ -54,6 +57,8 @@ public class CertRevokeRequest implements JSONSerializer {
     String comments;
     String encoded;
     Long nonce;
+    List<CertId> serialNumbers;
+    List<Long> nonces;
 
     @JsonProperty("Reason")
     public String getReason() {
@@ -100,6 +105,33 @@ public class CertRevokeRequest implements JSONSerializer {
         this.nonce = nonce;
     }
 
+    /**
+     * Returns the serial numbers of the certificates to revoke
+     * in a single request, or null for a single certificate
+     * identified by the resource path.
+     */
+    @JsonProperty("SerialNumbers")
+    public List<CertId> getSerialNumbers() {
+        return serialNumbers;
+    }
+
+    public void setSerialNumbers(List<CertId> serialNumbers) {
+        this.serialNumbers = serialNumbers;
+    }
+
+    /**
+     * Returns the nonces of the certificates in the same order as
+     * the serial numbers, or null if nonces are not used.
+     */
+    @JsonProperty("Nonces")
+    public List<Long> getNonces() {
+        return nonces;
+    }
+
+    public void setNonces(List<Long> nonces) {
+        this.nonces = nonces;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -108,7 +140,9 @@ public class CertRevokeRequest implements JSONSerializer {
         result = prime * result + ((encoded == null) ? 0 : encoded.hashCode());
         result = prime * result + ((invalidityDate == null) ? 0 : invalidityDate.hashCode());
         result = prime * result + ((nonce == null) ? 0 : nonce.hashCode());
+        result = prime * result + ((nonces == null) ? 0 : nonces.hashCode());
         result = prime * result + ((reason == null) ? 0 : reason.hashCode());
+        result = prime * result + ((serialNumbers == null) ? 0 : serialNumbers.hashCode());
         return result;
     }
 
@@ -141,11 +175,21 @@ public class CertRevokeRequest implements JSONSerializer {
                 return false;
         } else if (!nonce.equals(other.nonce))
             return false;
+        if (nonces == null) {
+            if (other.nonces != null)
+                return false;
+        } else if (!nonces.equals(other.nonces))
+            return false;
         if (reason == null) {
             if (other.reason != null)
                 return false;
         } else if (!reason.equals(other.reason))
             return false;
+        if (serialNumbers == null) {
+            if (other.serialNumbers != null)
+                return false;
+        } else if (!serialNumbers.equals(other.serialNumbers))
+            return false;
         return true;
     }
 
@@ -183,6 +227,26 @@ public class CertRevokeRequest implements JSONSerializer {
             requestElement.appendChild(nonceElement);
         }
 
+        if (serialNumbers != null) {
+            Element serialNumbersElement = document.createElement("SerialNumbers");
+            for (CertId serialNumber : serialNumbers) {
+                Element serialNumberElement = document.createElement("SerialNumber");
+                serialNumberElement.appendChild(document.createTextNode(serialNumber.toHexString()));
+                serialNumbersElement.appendChild(serialNumberElement);
+            }
+            requestElement.appendChild(serialNumbersElement);
+        }
+
+        if (nonces != null) {
+            Element noncesElement = document.createElement("Nonces");
+            for (Long value : nonces) {
+                Element nonceElement = document.createElement("Nonce");
+                nonceElement.appendChild(document.createTextNode(Long.toString(value)));
+                noncesElement.appendChild(nonceElement);
+            }
+            requestElement.appendChild(noncesElement);
+        }
+
         return requestElement;
     }
 
@@ -215,9 +279,38 @@ public class CertRevokeRequest implements JSONSerializer {
         }
 
         NodeList nonceList = dataElement.getElementsByTagName("Nonce");
-        if (nonceList.getLength() > 0) {
-            String value = nonceList.item(0).getTextContent();
+        for (int i = 0; i < nonceList.getLength(); i++) {
+            // skip the elements under Nonces
+            if (nonceList.item(i).getParentNode() != dataElement) {
+                continue;
+            }
+            String value = nonceList.item(i).getTextContent();
             request.setNonce(Long.parseLong(value));
+            break;
+        }
+
+        NodeList serialNumbersList = dataElement.getElementsByTagName("SerialNumbers");
+        if (serialNumbersList.getLength() > 0) {
+            Element serialNumbersElement = (Element) serialNumbersList.item(0);
+            NodeList serialNumberList = serialNumbersElement.getElementsByTagName("SerialNumber");
+            List<CertId> serialNumbers = new ArrayList<>();
+            for (int i = 0; i < serialNumberList.getLength(); i++) {
+                String value = serialNumberList.item(i).getTextContent();
+                serialNumbers.add(new CertId(value));
+            }
+            request.setSerialNumbers(serialNumbers);
+        }
+
+        NodeList noncesList = dataElement.getElementsByTagName("Nonces");
+        if (noncesList.getLength() > 0) {
+            Element noncesElement = (Element) noncesList.item(0);
+            NodeList valueList = noncesElement.getElementsByTagName("Nonce");
+            List<Long> nonces = new ArrayList<>();
+            for (int i = 0; i < valueList.getLength(); i++) {
+                String value = valueList.item(i).getTextContent();
+                nonces.add(Long.parseLong(value));
+            }
+            request.setNonces(nonces);
         }
 
         return request;
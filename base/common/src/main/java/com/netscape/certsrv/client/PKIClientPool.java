@@ -0,0 +1,252 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+
+package com.netscape.certsrv.client;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.netscape.certsrv.base.PKIException;
+
+/**
+ * Pool of PKIClients sharing the same configuration.
+ *
+ * A PKIClient is not thread-safe, but it keeps its HTTP connection
+ * alive and its session cookie between requests. The pool lends each
+ * client to one thread at a time so that requests from different
+ * threads reuse the TLS connections and the authenticated sessions
+ * instead of creating a new client, handshake and login each time.
+ *
+ * At most maxClients clients are in use at a time. Callers wait at
+ * most maxWait milliseconds for a client (0 means wait indefinitely).
+ * Clients idle for longer than the idle timeout are closed since the
+ * server will have closed their connections.
+ */
+public class PKIClientPool implements AutoCloseable {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PKIClientPool.class);
+
+    public static final int DEFAULT_MAX_CLIENTS = 10;
+    public static final int DEFAULT_MAX_WAIT = 30000; // milliseconds
+    public static final int DEFAULT_IDLE_TIMEOUT = 30; // seconds
+
+    /**
+     * Prepares a new client, e.g. logs in to the server.
+     */
+    public interface Initializer {
+        void init(PKIClient client) throws Exception;
+    }
+
+    /**
+     * Performs an operation with a client from the pool.
+     */
+    public interface Operation<T> {
+        T execute(PKIClient client) throws Exception;
+    }
+
+    static class IdleClient {
+
+        PKIClient client;
+        long returned;
+
+        IdleClient(PKIClient client, long returned) {
+            this.client = client;
+            this.returned = returned;
+        }
+    }
+
+    private ClientConfig config;
+    private Initializer initializer;
+
+    private int maxClients = DEFAULT_MAX_CLIENTS;
+    private int maxWait = DEFAULT_MAX_WAIT;
+    private long idleTimeout = DEFAULT_IDLE_TIMEOUT * 1000L;
+
+    private Semaphore permits; // clients which can still be taken
+    private Deque<IdleClient> clients = new ConcurrentLinkedDeque<>(); // idle clients
+
+    public PKIClientPool(ClientConfig config) {
+        this.config = config;
+    }
+
+    public ClientConfig getConfig() {
+        return config;
+    }
+
+    public void setInitializer(Initializer initializer) {
+        this.initializer = initializer;
+    }
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
+    public void setMaxClients(int maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    public int getMaxWait() {
+        return maxWait;
+    }
+
+    public void setMaxWait(int maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * @param idleTimeout idle timeout in seconds
+     */
+    public void setIdleTimeout(int idleTimeout) {
+        this.idleTimeout = idleTimeout * 1000L;
+    }
+
+    public void init() {
+        logger.info("PKIClientPool: max clients: " + maxClients);
+        logger.info("PKIClientPool: max wait (ms): " + maxWait);
+        logger.info("PKIClientPool: idle timeout (ms): " + idleTimeout);
+        permits = new Semaphore(maxClients, true);
+    }
+
+    /**
+     * Takes a client from the pool. The client must be given back with
+     * {@link #returnClient(PKIClient)} or {@link #discardClient(PKIClient)}
+     * in a finally clause.
+     */
+    public PKIClient getClient() throws Exception {
+
+        if (!permits.tryAcquire()) {
+            logger.warn("PKIClientPool: Waiting for client to " + config.getServerURL());
+
+            if (maxWait <= 0) {
+                permits.acquire();
+
+            } else if (!permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                throw new PKIException("No client available for " + config.getServerURL()
+                        + " after " + maxWait + " ms");
+            }
+        }
+
+        try {
+            long now = System.currentTimeMillis();
+
+            IdleClient idle;
+            while ((idle = clients.pollFirst()) != null) {
+
+                if (now - idle.returned < idleTimeout) {
+                    return idle.client;
+                }
+
+                logger.debug("PKIClientPool: Closing idle client");
+                idle.client.close();
+            }
+
+            logger.info("PKIClientPool: Creating client for " + config.getServerURL());
+            PKIClient client = new PKIClient(config);
+
+            if (initializer != null) {
+                try {
+                    initializer.init(client);
+                } catch (Exception e) {
+                    client.close();
+                    throw e;
+                }
+            }
+
+            return client;
+
+        } catch (Exception e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Gives a client back to the pool for reuse.
+     */
+    public void returnClient(PKIClient client) {
+
+        if (client == null) {
+            return;
+        }
+
+        clients.offerFirst(new IdleClient(client, System.currentTimeMillis()));
+        permits.release();
+    }
+
+    /**
+     * Closes a client which may no longer be usable, e.g. after
+     * a connection failure.
+     */
+    public void discardClient(PKIClient client) {
+
+        if (client == null) {
+            return;
+        }
+
+        try {
+            client.close();
+        } catch (Exception e) {
+            logger.warn("PKIClientPool: Unable to close client: " + e.getMessage());
+        }
+
+        permits.release();
+    }
+
+    /**
+     * Executes an operation with a client from the pool.
+     *
+     * The client is reused if the operation succeeds or fails with an
+     * error returned by the server. Otherwise the connection may be
+     * broken so the client is discarded.
+     */
+    public <T> T execute(Operation<T> operation) throws Exception {
+
+        PKIClient client = getClient();
+
+        try {
+            T result = operation.execute(client);
+            returnClient(client);
+            return result;
+
+        } catch (PKIException e) {
+            returnClient(client);
+            throw e;
+
+        } catch (Throwable e) {
+            discardClient(client);
+            throw e;
+        }
+    }
+
+    public int getIdleClients() {
+        return clients.size();
+    }
+
+    @Override
+    public void close() {
+
+        logger.info("PKIClientPool: Closing clients for " + config.getServerURL());
+
+        IdleClient idle;
+        while ((idle = clients.pollFirst()) != null) {
+            idle.client.close();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmsutil.ldap;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import netscape.ldap.LDAPControl;
+import netscape.ldap.LDAPException;
+import netscape.ldap.ber.stream.BERElement;
+import netscape.ldap.ber.stream.BERInteger;
+import netscape.ldap.ber.stream.BEROctetString;
+import netscape.ldap.ber.stream.BERSequence;
+import netscape.ldap.client.JDAPBERTagDecoder;
+
+/**
+ * Simple paged results control (RFC 2696).
+ *
+ * The client asks for a page of entries and the server returns a
+ * cookie with the page, which the client sends with the next request
+ * on the same connection. An empty cookie means there are no more
+ * entries.
+ */
+public class LDAPPagedResultsControl extends LDAPControl {
+
+    private static final long serialVersionUID = 2862171307389539441L;
+
+    public final static String OID_PAGED_RESULTS = "1.2.840.113556.1.4.319";
+
+    private int size;
+    private byte[] cookie;
+
+    static {
+        try {
+            register(OID_PAGED_RESULTS, LDAPPagedResultsControl.class);
+        } catch (Throwable e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Response control constructor.
+     *
+     * This is called automatically by response processing code,
+     * should not need to be called by user.
+     */
+    public LDAPPagedResultsControl(String oid, boolean critical, byte[] value)
+            throws LDAPException, IOException {
+        super(OID_PAGED_RESULTS, critical, value);
+        if (!oid.equals(OID_PAGED_RESULTS)) {
+            throw new LDAPException(
+                "oid must be LDAPPagedResultsControl.OID_PAGED_RESULTS",
+                LDAPException.PARAM_ERROR);
+        }
+
+        ByteArrayInputStream in = new ByteArrayInputStream(value);
+        int[] numRead = new int[1];
+        BERSequence seq = (BERSequence)
+            BERElement.getElement(new JDAPBERTagDecoder(), in, numRead);
+
+        size = ((BERInteger)seq.elementAt(0)).getValue();
+        cookie = ((BEROctetString)seq.elementAt(1)).getValue();
+    }
+
+    /**
+     * Request control constructor.
+     *
+     * @param critical whether the server must support the control
+     * @param size number of entries to return in the page
+     * @param cookie cookie from the previous page, or null for the first page
+     */
+    public LDAPPagedResultsControl(boolean critical, int size, byte[] cookie) {
+        super(OID_PAGED_RESULTS, critical, null);
+        this.size = size;
+        this.cookie = cookie;
+
+        BERSequence seq = new BERSequence();
+        seq.addElement(new BERInteger(size));
+        seq.addElement(new BEROctetString(cookie == null ? new byte[0] : cookie));
+        m_value = flattenBER(seq);
+    }
+
+    /**
+     * Returns the page size in a request, or the server's estimate of
+     * the total number of entries in a response (0 if unknown).
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the cookie for the next page. The cookie is null
+     * or empty if there are no more pages.
+     */
+    public byte[] getCookie() {
+        return cookie;
+    }
+
+    /**
+     * Returns true if a response indicates more pages.
+     */
+    public boolean hasMorePages() {
+        return cookie != null && cookie.length > 0;
+    }
+
+    /**
+     * Returns the paged results control in the response controls
+     * of a search, or null if there is none.
+     */
+    public static LDAPPagedResultsControl getResponseControl(LDAPControl[] controls)
+            throws LDAPException {
+
+        if (controls == null) {
+            return null;
+        }
+
+        for (LDAPControl control : controls) {
+
+            if (!OID_PAGED_RESULTS.equals(control.getID())) {
+                continue;
+            }
+
+            if (control instanceof LDAPPagedResultsControl) {
+                return (LDAPPagedResultsControl) control;
+            }
+
+            try {
+                return new LDAPPagedResultsControl(
+                        control.getID(), control.isCritical(), control.getValue());
+            } catch (IOException e) {
+                throw new LDAPException("Invalid paged results control: " + e.getMessage(),
+                        LDAPException.PROTOCOL_ERROR);
+            }
+        }
+
+        return null;
+    }
+}
@@ -17,10 +17,13 @@
 // --- END COPYRIGHT BLOCK ---
 package org.dogtagpki.tps;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import org.dogtagpki.tps.msg.TPSMessage;
 
@@ -43,7 +46,8 @@ public class TPSConnection {
     }
 
     public TPSConnection(InputStream in, OutputStream out, boolean chunked) {
-        this.in = in;
+        // messages are parsed a byte at a time so read them from a buffer
+        this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in);
         this.out = new PrintStream(out);
         this.chunked = chunked;
     }
@@ -51,68 +55,62 @@ public class TPSConnection {
     public TPSMessage read() throws IOException {
         logger.debug("TPSConnection read()");
 
-        StringBuilder sb = new StringBuilder();
-        int b;
+        // Limit the number of digits of the message size to the
+        // number of digits in maxMessageSize.
+        int maxMessageSizeNumDigits = Integer.toString(maxMessageSize).length();
 
-        // Determine # of digits in maxMessageSize so we can limit the number of
-        // read()s to the number of digits.
-        int maxMessageSizeNumDigits = 1;
-        for(int i = maxMessageSize; i != 0; i /= 10)
-            maxMessageSizeNumDigits++;
+        // The header is "s=<size>&". The first char can be anything,
+        // the second char must be '='.
+        byte[] header = new byte[maxMessageSizeNumDigits + 3];
+        int headerLength = 0;
+        int b;
 
-        // Check first two bytes from InputStream (s=).
-        // The first char can be anything.
-        if((b = in.read()) < 0)
+        if ((b = in.read()) < 0)
             throw new IOException("Unexpected end of stream");
-        sb.append((char)b);
+        header[headerLength++] = (byte) b;
 
-        // The second char must be '='.
-        if((b = in.read()) != '=')
+        if ((b = in.read()) != '=')
             throw new IOException("Unexpected end of stream");
-        sb.append((char)b);
-
-        // read the first parameter (not including the "s=")
-        while ((b = in.read()) >= 0 && maxMessageSizeNumDigits-- > 0) {
-            char c = (char) b;
-            if (c == '&')
-                break;
-            sb.append(c);
+        header[headerLength++] = (byte) b;
+
+        // read and parse the message size (not including the "s=")
+        int size = 0;
+        while ((b = in.read()) >= 0 && b != '&') {
+
+            if (headerLength == header.length - 1)
+                throw new IOException("Received message size is too large.");
+
+            if (b < '0' || b > '9')
+                throw new IOException("Invalid message size");
+
+            header[headerLength++] = (byte) b;
+            size = size * 10 + (b - '0');
         }
 
         if (b < 0)
             throw new IOException("Unexpected end of stream");
-        if (b != '&')
-            throw new IOException("Received message size is too large.");
 
-        // parse message size
-        String nvp = sb.toString();
-        String[] s = nvp.split("=");
-        int size = Integer.parseInt(s[1]);
+        header[headerLength++] = (byte) b;
 
         // Validate message size
-        if(size > maxMessageSize)
+        if (size > maxMessageSize)
             throw new IOException("Received message size is too large.");
 
-        sb.append('&');
-
-        // read the rest of message
-        for (int i = 0; i < size; i++) {
-
-            b = in.read();
-            if (b < 0)
-                throw new IOException("Unexpected end of stream");
+        // read the rest of message into the same buffer
+        byte[] frame = Arrays.copyOf(header, headerLength + size);
+        if (in.readNBytes(frame, headerLength, size) < size)
+            throw new IOException("Unexpected end of stream");
 
-            char c = (char) b;
-            sb.append(c);
-        }
+        // each byte is one char as in the protocol
+        String message = new String(frame, StandardCharsets.ISO_8859_1);
 
         if (size <= 38) // for pdu_data size is 2 and only contains status
-            logger.debug("TPSConnection.read: Reading:  " + sb);
+            logger.debug("TPSConnection.read: Reading:  " + message);
         else
             logger.debug("TPSConnection.read: Reading...");
 
         // parse the entire message
-        return TPSMessage.createMessage(sb.toString());
+        return TPSMessage.createMessage(message);
     }
 
     public void write(TPSMessage message) throws IOException {
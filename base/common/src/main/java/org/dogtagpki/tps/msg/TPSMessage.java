@@ -91,6 +91,8 @@ public class TPSMessage {
     public static final String PARAMETER_NAME = "parameter";
     public static final String STATUS_UPDATE_EXTENSION_NAME = "statusUpdate";
 
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
     private Map<String, String> map = new LinkedHashMap<>();
 
     public TPSMessage() {
@@ -113,11 +115,12 @@ public class TPSMessage {
     }
 
     public void put(String key, byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(bytes.length * 3);
 
         for (byte b : bytes) {
-            sb.append("%");
-            sb.append(String.format("%02X", b));
+            sb.append('%');
+            sb.append(HEX_DIGITS[(b >> 4) & 0x0F]);
+            sb.append(HEX_DIGITS[b & 0x0F]);
         }
 
         map.put(key, sb.toString());
@@ -147,37 +150,50 @@ public class TPSMessage {
     public static Map<String, String> decodeToMap(String message) {
 
         Map<String, String> msgMap = new LinkedHashMap<>();
-
-        for (String nvp : message.split("&")) {
-            String[] s = nvp.split("=");
-
-            String key = s[0];
-            String value = s[1];
-
-            // skip message size
-            if (key.equals("s"))
-                continue;
-
-            msgMap.put(key, value);
-        }
-
+        decode(message, msgMap);
         return msgMap;
 
     }
 
     public void decode(String message) {
+        decode(message, map);
+    }
 
-        for (String nvp : message.split("&")) {
-            String[] s = nvp.split("=");
+    /**
+     * Parses name=value pairs separated by '&' without splitting
+     * the message into intermediate arrays.
+     */
+    static void decode(String message, Map<String, String> map) {
 
-            String key = s[0];
-            String value = s[1];
+        int length = message.length();
+        int start = 0;
 
-            // skip message size
-            if (key.equals("s"))
-                continue;
+        while (start < length) {
 
-            map.put(key, value);
+            int end = message.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+
+            if (end > start) {
+                int eq = message.indexOf('=', start);
+                if (eq < 0 || eq >= end) {
+                    throw new IllegalArgumentException("Invalid TPS message parameter: " + message.substring(start, end));
+                }
+
+                String key = message.substring(start, eq);
+
+                // skip message size
+                if (!key.equals("s")) {
+                    int valueEnd = message.indexOf('=', eq + 1);
+                    if (valueEnd < 0 || valueEnd > end) {
+                        valueEnd = end;
+                    }
+                    map.put(key, message.substring(eq + 1, valueEnd));
+                }
+            }
+
+            start = end + 1;
         }
     }
 
@@ -196,7 +212,7 @@ public class TPSMessage {
                 continue;
 
             String value = map.get(key);
-            sb.append("&" + key + "=" + value);
+            sb.append('&').append(key).append('=').append(value);
         }
 
         String message = sb.toString();
@@ -511,29 +527,25 @@ public class TPSMessage {
 
     public static TPSMessage createMessage(String message) throws IOException {
 
-        // don't print the pdu_data
-        int idx1 = message.lastIndexOf("pdu_data=");
-        int idx2 = message.lastIndexOf("pdu_size=");
-        String toDebug1 = null;
-        String toDebug2 = null;
-        if (idx1 == -1)
-            logger.debug("TPSMessage.createMessage: message: " + message);
-        else {
-            toDebug1 = message.substring(0, idx1-1);
-            if (idx2 == -1)
-                logger.debug("TPSMessage.createMessage: message: " + toDebug1 + "pdu_data=<do not print>...");
+        if (logger.isDebugEnabled()) {
+            // don't print the pdu_data
+            int idx1 = message.lastIndexOf("pdu_data=");
+            int idx2 = message.lastIndexOf("pdu_size=");
+            String toDebug1 = null;
+            String toDebug2 = null;
+            if (idx1 == -1)
+                logger.debug("TPSMessage.createMessage: message: " + message);
             else {
-                toDebug2 = message.substring(idx2-1);
-                logger.debug("TPSMessage.createMessage: message: " + toDebug1 + "&pdu_data=<do not print>"+ toDebug2);
+                toDebug1 = message.substring(0, idx1-1);
+                if (idx2 == -1)
+                    logger.debug("TPSMessage.createMessage: message: " + toDebug1 + "pdu_data=<do not print>...");
+                else {
+                    toDebug2 = message.substring(idx2-1);
+                    logger.debug("TPSMessage.createMessage: message: " + toDebug1 + "&pdu_data=<do not print>"+ toDebug2);
+                }
             }
         }
 
-        int debug = 1;
-
-        if (debug == 1) {
-            logger.debug("TPSMessage.createMessage: message: " + message);
-        }
-
         TPSMessage new_msg = new TPSMessage(message);
 
         return new_msg.createMessage();
@@ -3,11 +3,13 @@ package com.netscape.certsrv.cert;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.util.Date;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.mozilla.jss.netscape.security.x509.RevocationReason;
 
+import com.netscape.certsrv.dbs.certdb.CertId;
 import com.netscape.certsrv.util.JSONSerializer;
 
 public class CertRevokeRequestTest {
@@ -21,6 +23,8 @@ public class CertRevokeRequestTest {
         before.setComments("test");
         before.setEncoded("test");
         before.setNonce(12345l);
+        before.setSerialNumbers(List.of(new CertId("0x10"), new CertId("0x1f")));
+        before.setNonces(List.of(111l, 222l));
     }
 
     @Test
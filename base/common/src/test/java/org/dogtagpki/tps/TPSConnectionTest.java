@@ -0,0 +1,77 @@
+package org.dogtagpki.tps;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.dogtagpki.tps.msg.TPSMessage;
+import org.junit.jupiter.api.Test;
+
+public class TPSConnectionTest {
+
+    TPSConnection createConnection(String data) {
+        return new TPSConnection(
+                new ByteArrayInputStream(data.getBytes(StandardCharsets.ISO_8859_1)),
+                new ByteArrayOutputStream());
+    }
+
+    @Test
+    public void testRead() throws Exception {
+
+        String body = "msg_type=12&new_pin=1234";
+        TPSConnection con = createConnection("s=" + body.length() + "&" + body
+                + "s=" + body.length() + "&" + body);
+
+        // consecutive messages are read from the same buffer
+        for (int i = 0; i < 2; i++) {
+            TPSMessage message = con.read();
+            assertEquals("12", message.get(TPSMessage.MSG_TYPE_NAME));
+            assertEquals("1234", message.get(TPSMessage.NEW_PIN_NAME));
+        }
+    }
+
+    @Test
+    public void testInvalidFrames() throws Exception {
+
+        // truncated message
+        assertThrows(IOException.class, () -> createConnection("s=30&msg_type=12").read());
+
+        // missing separator
+        assertThrows(IOException.class, () -> createConnection("s:5&").read());
+
+        // size too large
+        String size = Integer.toString(TPSConnection.getMaxMessageSize() + 1);
+        assertThrows(IOException.class, () -> createConnection("s=" + size + "&").read());
+        assertThrows(IOException.class, () -> createConnection("s=1234567890123&").read());
+
+        // invalid size
+        assertThrows(IOException.class, () -> createConnection("s=1x&").read());
+    }
+
+    @Test
+    public void testDecode() throws Exception {
+
+        Map<String, String> map = TPSMessage.decodeToMap("s=30&msg_type=9&pdu_size=2&pdu_data=%90%00");
+
+        assertEquals(3, map.size());
+        assertEquals("9", map.get("msg_type"));
+        assertEquals("2", map.get("pdu_size"));
+        assertEquals("%90%00", map.get("pdu_data"));
+    }
+
+    @Test
+    public void testEncodeBytes() throws Exception {
+
+        TPSMessage message = new TPSMessage();
+        message.put("msg_type", 9);
+        message.put("pdu_data", new byte[] { (byte) 0x90, 0x00, 0x0a });
+
+        String body = "msg_type=9&pdu_data=%90%00%0A";
+        assertEquals("s=" + body.length() + "&" + body, message.encode());
+    }
+}
@@ -3,8 +3,10 @@ package org.dogtagpki.est;
 import java.io.File;
 import java.io.FileReader;
 import java.security.cert.X509Certificate;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ServiceUnavailableException;
@@ -29,7 +31,7 @@ import com.netscape.certsrv.cert.CertRequestInfo;
 import com.netscape.certsrv.cert.CertRequestInfos;
 import com.netscape.certsrv.cert.CertReviewResponse;
 import com.netscape.certsrv.client.ClientConfig;
-import com.netscape.certsrv.client.PKIClient;
+import com.netscape.certsrv.client.PKIClientPool;
 import com.netscape.certsrv.dbs.certdb.CertId;
 import com.netscape.certsrv.profile.ProfileAttribute;
 import com.netscape.certsrv.profile.ProfileInput;
@@ -45,10 +47,28 @@ public class DogtagRABackend extends ESTBackend {
 
     public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(DogtagRABackend.class);
 
+    public static final int DEFAULT_CACERTS_TTL = 300; // seconds
+
     private ClientConfig clientConfig = new ClientConfig();
+    private PKIClientPool clientPool;
 
     private String profile;
 
+    static class CachedChain {
+
+        CertificateChain chain;
+        long expires;
+
+        CachedChain(CertificateChain chain, long expires) {
+            this.chain = chain;
+            this.expires = expires;
+        }
+    }
+
+    // CA certificate chains by authority ID
+    private Map<String, CachedChain> caChains = new ConcurrentHashMap<>();
+    private long cacertsTTL = DEFAULT_CACERTS_TTL * 1000L;
+
     @Override
     public void start() throws Throwable {
         logger.info("Initializing Dogtag RA backend");
@@ -104,23 +124,78 @@ public class DogtagRABackend extends ESTBackend {
         if (profile == null) {
             throw new RuntimeException("DogtagRABackend: 'password' property missing");
         }
+
+        clientPool = new PKIClientPool(clientConfig);
+
+        String maxConnections = config.getParameter("pool.maxConnections");
+        if (maxConnections != null) {
+            clientPool.setMaxClients(Integer.parseInt(maxConnections));
+        }
+
+        String maxWait = config.getParameter("pool.maxWait");
+        if (maxWait != null) {
+            clientPool.setMaxWait(Integer.parseInt(maxWait));
+        }
+
+        String idleTimeout = config.getParameter("pool.idleTimeout");
+        if (idleTimeout != null) {
+            clientPool.setIdleTimeout(Integer.parseInt(idleTimeout));
+        }
+
+        // Each client logs in once when it is created and then reuses
+        // the session for all requests it handles. See issueCertificate().
+        clientPool.setInitializer(pkiClient -> new CAClient(pkiClient).login());
+
+        clientPool.init();
+
+        String ttl = config.getParameter("cacerts.ttl");
+        if (ttl != null) {
+            cacertsTTL = Integer.parseInt(ttl) * 1000L;
+        }
+        logger.info("- cacerts TTL (seconds): " + cacertsTTL / 1000);
+    }
+
+    @Override
+    void stop() throws Throwable {
+        if (clientPool != null) {
+            clientPool.close();
+        }
     }
 
     @Override
     public CertificateChain cacerts(Optional<String> label) throws PKIException {
-        try (PKIClient pkiClient = new PKIClient(clientConfig)) {
-            AuthorityClient authorityClient = new AuthorityClient(pkiClient, "ca");
 
-            String authorityID = label.orElse(AuthorityResource.HOST_AUTHORITY);
-            String pkcs7pem = authorityClient.getChainPEM(authorityID);
-            logger.debug("Cert chain:\n" + pkcs7pem);
+        String authorityID = label.orElse(AuthorityResource.HOST_AUTHORITY);
+        long now = System.currentTimeMillis();
+
+        CachedChain cached = caChains.get(authorityID);
+        if (cached != null && cached.expires > now) {
+            return cached.chain;
+        }
+
+        try {
+            CertificateChain chain = clientPool.execute(pkiClient -> {
+                AuthorityClient authorityClient = new AuthorityClient(pkiClient, "ca");
 
-            PKCS7 pkcs7 = new PKCS7(pkcs7pem);
-            X509Certificate[] certs = pkcs7.getCertificates();
-            if (certs == null || certs.length == 0) {
-                return null;  // will result in 404
+                String pkcs7pem = authorityClient.getChainPEM(authorityID);
+                logger.debug("Cert chain:\n" + pkcs7pem);
+
+                PKCS7 pkcs7 = new PKCS7(pkcs7pem);
+                X509Certificate[] certs = pkcs7.getCertificates();
+                if (certs == null || certs.length == 0) {
+                    return null;  // will result in 404
+                }
+                return new CertificateChain(certs);
+            });
+
+            if (chain == null) {
+                caChains.remove(authorityID);
+                return null;
             }
-            return new CertificateChain(certs);
+
+            caChains.put(authorityID, new CachedChain(chain, now + cacertsTTL));
+            return chain;
+
         } catch (PKIException e) {
             throw e; // re-raise
         } catch (Throwable e) {
@@ -159,88 +234,92 @@ public class DogtagRABackend extends ESTBackend {
             }
         }
 
-        try (PKIClient pkiClient = new PKIClient(clientConfig)) {
-            CAClient caClient = new CAClient(pkiClient);
-
-            // Here the agent credentials are stored in the ClientConfig and will
-            // be sent to the CA automatically if any of the methods being called
-            // requires REST authentication. However, the methods being called
-            // depend on the cert profile being used.
-            //
-            // If the profile has an authenticator, the request can be completed
-            // with the following methods:
-            // - CACertClient.getEnrollmentTemplate()
-            // - CACertClient.enrollRequest()
-            //
-            // The above methods do not require REST authentication, but the
-            // profile still requires authentication, so the credentials must be
-            // provided either through the request itself (i.e. using profile
-            // authentication) or by calling CAClient.login() (i.e. using REST
-            // authentication).
-            //
-            // If the profile does not have an authenticator, the request must
-            // be reviewed and approved with the following additional methods:
-            // - CACertClient.reviewRequest()
-            // - CACertClient.approveRequest()
-            //
-            // The above methods do require REST authentication so in this case
-            // it's not actually necessary to call CAClient.login(). However, to
-            // support both types of profiles the CAClient.login() needs to be
-            // called explicitly.
-            caClient.login();
-
-            CACertClient certClient = new CACertClient(caClient);
-            CertEnrollmentRequest certEnrollmentRequest = certClient.getEnrollmentTemplate(profile);
-
-            for (ProfileInput input : certEnrollmentRequest.getInputs()) {
-                ProfileAttribute typeAttr = input.getAttribute("cert_request_type");
-                if (typeAttr != null) {
-                    typeAttr.setValue("pkcs10");
+        final AuthorityID authorityID = aid;
+
+        try {
+            return clientPool.execute(pkiClient -> {
+                CAClient caClient = new CAClient(pkiClient);
+
+                // Here the agent credentials are stored in the ClientConfig and will
+                // be sent to the CA automatically if any of the methods being called
+                // requires REST authentication. However, the methods being called
+                // depend on the cert profile being used.
+                //
+                // If the profile has an authenticator, the request can be completed
+                // with the following methods:
+                // - CACertClient.getEnrollmentTemplate()
+                // - CACertClient.enrollRequest()
+                //
+                // The above methods do not require REST authentication, but the
+                // profile still requires authentication, so the credentials must be
+                // provided either through the request itself (i.e. using profile
+                // authentication) or by calling CAClient.login() (i.e. using REST
+                // authentication).
+                //
+                // If the profile does not have an authenticator, the request must
+                // be reviewed and approved with the following additional methods:
+                // - CACertClient.reviewRequest()
+                // - CACertClient.approveRequest()
+                //
+                // The above methods do require REST authentication so in this case
+                // it's not actually necessary to call CAClient.login(). However, to
+                // support both types of profiles the CAClient.login() needs to be
+                // called explicitly. The login is done once when the pooled
+                // client is created and the session is reused afterwards.
+
+                CACertClient certClient = new CACertClient(caClient);
+                CertEnrollmentRequest certEnrollmentRequest = certClient.getEnrollmentTemplate(profile);
+
+                for (ProfileInput input : certEnrollmentRequest.getInputs()) {
+                    ProfileAttribute typeAttr = input.getAttribute("cert_request_type");
+                    if (typeAttr != null) {
+                        typeAttr.setValue("pkcs10");
+                    }
+
+                    ProfileAttribute csrAttr = input.getAttribute("cert_request");
+                    if (csrAttr != null) {
+                        csrAttr.setValue(Utils.base64encodeSingleLine(pkcs10.toByteArray()));
+                    }
                 }
 
-                ProfileAttribute csrAttr = input.getAttribute("cert_request");
-                if (csrAttr != null) {
-                    csrAttr.setValue(Utils.base64encodeSingleLine(pkcs10.toByteArray()));
-                }
-            }
-
-            logger.info("Request:\n" + certEnrollmentRequest);
-            CertRequestInfos infos = certClient.enrollRequest(certEnrollmentRequest, aid, null);
+                logger.info("Request:\n" + certEnrollmentRequest);
+                CertRequestInfos infos = certClient.enrollRequest(certEnrollmentRequest, authorityID, null);
 
-            logger.info("Responses:");
-            CertRequestInfo info = infos.getEntries().iterator().next();
+                logger.info("Responses:");
+                CertRequestInfo info = infos.getEntries().iterator().next();
 
-            RequestId requestId = info.getRequestID();
-            if (requestId == null) {
-                // Older versions of Dogtag lack the RequestID field.
-                // In that case, call .getRequestId() which derives the
-                // ID from the request URL field.
-                requestId = info.getRequestId();
-            }
-            logger.info("- Request ID: " + requestId.toHexString());
-            logger.info("  Type: " + info.getRequestType());
-            logger.info("  Request Status: " + info.getRequestStatus());
-            logger.info("  Operation Result: " + info.getOperationResult());
-
-            String error = info.getErrorMessage();
-            if (error != null) {
-                throw new PKIException("Unable to generate certificate: " + error);
-            }
+                RequestId requestId = info.getRequestID();
+                if (requestId == null) {
+                    // Older versions of Dogtag lack the RequestID field.
+                    // In that case, call .getRequestId() which derives the
+                    // ID from the request URL field.
+                    requestId = info.getRequestId();
+                }
+                logger.info("- Request ID: " + requestId.toHexString());
+                logger.info("  Type: " + info.getRequestType());
+                logger.info("  Request Status: " + info.getRequestStatus());
+                logger.info("  Operation Result: " + info.getOperationResult());
+
+                String error = info.getErrorMessage();
+                if (error != null) {
+                    throw new PKIException("Unable to generate certificate: " + error);
+                }
 
-            CertId id = null;
-            if (info.getRequestStatus() == RequestStatus.COMPLETE) {
-                id = info.getCertId();
-            } else {
-                CertReviewResponse reviewInfo = certClient.reviewRequest(requestId);
-                certClient.approveRequest(requestId, reviewInfo);
-                info = certClient.getRequest(requestId);
-                id = info.getCertId();
-            }
+                CertId id = null;
+                if (info.getRequestStatus() == RequestStatus.COMPLETE) {
+                    id = info.getCertId();
+                } else {
+                    CertReviewResponse reviewInfo = certClient.reviewRequest(requestId);
+                    certClient.approveRequest(requestId, reviewInfo);
+                    info = certClient.getRequest(requestId);
+                    id = info.getCertId();
+                }
 
-            logger.info("Serial number: " + id.toHexString());
-            CertData certData = certClient.getCert(id);
-            String certPem = certData.getEncoded();
-            return Cert.mapCert(certPem);
+                logger.info("Serial number: " + id.toHexString());
+                CertData certData = certClient.getCert(id);
+                String certPem = certData.getEncoded();
+                return Cert.mapCert(certPem);
+            });
         } catch (PKIException e) {
             if (
                 e.getCode() == Response.Status.UNAUTHORIZED.getStatusCode()
@@ -20,6 +20,7 @@ package com.netscape.cmscore.dbs;
 import java.math.BigInteger;
 import java.security.PublicKey;
 import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Vector;
@@ -30,6 +31,7 @@ import com.netscape.certsrv.base.EBaseException;
 import com.netscape.certsrv.dbs.Modification;
 import com.netscape.certsrv.dbs.ModificationSet;
 import com.netscape.cmscore.apps.DatabaseConfig;
+import com.netscape.cmscore.cert.CertUtils;
 
 /**
  * A class represents a Key repository. This is the container of
@@ -46,6 +48,12 @@ public class KeyRepository extends Repository {
 
     public static final String PROP_KEY_ID_LENGTH = "key.id.length";
 
+    public static final String PROP_KEY_FINGERPRINT_FALLBACK = "key.fingerprint.fallback";
+
+    // search by public key data if there is no record with the fingerprint,
+    // can be disabled once all records have been upgraded
+    private boolean fingerprintFallback = true;
+
     /**
      * Constructs a key repository. It checks if the key repository
      * does exist. If not, it creates the repository.
@@ -86,6 +94,9 @@ public class KeyRepository extends Repository {
             initLegacyGenerator();
         }
 
+        fingerprintFallback = dbConfig.getBoolean(PROP_KEY_FINGERPRINT_FALLBACK, true);
+        logger.info("KeyRepository: - fingerprint fallback: " + fingerprintFallback);
+
         // register key record schema
         DBRegistry reg = dbSubsystem.getRegistry();
         String keyRecordOC[] = new String[2];
@@ -125,6 +136,10 @@ public class KeyRepository extends Repository {
             reg.registerAttribute(KeyRecord.ATTR_PUBLIC_KEY_DATA, new
                     PublicKeyMapper(KeyDBSchema.LDAP_ATTR_PUBLIC_KEY_DATA));
         }
+        if (!reg.isAttributeRegistered(KeyRecord.ATTR_PUBLIC_KEY_FINGERPRINT)) {
+            reg.registerAttribute(KeyRecord.ATTR_PUBLIC_KEY_FINGERPRINT, new
+                    StringMapper(KeyDBSchema.LDAP_ATTR_PUBLIC_KEY_FINGERPRINT));
+        }
         if (!reg.isAttributeRegistered(KeyRecord.ATTR_DATE_OF_RECOVERY)) {
             reg.registerAttribute(KeyRecord.ATTR_DATE_OF_RECOVERY, new
                     DateArrayMapper(KeyDBSchema.LDAP_ATTR_DATE_OF_RECOVERY));
@@ -247,6 +262,11 @@ public class KeyRepository extends Repository {
      */
     public void addKeyRecord(KeyRecord record) throws EBaseException {
 
+        byte[] publicKey = record.getPublicKeyData();
+        if (publicKey != null && record.getPublicKeyFingerprint() == null) {
+            record.setPublicKeyFingerprint(KeyRecord.createPublicKeyFingerprint(publicKey));
+        }
+
         try (DBSSession s = dbSubsystem.createSession()) {
             String name = "cn" + "=" +
                     record.getSerialNumber().toString() + "," + getDN();
@@ -318,24 +338,13 @@ public class KeyRepository extends Repository {
      */
     public KeyRecord readKeyRecord(PublicKey publicKey)
             throws EBaseException {
-        // XXX - setup binary search attributes
+
         byte data[] = publicKey.getEncoded();
 
         if (data == null)
             throw new EBaseException("null data");
 
-        KeyRecord rec = null;
-
-        try (DBSSession s = dbSubsystem.createSession()) {
-            String filter = "(" + KeyRecord.ATTR_PUBLIC_KEY_DATA + "=" +
-                    escapeBinaryData(data) + ")";
-            if (s != null) {
-                DBSearchResults res = s.search(getDN(), filter);
-
-                rec = (KeyRecord) res.nextElement();
-            }
-        }
-        return rec;
+        return readKeyRecordByPublicKey(data);
     }
 
     /**
@@ -348,17 +357,51 @@ public class KeyRepository extends Repository {
     public KeyRecord readKeyRecord(String cert)
             throws EBaseException {
 
+        byte data[];
+
+        try {
+            X509Certificate x509cert = CertUtils.mapCert(cert);
+            data = x509cert.getPublicKey().getEncoded();
+        } catch (Exception e) {
+            throw new EBaseException("Unable to parse certificate: " + e.getMessage(), e);
+        }
+
+        return readKeyRecordByPublicKey(data);
+    }
+
+    /**
+     * Finds the key record by the fingerprint of the public key.
+     * Records archived before the fingerprint was introduced are
+     * found by the public key data unless the fallback is disabled.
+     *
+     * @param data DER-encoded SubjectPublicKeyInfo
+     */
+    KeyRecord readKeyRecordByPublicKey(byte data[]) throws EBaseException {
+
+        String fingerprint = KeyRecord.createPublicKeyFingerprint(data);
+        logger.info("KeyRepository: Searching for key with fingerprint " + fingerprint);
+
         KeyRecord rec = null;
 
         try (DBSSession s = dbSubsystem.createSession()) {
-            String filter = "(publicKey=x509cert#\"" + cert + "\")";
-            logger.debug("filter= " + filter);
-
-            if (s != null) {
-                DBSearchResults res = s.search(getDN(), filter);
+            String filter = "(" + KeyRecord.ATTR_PUBLIC_KEY_FINGERPRINT + "=" + fingerprint + ")";
+            DBSearchResults res = s.search(getDN(), filter);
 
+            if (res.hasMoreElements()) {
                 rec = (KeyRecord) res.nextElement();
             }
+
+            if (rec == null && fingerprintFallback) {
+                logger.info("KeyRepository: Searching for key with public key data");
+
+                filter = "(" + KeyRecord.ATTR_PUBLIC_KEY_DATA + "=" +
+                        escapeBinaryData(data) + ")";
+                res = s.search(getDN(), filter);
+
+                if (res.hasMoreElements()) {
+                    rec = (KeyRecord) res.nextElement();
+                }
+            }
         }
         return rec;
     }
@@ -409,7 +452,10 @@ public class KeyRepository extends Repository {
         StringBuffer result = new StringBuffer();
 
         for (int i = 0; i < data.length; i++) {
-            result.append("\\" + Integer.toHexString(data[i]));
+            int v = 0xff & data[i];
+
+            result.append("\\" + (v < 16 ? "0" : "") +
+                    Integer.toHexString(v));
         }
         return result.toString();
     }
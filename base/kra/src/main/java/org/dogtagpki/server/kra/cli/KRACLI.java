@@ -20,7 +20,6 @@ package org.dogtagpki.server.kra.cli;
 
 import org.dogtagpki.cli.CLI;
 import org.dogtagpki.server.cli.SDCLI;
-import org.dogtagpki.server.cli.SubsystemDBCLI;
 import org.dogtagpki.server.cli.SubsystemGroupCLI;
 import org.dogtagpki.server.cli.SubsystemUserCLI;
 
@@ -32,7 +31,7 @@ public class KRACLI extends CLI {
     public KRACLI(CLI parent) {
         super("kra", "KRA subsystem management commands", parent);
 
-        addModule(new SubsystemDBCLI(this));
+        addModule(new KRADBCLI(this));
         addModule(new SubsystemGroupCLI(this));
         addModule(new KRARangeCLI(this));
         addModule(new SubsystemUserCLI(this));
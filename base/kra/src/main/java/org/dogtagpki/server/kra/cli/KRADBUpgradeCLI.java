@@ -0,0 +1,160 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+
+package org.dogtagpki.server.kra.cli;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dogtagpki.cli.CLI;
+import org.dogtagpki.server.cli.SubsystemDBUpgradeCLI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netscape.cmscore.dbs.KeyDBSchema;
+import com.netscape.cmscore.dbs.KeyRecord;
+import com.netscape.cmscore.ldapconn.LDAPConfig;
+import com.netscape.cmscore.ldapconn.LdapBoundConnection;
+import com.netscape.cmsutil.ldap.LDAPPagedResultsControl;
+
+import netscape.ldap.LDAPAttribute;
+import netscape.ldap.LDAPAttributeSet;
+import netscape.ldap.LDAPEntry;
+import netscape.ldap.LDAPException;
+import netscape.ldap.LDAPModification;
+import netscape.ldap.LDAPSearchConstraints;
+import netscape.ldap.LDAPSearchResults;
+import netscape.ldap.LDAPv3;
+
+public class KRADBUpgradeCLI extends SubsystemDBUpgradeCLI {
+
+    public static Logger logger = LoggerFactory.getLogger(KRADBUpgradeCLI.class);
+
+    public static final int PAGE_SIZE = 1000;
+
+    public KRADBUpgradeCLI(CLI parent) {
+        super("upgrade", "Upgrade KRA database", parent);
+    }
+
+    @Override
+    public void upgrade(LDAPConfig ldapConfig, LdapBoundConnection conn) throws Exception {
+        addFingerprintIndex(ldapConfig, conn);
+        addFingerprints(ldapConfig, conn);
+    }
+
+    /**
+     * Creates the publicKeyFingerprint index if it does not exist.
+     * The index is created before the fingerprints are added so
+     * the existing records do not need to be reindexed.
+     */
+    public void addFingerprintIndex(LDAPConfig ldapConfig, LdapBoundConnection conn) throws Exception {
+
+        String database = ldapConfig.getDatabase();
+        String indexDN = "cn=" + KeyDBSchema.LDAP_ATTR_PUBLIC_KEY_FINGERPRINT
+                + ",cn=index,cn=" + database + ",cn=ldbm database,cn=plugins,cn=config";
+
+        try {
+            conn.read(indexDN);
+            logger.info("Index " + indexDN + " already exists");
+            return;
+
+        } catch (LDAPException e) {
+            if (e.getLDAPResultCode() != LDAPException.NO_SUCH_OBJECT) {
+                throw e;
+            }
+        }
+
+        logger.info("Adding index " + indexDN);
+
+        LDAPAttributeSet attrs = new LDAPAttributeSet();
+        attrs.add(new LDAPAttribute("objectClass", new String[] { "top", "nsIndex" }));
+        attrs.add(new LDAPAttribute("cn", KeyDBSchema.LDAP_ATTR_PUBLIC_KEY_FINGERPRINT));
+        attrs.add(new LDAPAttribute("nsSystemIndex", "false"));
+        attrs.add(new LDAPAttribute("nsIndexType", "eq"));
+
+        conn.add(new LDAPEntry(indexDN, attrs));
+    }
+
+    /**
+     * Adds the public key fingerprint to key records archived
+     * before the fingerprint was introduced.
+     *
+     * The records are retrieved with a single paged search. Each page
+     * is read completely and its records are updated before the next
+     * page is requested, so at most one page of records is held in
+     * memory and the key repository is only scanned once.
+     */
+    public void addFingerprints(LDAPConfig ldapConfig, LdapBoundConnection conn) throws Exception {
+
+        logger.info("Searching key records with missing publicKeyFingerprint");
+
+        String baseDN = ldapConfig.getBaseDN();
+        String keyRepoDN = "ou=keyRepository,ou=kra," + baseDN;
+
+        int count = 0;
+        byte[] cookie = null;
+
+        do {
+            LDAPSearchConstraints cons = new LDAPSearchConstraints();
+            cons.setMaxResults(0); // the page size limits the results
+            cons.setServerControls(new LDAPPagedResultsControl(false, PAGE_SIZE, cookie));
+
+            LDAPSearchResults results = conn.search(
+                    keyRepoDN,
+                    LDAPv3.SCOPE_ONE,
+                    "(&(objectclass=keyRecord)(publicKeyData=*)(!(publicKeyFingerprint=*)))",
+                    new String[] { KeyDBSchema.LDAP_ATTR_PUBLIC_KEY_DATA },
+                    false,
+                    cons);
+
+            List<LDAPEntry> entries = new ArrayList<>();
+            while (results.hasMoreElements()) {
+                entries.add(results.next());
+            }
+
+            LDAPPagedResultsControl pagedResults =
+                    LDAPPagedResultsControl.getResponseControl(results.getResponseControls());
+            cookie = pagedResults == null || !pagedResults.hasMorePages() ? null : pagedResults.getCookie();
+
+            for (LDAPEntry entry : entries) {
+                addFingerprint(conn, entry);
+            }
+
+            count += entries.size();
+            logger.info("Updated " + count + " key record(s)");
+
+        } while (cookie != null);
+
+        logger.info("Total: " + count + " key record(s) updated");
+    }
+
+    void addFingerprint(LdapBoundConnection conn, LDAPEntry entry) throws Exception {
+
+        logger.debug("Updating key record " + entry.getDN());
+
+        LDAPAttribute publicKeyData = entry.getAttribute(KeyDBSchema.LDAP_ATTR_PUBLIC_KEY_DATA);
+        byte[] bytes = publicKeyData.getByteValues().nextElement();
+
+        String fingerprint = KeyRecord.createPublicKeyFingerprint(bytes);
+
+        LDAPModification mods = new LDAPModification(
+                LDAPModification.ADD,
+                new LDAPAttribute(KeyDBSchema.LDAP_ATTR_PUBLIC_KEY_FINGERPRINT, fingerprint));
+        conn.modify(entry.getDN(), mods);
+    }
+}
@@ -0,0 +1,163 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cms.ocsp;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.apache.commons.codec.binary.Hex;
+import org.mozilla.jss.netscape.security.x509.X509CertImpl;
+import org.mozilla.jss.netscape.security.x509.X509Key;
+
+/**
+ * Index of CRL issuing points by OCSP issuer key, i.e. the hash
+ * algorithm together with the hashes of the issuer name and the
+ * issuer public key as they appear in the OCSP CertID.
+ *
+ * The hashes are computed once per CA certificate for all commonly
+ * used algorithms so an OCSP request can be matched to its issuing
+ * point without decoding the CA certificates again. Other algorithms
+ * are added to the index when they are first used in a request.
+ */
+class CRLIssuerIndex {
+
+    public static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CRLIssuerIndex.class);
+
+    public static final String[] DIGEST_NAMES = { "SHA-1", "SHA-256", "SHA-384", "SHA-512" };
+
+    private Set<String> digestNames = new CopyOnWriteArraySet<>(Arrays.asList(DIGEST_NAMES));
+    private Map<String, Issuer> issuers = new ConcurrentHashMap<>();
+    private Map<String, Issuer> issuersByID = new ConcurrentHashMap<>();
+    private Map<String, List<String>> keysByID = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the issuer key from the CertID fields.
+     */
+    public static String createKey(String digestName, byte[] nameHash, byte[] keyHash) {
+        return digestName + ":" + Hex.encodeHexString(nameHash) + ":" + Hex.encodeHexString(keyHash);
+    }
+
+    /**
+     * Adds or replaces the issuer keys of a CRL issuing point.
+     */
+    public synchronized void add(String id, X509CertImpl cert) throws IOException, NoSuchAlgorithmException {
+
+        remove(id);
+
+        Issuer issuer = new Issuer(id, cert);
+        X509Key key = (X509Key) cert.getPublicKey();
+        byte[] name = cert.getSubjectObj().getX500Name().getEncoded();
+
+        List<String> keys = new ArrayList<>();
+        for (String digestName : digestNames) {
+            MessageDigest md = MessageDigest.getInstance(digestName);
+            byte[] keyHash = md.digest(key.getKey());
+            byte[] nameHash = md.digest(name);
+
+            String issuerKey = createKey(digestName, nameHash, keyHash);
+            issuers.put(issuerKey, issuer);
+            keys.add(issuerKey);
+        }
+
+        issuersByID.put(id, issuer);
+        keysByID.put(id, keys);
+        logger.debug("CRLIssuerIndex: Indexed issuing point " + id);
+    }
+
+    /**
+     * Adds the issuer keys for another hash algorithm.
+     */
+    public synchronized void addDigestName(String digestName) throws IOException, NoSuchAlgorithmException {
+
+        if (digestName == null || digestNames.contains(digestName)) {
+            return;
+        }
+
+        // make sure the algorithm is available before indexing
+        MessageDigest.getInstance(digestName);
+        digestNames.add(digestName);
+
+        for (Issuer issuer : new ArrayList<>(issuersByID.values())) {
+            add(issuer.getID(), issuer.getCert());
+        }
+    }
+
+    /**
+     * Removes the issuer keys of a CRL issuing point.
+     */
+    public synchronized void remove(String id) {
+
+        issuersByID.remove(id);
+
+        List<String> keys = keysByID.remove(id);
+        if (keys == null) {
+            return;
+        }
+
+        for (String issuerKey : keys) {
+            issuers.remove(issuerKey);
+        }
+    }
+
+    public Issuer get(String issuerKey) {
+        return issuers.get(issuerKey);
+    }
+
+    public Issuer getByID(String id) {
+        return issuersByID.get(id);
+    }
+
+    public boolean contains(String id) {
+        return keysByID.containsKey(id);
+    }
+
+    /**
+     * Returns the issuer keys of a CRL issuing point.
+     */
+    public List<String> getKeys(String id) {
+        List<String> keys = keysByID.get(id);
+        return keys == null ? List.of() : keys;
+    }
+
+    static class Issuer {
+
+        private String id;
+        private X509CertImpl cert;
+
+        Issuer(String id, X509CertImpl cert) {
+            this.id = id;
+            this.cert = cert;
+        }
+
+        public String getID() {
+            return id;
+        }
+
+        public X509CertImpl getCert() {
+            return cert;
+        }
+    }
+}
@@ -18,14 +18,12 @@
 package com.netscape.cms.ocsp;
 
 import java.math.BigInteger;
-import java.security.MessageDigest;
 import java.security.cert.CRLException;
 import java.security.cert.X509CRL;
-import java.security.cert.X509CRLEntry;
-import java.util.Arrays;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Locale;
 import java.util.Vector;
 
@@ -35,7 +33,6 @@ import org.mozilla.jss.asn1.INTEGER;
 import org.mozilla.jss.netscape.security.x509.RevokedCertificate;
 import org.mozilla.jss.netscape.security.x509.X509CRLImpl;
 import org.mozilla.jss.netscape.security.x509.X509CertImpl;
-import org.mozilla.jss.netscape.security.x509.X509Key;
 
 import com.netscape.certsrv.base.EBaseException;
 import com.netscape.certsrv.base.IExtendedPluginInfo;
@@ -46,6 +43,7 @@ import com.netscape.certsrv.dbs.ModificationSet;
 import com.netscape.certsrv.ocsp.IDefStore;
 import com.netscape.cmscore.apps.CMS;
 import com.netscape.cmscore.base.ConfigStore;
+import com.netscape.cmscore.cert.RevokedCertIndex;
 import com.netscape.cmscore.dbs.CRLIssuingPointRecord;
 import com.netscape.cmscore.dbs.CertRecord;
 import com.netscape.cmscore.dbs.DBSSession;
@@ -95,6 +93,7 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
     protected boolean mByName = true;
     protected boolean mIncludeNextUpdate = false;
     protected Hashtable<String, CRLIPContainer> mCacheCRLIssuingPoints = new Hashtable<>();
+    private CRLIssuerIndex mIssuerIndex = new CRLIssuerIndex();
     private ConfigStore mConfig;
     private String mId = null;
     private DBSubsystem dbSubsystem;
@@ -312,108 +311,37 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
         INTEGER serialNo = cid.getSerialNumber();
         logger.info("DefStore: Processing request for cert 0x" + serialNo.toString(16));
 
-        // cache result to speed up the performance
-        X509CertImpl theCert = null;
-        X509CRLImpl theCRL = null;
-        CRLIssuingPointRecord theRec = null;
         byte[] keyhsh = cid.getIssuerKeyHash().toByteArray();
         byte[] namehash = cid.getIssuerNameHash().toByteArray();
         logger.info("DefStore: Issuer key hash: " + new String(Hex.encodeHex(keyhsh)));
 
-        CRLIPContainer matched = mCacheCRLIssuingPoints.get(new String(keyhsh));
+        String issuerKey = CRLIssuerIndex.createKey(cid.getDigestName(), namehash, keyhsh);
+
+        // cache result to speed up the performance
+        CRLIPContainer matched = mCacheCRLIssuingPoints.get(issuerKey);
         logger.info("DefStore: CRL issuing point container: " + matched);
 
         if (matched == null) {
-            logger.info("DefStore: Searching for objectclass=" + CRLIssuingPointRecord.class.getName());
-            Enumeration<CRLIssuingPointRecord> recs = searchCRLIssuingPointRecord(
-                    "objectclass=" + CRLIssuingPointRecord.class.getName(),
-                    100);
-
-            while (recs.hasMoreElements()) {
-                CRLIssuingPointRecord rec = recs.nextElement();
-                logger.info("DefStore: - ID: " + rec.getId());
-
-                byte certdata[] = rec.getCACert();
-                X509CertImpl cert = null;
-
-                try {
-                    cert = new X509CertImpl(certdata);
-                } catch (Exception e) {
-                    logger.error(CMS.getLogMessage("OCSP_DECODE_CERT", e.toString()), e);
-                    throw e;
-                }
-
-                MessageDigest md = MessageDigest.getInstance(cid.getDigestName());
-                X509Key key = (X509Key) cert.getPublicKey();
-
-                byte[] digest = md.digest(key.getKey());
-                logger.info("DefStore:   Digest: {}", new String(Hex.encodeHex(digest)));
-                byte[] name = md.digest(cert.getSubjectObj().getX500Name().getEncoded());
-
-                if (!Arrays.equals(digest, keyhsh) || !Arrays.equals(name, namehash)) {
-                    theCert = cert;
-                    continue;
-                }
-                logger.info("DefStore: Found issuer");
-
-                theCert = cert;
-                theRec = rec;
-                incReqCount(theRec.getId());
-
-                byte[] crldata = rec.getCRL();
-                logger.info("DefStore: CRL: " + crldata);
-
-                if (crldata == null) {
-                    throw new Exception("Missing CRL data");
-                }
-
-                if (rec.getCRLCache() == null) {
-                    logger.debug("DefStore: start building x509 crl impl");
-                    try {
-                        theCRL = new X509CRLImpl(crldata);
-                    } catch (Exception e) {
-                        logger.error(CMS.getLogMessage("OCSP_DECODE_CRL", e.toString()), e);
-                        throw e;
-                    }
-                    logger.debug("DefStore: done building x509 crl impl");
-                } else {
-                    logger.debug("DefStore: using crl cache");
-                }
-
-                logger.info("DefStore: Adding CRL issuing point container for {}", new String(Hex.encodeHex(digest)));
-                mCacheCRLIssuingPoints.put(new String(digest), new CRLIPContainer(theRec, theCert, theCRL));
-                break;
-            }
-
-        } else {
-            theCert = matched.getX509CertImpl();
-            theRec = matched.getCRLIssuingPointRecord();
-            theCRL = matched.getX509CRLImpl();
-            incReqCount(theRec.getId());
+            mIssuerIndex.addDigestName(cid.getDigestName());
+            matched = loadCRLIPContainer(issuerKey);
         }
 
-        logger.info("DefStore: Issuer: " + theCert);
-
-        if (theCert == null) {
+        if (matched == null) {
             logger.warn("Missing issuer certificate");
             // Unknown cert so respond with unknown state
             return new SingleResponse(cid, new UnknownInfo(), new GeneralizedTime(new Date()), null);
         }
 
-        logger.info("DefStore: Issuer: " + theCert.getSubjectX500Principal());
+        incReqCount(matched.getId());
+
+        logger.info("DefStore: Issuer: " + matched.getX509CertImpl().getSubjectX500Principal());
 
         // check the serial number
         logger.info("Checked Status of certificate 0x" + serialNo.toString(16));
 
-        GeneralizedTime thisUpdate;
-
-        if (theRec == null) {
-            thisUpdate = new GeneralizedTime(new Date());
-        } else {
-            Date d = theRec.getThisUpdate();
-            logger.debug("DefStore: CRL record this update: " + d);
-            thisUpdate = new GeneralizedTime(d);
-        }
+        Date d = matched.getThisUpdate();
+        logger.debug("DefStore: CRL record this update: " + d);
+        GeneralizedTime thisUpdate = new GeneralizedTime(d);
 
         logger.debug("DefStore: this update: " + thisUpdate.toDate());
 
@@ -423,54 +351,25 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
         if (!includeNextUpdate()) {
             nextUpdate = null;
 
-        } else if (theRec == null) {
-            nextUpdate = new GeneralizedTime(new Date());
-
         } else {
-            Date d = theRec.getNextUpdate();
+            d = matched.getNextUpdate();
             logger.debug("DefStore: CRL record next update: " + d);
             nextUpdate = new GeneralizedTime(d);
         }
 
         logger.debug("DefStore: next update: " + (nextUpdate == null ? null : nextUpdate.toDate()));
 
-        CertStatus certStatus;
-
-        if (theCRL == null) {
-
-            certStatus = new UnknownInfo();
+        RevokedCertIndex revokedCerts = matched.getRevokedCerts();
 
-            if (theRec == null) {
-                return new SingleResponse(cid, certStatus, thisUpdate, nextUpdate);
-            }
-
-            // if crl is not available, we can try crl cache
-            logger.debug("DefStore: evaluating crl cache");
-            Hashtable<BigInteger, RevokedCertificate> cache = theRec.getCRLCacheNoClone();
-            if (cache != null) {
-                RevokedCertificate rc = cache.get(new BigInteger(serialNo.toString()));
-                if (rc == null) {
-                    if (isNotFoundGood()) {
-                        certStatus = new GoodInfo();
-                    } else {
-                        certStatus = new UnknownInfo();
-                    }
-                } else {
-
-                    certStatus = new RevokedInfo(
-                            new GeneralizedTime(
-                                    rc.getRevocationDate()));
-                }
-            }
-
-            return new SingleResponse(cid, certStatus, thisUpdate,
-                    nextUpdate);
+        if (revokedCerts == null) {
+            // neither CRL nor CRL cache is available
+            return new SingleResponse(cid, new UnknownInfo(), thisUpdate, nextUpdate);
         }
 
-        logger.debug("DefStore: evaluating x509 crl impl");
-        X509CRLEntry crlentry = theCRL.getRevokedCertificate(new BigInteger(serialNo.toString()));
+        CertStatus certStatus;
+        Date revocationDate = revokedCerts.getRevocationDate(new BigInteger(serialNo.toString()));
 
-        if (crlentry == null) {
+        if (revocationDate == null) {
             // good or unknown
             if (isNotFoundGood()) {
                 certStatus = new GoodInfo();
@@ -479,14 +378,124 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
             }
 
         } else {
-            certStatus = new RevokedInfo(new GeneralizedTime(
-                            crlentry.getRevocationDate()));
+            certStatus = new RevokedInfo(new GeneralizedTime(revocationDate));
         }
 
         return new SingleResponse(cid, certStatus, thisUpdate,
                 nextUpdate);
     }
 
+    /**
+     * Finds the CRL issuing point of an issuer and caches its
+     * revocation information.
+     *
+     * The issuing point is looked up in the issuer index first.
+     * The CRL issuing point records are only searched if the issuer
+     * has not been indexed yet, and only the CA certificates are
+     * decoded during the search.
+     */
+    private CRLIPContainer loadCRLIPContainer(String issuerKey) throws Exception {
+
+        CRLIssuerIndex.Issuer issuer = mIssuerIndex.get(issuerKey);
+
+        if (issuer == null) {
+            indexCRLIssuingPoints();
+            issuer = mIssuerIndex.get(issuerKey);
+        }
+
+        if (issuer == null) {
+            return null;
+        }
+
+        logger.info("DefStore: Found issuer " + issuer.getID());
+
+        CRLIssuingPointRecord rec = readCRLIssuingPoint(issuer.getID());
+        if (rec == null) {
+            mIssuerIndex.remove(issuer.getID());
+            return null;
+        }
+
+        RevokedCertIndex revokedCerts = null;
+        Hashtable<BigInteger, RevokedCertificate> cache = rec.getCRLCacheNoClone();
+
+        if (cache != null) {
+            logger.debug("DefStore: using crl cache");
+            revokedCerts = RevokedCertIndex.create(cache);
+
+        } else {
+            byte[] crldata = rec.getCRL();
+
+            if (crldata == null) {
+                throw new Exception("Missing CRL data");
+            }
+
+            logger.debug("DefStore: start building x509 crl impl");
+            try {
+                X509CRLImpl crl = new X509CRLImpl(crldata);
+                revokedCerts = RevokedCertIndex.create(crl.getListOfRevokedCertificates());
+            } catch (Exception e) {
+                logger.error(CMS.getLogMessage("OCSP_DECODE_CRL", e.toString()), e);
+                throw e;
+            }
+            logger.debug("DefStore: done building x509 crl impl");
+        }
+
+        CRLIPContainer container = new CRLIPContainer(
+                issuer.getID(),
+                issuer.getCert(),
+                rec.getThisUpdate(),
+                rec.getNextUpdate(),
+                revokedCerts);
+
+        logger.info("DefStore: Adding CRL issuing point container for " + issuer.getID());
+        for (String key : mIssuerIndex.getKeys(issuer.getID())) {
+            mCacheCRLIssuingPoints.put(key, container);
+        }
+
+        return container;
+    }
+
+    /**
+     * Adds all CRL issuing points into the issuer index.
+     */
+    private void indexCRLIssuingPoints() throws Exception {
+
+        logger.info("DefStore: Searching for objectclass=" + CRLIssuingPointRecord.class.getName());
+        Enumeration<CRLIssuingPointRecord> recs = searchCRLIssuingPointRecord(
+                "objectclass=" + CRLIssuingPointRecord.class.getName(),
+                100);
+
+        while (recs.hasMoreElements()) {
+            CRLIssuingPointRecord rec = recs.nextElement();
+            logger.info("DefStore: - ID: " + rec.getId());
+
+            if (mIssuerIndex.contains(rec.getId())) {
+                continue;
+            }
+
+            indexCRLIssuingPoint(rec);
+        }
+    }
+
+    private void indexCRLIssuingPoint(CRLIssuingPointRecord rec) throws Exception {
+
+        byte certdata[] = rec.getCACert();
+        if (certdata == null) {
+            return;
+        }
+
+        X509CertImpl cert = null;
+
+        try {
+            cert = new X509CertImpl(certdata);
+        } catch (Exception e) {
+            logger.error(CMS.getLogMessage("OCSP_DECODE_CERT", e.toString()), e);
+            throw e;
+        }
+
+        mIssuerIndex.add(rec.getId(), cert);
+    }
+
     private String transformDN(String dn) {
         String newdn = dn;
 
@@ -573,6 +582,9 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
                 s.delete(name);
             }
         }
+
+        mIssuerIndex.remove(id);
+        mCacheCRLIssuingPoints.values().removeIf(c -> c.getId().equals(id));
     }
 
     /**
@@ -587,6 +599,13 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
 
             s.add(dn, rec);
         }
+
+        try {
+            indexCRLIssuingPoint(rec);
+        } catch (Exception e) {
+            // the issuing point will be indexed on first request
+            logger.warn("DefStore: Unable to index CRL issuing point " + name + ": " + e.getMessage(), e);
+        }
     }
 
     public Enumeration<RepositoryRecord> searchRepository(String name, String filter)
@@ -763,7 +782,7 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
                     crl.getIssuerDN().getName());
 
             // update cache
-            mCacheCRLIssuingPoints.clear();
+            updateCRLIPContainer(crl.getIssuerDN().getName(), (X509CRLImpl) crl);
 
             logger.info("DefStore: Finish Committing CRL." +
                     " thisUpdate=" + crl.getThisUpdate() +
@@ -774,6 +793,47 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
         }
     }
 
+    /**
+     * Replaces the cached revocation information of an issuing point
+     * with the CRL that has just been stored, so the next request does
+     * not need to read and decode the CRL again.
+     */
+    private void updateCRLIPContainer(String id, X509CRLImpl crl) {
+
+        mCacheCRLIssuingPoints.values().removeIf(c -> c.getId().equals(id));
+
+        try {
+            if (!mIssuerIndex.contains(id)) {
+                CRLIssuingPointRecord rec = readCRLIssuingPoint(id);
+                if (rec == null) {
+                    return;
+                }
+                indexCRLIssuingPoint(rec);
+            }
+
+            CRLIssuerIndex.Issuer issuer = mIssuerIndex.getByID(id);
+            if (issuer == null) {
+                return;
+            }
+
+            List<String> keys = mIssuerIndex.getKeys(id);
+            CRLIPContainer container = new CRLIPContainer(
+                    id,
+                    issuer.getCert(),
+                    crl.getThisUpdate(),
+                    crl.getNextUpdate(),
+                    RevokedCertIndex.create(crl.getListOfRevokedCertificates()));
+
+            for (String key : keys) {
+                mCacheCRLIssuingPoints.put(key, container);
+            }
+
+        } catch (Exception e) {
+            // the container will be loaded on next request
+            logger.warn("DefStore: Unable to update CRL issuing point cache: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public int getStateCount() {
         return mStateCount;
@@ -797,27 +857,44 @@ class DeleteOldCRLsThread extends Thread {
     }
 }
 
+/**
+ * Revocation information of a CRL issuing point cached for
+ * all issuer keys of the issuing point.
+ */
 class CRLIPContainer {
-    private CRLIssuingPointRecord mRec = null;
-    private X509CertImpl mCert = null;
-    private X509CRLImpl mCRL = null;
-
-    public CRLIPContainer(CRLIssuingPointRecord rec, X509CertImpl cert, X509CRLImpl crl) {
-        mRec = rec;
+    private String mId;
+    private X509CertImpl mCert;
+    private Date mThisUpdate;
+    private Date mNextUpdate;
+    private RevokedCertIndex mRevokedCerts;
+
+    public CRLIPContainer(String id, X509CertImpl cert, Date thisUpdate, Date nextUpdate,
+            RevokedCertIndex revokedCerts) {
+        mId = id;
         mCert = cert;
-        mCRL = crl;
+        mThisUpdate = thisUpdate;
+        mNextUpdate = nextUpdate;
+        mRevokedCerts = revokedCerts;
     }
 
-    public CRLIssuingPointRecord getCRLIssuingPointRecord() {
-        return mRec;
+    public String getId() {
+        return mId;
     }
 
     public X509CertImpl getX509CertImpl() {
         return mCert;
     }
 
-    public X509CRLImpl getX509CRLImpl() {
-        return mCRL;
+    public Date getThisUpdate() {
+        return mThisUpdate;
+    }
+
+    public Date getNextUpdate() {
+        return mNextUpdate;
+    }
+
+    public RevokedCertIndex getRevokedCerts() {
+        return mRevokedCerts;
     }
 }
 
@@ -523,10 +523,11 @@ public class AddCRLServlet extends CMSServlet {
 
             if (defStore.waitOnCRLUpdate()) {
                 defStore.updateCRL(crl);
+                mOCSPAuthority.regenerateResponses();
             } else {
                 // when the CRL large, the thread is terminiated by the
                 // servlet framework before it can finish its work
-                UpdateCRLThread uct = new UpdateCRLThread(defStore, crl);
+                UpdateCRLThread uct = new UpdateCRLThread(mOCSPAuthority, defStore, crl);
 
                 uct.start();
             }
@@ -608,11 +609,13 @@ public class AddCRLServlet extends CMSServlet {
 }
 
 class UpdateCRLThread extends Thread {
+    private OCSPAuthority mOCSPAuthority = null;
     private IDefStore mDefStore = null;
     private X509CRL mCRL = null;
 
     public UpdateCRLThread(
-            IDefStore defStore, X509CRL crl) {
+            OCSPAuthority ocspAuthority, IDefStore defStore, X509CRL crl) {
+        mOCSPAuthority = ocspAuthority;
         mDefStore = defStore;
         mCRL = crl;
     }
@@ -623,6 +626,7 @@ class UpdateCRLThread extends Thread {
             if (!((X509CRLImpl) mCRL).areEntriesIncluded())
                 mCRL = new X509CRLImpl(((X509CRLImpl) mCRL).getEncoded());
             mDefStore.updateCRL(mCRL);
+            mOCSPAuthority.regenerateResponses();
         } catch (CRLException e) {
         } catch (X509ExtensionException e) {
         } catch (EBaseException e) {
@@ -25,10 +25,14 @@ import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.SignatureException;
 import java.security.cert.CertificateParsingException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.dogtagpki.server.ocsp.OCSPConfig;
 import org.dogtagpki.server.ocsp.OCSPEngine;
@@ -97,6 +101,12 @@ public class OCSPAuthority extends Subsystem implements IAuthority, IOCSPService
     public final static String PROP_STORE = "store";
     public static final String PROP_NICKNAME = "certNickname";
     public final static String PROP_NEW_NICKNAME = "newNickname";
+    public final static String PROP_RESPONSE_CACHE_ENABLE = "responseCache.enable";
+    public final static String PROP_RESPONSE_CACHE_SIZE = "responseCache.size";
+    public final static String PROP_RESPONSE_CACHE_PREGENERATE = "responseCache.pregenerate";
+
+    // number of cached responses signed in one batch
+    private static final int REGENERATE_BATCH_SIZE = 100;
 
     private Hashtable<String, IOCSPStore> mStores = new Hashtable<>();
     private String mId = "ocsp";
@@ -111,6 +121,11 @@ public class OCSPAuthority extends Subsystem implements IAuthority, IOCSPService
     public long mTotalData = 0;
     public long mSignTime = 0;
     public long mLookupTime = 0;
+    public long mNumSignedResponses = 0;
+
+    private OCSPResponseCache mResponseCache;
+    private boolean mPregenerateResponses;
+    private ExecutorService mResponseGenerator;
 
     /**
      * Retrieves the name of this subsystem.
@@ -147,6 +162,7 @@ public class OCSPAuthority extends Subsystem implements IAuthority, IOCSPService
             mConfig = engineConfig.getOCSPConfig();
 
             initSigUnit();
+            initResponseCache();
 
             // create default OCSP Store
             try {
@@ -331,6 +347,26 @@ public class OCSPAuthority extends Subsystem implements IAuthority, IOCSPService
         getOCSPSigningAlgorithms();
     }
 
+    private void initResponseCache() throws EBaseException {
+
+        if (!mConfig.getBoolean(PROP_RESPONSE_CACHE_ENABLE, false)) {
+            return;
+        }
+
+        int size = mConfig.getInteger(PROP_RESPONSE_CACHE_SIZE, 10000);
+        logger.info("OCSPAuthority: Response cache size: " + size);
+        mResponseCache = new OCSPResponseCache(size);
+
+        mPregenerateResponses = mConfig.getBoolean(PROP_RESPONSE_CACHE_PREGENERATE, true);
+        if (mPregenerateResponses) {
+            mResponseGenerator = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "OCSPResponseGenerator");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
     /**
      * Notifies this subsystem if owner is in running mode.
      */
@@ -386,6 +422,17 @@ public class OCSPAuthority extends Subsystem implements IAuthority, IOCSPService
         OCSPResponse response;
 
         try {
+            Extension nonce[] = null;
+
+            for (int j = 0; j < tbsReq.getExtensionsCount(); j++) {
+                Extension thisExt = tbsReq.getRequestExtensionAt(j);
+
+                if (thisExt.getExtnId().equals(OCSPAuthority.OCSP_NONCE)) {
+                    nonce = new Extension[1];
+                    nonce[0] = thisExt;
+                }
+            }
+
             // (3) look into database to check the certificate's status
             Vector<SingleResponse> singleResponses = new Vector<>();
 
@@ -410,59 +457,28 @@ public class OCSPAuthority extends Subsystem implements IAuthority, IOCSPService
                 statsSub.endTiming("lookup");
             }
 
-            if (statsSub != null) {
-                statsSub.startTiming("build_response");
-            }
-
             SingleResponse res[] = new SingleResponse[singleResponses.size()];
             singleResponses.copyInto(res);
 
-            ResponderID rid = null;
-
-            if (mDefStore.isByName()) {
-                rid = getResponderIDByName();
-            } else {
-                rid = getResponderIDByHash();
-            }
-
-            Extension nonce[] = null;
-
-            for (int j = 0; j < tbsReq.getExtensionsCount(); j++) {
-                Extension thisExt = tbsReq.getRequestExtensionAt(j);
-
-                if (thisExt.getExtnId().equals(OCSPAuthority.OCSP_NONCE)) {
-                    nonce = new Extension[1];
-                    nonce[0] = thisExt;
-                }
+            // only responses for a single certificate without nonce can be reused
+            String cacheKey = null;
+            if (mResponseCache != null && nonce == null && res.length == 1) {
+                cacheKey = OCSPResponseCache.createKey(tbsReq.getRequestAt(0).getCertID());
             }
 
-            ResponseData rd = new ResponseData(rid,
-                    new GeneralizedTime(new Date()), res, nonce);
+            response = cacheKey == null ? null : mResponseCache.get(cacheKey, res[0]);
 
-            if (statsSub != null) {
-                statsSub.endTiming("build_response");
-            }
+            if (response != null) {
+                logger.info("OCSPAuthority: Using cached response");
 
-            if (statsSub != null) {
-                statsSub.startTiming("signing");
-            }
-
-            long signStartTime = new Date().getTime();
-
-            BasicOCSPResponse basicRes = sign(rd);
-
-            long signEndTime = new Date().getTime();
-            incSignTime(signEndTime - signStartTime);
+            } else {
+                response = createResponse(res, nonce, statsSub);
 
-            if (statsSub != null) {
-                statsSub.endTiming("signing");
+                if (cacheKey != null) {
+                    mResponseCache.put(cacheKey, tbsReq.getRequestAt(0), res[0], response);
+                }
             }
 
-            response = new OCSPResponse(
-                    OCSPResponseStatus.SUCCESSFUL,
-                    new ResponseBytes(ResponseBytes.OCSP_BASIC,
-                            new OCTET_STRING(ASN1Util.encode(basicRes))));
-
         } catch (EBaseException e) {
             logger.error(CMS.getLogMessage("OCSP_REQUEST_FAILURE", e.toString()), e);
             throw e;
@@ -482,6 +498,146 @@ public class OCSPAuthority extends Subsystem implements IAuthority, IOCSPService
         return response;
     }
 
+    /**
+     * Builds and signs an OCSP response for the given single responses.
+     */
+    private OCSPResponse createResponse(
+            SingleResponse[] res,
+            Extension[] nonce,
+            StatsSubsystem statsSub) throws Exception {
+
+        if (statsSub != null) {
+            statsSub.startTiming("build_response");
+        }
+
+        ResponderID rid = null;
+
+        if (mDefStore.isByName()) {
+            rid = getResponderIDByName();
+        } else {
+            rid = getResponderIDByHash();
+        }
+
+        ResponseData rd = new ResponseData(rid,
+                new GeneralizedTime(new Date()), res, nonce);
+
+        if (statsSub != null) {
+            statsSub.endTiming("build_response");
+        }
+
+        if (statsSub != null) {
+            statsSub.startTiming("signing");
+        }
+
+        long signStartTime = new Date().getTime();
+
+        BasicOCSPResponse basicRes = sign(rd);
+
+        long signEndTime = new Date().getTime();
+        incSignTime(signEndTime - signStartTime);
+
+        if (statsSub != null) {
+            statsSub.endTiming("signing");
+        }
+
+        return new OCSPResponse(
+                OCSPResponseStatus.SUCCESSFUL,
+                new ResponseBytes(ResponseBytes.OCSP_BASIC,
+                        new OCTET_STRING(ASN1Util.encode(basicRes))));
+    }
+
+    /**
+     * Signs new responses for the certificates in the response cache
+     * in the background. This should be called after a new CRL has
+     * been stored so the next requests for these certificates do not
+     * need to wait for the signature.
+     */
+    public void regenerateResponses() {
+
+        if (mResponseCache == null || !mPregenerateResponses) {
+            return;
+        }
+
+        mResponseGenerator.execute(() -> {
+
+            logger.info("OCSPAuthority: Regenerating " + mResponseCache.size() + " cached response(s)");
+
+            List<Request> requests = new ArrayList<>();
+            List<SingleResponse> singleResponses = new ArrayList<>();
+            int count = 0;
+
+            for (Request req : mResponseCache.getRequests()) {
+                try {
+                    SingleResponse sr = mDefStore.processRequest(req);
+                    String cacheKey = OCSPResponseCache.createKey(req.getCertID());
+
+                    if (mResponseCache.isCurrent(cacheKey, sr)) {
+                        continue;
+                    }
+
+                    requests.add(req);
+                    singleResponses.add(sr);
+
+                    if (requests.size() >= REGENERATE_BATCH_SIZE) {
+                        count += regenerateResponses(requests, singleResponses);
+                        requests.clear();
+                        singleResponses.clear();
+                    }
+
+                } catch (Exception e) {
+                    logger.warn("OCSPAuthority: Unable to regenerate response: " + e.getMessage(), e);
+                }
+            }
+
+            if (!requests.isEmpty()) {
+                count += regenerateResponses(requests, singleResponses);
+            }
+
+            logger.info("OCSPAuthority: Regenerated " + count + " response(s)");
+        });
+    }
+
+    /**
+     * Signs a batch of cached responses and stores them in the cache.
+     *
+     * @return number of regenerated responses
+     */
+    private int regenerateResponses(List<Request> requests, List<SingleResponse> singleResponses) {
+
+        try {
+            ResponderID rid = mDefStore.isByName() ? getResponderIDByName() : getResponderIDByHash();
+            GeneralizedTime producedAt = new GeneralizedTime(new Date());
+
+            List<ResponseData> rds = new ArrayList<>(singleResponses.size());
+            for (SingleResponse sr : singleResponses) {
+                rds.add(new ResponseData(rid, producedAt, new SingleResponse[] { sr }, null));
+            }
+
+            long signStartTime = new Date().getTime();
+            List<BasicOCSPResponse> basicResponses = sign(rds);
+            incSignTime(new Date().getTime() - signStartTime);
+
+            for (int i = 0; i < requests.size(); i++) {
+                Request req = requests.get(i);
+                OCSPResponse response = new OCSPResponse(
+                        OCSPResponseStatus.SUCCESSFUL,
+                        new ResponseBytes(ResponseBytes.OCSP_BASIC,
+                                new OCTET_STRING(ASN1Util.encode(basicResponses.get(i)))));
+                mResponseCache.put(
+                        OCSPResponseCache.createKey(req.getCertID()),
+                        req,
+                        singleResponses.get(i),
+                        response);
+            }
+
+            return requests.size();
+
+        } catch (Exception e) {
+            logger.warn("OCSPAuthority: Unable to regenerate responses: " + e.getMessage(), e);
+            return 0;
+        }
+    }
+
     /**
      * Stops this system. The owner may call shutdown
      * anytime after initialization.
@@ -489,6 +645,12 @@ public class OCSPAuthority extends Subsystem implements IAuthority, IOCSPService
      */
     @Override
     public void shutdown() {
+        if (mResponseGenerator != null) {
+            mResponseGenerator.shutdownNow();
+        }
+        if (mResponseCache != null) {
+            mResponseCache.clear();
+        }
     }
 
     /**
@@ -536,44 +698,45 @@ public class OCSPAuthority extends Subsystem implements IAuthority, IOCSPService
     public BasicOCSPResponse sign(ResponseData rd)
             throws EBaseException {
 
-        OCSPEngine engine = OCSPEngine.getInstance();
+        return sign(List.of(rd)).get(0);
+    }
 
-        try (DerOutputStream out = new DerOutputStream()) {
-            DerOutputStream tmp = new DerOutputStream();
+    /**
+     * This method signs multiple basic OCSP response data with
+     * a single call to the signing unit.
+     *
+     * @param rds list of response data
+     * @return list of signed response data in the same order
+     * @exception EBaseException error associated with an inability to sign
+     *                the specified response data
+     */
+    public List<BasicOCSPResponse> sign(List<ResponseData> rds)
+            throws EBaseException {
+
+        OCSPEngine engine = OCSPEngine.getInstance();
 
+        try {
             String algname = mSigningUnit.getDefaultAlgorithm();
 
-            byte rd_data[] = ASN1Util.encode(rd);
-            if (rd_data != null) {
-                mTotalData += rd_data.length;
+            List<byte[]> data = new ArrayList<>(rds.size());
+            for (ResponseData rd : rds) {
+                byte rd_data[] = ASN1Util.encode(rd);
+                if (rd_data != null) {
+                    mTotalData += rd_data.length;
+                }
+                data.add(rd_data);
             }
 
-            rd.encode(tmp);
-            AlgorithmId.get(algname).encode(tmp);
-
             logger.debug("OCSPAuthority: adding signature");
-            byte[] signature = mSigningUnit.sign(rd_data, algname);
-
-            tmp.putBitString(signature);
-            // XXX - optional, put the certificate chains in also
+            List<byte[]> signatures = mSigningUnit.sign(data, algname);
+            mNumSignedResponses += signatures.size();
 
-            DerOutputStream tmpChain = new DerOutputStream();
-            DerOutputStream tmp1 = new DerOutputStream();
-            java.security.cert.X509Certificate chains[] = mSigningUnit.getCertChain().getChain();
-
-            for (int i = 0; i < chains.length; i++) {
-                tmpChain.putDerValue(new DerValue(chains[i].getEncoded()));
+            List<BasicOCSPResponse> responses = new ArrayList<>(rds.size());
+            for (int i = 0; i < rds.size(); i++) {
+                responses.add(createBasicResponse(rds.get(i), algname, signatures.get(i)));
             }
 
-            tmp1.write(DerValue.tag_Sequence, tmpChain);
-            tmp.write(DerValue.createTag(DerValue.TAG_CONTEXT, true, (byte) 0),
-                    tmp1);
-
-            out.write(DerValue.tag_Sequence, tmp);
-
-            BasicOCSPResponse response = new BasicOCSPResponse(out.toByteArray());
-
-            return response;
+            return responses;
 
         } catch (NoSuchAlgorithmException e) {
             logger.error(CMS.getLogMessage("OPERATION_ERROR", e.toString()), e);
@@ -599,6 +762,38 @@ public class OCSPAuthority extends Subsystem implements IAuthority, IOCSPService
         }
     }
 
+    private BasicOCSPResponse createBasicResponse(
+            ResponseData rd,
+            String algname,
+            byte[] signature) throws Exception {
+
+        try (DerOutputStream out = new DerOutputStream()) {
+            DerOutputStream tmp = new DerOutputStream();
+
+            rd.encode(tmp);
+            AlgorithmId.get(algname).encode(tmp);
+
+            tmp.putBitString(signature);
+            // XXX - optional, put the certificate chains in also
+
+            DerOutputStream tmpChain = new DerOutputStream();
+            DerOutputStream tmp1 = new DerOutputStream();
+            java.security.cert.X509Certificate chains[] = mSigningUnit.getCertChain().getChain();
+
+            for (int i = 0; i < chains.length; i++) {
+                tmpChain.putDerValue(new DerValue(chains[i].getEncoded()));
+            }
+
+            tmp1.write(DerValue.tag_Sequence, tmpChain);
+            tmp.write(DerValue.createTag(DerValue.TAG_CONTEXT, true, (byte) 0),
+                    tmp1);
+
+            out.write(DerValue.tag_Sequence, tmp);
+
+            return new BasicOCSPResponse(out.toByteArray());
+        }
+    }
+
     /**
      * This method retrieves the signing unit.
      *
@@ -722,6 +917,21 @@ public class OCSPAuthority extends Subsystem implements IAuthority, IOCSPService
         return mLookupTime;
     }
 
+    @Override
+    public long getOCSPNumSignedResponses() {
+        return mNumSignedResponses;
+    }
+
+    @Override
+    public long getOCSPResponseCacheHits() {
+        return mResponseCache == null ? 0 : mResponseCache.getHits();
+    }
+
+    @Override
+    public long getOCSPResponseCacheMisses() {
+        return mResponseCache == null ? 0 : mResponseCache.getMisses();
+    }
+
     /**
      * Returns the total data signed
      * for OCSP requests.
@@ -0,0 +1,143 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.ocsp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.codec.binary.Hex;
+import org.mozilla.jss.asn1.ASN1Util;
+
+import com.netscape.cmsutil.ocsp.CertID;
+import com.netscape.cmsutil.ocsp.OCSPResponse;
+import com.netscape.cmsutil.ocsp.Request;
+import com.netscape.cmsutil.ocsp.SingleResponse;
+
+/**
+ * Cache of signed OCSP responses for requests without nonce
+ * (RFC 5019 lightweight profile).
+ *
+ * Responses are cached by CertID together with the encoding of the
+ * single response they were signed for. A cached response is only
+ * returned if the current single response, which includes the
+ * certificate status and the thisUpdate and nextUpdate of the CRL,
+ * is identical, so responses become stale as soon as a new CRL
+ * is loaded.
+ */
+public class OCSPResponseCache {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(OCSPResponseCache.class);
+
+    private int maxSize;
+    private Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private AtomicLong hits = new AtomicLong();
+    private AtomicLong misses = new AtomicLong();
+
+    public OCSPResponseCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public static String createKey(CertID certID) {
+        return Hex.encodeHexString(ASN1Util.encode(certID));
+    }
+
+    /**
+     * Returns the cached response if it has been signed
+     * for the same single response, or null otherwise.
+     */
+    public OCSPResponse get(String key, SingleResponse singleResponse) {
+
+        Entry entry = entries.get(key);
+
+        if (entry != null && Arrays.equals(entry.singleResponse, ASN1Util.encode(singleResponse))) {
+            hits.incrementAndGet();
+            return entry.response;
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Returns true if the cached response has been signed for
+     * the same single response. Does not update the statistics.
+     */
+    public boolean isCurrent(String key, SingleResponse singleResponse) {
+        Entry entry = entries.get(key);
+        return entry != null && Arrays.equals(entry.singleResponse, ASN1Util.encode(singleResponse));
+    }
+
+    public void put(String key, Request request, SingleResponse singleResponse, OCSPResponse response) {
+
+        if (!entries.containsKey(key) && entries.size() >= maxSize) {
+            // evict an arbitrary entry
+            Iterator<String> i = entries.keySet().iterator();
+            if (i.hasNext()) {
+                entries.remove(i.next());
+            }
+        }
+
+        entries.put(key, new Entry(request, ASN1Util.encode(singleResponse), response));
+    }
+
+    /**
+     * Returns the requests of the cached responses.
+     */
+    public Collection<Request> getRequests() {
+        Collection<Request> requests = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            requests.add(entry.request);
+        }
+        return requests;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    static class Entry {
+
+        Request request;
+        byte[] singleResponse;
+        OCSPResponse response;
+
+        Entry(Request request, byte[] singleResponse, OCSPResponse response) {
+            this.request = request;
+            this.singleResponse = singleResponse;
+            this.response = response;
+        }
+    }
+}
@@ -81,6 +81,7 @@ public final class OCSPSigningUnit extends SigningUnit {
 
             logger.debug("SigningUnit: Loading private key");
             mPrivk = mManager.findPrivKeyByCert(mCert);
+            resetSigners();
 
             String privateKeyID = "0x" + Utils.HexEncode(mPrivk.getUniqueID());
             logger.debug("SigningUnit: private key ID: " + privateKeyID);
@@ -134,16 +135,17 @@ public final class OCSPSigningUnit extends SigningUnit {
             signAlg = checkSigningAlgorithmFromName(algname);
         }
 
-        // XXX use a pool of signers based on alg ?
-        // XXX Map algor. name to id. hack: use hardcoded define for now.
         logger.info("OCSPSigningUnit: Getting algorithm context for " + algname + " " + signAlg);
-        Signature signer = mToken.getSignatureContext(signAlg);
-
-        signer.initSign(mPrivk);
-        signer.update(data);
+        PooledSigner signer = getSigner(signAlg);
+        signer.signature.update(data);
 
         logger.info("OCSPSigningUnit: Signing OCSP response");
-        return signer.sign();
+        byte[] signature = signer.signature.sign();
+
+        // only contexts that completed a signature can be reused
+        releaseSigner(signAlg, signer);
+
+        return signature;
     }
 
     @Override
@@ -55,6 +55,86 @@ class TKSCLI(pki.cli.CLI):
         self.add_module(pki.server.cli.db.SubsystemDBCLI(self))
         self.add_module(pki.server.cli.group.GroupCLI(self))
         self.add_module(pki.server.cli.user.UserCLI(self))
+        self.add_module(TKSSymKeyBenchmarkCLI())
+
+
+class TKSSymKeyBenchmarkCLI(pki.cli.CLI):
+
+    def __init__(self):
+        super().__init__('symkey-benchmark', 'Benchmark TKS symmetric key lookups')
+
+    def print_help(self):
+        print('Usage: pki-server tks-symkey-benchmark [OPTIONS]')
+        print()
+        print('  -i, --instance <instance ID>       Instance ID (default: pki-tomcat).')
+        print('      --token <name>                 Token name (default: internal).')
+        print('      --nickname <nickname>          Key nickname.')
+        print('      --count <count>                Number of lookups (default: 1000).')
+        print('      --as-current-user              Run as current user.')
+        print('  -v, --verbose                      Run in verbose mode.')
+        print('      --debug                        Run in debug mode.')
+        print('      --help                         Show help message.')
+        print()
+
+    def execute(self, argv):
+        try:
+            opts, _ = getopt.gnu_getopt(argv, 'i:v', [
+                'instance=', 'token=', 'nickname=', 'count=',
+                'as-current-user',
+                'verbose', 'debug', 'help'])
+
+        except getopt.GetoptError as e:
+            logger.error(e)
+            self.print_help()
+            sys.exit(1)
+
+        instance_name = 'pki-tomcat'
+        as_current_user = False
+
+        cmd = ['tks-symkey-benchmark']
+
+        for o, a in opts:
+            if o in ('-i', '--instance'):
+                instance_name = a
+
+            elif o in ('--token', '--nickname', '--count'):
+                cmd.extend([o, a])
+
+            elif o == '--as-current-user':
+                as_current_user = True
+
+            elif o in ('-v', '--verbose'):
+                logging.getLogger().setLevel(logging.INFO)
+                cmd.append('--verbose')
+
+            elif o == '--debug':
+                logging.getLogger().setLevel(logging.DEBUG)
+                cmd.append('--debug')
+
+            elif o == '--help':
+                self.print_help()
+                sys.exit()
+
+            else:
+                logger.error('Invalid option: %s', o)
+                self.print_help()
+                sys.exit(1)
+
+        instance = pki.server.instance.PKIServerFactory.create(instance_name)
+
+        if not instance.exists():
+            logger.error('Invalid instance: %s', instance_name)
+            sys.exit(1)
+
+        instance.load()
+
+        subsystem = instance.get_subsystem('tks')
+
+        if not subsystem:
+            logger.error('No TKS subsystem in instance %s.', instance_name)
+            sys.exit(1)
+
+        subsystem.run(cmd, as_current_user=as_current_user)
 
 
 class TKSCloneCLI(pki.cli.CLI):
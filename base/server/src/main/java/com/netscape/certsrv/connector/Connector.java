@@ -40,6 +40,7 @@ import com.netscape.cmsutil.http.HttpResponse;
  * ca.connector.KRA.id="kra"
  * ca.connector.KRA.minHttpConns=1                   #Min connection pool connections.
  * ca.connector.KRA.maxHttpConns=10                  #Max connection pool connections.
+ * ca.connector.KRA.maxWait=0                        #Max time in ms to wait for a connection, 0 for no limit.
  * </pre>
  */
 public class Connector {
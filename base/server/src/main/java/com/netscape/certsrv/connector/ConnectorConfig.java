@@ -78,4 +78,20 @@ public class ConnectorConfig extends ConfigStore {
     public int getMaxHttpConns() throws EBaseException {
         return getInteger("maxHttpConns", 15);
     }
+
+    /**
+     * Returns the maximum time in milliseconds to wait for an available
+     * HTTP connection, or 0 to wait indefinitely.
+     */
+    public int getMaxWait() throws EBaseException {
+        return getInteger("maxWait", 0);
+    }
+
+    /**
+     * Returns the interval in seconds between logging the connection
+     * pool utilization and latency histogram, or 0 to disable it.
+     */
+    public int getStatsInterval() throws EBaseException {
+        return getInteger("statsInterval", 300);
+    }
 }
@@ -67,6 +67,29 @@ public interface IOCSPService {
 
     public long getOCSPTotalLookupTime();
 
+    /**
+     * Returns the in-memory count of the signed OCSP responses.
+     *
+     * @return number of signed OCSP responses
+     */
+    public long getOCSPNumSignedResponses();
+
+    /**
+     * Returns the in-memory count of the OCSP requests
+     * answered from the response cache.
+     *
+     * @return number of response cache hits
+     */
+    public long getOCSPResponseCacheHits();
+
+    /**
+     * Returns the in-memory count of the cacheable OCSP requests
+     * which required a new signature.
+     *
+     * @return number of response cache misses
+     */
+    public long getOCSPResponseCacheMisses();
+
     /**
      * Returns the total data signed
      * for OCSP requests.
@@ -21,6 +21,12 @@ import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.mozilla.jss.CryptoManager;
 import org.mozilla.jss.NotInitializedException;
@@ -65,6 +71,28 @@ public abstract class SigningUnit {
     protected String mDefSigningAlgname;
     protected SignatureAlgorithm mDefSigningAlgorithm;
 
+    // algorithms which have been checked against the current key
+    private Map<String, SignatureAlgorithm> signingAlgorithms = new ConcurrentHashMap<>();
+
+    // idle signature contexts initialized with the current key
+    private Map<SignatureAlgorithm, BlockingQueue<PooledSigner>> signers = new ConcurrentHashMap<>();
+
+    /**
+     * A signature context with the private key it was initialized with.
+     * The key is used to drop contexts created before the signing key
+     * was reloaded.
+     */
+    protected static class PooledSigner {
+
+        public final Signature signature;
+        public final PrivateKey key;
+
+        PooledSigner(Signature signature, PrivateKey key) {
+            this.signature = signature;
+            this.key = key;
+        }
+    }
+
     /**
      * Retrieves the nickname of the signing certificate.
      */
@@ -140,6 +168,89 @@ public abstract class SigningUnit {
      */
     public abstract byte[] sign(byte[] data, String algname) throws Exception;
 
+    /**
+     * Signs multiple data in specific algorithm. Signature contexts
+     * are reused from the pool so signing a batch does not need to
+     * create a new context for each item.
+     *
+     * @param data list of data to be signed
+     * @param algname signing algorithm to be used
+     * @return list of signatures in the same order as the data
+     * @exception Exception failed to sign
+     */
+    public List<byte[]> sign(List<byte[]> data, String algname) throws Exception {
+        List<byte[]> signatures = new ArrayList<>(data.size());
+        for (byte[] item : data) {
+            signatures.add(sign(item, algname));
+        }
+        return signatures;
+    }
+
+    /**
+     * Returns a signature context initialized with the signing key
+     * from the pool, or creates a new one if the pool is empty.
+     * The context should be returned with releaseSigner() once the
+     * signature has been generated.
+     */
+    protected PooledSigner getSigner(SignatureAlgorithm signAlg)
+            throws NoSuchAlgorithmException, TokenException, InvalidKeyException {
+
+        PrivateKey privateKey = mPrivk;
+        BlockingQueue<PooledSigner> pool = signers.get(signAlg);
+
+        if (pool != null) {
+            PooledSigner signer;
+            while ((signer = pool.poll()) != null) {
+                if (signer.key == privateKey) {
+                    return signer;
+                }
+                // created with a previous key, drop it
+            }
+        }
+
+        logger.debug("SigningUnit: Creating signature context for " + signAlg);
+        Signature signature = mToken.getSignatureContext(signAlg);
+        signature.initSign(privateKey);
+
+        return new PooledSigner(signature, privateKey);
+    }
+
+    /**
+     * Returns a signature context to the pool. The context must have
+     * completed a signature, which resets it for signing again. Contexts
+     * that failed must not be returned. The context is discarded if the
+     * pool is full or if it was created with a different key than the
+     * current one.
+     */
+    protected void releaseSigner(SignatureAlgorithm signAlg, PooledSigner signer) {
+
+        if (signer.key != mPrivk) {
+            logger.debug("SigningUnit: Discarding signature context for previous key");
+            return;
+        }
+
+        BlockingQueue<PooledSigner> pool = signers.computeIfAbsent(signAlg, alg -> {
+            int size = 16;
+            try {
+                size = mConfig.getSignerPoolSize();
+            } catch (EBaseException e) {
+                logger.warn("SigningUnit: Unable to get signer pool size: " + e.getMessage(), e);
+            }
+            return new ArrayBlockingQueue<>(Math.max(1, size));
+        });
+
+        pool.offer(signer);
+    }
+
+    /**
+     * Discards pooled signature contexts and checked algorithms.
+     * Must be called when the signing key changes.
+     */
+    protected void resetSigners() {
+        signingAlgorithms.clear();
+        signers.clear();
+    }
+
     /**
      * Verifies the signed data.
      *
@@ -228,14 +339,23 @@ public abstract class SigningUnit {
      */
     public SignatureAlgorithm checkSigningAlgorithmFromName(String algname)
             throws EBaseException {
+
+        SignatureAlgorithm sigalg = signingAlgorithms.get(algname);
+        if (sigalg != null) {
+            return sigalg;
+        }
+
         try {
-            SignatureAlgorithm sigalg = Cert.mapAlgorithmToJss(algname);
+            sigalg = Cert.mapAlgorithmToJss(algname);
             if (sigalg == null) {
                 throw new ECAException("Signing algorithm not supported: " + algname);
             }
-            Signature signer = mToken.getSignatureContext(sigalg);
 
-            signer.initSign(mPrivk);
+            // the initialized context can be used for the next signature
+            PooledSigner signer = getSigner(sigalg);
+            releaseSigner(sigalg, signer);
+
+            signingAlgorithms.put(algname, sigalg);
             return sigalg;
 
         } catch (NoSuchAlgorithmException e) {
@@ -19,12 +19,12 @@ package com.netscape.cms.authorization;
 
 import java.util.Collection;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.dogtagpki.server.authentication.AuthToken;
 import org.dogtagpki.server.authorization.AuthorizationConfig;
@@ -79,9 +79,17 @@ public abstract class AAclAuthz extends AuthzManager {
 
     protected static final String ACLS_ATTR = "aclResources";
 
-    private Map<String, ACL> mACLs = new HashMap<>();
+    protected static final String PROP_DECISION_CACHE_SIZE = "decisionCacheSize";
+    protected static final int DEFAULT_DECISION_CACHE_SIZE = 10000;
+
+    private Map<String, ACL> mACLs = new ConcurrentHashMap<>();
     private Hashtable<String, AccessEvaluator> mEvaluators = new Hashtable<>();
 
+    private int mDecisionCacheSize = DEFAULT_DECISION_CACHE_SIZE;
+
+    // replaced whenever the ACLs or evaluators change
+    private volatile ACLDecisions mDecisions = new ACLDecisions(DEFAULT_DECISION_CACHE_SIZE);
+
     /* Vector of extendedPluginInfo strings */
     protected static Vector<String> mExtendedPluginInfo = null;
 
@@ -110,6 +118,10 @@ public abstract class AAclAuthz extends AuthzManager {
 
         logger.debug("AAclAuthz: init begins");
 
+        mDecisionCacheSize = config.getInteger(PROP_DECISION_CACHE_SIZE, DEFAULT_DECISION_CACHE_SIZE);
+        logger.debug("AAclAuthz: decision cache size: " + mDecisionCacheSize);
+        invalidateDecisions();
+
         // load access evaluators specified in the config file
         EngineConfig mainConfig = engine.getConfig();
 
@@ -186,6 +198,16 @@ public abstract class AAclAuthz extends AuthzManager {
         } else {
             curACL.merge(acl);
         }
+
+        invalidateDecisions();
+    }
+
+    /**
+     * Discards the compiled ACL entries and the cached decisions.
+     * Must be called after the ACLs or the evaluators are modified.
+     */
+    protected void invalidateDecisions() {
+        mDecisions = new ACLDecisions(mDecisionCacheSize);
     }
 
     @Override
@@ -230,6 +252,7 @@ public abstract class AAclAuthz extends AuthzManager {
     @Override
     public void registerEvaluator(String type, AccessEvaluator evaluator) {
         mEvaluators.put(type, evaluator);
+        invalidateDecisions();
         logger.info("AAclAuthz: " + type + " evaluator registered");
     }
 
@@ -261,7 +284,7 @@ public abstract class AAclAuthz extends AuthzManager {
      * @param perm permission requested
      * @exception EACLsException access permission denied
      */
-    protected synchronized void checkPermission(String name, String perm)
+    protected void checkPermission(String name, String perm)
             throws EACLsException {
 
         String resource = "";
@@ -471,31 +494,51 @@ public abstract class AAclAuthz extends AuthzManager {
      * <p>
      * If there are multiple aci's for a resource, ALL aci's will be checked, and only if all passed permission checks,
      * will the eventual access be granted.
+     * <p>
+     * The entries which apply to a resource and permission are compiled once per version of the ACLs. Decisions
+     * which only depend on the user and groups in the authToken are cached, so this method does not need any lock.
      *
      * @param authToken authentication token gotten from authentication
      * @param name resource name
      * @param perm permission requested
      * @exception EACLsException access permission denied
      */
-    public synchronized void checkPermission(AuthToken authToken, String name,
+    public void checkPermission(AuthToken authToken, String name,
             String perm)
             throws EACLsException {
 
         logger.debug("AAclAuthz.checkPermission(" + name + ", " + perm + ")");
 
-        Vector<String> nodes = getNodes(name);
         EvaluationOrder order = getOrder();
+        ACLDecisions decisions = mDecisions;
+
+        ACLDecisions.Entries entries = decisions.getEntries(name, perm);
+        if (entries == null) {
+            Vector<String> nodes = getNodes(name);
+            entries = new ACLDecisions.Entries(
+                    getEntries(ACLEntry.Type.ALLOW, nodes, perm),
+                    getEntries(ACLEntry.Type.DENY, nodes, perm));
+            decisions.putEntries(name, perm, entries);
+        }
+
+        String key = decisions.createKey(authToken, entries, name, perm, order);
+        ACLDecisions.Decision decision = key == null ? null : decisions.get(key);
+
+        if (decision == null) {
+            decision = evaluate(authToken, entries);
+            if (key != null) {
+                decisions.put(key, decision);
+            }
+        } else {
+            logger.debug("AAclAuthz: Found cached decision: " + decision);
+        }
 
-        boolean permitted = false;
-        if (order == EvaluationOrder.DENY_ALLOW) {
-            checkDenyEntries(authToken, nodes, perm);
-            permitted = checkAllowEntries(authToken, nodes, perm);
-        } else if (order == EvaluationOrder.ALLOW_DENY) {
-            permitted = checkAllowEntries(authToken, nodes, perm);
-            checkDenyEntries(authToken, nodes, perm);
+        if (decision == ACLDecisions.Decision.DENIED) {
+            logger.error("AAclAuthz: checkPermission(): permission denied");
+            throw new EACLsException(CMS.getUserMessage("CMS_ACL_PERMISSION_DENIED"));
         }
 
-        if (!permitted) {
+        if (decision == ACLDecisions.Decision.NOT_PERMITTED) {
             String[] params = new String[2];
             params[0] = name;
             params[1] = perm;
@@ -508,6 +551,29 @@ public abstract class AAclAuthz extends AuthzManager {
         logger.info("AAclAuthz: Granting " + perm + " permission for " + name);
     }
 
+    /**
+     * Evaluates the compiled entries. A matching deny entry
+     * takes precedence regardless of the evaluation order.
+     */
+    private ACLDecisions.Decision evaluate(AuthToken authToken, ACLDecisions.Entries entries) {
+
+        for (ACLEntry entry : entries.getDenyEntries()) {
+            logger.debug("checkDenyEntries(): expressions: " + entry.getAttributeExpressions());
+            if (evaluateExpressions(authToken, entry.getAttributeExpressions())) {
+                return ACLDecisions.Decision.DENIED;
+            }
+        }
+
+        for (ACLEntry entry : entries.getAllowEntries()) {
+            logger.debug("checkAllowEntries(): expressions: " + entry.getAttributeExpressions());
+            if (evaluateExpressions(authToken, entry.getAttributeExpressions())) {
+                return ACLDecisions.Decision.GRANTED;
+            }
+        }
+
+        return ACLDecisions.Decision.NOT_PERMITTED;
+    }
+
     protected boolean checkAllowEntries(
             AuthToken authToken,
             Iterable<String> nodes,
@@ -739,6 +805,7 @@ public abstract class AAclAuthz extends AuthzManager {
         }
 
         mACLs.put(ac.getName(), ac);
+        invalidateDecisions();
     }
 
     /**
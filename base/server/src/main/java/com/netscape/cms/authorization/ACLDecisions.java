@@ -0,0 +1,193 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cms.authorization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.dogtagpki.server.authentication.AuthToken;
+
+import com.netscape.certsrv.acls.ACLEntry;
+
+/**
+ * Compiled ACL entries and cached authorization decisions for one
+ * version of the ACLs. A new instance is created whenever the ACLs
+ * or the evaluators change, so entries and decisions never need to
+ * be invalidated individually.
+ *
+ * Decisions are only cached for entries whose expressions depend on
+ * the user and groups in the AuthToken, which are part of the cache
+ * key. Changes to group membership are reflected by the groups of
+ * new AuthTokens.
+ */
+class ACLDecisions {
+
+    public enum Decision { GRANTED, DENIED, NOT_PERMITTED }
+
+    // evaluator types which only depend on the cache key
+    static final List<String> CACHEABLE_TYPES = Arrays.asList("user", "group");
+
+    private int maxSize;
+    private Map<String, Entries> entries = new ConcurrentHashMap<>();
+    private Map<String, Decision> decisions = new ConcurrentHashMap<>();
+
+    public ACLDecisions(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public Entries getEntries(String resource, String operation) {
+        return entries.get(resource + ":" + operation);
+    }
+
+    public void putEntries(String resource, String operation, Entries e) {
+        entries.put(resource + ":" + operation, e);
+    }
+
+    /**
+     * Creates the decision cache key, or returns null if the decision
+     * for these entries cannot be cached for this AuthToken.
+     */
+    public String createKey(
+            AuthToken authToken,
+            Entries e,
+            String resource,
+            String operation,
+            AAclAuthz.EvaluationOrder order) {
+
+        if (maxSize <= 0 || authToken == null || !e.isCacheable()) {
+            return null;
+        }
+
+        String[] groups = authToken.getInStringArray(AuthToken.GROUPS);
+
+        if (e.usesGroups() && groups == null) {
+            // the evaluator would look up the group membership
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(order).append('\n');
+        sb.append(authToken.getInString(AuthToken.UID)).append('\n');
+        sb.append(authToken.getInString(AuthToken.USER_ID)).append('\n');
+
+        if (e.usesGroups()) {
+            String[] sortedGroups = groups.clone();
+            Arrays.sort(sortedGroups);
+            for (String group : sortedGroups) {
+                sb.append(group).append('\n');
+            }
+        }
+
+        sb.append('\n').append(resource).append('\n').append(operation);
+        return sb.toString();
+    }
+
+    public Decision get(String key) {
+        return decisions.get(key);
+    }
+
+    public void put(String key, Decision decision) {
+
+        if (!decisions.containsKey(key) && decisions.size() >= maxSize) {
+            // evict an arbitrary decision
+            Iterator<String> i = decisions.keySet().iterator();
+            if (i.hasNext()) {
+                decisions.remove(i.next());
+            }
+        }
+
+        decisions.put(key, decision);
+    }
+
+    public int size() {
+        return decisions.size();
+    }
+
+    /**
+     * Allow and deny entries which apply to a resource and operation,
+     * including the entries of the parent resources.
+     */
+    static class Entries {
+
+        private List<ACLEntry> allowEntries;
+        private List<ACLEntry> denyEntries;
+        private boolean cacheable = true;
+        private boolean usesGroups;
+
+        Entries(Iterable<ACLEntry> allowEntries, Iterable<ACLEntry> denyEntries) {
+            this.allowEntries = compile(allowEntries);
+            this.denyEntries = compile(denyEntries);
+        }
+
+        private List<ACLEntry> compile(Iterable<ACLEntry> entries) {
+
+            List<ACLEntry> list = new ArrayList<>();
+
+            for (ACLEntry entry : entries) {
+                list.add(entry);
+
+                String expressions = entry.getAttributeExpressions();
+                if (expressions == null) {
+                    continue;
+                }
+
+                for (String expression : expressions.split("\\|\\||&&")) {
+                    String type = getType(expression);
+                    if (!CACHEABLE_TYPES.contains(type)) {
+                        cacheable = false;
+                    } else if ("group".equals(type)) {
+                        usesGroups = true;
+                    }
+                }
+            }
+
+            return Collections.unmodifiableList(list);
+        }
+
+        private static String getType(String expression) {
+            int i = expression.indexOf('=');
+            if (i < 0) {
+                return null;
+            }
+            // strip the "!" of "!="
+            String type = expression.substring(0, i).trim();
+            return type.endsWith("!") ? type.substring(0, type.length() - 1).trim() : type;
+        }
+
+        public List<ACLEntry> getAllowEntries() {
+            return allowEntries;
+        }
+
+        public List<ACLEntry> getDenyEntries() {
+            return denyEntries;
+        }
+
+        public boolean isCacheable() {
+            return cacheable;
+        }
+
+        public boolean usesGroups() {
+            return usesGroups;
+        }
+    }
+}
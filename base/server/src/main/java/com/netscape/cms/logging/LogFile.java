@@ -23,6 +23,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.CharArrayReader;
 import java.io.CharArrayWriter;
 import java.io.File;
+import java.io.FileDescriptor;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
@@ -43,14 +44,21 @@ import java.security.Signature;
 import java.security.SignatureException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.servlet.ServletException;
 
@@ -139,7 +147,9 @@ public class LogFile extends LogEventListener implements IExtendedPluginInfo {
     protected SimpleDateFormat mLogDateFormat = new SimpleDateFormat(mDatePattern);
 
     /**
-     * The date object used for log entries
+     * The date object used for log entries. Events are formatted
+     * by the threads that log them, so mDate and mLogDateFormat
+     * are only used while holding the lock on mLogDateFormat.
      */
     protected Date mDate = new Date();
 
@@ -168,6 +178,55 @@ public class LogFile extends LogEventListener implements IExtendedPluginInfo {
      */
     private Thread mFlushThread = null;
 
+    /**
+     * Write the log events in a separate thread
+     */
+    protected boolean mAsync = false;
+
+    /**
+     * The maximum number of events waiting for the writer thread
+     */
+    protected int mQueueSize = LoggerConfig.DEFAULT_QUEUE_SIZE;
+
+    /**
+     * The maximum time in milliseconds between two syncs to disk
+     */
+    protected int mSyncInterval = 0;
+
+    /**
+     * The maximum number of events between two syncs to disk
+     */
+    protected int mSyncEvents = 0;
+
+    /**
+     * The events waiting for the writer thread
+     */
+    private BlockingQueue<QueuedEntry> mLogQueue = null;
+
+    /**
+     * The asynchronous writer thread
+     */
+    private volatile WriterThread mWriterThread = null;
+
+    /**
+     * Held for reading while an event is queued and for writing
+     * while the writer thread is being stopped, so no event can be
+     * queued after the writer has drained the queue
+     */
+    private final ReadWriteLock mWriterLock = new ReentrantReadWriteLock();
+
+    /**
+     * The log file descriptor used to sync the log to disk
+     */
+    private FileDescriptor mFileDescriptor = null;
+
+    /**
+     * The number of events written since the last sync
+     */
+    private int mUnsyncedEvents = 0;
+
+    private long mLastSyncTime = System.currentTimeMillis();
+
     /**
      * The mandatory log event types
      */
@@ -320,6 +379,10 @@ public class LogFile extends LogEventListener implements IExtendedPluginInfo {
                 throw e;
             }
         }
+
+        if (mOn && mAsync) {
+            startWriter();
+        }
     }
 
     /**
@@ -456,6 +519,11 @@ public class LogFile extends LogEventListener implements IExtendedPluginInfo {
             throw new ELogException(message, e);
         }
 
+        mAsync = config.getAsync();
+        mQueueSize = config.getQueueSize();
+        mSyncInterval = config.getSyncInterval();
+        mSyncEvents = config.getSyncEvents();
+
         if (mOn) {
             init(fileName, config.getBufferSize(), config.getFlushInterval());
         }
@@ -706,8 +774,9 @@ public class LogFile extends LogEventListener implements IExtendedPluginInfo {
                     logger.warn(message, e);
                 }
             }
+            mFileDescriptor = out.getFD();
             mLogWriter = new BufferedWriter(
-                        new FileWriter(out.getFD()), mBufferSize);
+                        new FileWriter(mFileDescriptor), mBufferSize);
 
             // The first time we open, mSignature will not have been
             // initialized yet. That's ok, we will push our first signature
@@ -791,7 +860,7 @@ public class LogFile extends LogEventListener implements IExtendedPluginInfo {
      * </ul>
      */
     @Override
-    public synchronized void shutdown() {
+    public void shutdown() {
 
         logger.info("Destroying LogFile(" + mFileName + ")");
 
@@ -808,9 +877,100 @@ public class LogFile extends LogEventListener implements IExtendedPluginInfo {
 
         auditor.log(auditMessage);
 
+        // write the remaining events without holding
+        // the lock needed by the writer thread
+        stopWriter();
+
         close();
     }
 
+    /**
+     * Start the asynchronous writer thread.
+     */
+    protected synchronized void startWriter() {
+
+        if (mWriterThread != null) {
+            return;
+        }
+
+        logger.info("LogFile: Starting asynchronous writer for " + mFileName);
+
+        mLogQueue = new ArrayBlockingQueue<>(mQueueSize);
+        mLastSyncTime = System.currentTimeMillis();
+
+        mWriterThread = new WriterThread();
+        mWriterThread.setDaemon(true);
+        mWriterThread.start();
+    }
+
+    /**
+     * Stop the asynchronous writer thread after it has
+     * written all queued events.
+     */
+    protected void stopWriter() {
+
+        WriterThread writerThread = mWriterThread;
+        if (writerThread == null) {
+            return;
+        }
+
+        logger.info("LogFile: Stopping asynchronous writer for " + mFileName);
+
+        // wait for events being queued, new events will be written directly
+        mWriterLock.writeLock().lock();
+        try {
+            mWriterThread = null;
+        } finally {
+            mWriterLock.writeLock().unlock();
+        }
+
+        writerThread.running = false;
+
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // write events queued while the writer was stopping
+        synchronized (this) {
+            QueuedEntry entry;
+            while ((entry = mLogQueue.poll()) != null) {
+                try {
+                    doLog(entry, false);
+                } catch (ELogException e) {
+                    // the failure has already been reported
+                }
+            }
+        }
+    }
+
+    /**
+     * Flush the log file and sync it to disk. This does not
+     * push a new signature, so the signature chain is the same
+     * regardless of how often the log is synced.
+     */
+    protected synchronized void sync() throws IOException {
+
+        if (mLogWriter != null) {
+            mLogWriter.flush();
+        }
+
+        if (mFileDescriptor != null && mFileDescriptor.valid()) {
+            mFileDescriptor.sync();
+        }
+
+        mUnsyncedEvents = 0;
+        mLastSyncTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Check the log file after events have been written, for example
+     * to rotate the log. Called while holding the lock on this log.
+     */
+    protected void checkFileSize() throws ELogException {
+    }
+
     /**
      * Set the flush interval
      * <P>
@@ -873,12 +1033,179 @@ public class LogFile extends LogEventListener implements IExtendedPluginInfo {
     }
 
     /**
-     * Synchronized method to write an event to the log file.
+     * Asynchronous log writer thread. Takes the events queued by doLog()
+     * in batches, writes and signs them while holding the lock on the log,
+     * and syncs the log to disk according to the sync interval and the
+     * number of events. For signed logs the events of a batch are added
+     * to the signature chain in order and the batch is committed with a
+     * single signature and flush.
+     */
+    final class WriterThread extends Thread {
+
+        private static final int MAX_BATCH_SIZE = 512;
+
+        volatile boolean running = true;
+
+        public WriterThread() {
+            super();
+            super.setName(mFileName + ".writer-" + (Thread.activeCount() + 1));
+        }
+
+        @Override
+        public void run() {
+
+            List<QueuedEntry> batch = new ArrayList<>(MAX_BATCH_SIZE);
+            long timeout = mSyncInterval > 0 ? mSyncInterval : 1000;
+
+            while (true) {
+                QueuedEntry entry;
+                try {
+                    entry = mLogQueue.poll(timeout, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    entry = null;
+                }
+
+                if (entry == null) {
+                    if (!running && mLogQueue.isEmpty()) {
+                        break;
+                    }
+                    commit(batch);
+                    continue;
+                }
+
+                batch.add(entry);
+                mLogQueue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                commit(batch);
+                batch.clear();
+            }
+
+            synchronized (LogFile.this) {
+                try {
+                    if (mUnsyncedEvents > 0) {
+                        sync();
+                    }
+                } catch (IOException e) {
+                    handleSyncFailure(e);
+                }
+            }
+        }
+
+        private void commit(List<QueuedEntry> batch) {
+
+            synchronized (LogFile.this) {
+
+                for (QueuedEntry entry : batch) {
+                    try {
+                        // signed logs are flushed once per batch below
+                        doLog(entry, mLogSigning);
+                    } catch (ELogException e) {
+                        // the failure has already been reported
+                    }
+                }
+
+                if (mLogSigning && !batch.isEmpty()) {
+                    // sign the batch and write it out
+                    flush();
+                }
+
+                mUnsyncedEvents += batch.size();
+
+                try {
+                    long now = System.currentTimeMillis();
+                    boolean syncEvents = mSyncEvents > 0 && mUnsyncedEvents >= mSyncEvents;
+                    boolean syncInterval = mSyncInterval > 0 && mUnsyncedEvents > 0
+                            && now - mLastSyncTime >= mSyncInterval;
+
+                    if (syncEvents || syncInterval) {
+                        sync();
+                    }
+
+                } catch (IOException e) {
+                    handleSyncFailure(e);
+                }
+
+                try {
+                    checkFileSize();
+                } catch (ELogException e) {
+                    logger.error("LogFile: " + e.getMessage(), e);
+                }
+            }
+        }
+
+        private void handleSyncFailure(IOException e) {
+            String message = CMS.getUserMessage("CMS_LOG_FLUSH_LOG_FAILED", mFileName, e.getMessage());
+            logger.error("LogFile: " + message, e);
+            System.err.println(message);
+            if (mLogSigning) {
+                // Failed to write to audit log, shut down CMS
+                shutdownCMS();
+            }
+        }
+    }
+
+    /**
+     * Log event formatted by the thread that generated it.
+     */
+    static class QueuedEntry {
+
+        String entry;
+        String trace;
+
+        QueuedEntry(String entry, String trace) {
+            this.entry = entry;
+            this.trace = trace;
+        }
+    }
+
+    /**
+     * Write an event to the log file. If the log is asynchronous the
+     * event is formatted in the calling thread and queued for the
+     * writer thread, otherwise it is written while holding the lock.
      *
      * @param event The log event
      */
-    protected synchronized void doLog(LogEvent event) throws ELogException {
-        doLog(event, false);
+    protected void doLog(LogEvent event) throws ELogException {
+
+        QueuedEntry entry = new QueuedEntry(logEvt2String(event), mTrace ? getTrace() : null);
+
+        mWriterLock.readLock().lock();
+        try {
+            WriterThread writerThread = mWriterThread;
+            if (writerThread != null && enqueue(writerThread, entry)) {
+                return;
+            }
+        } finally {
+            mWriterLock.readLock().unlock();
+        }
+
+        synchronized (this) {
+            doLog(entry, false);
+            checkFileSize();
+        }
+    }
+
+    /**
+     * Queue an event for the writer thread. If the queue is full this
+     * waits for the writer to catch up rather than dropping the event.
+     *
+     * @return false if the writer thread is no longer running and the
+     *         event has to be written by the calling thread
+     */
+    private boolean enqueue(WriterThread writerThread, QueuedEntry entry) throws ELogException {
+
+        try {
+            while (!mLogQueue.offer(entry, 100, TimeUnit.MILLISECONDS)) {
+                if (!writerThread.isAlive()) {
+                    return false;
+                }
+            }
+            return true;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ELogException(CMS.getUserMessage("CMS_LOG_WRITE_FAILED",
+                    mFileName, entry.entry, e.toString()), e);
+        }
     }
 
     // Standard line separator byte. We always sign this line separator,
@@ -893,8 +1220,13 @@ public class LogFile extends LogEventListener implements IExtendedPluginInfo {
      */
     private synchronized void doLog(LogEvent event, boolean noFlush)
             throws ELogException {
+        doLog(new QueuedEntry(logEvt2String(event), mTrace ? getTrace() : null), noFlush);
+    }
+
+    private synchronized void doLog(QueuedEntry logEntry, boolean noFlush)
+            throws ELogException {
 
-        String entry = logEvt2String(event);
+        String entry = logEntry.entry;
 
         if (mLogWriter == null) {
             String[] params = { mFileName, entry };
@@ -920,36 +1252,8 @@ public class LogFile extends LogEventListener implements IExtendedPluginInfo {
                     logger.warn("LogFile: missing audit log signature");
                 }
             }
-            if (mTrace) {
-                CharArrayWriter cw = new CharArrayWriter(200);
-                PrintWriter pw = new PrintWriter(cw);
-                Exception e = new Exception();
-                e.printStackTrace(pw);
-                char[] c = cw.toCharArray();
-                cw.close();
-                pw.close();
-
-                CharArrayReader cr = new CharArrayReader(c);
-                LineNumberReader lr = new LineNumberReader(cr);
-
-                String text = null;
-                String method = null;
-                String fileAndLine = null;
-                if (lr.ready()) {
-                    text = lr.readLine();
-                    do {
-                        text = lr.readLine();
-                    } while (text.indexOf("logging") != -1);
-                    int p = text.indexOf("(");
-                    fileAndLine = text.substring(p);
-
-                    String classandmethod = text.substring(0, p);
-                    int q = classandmethod.lastIndexOf(".");
-                    method = classandmethod.substring(q + 1);
-                    mLogWriter.write(fileAndLine, 0/*offset*/, fileAndLine.length());
-                    mLogWriter.write(" ", 0/*offset*/, " ".length());
-                    mLogWriter.write(method, 0/*offset*/, method.length());
-                }
+            if (logEntry.trace != null) {
+                mLogWriter.write(logEntry.trace, 0/*offset*/, logEntry.trace.length());
             }
             mLogWriter.newLine();
 
@@ -1009,6 +1313,48 @@ public class LogFile extends LogEventListener implements IExtendedPluginInfo {
         }
     }
 
+    /**
+     * Returns the location of the caller outside of the logging
+     * code in the form "(file:line) method", or null if unknown.
+     */
+    private String getTrace() {
+
+        try {
+            CharArrayWriter cw = new CharArrayWriter(200);
+            PrintWriter pw = new PrintWriter(cw);
+            Exception e = new Exception();
+            e.printStackTrace(pw);
+            char[] c = cw.toCharArray();
+            cw.close();
+            pw.close();
+
+            CharArrayReader cr = new CharArrayReader(c);
+            LineNumberReader lr = new LineNumberReader(cr);
+
+            String text = null;
+            String method = null;
+            String fileAndLine = null;
+            if (lr.ready()) {
+                text = lr.readLine();
+                do {
+                    text = lr.readLine();
+                } while (text.indexOf("logging") != -1);
+                int p = text.indexOf("(");
+                fileAndLine = text.substring(p);
+
+                String classandmethod = text.substring(0, p);
+                int q = classandmethod.lastIndexOf(".");
+                method = classandmethod.substring(q + 1);
+                return fileAndLine + " " + method;
+            }
+
+        } catch (IOException e) {
+            logger.warn("LogFile: Unable to get trace: " + e.getMessage(), e);
+        }
+
+        return null;
+    }
+
     /**
      * Write an event to the log file
      *
@@ -1196,22 +1542,24 @@ public class LogFile extends LogEventListener implements IExtendedPluginInfo {
 
     public String logEvt2String(LogEvent ev) {
         String entry = null;
+        String date;
 
-        // Hmm.. multiple threads could hit this and reset the time.
-        // Do we care?
-        mDate.setTime(ev.getTimeStamp());
+        synchronized (mLogDateFormat) {
+            mDate.setTime(ev.getTimeStamp());
+            date = mLogDateFormat.format(mDate);
+        }
 
         // XXX
         // This should follow the Common Log Format which still needs
         // some work.
         if (ev.getMultiline() == ILogger.L_MULTILINE) {
             entry = engine.getPID() + "." + Thread.currentThread().getName() + " - ["
-                    + mLogDateFormat.format(mDate) + "] [" +
+                    + date + "] [" +
                     ev.getSource().value() + "] [" + Integer.toString(ev.getLevel())
                     + "] " + prepareMultiline(ev.toString());
         } else {
             entry = engine.getPID() + "." + Thread.currentThread().getName() + " - ["
-                    + mLogDateFormat.format(mDate) + "] [" +
+                    + date + "] [" +
                     ev.getSource().value() + "] [" + Integer.toString(ev.getLevel())
                     + "] " + ev.toString();
         }
@@ -22,6 +22,7 @@ import java.io.FileNotFoundException;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.Date;
 import java.util.Hashtable;
 import java.util.Vector;
 
@@ -36,7 +37,6 @@ import com.netscape.certsrv.common.NameValuePairs;
 import com.netscape.certsrv.logging.AuditEvent;
 import com.netscape.certsrv.logging.ELogException;
 import com.netscape.certsrv.logging.ILogger;
-import com.netscape.certsrv.logging.LogEvent;
 import com.netscape.cmscore.apps.CMS;
 import com.netscape.cmscore.logging.Auditor;
 import com.netscape.cmscore.logging.LoggerConfig;
@@ -137,7 +137,7 @@ public class RollingLogFile extends LogFile {
      * Shutdown this log file.
      */
     @Override
-    public synchronized void shutdown() {
+    public void shutdown() {
         logger.debug("Destroying RollingLogFile(" + mFileName + ")");
         setRolloverTime("0");
         setExpirationTime("0");
@@ -218,7 +218,12 @@ public class RollingLogFile extends LogFile {
     public synchronized void rotate()
             throws IOException {
 
-        File backupFile = new File(mFileName + "." + mLogFileDateFormat.format(mDate));
+        Date date;
+        synchronized (mLogDateFormat) {
+            date = (Date) mDate.clone();
+        }
+
+        File backupFile = new File(mFileName + "." + mLogFileDateFormat.format(date));
 
         // close, backup, and reopen the log file zeroizing its contents
         super.close();
@@ -489,14 +494,12 @@ public class RollingLogFile extends LogFile {
     }
 
     /**
-     * Write an event to the log file
-     *
-     * @param ev The event to be logged.
+     * Rotate the log file if it exceeds the maximum size. This is
+     * called after the events are written, either by the thread that
+     * logged the event or by the asynchronous writer thread.
      **/
     @Override
-    public synchronized void log(LogEvent ev) throws ELogException {
-        //xxx, Shall we log first without checking if it exceed the maximum?
-        super.log(ev); // Will increment mBytesWritten
+    protected synchronized void checkFileSize() throws ELogException {
 
         if ((0 != mMaxFileSize) && (mBytesWritten > mMaxFileSize)) {
             flush();
@@ -248,10 +248,15 @@ public class CloneServlet extends CMSServlet {
             return;
         }
 
-        // encode reply
-        String encodedrep = mReqEncoder.encode(replymsg);
+        // encode reply in the compact format if supported by the client
+        boolean compact = HttpRequestEncoder.COMPACT_FORMAT.equals(
+                req.getHeader(HttpRequestEncoder.FORMAT_HEADER));
+        String encodedrep = mReqEncoder.encode(replymsg, compact);
 
         resp.setStatus(HttpServletResponse.SC_OK);
+        if (compact) {
+            resp.setHeader(HttpRequestEncoder.FORMAT_HEADER, HttpRequestEncoder.COMPACT_FORMAT);
+        }
         resp.setContentType("text/html");
         resp.setContentLength(encodedrep.length());
 
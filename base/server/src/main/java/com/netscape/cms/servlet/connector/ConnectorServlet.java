@@ -304,11 +304,17 @@ public class ConnectorServlet extends CMSServlet {
 
         logger.info("ConnectorServlet: Request processed");
 
-        // encode reply
+        // encode reply in the compact format if supported by the client
+        boolean compact = HttpRequestEncoder.COMPACT_FORMAT.equals(
+                req.getHeader(HttpRequestEncoder.FORMAT_HEADER));
+
         try {
-            String encodedrep = mReqEncoder.encode(replymsg);
+            String encodedrep = mReqEncoder.encode(replymsg, compact);
 
             resp.setStatus(HttpServletResponse.SC_OK);
+            if (compact) {
+                resp.setHeader(HttpRequestEncoder.FORMAT_HEADER, HttpRequestEncoder.COMPACT_FORMAT);
+            }
             resp.setContentType("text/html");
             resp.setContentLength(encodedrep.length());
 
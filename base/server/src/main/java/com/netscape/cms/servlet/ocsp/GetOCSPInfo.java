@@ -139,6 +139,9 @@ public class GetOCSPInfo extends CMSServlet {
         header.addLongValue("totalSignSec", ca.getOCSPTotalSignTime());
         header.addLongValue("totalLookupSec", ca.getOCSPTotalLookupTime());
         header.addLongValue("totalData", ca.getOCSPTotalData());
+        header.addLongValue("numSigned", ca.getOCSPNumSignedResponses());
+        header.addLongValue("cacheHits", ca.getOCSPResponseCacheHits());
+        header.addLongValue("cacheMisses", ca.getOCSPResponseCacheMisses());
         long secs = 0;
 
         if (ca.getOCSPRequestTotalTime() != 0) {
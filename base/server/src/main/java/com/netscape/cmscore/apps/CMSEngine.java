@@ -761,6 +761,7 @@ public class CMSEngine {
         PasswordStore passwordStore = getPasswordStore();
 
         ugSubsystem.init(ldapConfig, socketConfig, passwordStore);
+        ugSubsystem.initCache(ugConfig);
     }
 
     public void initOIDLoaderSubsystem() throws Exception {
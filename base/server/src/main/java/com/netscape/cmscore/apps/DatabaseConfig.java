@@ -68,6 +68,8 @@ public class DatabaseConfig extends ConfigStore {
 
     public static final String ENABLE_SERIAL_MGMT = "enableSerialManagement";
 
+    public static final String ENABLE_COMPACT_CRL_CACHE = "enableCompactCRLCache";
+
     public DatabaseConfig(ConfigStorage storage) {
         super(storage);
     }
@@ -108,6 +110,20 @@ public class DatabaseConfig extends ConfigStore {
         putBoolean(ENABLE_SERIAL_MGMT, enableSerialManagement);
     }
 
+    /**
+     * Returns true if the CRL cache should be stored in the compact
+     * format with a change log. This should only be enabled once the
+     * schema has been upgraded and all replicas run a version that
+     * can read the compact format.
+     */
+    public boolean getEnableCompactCRLCache() throws EBaseException {
+        return getBoolean(ENABLE_COMPACT_CRL_CACHE, false);
+    }
+
+    public void setEnableCompactCRLCache(boolean enableCompactCRLCache) {
+        putBoolean(ENABLE_COMPACT_CRL_CACHE, enableCompactCRLCache);
+    }
+
     public String getSerialDN() throws EBaseException {
         return getString(SERIAL_BASEDN, "");
     }
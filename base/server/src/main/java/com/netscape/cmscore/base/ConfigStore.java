@@ -27,11 +27,13 @@ import java.io.PrintWriter;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.math.BigInteger;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.mozilla.jss.netscape.security.util.Utils;
 import org.mozilla.jss.util.Base64OutputStream;
@@ -94,6 +96,12 @@ import com.netscape.cmscore.apps.CMS;
  *
  * The chain ends when the store name is reduced down to it's original
  * value.
+ *
+ * The source indexes the property names by their components so
+ * sub-store and property names are found in time proportional to the
+ * depth of the store rather than the size of the configuration.
+ * Sub-store views of existing sub-stores are cached since they are
+ * requested repeatedly.
  */
 public class ConfigStore implements Cloneable {
 
@@ -113,6 +121,12 @@ public class ConfigStore implements Cloneable {
 
     protected ConfigStorage storage;
 
+    // constructors of sub-store classes
+    private static final Map<Class<?>, Constructor<?>> constructors = new ConcurrentHashMap<>();
+
+    // sub-store views by class and name
+    private Map<String, ConfigStore> subStores = new ConcurrentHashMap<>();
+
     public ConfigStore() {
         mSource = new SimpleProperties();
     }
@@ -173,17 +187,6 @@ public class ConfigStore implements Cloneable {
         return mSource.get(getFullName(name));
     }
 
-    /**
-     * Retrieves a property from the configuration file. Does not prepend
-     * the config store name to the property.
-     *
-     * @param name property name
-     * @return property value
-     */
-    private String nakedGet(String name) {
-        return mSource.get(name);
-    }
-
     /**
      * Puts a property into the configuration file. The
      * values wont be updated to the file until save
@@ -248,20 +251,7 @@ public class ConfigStore implements Cloneable {
      * @param map the map
      */
     private synchronized void enumerate(Map<String, String> map) {
-        Enumeration<String> e = mSource.keys();
-        // We only want the keys which match the current substore name
-        // without the current substore prefix.  This code works even
-        // if mStoreName is null.
-        String fullName = getFullName("");
-        int kIndex = fullName.length();
-
-        while (e.hasMoreElements()) {
-            String key = e.nextElement();
-
-            if (key.startsWith(fullName)) {
-                map.put(key.substring(kIndex), nakedGet(key));
-            }
-        }
+        mSource.getProperties(mStoreName, map);
     }
 
     /**
@@ -661,9 +651,20 @@ public class ConfigStore implements Cloneable {
          mSource.put(getFullName(PROP_SUBSTORES), name);
          */
 
+        return createStore(clazz, fullname);
+    }
+
+    /**
+     * Creates a view of a store in the same source.
+     */
+    <T extends ConfigStore> T createStore(Class<T> clazz, String name) {
         try {
-            Constructor<T> constructor = clazz.getDeclaredConstructor(String.class, SimpleProperties.class);
-            return constructor.newInstance(fullname, mSource);
+            Constructor<?> constructor = constructors.get(clazz);
+            if (constructor == null) {
+                constructor = clazz.getDeclaredConstructor(String.class, SimpleProperties.class);
+                constructors.put(clazz, constructor);
+            }
+            return clazz.cast(constructor.newInstance(name, mSource));
 
         } catch (NoSuchMethodException | InvocationTargetException
                 | IllegalAccessException | InstantiationException | IllegalArgumentException e) {
@@ -677,21 +678,7 @@ public class ConfigStore implements Cloneable {
      * @param name substore name
      */
     public void removeSubStore(String name) {
-        // this operation is expensive!!!
-
-        Enumeration<String> e = mSource.keys();
-        // We only want the keys which match the current substore name
-        // without the current substore prefix.  This code works even
-        // if mStoreName is null.
-        String fullName = getFullName(name);
-
-        while (e.hasMoreElements()) {
-            String key = e.nextElement();
-
-            if (key.startsWith(fullName + ".")) {
-                ((Hashtable<String, String>) mSource).remove(key);
-            }
-        }
+        mSource.removeProperties(getFullName(name));
     }
 
     /**
@@ -722,14 +709,24 @@ public class ConfigStore implements Cloneable {
 
         String fullname = getFullName(name);
         String reference = mSource.get(fullname);
+        String storeName = reference == null ? fullname : reference;
 
-        try {
-            Constructor<T> constructor = clazz.getDeclaredConstructor(String.class, SimpleProperties.class);
-            return reference == null ? constructor.newInstance(fullname, mSource) : constructor.newInstance(reference, mSource);
-        } catch (NoSuchMethodException | InvocationTargetException
-                | IllegalAccessException | InstantiationException | IllegalArgumentException e) {
-            throw new RuntimeException(e);
+        String key = clazz.getName() + ":" + name;
+        ConfigStore subStore = subStores.get(key);
+
+        if (subStore != null && subStore.mSource == mSource && storeName.equals(subStore.mStoreName)) {
+            return clazz.cast(subStore);
+        }
+
+        T store = createStore(clazz, storeName);
+
+        // only cache existing sub-stores so lookups of arbitrary
+        // names cannot fill the cache
+        if (mSource.containsStore(storeName)) {
+            subStores.put(key, store);
         }
+
+        return store;
     }
 
     /**
@@ -738,19 +735,7 @@ public class ConfigStore implements Cloneable {
      * @return a list of string-based property names
      */
     public Enumeration<String> getPropertyNames() {
-        // XXX - this operation is expensive!!!
-        Map<String, String> map = getProperties();
-
-        Vector<String> v = new Vector<>();
-        for (String name : map.keySet()) {
-            int i = name.indexOf('.'); // substores have "."
-            if (i >= 0) continue;
-            if (v.contains(name)) continue;
-
-            v.addElement(name);
-        }
-
-        return v.elements();
+        return Collections.enumeration(mSource.getPropertyNames(mStoreName));
     }
 
     /**
@@ -759,21 +744,7 @@ public class ConfigStore implements Cloneable {
      * @return list of substore names
      */
     public Vector<String> getSubStoreNames() {
-        // XXX - this operation is expensive!!!
-        Map<String, String> map = getProperties();
-
-        Vector<String> v = new Vector<>();
-        for (String name : map.keySet()) {
-            int i = name.indexOf('.'); // substores have "."
-            if (i < 0) continue;
-
-            name = name.substring(0, i);
-            if (v.contains(name)) continue;
-
-            v.addElement(name);
-        }
-
-        return v;
+        return new Vector<>(mSource.getSubStoreNames(mStoreName));
     }
 
     /**
@@ -824,9 +795,11 @@ public class ConfigStore implements Cloneable {
     public Object clone() {
         try {
             ConfigStore that = (ConfigStore) super.clone();
+            that.subStores = new ConcurrentHashMap<>();
 
             mStoreName = getName();
             mSource = new SimpleProperties();
+            subStores.clear();
             Enumeration<String> subs = getSubStoreNames().elements();
 
             while (subs.hasMoreElements()) {
@@ -22,13 +22,22 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * The <code>Properties</code> class represents a persistent set of
@@ -45,6 +54,10 @@ import java.util.Hashtable;
  * should be used instead. If the <code>store</code> or <code>save</code> method is called on a "compromised"
  * <code>Properties</code> object that contains a non- <code>String</code> key or value, the call will fail.
  *
+ * The keys are also indexed in a tree of their dot-separated components
+ * so the properties and sub-stores under a prefix can be found without
+ * scanning all keys. The index is maintained by the Map methods; keys
+ * must not be removed through the key set or entry set views.
  */
 public class SimpleProperties extends Hashtable<String, String> {
 
@@ -61,6 +74,38 @@ public class SimpleProperties extends Hashtable<String, String> {
      */
     protected SimpleProperties defaults;
 
+    /**
+     * Node of the key index. The path from the root to a node is
+     * a key or a prefix of keys.
+     */
+    static class Node {
+
+        Map<String, Node> children;
+
+        // whether the path to this node is a key
+        boolean key;
+
+        Node getChild(String name) {
+            return children == null ? null : children.get(name);
+        }
+
+        Node addChild(String name) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            return children.computeIfAbsent(name, n -> new Node());
+        }
+
+        boolean isEmpty() {
+            return !key && (children == null || children.isEmpty());
+        }
+    }
+
+    // orders sub-store names as if they were sorted by their property names
+    static final Comparator<String> SUBSTORE_ORDER = Comparator.comparing(name -> name + ".");
+
+    protected transient Node index = new Node();
+
     /**
      * Creates an empty property list with no default values.
      */
@@ -88,6 +133,291 @@ public class SimpleProperties extends Hashtable<String, String> {
         return put(key, value);
     }
 
+    static String[] split(String name) {
+        return name.split("\\.", -1);
+    }
+
+    void addToIndex(String key) {
+        Node node = index;
+        for (String part : split(key)) {
+            node = node.addChild(part);
+        }
+        node.key = true;
+    }
+
+    void removeFromIndex(String key) {
+        removeFromIndex(index, split(key), 0);
+    }
+
+    /**
+     * Removes a key under a node and prunes the nodes which
+     * no longer lead to a key.
+     */
+    void removeFromIndex(Node node, String[] parts, int i) {
+
+        if (i == parts.length) {
+            node.key = false;
+            return;
+        }
+
+        Node child = node.getChild(parts[i]);
+        if (child == null) {
+            return;
+        }
+
+        removeFromIndex(child, parts, i + 1);
+
+        if (child.isEmpty()) {
+            node.children.remove(parts[i]);
+        }
+    }
+
+    void updateIndex(Object key) {
+
+        if (!(key instanceof String)) {
+            return;
+        }
+
+        String name = (String) key;
+
+        if (containsKey(name)) {
+            addToIndex(name);
+        } else {
+            removeFromIndex(name);
+        }
+    }
+
+    /**
+     * Finds the index node of a store.
+     *
+     * @param storeName store name, or null for the top store
+     * @return the node, or null if there are no keys under the store
+     */
+    Node findNode(String storeName) {
+
+        if (storeName == null) {
+            return index;
+        }
+
+        Node node = index;
+        for (String part : split(storeName)) {
+            node = node.getChild(part);
+            if (node == null) {
+                return null;
+            }
+        }
+
+        return node;
+    }
+
+    @Override
+    public synchronized String put(String key, String value) {
+        String oldValue = super.put(key, value);
+        if (oldValue == null) {
+            addToIndex(key);
+        }
+        return oldValue;
+    }
+
+    @Override
+    public synchronized String remove(Object key) {
+        String oldValue = super.remove(key);
+        if (oldValue != null) {
+            updateIndex(key);
+        }
+        return oldValue;
+    }
+
+    @Override
+    public synchronized boolean remove(Object key, Object value) {
+        boolean removed = super.remove(key, value);
+        if (removed) {
+            updateIndex(key);
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized String putIfAbsent(String key, String value) {
+        String oldValue = super.putIfAbsent(key, value);
+        updateIndex(key);
+        return oldValue;
+    }
+
+    @Override
+    public synchronized String computeIfAbsent(String key, Function<? super String, ? extends String> function) {
+        String value = super.computeIfAbsent(key, function);
+        updateIndex(key);
+        return value;
+    }
+
+    @Override
+    public synchronized String computeIfPresent(
+            String key,
+            BiFunction<? super String, ? super String, ? extends String> function) {
+        String value = super.computeIfPresent(key, function);
+        updateIndex(key);
+        return value;
+    }
+
+    @Override
+    public synchronized String compute(
+            String key,
+            BiFunction<? super String, ? super String, ? extends String> function) {
+        String value = super.compute(key, function);
+        updateIndex(key);
+        return value;
+    }
+
+    @Override
+    public synchronized String merge(
+            String key,
+            String value,
+            BiFunction<? super String, ? super String, ? extends String> function) {
+        String newValue = super.merge(key, value, function);
+        updateIndex(key);
+        return newValue;
+    }
+
+    @Override
+    public synchronized void clear() {
+        super.clear();
+        index = new Node();
+    }
+
+    @Override
+    public synchronized Object clone() {
+        SimpleProperties clone = (SimpleProperties) super.clone();
+        clone.rebuildIndex();
+        return clone;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        rebuildIndex();
+    }
+
+    synchronized void rebuildIndex() {
+        index = new Node();
+        for (String key : keySet()) {
+            addToIndex(key);
+        }
+    }
+
+    /**
+     * Returns true if there are properties under a store.
+     *
+     * @param storeName store name
+     */
+    public synchronized boolean containsStore(String storeName) {
+        Node node = findNode(storeName);
+        return node != null && node.children != null && !node.children.isEmpty();
+    }
+
+    /**
+     * Returns the names of the properties directly under a store,
+     * i.e. the names without dots, in lexicographical order.
+     *
+     * @param storeName store name, or null for the top store
+     */
+    public synchronized List<String> getPropertyNames(String storeName) {
+
+        List<String> names = new ArrayList<>();
+
+        Node node = findNode(storeName);
+        if (node == null || node.children == null) {
+            return names;
+        }
+
+        for (Map.Entry<String, Node> entry : node.children.entrySet()) {
+            if (entry.getValue().key) {
+                names.add(entry.getKey());
+            }
+        }
+
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Returns the names of the sub-stores directly under a store
+     * in the order of their first property.
+     *
+     * @param storeName store name, or null for the top store
+     */
+    public synchronized List<String> getSubStoreNames(String storeName) {
+
+        List<String> names = new ArrayList<>();
+
+        Node node = findNode(storeName);
+        if (node == null || node.children == null) {
+            return names;
+        }
+
+        for (Map.Entry<String, Node> entry : node.children.entrySet()) {
+            Node child = entry.getValue();
+            if (child.children != null && !child.children.isEmpty()) {
+                names.add(entry.getKey());
+            }
+        }
+
+        names.sort(SUBSTORE_ORDER);
+        return names;
+    }
+
+    /**
+     * Fills the map with the properties under a store. The keys
+     * are relative to the store.
+     *
+     * @param storeName store name, or null for the top store
+     * @param map the map
+     */
+    public synchronized void getProperties(String storeName, Map<String, String> map) {
+
+        Node node = findNode(storeName);
+        if (node == null) {
+            return;
+        }
+
+        String prefix = storeName == null ? "" : storeName + ".";
+        collect(node, prefix, null, map);
+    }
+
+    void collect(Node node, String prefix, String name, Map<String, String> map) {
+
+        if (node.children == null) {
+            return;
+        }
+
+        for (Map.Entry<String, Node> entry : node.children.entrySet()) {
+
+            String childName = name == null ? entry.getKey() : name + "." + entry.getKey();
+            Node child = entry.getValue();
+
+            if (child.key) {
+                map.put(childName, get(prefix + childName));
+            }
+
+            collect(child, prefix, childName, map);
+        }
+    }
+
+    /**
+     * Removes all properties under a store.
+     *
+     * @param storeName store name
+     */
+    public synchronized void removeProperties(String storeName) {
+
+        Map<String, String> map = new HashMap<>();
+        getProperties(storeName, map);
+
+        String prefix = storeName + ".";
+        for (String name : map.keySet()) {
+            remove(prefix + name);
+        }
+    }
+
     private static final String keyValueSeparators = "=: \t\r\n\f";
 
     private static final String strictKeyValueSeparators = "=:";
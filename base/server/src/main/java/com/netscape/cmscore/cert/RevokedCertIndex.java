@@ -0,0 +1,237 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.cert;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+
+import org.mozilla.jss.netscape.security.x509.RevokedCertificate;
+
+/**
+ * Immutable table of revoked certificates sorted by serial number.
+ *
+ * The serial numbers are concatenated into a single byte array and
+ * the revocation dates are stored as a long array, so the table only
+ * needs a few objects regardless of the number of certificates.
+ * Lookups use binary search and can be done by multiple threads
+ * without locking.
+ */
+public class RevokedCertIndex {
+
+    /**
+     * Revocation time returned for certificates which are not
+     * listed or which are listed without revocation date.
+     */
+    public static final long NO_DATE = Long.MIN_VALUE;
+
+    public static final RevokedCertIndex EMPTY = new RevokedCertIndex(new byte[0], new int[] { 0 }, new long[0]);
+
+    // serial numbers in ascending order as returned by BigInteger.toByteArray()
+    private final byte[] serialNumbers;
+
+    // start of each serial number followed by the end of the last one
+    private final int[] offsets;
+
+    private final long[] times;
+
+    RevokedCertIndex(byte[] serialNumbers, int[] offsets, long[] times) {
+        this.serialNumbers = serialNumbers;
+        this.offsets = offsets;
+        this.times = times;
+    }
+
+    /**
+     * Creates an index from a table of revoked certificates.
+     */
+    public static RevokedCertIndex create(Map<BigInteger, RevokedCertificate> entries) {
+
+        if (entries == null || entries.isEmpty()) {
+            return EMPTY;
+        }
+
+        BigInteger[] keys = entries.keySet().toArray(new BigInteger[0]);
+        Arrays.sort(keys);
+
+        Builder builder = new Builder(keys.length);
+        for (BigInteger key : keys) {
+            builder.add(key, getTime(entries.get(key)));
+        }
+
+        return builder.build();
+    }
+
+    public static long getTime(RevokedCertificate entry) {
+        Date date = entry == null ? null : entry.getRevocationDate();
+        return date == null ? NO_DATE : date.getTime();
+    }
+
+    public int size() {
+        return times.length;
+    }
+
+    /**
+     * Returns the serial number at the given position.
+     */
+    public BigInteger getSerialNumber(int index) {
+        return new BigInteger(Arrays.copyOfRange(serialNumbers, offsets[index], offsets[index + 1]));
+    }
+
+    /**
+     * Returns the revocation time at the given position in milliseconds
+     * or NO_DATE if the certificate is listed without revocation date.
+     */
+    public long getRevocationTime(int index) {
+        return times[index];
+    }
+
+    public boolean contains(BigInteger serialNumber) {
+        return find(serialNumber.toByteArray()) >= 0;
+    }
+
+    /**
+     * Returns the revocation time of a certificate in milliseconds
+     * or NO_DATE if the certificate is not listed.
+     */
+    public long getRevocationTime(BigInteger serialNumber) {
+        int i = find(serialNumber.toByteArray());
+        return i < 0 ? NO_DATE : times[i];
+    }
+
+    /**
+     * Returns the revocation date of a certificate or null
+     * if the certificate is not listed.
+     */
+    public Date getRevocationDate(BigInteger serialNumber) {
+        long time = getRevocationTime(serialNumber);
+        return time == NO_DATE ? null : new Date(time);
+    }
+
+    int find(byte[] serialNumber) {
+
+        int low = 0;
+        int high = times.length - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int rc = compare(serialNumbers, offsets[mid], offsets[mid + 1] - offsets[mid], serialNumber);
+
+            if (rc < 0) {
+                low = mid + 1;
+            } else if (rc > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Compares two serial numbers in their minimal two's-complement
+     * encoding as returned by BigInteger.toByteArray().
+     */
+    static int compare(byte[] a, int aOffset, int aLength, byte[] b) {
+
+        boolean aNegative = aLength > 0 && a[aOffset] < 0;
+        boolean bNegative = b.length > 0 && b[0] < 0;
+
+        if (aNegative != bNegative) {
+            return aNegative ? -1 : 1;
+        }
+
+        if (aLength != b.length) {
+            // a longer negative number is smaller
+            int rc = Integer.compare(aLength, b.length);
+            return aNegative ? -rc : rc;
+        }
+
+        return Arrays.compareUnsigned(a, aOffset, aOffset + aLength, b, 0, b.length);
+    }
+
+    /**
+     * Creates an index from serial numbers added in ascending order.
+     */
+    public static class Builder {
+
+        private byte[] serialNumbers;
+        private int[] offsets;
+        private long[] times;
+
+        private int size;
+        private int length;
+
+        private BigInteger lastSerialNumber;
+
+        public Builder(int capacity) {
+            capacity = Math.max(capacity, 16);
+            serialNumbers = new byte[capacity * 8];
+            offsets = new int[capacity + 1];
+            times = new long[capacity];
+        }
+
+        public void add(BigInteger serialNumber, long time) {
+
+            if (lastSerialNumber != null && lastSerialNumber.compareTo(serialNumber) >= 0) {
+                throw new IllegalArgumentException(
+                        "Serial number not in ascending order: " + serialNumber);
+            }
+
+            byte[] bytes = serialNumber.toByteArray();
+
+            if (size == times.length) {
+                offsets = Arrays.copyOf(offsets, size * 2 + 1);
+                times = Arrays.copyOf(times, size * 2);
+            }
+
+            if (length + bytes.length > serialNumbers.length) {
+                serialNumbers = Arrays.copyOf(serialNumbers,
+                        Math.max(serialNumbers.length * 2, length + bytes.length));
+            }
+
+            offsets[size] = length;
+            System.arraycopy(bytes, 0, serialNumbers, length, bytes.length);
+            length += bytes.length;
+            times[size] = time;
+            size++;
+
+            lastSerialNumber = serialNumber;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public RevokedCertIndex build() {
+
+            if (size == 0) {
+                return EMPTY;
+            }
+
+            int[] o = Arrays.copyOf(offsets, size + 1);
+            o[size] = length;
+
+            return new RevokedCertIndex(
+                    Arrays.copyOf(serialNumbers, length),
+                    o,
+                    Arrays.copyOf(times, size));
+        }
+    }
+}
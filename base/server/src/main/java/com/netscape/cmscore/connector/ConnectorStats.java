@@ -0,0 +1,119 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.connector;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram of the requests sent to a remote authority.
+ */
+public class ConnectorStats {
+
+    // upper bounds of the histogram buckets in milliseconds,
+    // followed by a bucket for slower requests
+    public static final long[] BUCKETS = {
+            5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000
+    };
+
+    private String name;
+    private AtomicLongArray counts = new AtomicLongArray(BUCKETS.length + 1);
+    private AtomicLong requests = new AtomicLong();
+    private AtomicLong errors = new AtomicLong();
+    private AtomicLong totalTime = new AtomicLong();
+    private AtomicLong maxTime = new AtomicLong();
+
+    public ConnectorStats(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records a request.
+     *
+     * @param time round trip time in milliseconds
+     * @param success false if the request could not be sent
+     */
+    public void record(long time, boolean success) {
+
+        int i = 0;
+        while (i < BUCKETS.length && time > BUCKETS[i]) {
+            i++;
+        }
+
+        counts.incrementAndGet(i);
+        requests.incrementAndGet();
+        totalTime.addAndGet(time);
+        maxTime.accumulateAndGet(time, Math::max);
+
+        if (!success) {
+            errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of requests in each bucket of {@link #BUCKETS}
+     * followed by the number of slower requests.
+     */
+    public long[] getCounts() {
+        long[] result = new long[counts.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = counts.get(i);
+        }
+        return result;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getAverageTime() {
+        long n = requests.get();
+        return n == 0 ? 0 : totalTime.get() / n;
+    }
+
+    public long getMaxTime() {
+        return maxTime.get();
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(name);
+        sb.append(": requests=").append(getRequests());
+        sb.append(" errors=").append(getErrors());
+        sb.append(" avg=").append(getAverageTime()).append("ms");
+        sb.append(" max=").append(getMaxTime()).append("ms");
+
+        long[] c = getCounts();
+        for (int i = 0; i < c.length; i++) {
+            sb.append(i < BUCKETS.length ? " <=" + BUCKETS[i] : " >" + BUCKETS[BUCKETS.length - 1]);
+            sb.append("ms:").append(c[i]);
+        }
+
+        return sb.toString();
+    }
+}
@@ -17,6 +17,12 @@
 // --- END COPYRIGHT BLOCK ---
 package com.netscape.cmscore.connector;
 
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.netscape.certsrv.base.EBaseException;
 import com.netscape.cmscore.apps.CMSEngine;
 import com.netscape.cmsutil.http.JssSSLSocketFactory;
@@ -24,6 +30,10 @@ import com.netscape.cmsutil.net.ISocketFactory;
 
 /**
  * Factory for getting HTTP Connections to a HTTPO server
+ *
+ * The number of connections in use is bounded by the maximum number
+ * of connections. Idle connections are kept open and reused so
+ * requests are sent over persistent connections.
  */
 public class HttpConnFactory {
 
@@ -33,9 +43,12 @@ public class HttpConnFactory {
     protected int mMinConns = 1;
     protected int mMaxConns = 30;
 
-    private int mNumConns = 0; // number of available conns in array
-    private int mTotal = 0; // total num conns
-    private HttpConnection mConns[];
+    // maximum time to wait for a connection in milliseconds, 0 to wait indefinitely
+    protected int mMaxWait = 0;
+
+    private Semaphore mPermits; // connections which can still be taken
+    private Deque<HttpConnection> mConns = new ConcurrentLinkedDeque<>(); // idle conns
+    private AtomicInteger mTotal = new AtomicInteger(); // total num conns
     private RemoteAuthority mDest;
     private String mNickname = "";
     private String mClientCiphers = null;
@@ -86,6 +99,31 @@ public class HttpConnFactory {
         this.engine = engine;
     }
 
+    public void setMaxWait(int maxWait) {
+        mMaxWait = maxWait;
+    }
+
+    /**
+     * Returns the number of connections in use.
+     */
+    public int getBusyConns() {
+        return mMaxConns - mPermits.availablePermits();
+    }
+
+    /**
+     * Returns the number of threads waiting for a connection.
+     */
+    public int getQueueLength() {
+        return mPermits.getQueueLength();
+    }
+
+    /**
+     * Returns the total number of connections created.
+     */
+    public int getTotalConns() {
+        return mTotal.get();
+    }
+
     /**
      * initialize parameters obtained from either constructor or
      * config store
@@ -106,21 +144,12 @@ public class HttpConnFactory {
             throw new EBaseException("HttpConnFactory: Invalid minimum and maximum connections");
         }
 
-        logger.debug("before creating httpconn array");
-
-        mConns = new HttpConnection[mMaxConns];
-
-        // Create connection handle and make initial connection
-
-        logger.debug("before makeConnection");
+        mPermits = new Semaphore(mMaxConns, true);
 
         logger.debug(
                 "initializing HttpConnFactory with mininum " + mMinConns + " and maximum " + mMaxConns +
                         " connections to ");
 
-        // initalize minimum number of connection handles available.
-        //makeMinimum();
-
         logger.debug("leaving HttpConnFactory init.");
     }
 
@@ -153,32 +182,6 @@ public class HttpConnFactory {
         return retConn;
     }
 
-    /**
-     * makes the minumum number of connections
-     */
-    private void makeMinimum() throws EBaseException {
-
-        logger.debug("In HttpConnFactory.makeMinimum.");
-        int increment;
-
-        if (mNumConns < mMinConns && mTotal <= mMaxConns) {
-
-            increment = Math.min(mMinConns - mNumConns, mMaxConns - mTotal);
-
-            if (increment == 0)
-                return;
-
-            logger.debug("increasing minimum connections by " + increment);
-            for (int i = increment - 1; i >= 0; i--) {
-                mConns[i] = createConnection();
-            }
-            mTotal += increment;
-            mNumConns += increment;
-            logger.debug("new total available http connections " + mTotal);
-            logger.debug("new number of http connections " + mNumConns);
-        }
-    }
-
     /**
      * gets a conenction from this factory.
      * All connections obtained from the factory must be returned by
@@ -225,37 +228,49 @@ public class HttpConnFactory {
      * }
      * </pre>
      */
-    public synchronized HttpConnection getConn(boolean waitForConn)
+    public HttpConnection getConn(boolean waitForConn)
             throws EBaseException {
-        boolean waited = false;
 
         logger.debug("In HttpConnFactory.getConn");
-        if (mNumConns == 0)
-            makeMinimum();
-        if (mNumConns == 0) {
+
+        if (!mPermits.tryAcquire()) {
+
             if (!waitForConn)
                 return null;
+
+            logger.warn("HttpConnFactory: Ran out of HTTP connections");
+            logger.debug("HttpConn:about to wait for a new http connection");
+
             try {
-                logger.warn("HttpConnFactory: Ran out of HTTP connections");
-                waited = true;
-                logger.debug("HttpConn:about to wait for a new http connection");
-                while (mNumConns == 0)
-                    wait();
+                if (mMaxWait <= 0) {
+                    mPermits.acquire();
+
+                } else if (!mPermits.tryAcquire(mMaxWait, TimeUnit.MILLISECONDS)) {
+                    throw new EBaseException("HttpConnFactory: No HTTP connection available after " + mMaxWait + " ms");
+                }
 
-                logger.debug("HttpConn:done waiting for new http connection");
             } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EBaseException("HttpConnFactory: Interrupted while waiting for HTTP connection", e);
             }
-        }
-        mNumConns--;
-        HttpConnection conn = mConns[mNumConns];
 
-        mConns[mNumConns] = null;
-
-        if (waited) {
             logger.warn("HttpConn:had to wait for an available connection from pool");
             logger.warn("Http connections are available again in http connection pool");
         }
-        logger.debug("HttpgetConn: mNumConns now " + mNumConns);
+
+        HttpConnection conn = mConns.pollFirst();
+
+        if (conn == null) {
+            try {
+                conn = createConnection();
+            } catch (EBaseException e) {
+                mPermits.release();
+                throw e;
+            }
+            logger.debug("new total available http connections " + mTotal.incrementAndGet());
+        }
+
+        logger.debug("HttpgetConn: busy connections now " + getBusyConns());
 
         return conn;
     }
@@ -278,22 +293,21 @@ public class HttpConnFactory {
      * }
      * </pre>
      */
-    public synchronized void returnConn(HttpConnection conn) {
+    public void returnConn(HttpConnection conn) {
 
         logger.debug("In HttpConnFactory.returnConn");
         if (conn == null) {
             return;
         }
-        HttpConnection boundconn = conn;
-
-        for (int i = 0; i < mNumConns; i++) {
-            if (mConns[i] == conn) {
-                logger.debug("returnConn: previously returned connection. " + conn);
 
-            }
+        if (mConns.contains(conn)) {
+            logger.debug("returnConn: previously returned connection. " + conn);
+            return;
         }
-        mConns[mNumConns++] = boundconn;
-        logger.debug("HttpreturnConn: mNumConns now " + mNumConns);
-        notify();
+
+        // reuse the most recently used connection first
+        mConns.offerFirst(conn);
+        mPermits.release();
+        logger.debug("HttpreturnConn: busy connections now " + getBusyConns());
     }
 }
@@ -59,6 +59,9 @@ public class HttpConnection {
 
     int timeout = 0;
     List<InetSocketAddress> targets;
+
+    // whether the connected peer supports the compact message format
+    boolean compact;
     String localIP = "localhost";
 
     public HttpConnection(RemoteAuthority dest, ISocketFactory factory) {
@@ -115,6 +118,9 @@ public class HttpConnection {
             mHttpreq.setHeader("Host", dest.getHost());
             logger.debug("HttpConnection: setting Host to " + dest.getHost());
 
+            // advertise support for the compact message format
+            mHttpreq.setHeader(HttpRequestEncoder.FORMAT_HEADER, HttpRequestEncoder.COMPACT_FORMAT);
+
             connect();
 
         } catch (IOException e) {
@@ -158,6 +164,9 @@ public class HttpConnection {
         Auditor auditor = engine.getAuditor();
         SignedAuditEvent auditEvent;
 
+        // the new peer might not support the compact message format
+        compact = false;
+
         // try all targets
         for (InetSocketAddress target : targets) {
 
@@ -228,7 +237,7 @@ public class HttpConnection {
         String content = null;
 
         try {
-            content = mReqEncoder.encode(tomsg);
+            content = mReqEncoder.encode(tomsg, compact);
         } catch (IOException e) {
             throw new EBaseException(CMS.getUserMessage("CMS_BASE_INVALID_ATTRIBUTE", "Could not encode request"));
         }
@@ -238,6 +247,10 @@ public class HttpConnection {
         logger.trace("--------------------------");
         resp = doSend(content);
 
+        // the peer replies in the compact format if it supports it
+        compact = HttpRequestEncoder.COMPACT_FORMAT.equals(resp.getHeader(HttpRequestEncoder.FORMAT_HEADER));
+        logger.debug("HttpConnection: compact message format: " + compact);
+
         // decode reply.
         // if reply is bad, error is thrown and request will be resent
         String pcontent = resp.getContent();
@@ -18,6 +18,9 @@
 package com.netscape.cmscore.connector;
 
 import java.util.Vector;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import com.netscape.certsrv.base.EBaseException;
 import com.netscape.certsrv.connector.Connector;
@@ -49,6 +52,12 @@ public class HttpConnector extends Connector {
     private int mTimeout;
 
     private HttpConnFactory mConnFactory = null;
+    private ConnectorStats mStats;
+    private int mStatsInterval;
+    private ScheduledExecutorService mStatsLogger;
+
+    // number of errors when the utilization was last logged
+    private long mLastErrors;
 
     public HttpConnector(
             String nickName,
@@ -75,6 +84,30 @@ public class HttpConnector extends Connector {
         this.resendInterval = resendInterval;
         this.config = config;
         this.mTimeout = timeout;
+
+        mStats = new ConnectorStats(dest.getHost() + ":" + dest.getPort());
+    }
+
+    /**
+     * Returns the latency histogram of the requests sent
+     * to the remote authority.
+     */
+    public ConnectorStats getStats() {
+        return mStats;
+    }
+
+    /**
+     * Returns the number of requests waiting for a connection.
+     */
+    public int getQueueLength() {
+        return mConnFactory == null ? 0 : mConnFactory.getQueueLength();
+    }
+
+    /**
+     * Returns the number of requests in flight.
+     */
+    public int getBusyConns() {
+        return mConnFactory == null ? 0 : mConnFactory.getBusyConns();
     }
 
     public void init() throws EBaseException {
@@ -92,9 +125,16 @@ public class HttpConnector extends Connector {
         int maxConns = config.getMaxHttpConns();
         logger.debug("HttpConnector: maxHttpConns: " + maxConns);
 
+        int maxWait = config.getMaxWait();
+        logger.debug("HttpConnector: maxWait: " + maxWait);
+
+        mStatsInterval = config.getStatsInterval();
+        logger.debug("HttpConnector: statsInterval: " + mStatsInterval);
+
         try {
             mConnFactory = new HttpConnFactory(minConns, maxConns, mDest, nickname, clientCiphers, mTimeout);
             mConnFactory.setCMSEngine(engine);
+            mConnFactory.setMaxWait(maxWait);
             mConnFactory.init();
 
         } catch (EBaseException e) {
@@ -105,6 +145,10 @@ public class HttpConnector extends Connector {
         if (resendInterval >= 0) {
             mResender = new Resender(nickname, clientCiphers, mDest, resendInterval);
             mResender.setCMSEngine(engine);
+            if (mConnFactory != null) {
+                // leave connections for live requests while resending a backlog
+                mResender.setConnFactory(mConnFactory, Math.max(1, maxConns / 2));
+            }
             mResender.init();
         }
     }
@@ -129,6 +173,8 @@ public class HttpConnector extends Connector {
             throw new EBaseException(CMS.getUserMessage("CMS_BASE_INVALID_ATTRIBUTE", "HttpConnector.send(): cannot find uri for op"));
         }
 
+        long startTime = System.currentTimeMillis();
+
         try {
             curConn = mConnFactory.getConn();
             curConn.setRequestURI(uri);
@@ -141,6 +187,7 @@ public class HttpConnector extends Connector {
             if (curConn != null) {
                 mConnFactory.returnConn(curConn);
             }
+            mStats.record(System.currentTimeMillis() - startTime, resp != null);
         }
         return resp;
     }
@@ -149,6 +196,8 @@ public class HttpConnector extends Connector {
     public boolean send(Request r)
             throws EBaseException {
         HttpConnection curConn = null;
+        long startTime = System.currentTimeMillis();
+        boolean sent = false;
 
         try {
             HttpPKIMessage tomsg = new HttpPKIMessage();
@@ -162,6 +211,7 @@ public class HttpConnector extends Connector {
             logger.debug("HttpConnector.send " + curConn);
 
             replymsg = (HttpPKIMessage) curConn.send(tomsg);
+            sent = true;
 
             if (replymsg == null) {
                 logger.warn("HttpConncter. replymsg is null");
@@ -244,6 +294,34 @@ public class HttpConnector extends Connector {
             if (curConn != null) {
                 mConnFactory.returnConn(curConn);
             }
+            mStats.record(System.currentTimeMillis() - startTime, sent);
+        }
+    }
+
+    /**
+     * Logs the current connection utilization and latency histogram.
+     * Logged at INFO level when requests are waiting for a connection
+     * or have failed since the previous call, otherwise at DEBUG level.
+     */
+    void logUtilization() {
+
+        long errors = mStats.getErrors();
+        boolean contended = getQueueLength() > 0 || errors > mLastErrors;
+        mLastErrors = errors;
+
+        if (!contended && !logger.isDebugEnabled()) {
+            return;
+        }
+
+        String message = "HttpConnector: utilization: "
+                + "busy=" + getBusyConns()
+                + " waiting=" + getQueueLength()
+                + " " + mStats;
+
+        if (contended) {
+            logger.info(message);
+        } else {
+            logger.debug(message);
         }
     }
 
@@ -252,6 +330,19 @@ public class HttpConnector extends Connector {
         logger.debug("Starting HttpConnector resender thread");
         if (mResender != null)
             mResender.start("HttpConnector");
+
+        if (mStatsInterval > 0) {
+            mStatsLogger = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "HttpConnectorStats-" + mStats.getName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            mStatsLogger.scheduleWithFixedDelay(
+                    this::logUtilization,
+                    mStatsInterval,
+                    mStatsInterval,
+                    TimeUnit.SECONDS);
+        }
     }
 
     @Override
@@ -259,6 +350,9 @@ public class HttpConnector extends Connector {
         logger.debug("Stopping HttpConnector resender thread");
         if (mResender != null)
             mResender.stop();
+        if (mStatsLogger != null)
+            mStatsLogger.shutdownNow();
+        logger.info("HttpConnector: " + mStats);
     }
 
 }
@@ -0,0 +1,235 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.connector;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * Compact binary encoding for HttpPKIMessage.
+ *
+ * The encoding starts with the "PM" magic and a version byte followed
+ * by the request type, ID, status and realm, the number of attributes,
+ * and then each attribute as a name, a type byte and a value:
+ * <ul>
+ * <li>{@link #STRING}: a string
+ * <li>{@link #HASHTABLE}: the number of entries followed by
+ *     the name and value of each entry
+ * </ul>
+ *
+ * Strings are encoded as their length in UTF-8 bytes followed by
+ * the bytes, with a length of -1 for null.
+ *
+ * Java serialization streams start with 0xACED so the two formats
+ * can be told apart when reading.
+ */
+public class HttpPKIMessageCodec {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(HttpPKIMessageCodec.class);
+
+    public static final int VERSION = 1;
+
+    static final byte MAGIC_0 = 'P';
+    static final byte MAGIC_1 = 'M';
+
+    static final byte STRING = 'S';
+    static final byte HASHTABLE = 'H';
+
+    /**
+     * Returns true if the data is in the compact format.
+     */
+    public static boolean isCompact(byte[] data) {
+        return data != null && data.length >= 3 && data[0] == MAGIC_0 && data[1] == MAGIC_1;
+    }
+
+    public static byte[] encode(HttpPKIMessage msg) throws IOException {
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(1024);
+        DataOutputStream out = new DataOutputStream(bos);
+
+        out.writeByte(MAGIC_0);
+        out.writeByte(MAGIC_1);
+        out.writeByte(VERSION);
+
+        writeString(out, msg.reqType);
+        writeString(out, msg.reqId);
+        writeString(out, msg.reqStatus);
+        writeString(out, msg.reqRealm);
+
+        // collect attributes which can be encoded
+        Vector<Object> nameVals = new Vector<>();
+        Enumeration<Object> e = msg.mNameVals.elements();
+
+        while (e.hasMoreElements()) {
+            Object name = e.nextElement();
+            if (!e.hasMoreElements()) {
+                logger.warn("HttpPKIMessageCodec: Incorrect pairing of name/value for " + name);
+                break;
+            }
+            Object value = e.nextElement();
+
+            if (name instanceof String && (value instanceof String || isStringTable(value))) {
+                nameVals.addElement(name);
+                nameVals.addElement(value);
+                continue;
+            }
+
+            // same as HttpPKIMessage.writeObject()
+            logger.warn("HttpPKIMessageCodec: Skipped attribute " + name + ": "
+                    + (value == null ? null : value.getClass().getName()));
+        }
+
+        out.writeInt(nameVals.size() / 2);
+
+        for (int i = 0; i < nameVals.size(); i += 2) {
+            writeString(out, (String) nameVals.get(i));
+            Object value = nameVals.get(i + 1);
+
+            if (value instanceof String) {
+                out.writeByte(STRING);
+                writeString(out, (String) value);
+                continue;
+            }
+
+            Hashtable<?, ?> table = (Hashtable<?, ?>) value;
+            out.writeByte(HASHTABLE);
+            out.writeInt(table.size());
+            for (Map.Entry<?, ?> entry : table.entrySet()) {
+                writeString(out, (String) entry.getKey());
+                writeString(out, (String) entry.getValue());
+            }
+        }
+
+        out.flush();
+        return bos.toByteArray();
+    }
+
+    public static HttpPKIMessage decode(byte[] data) throws IOException {
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+
+        if (in.readByte() != MAGIC_0 || in.readByte() != MAGIC_1) {
+            throw new IOException("Invalid PKI message encoding");
+        }
+
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported PKI message encoding version: " + version);
+        }
+
+        HttpPKIMessage msg = new HttpPKIMessage();
+        msg.reqType = readString(in);
+        msg.reqId = readString(in);
+        msg.reqStatus = readString(in);
+        msg.reqRealm = readString(in);
+
+        int count = in.readInt();
+        Vector<Object> nameVals = new Vector<>();
+
+        for (int i = 0; i < count; i++) {
+            String name = readString(in);
+            byte type = in.readByte();
+
+            if (name == null) {
+                throw new IOException("Missing PKI message attribute name");
+            }
+
+            if (type == STRING) {
+                String value = readString(in);
+                if (value == null) {
+                    throw new IOException("Invalid PKI message attribute: " + name);
+                }
+                nameVals.addElement(name);
+                nameVals.addElement(value);
+                continue;
+            }
+
+            if (type != HASHTABLE) {
+                throw new IOException("Invalid PKI message attribute type: " + type);
+            }
+
+            int size = in.readInt();
+            Hashtable<String, String> table = new Hashtable<>();
+            for (int j = 0; j < size; j++) {
+                String key = readString(in);
+                String value = readString(in);
+                if (key == null || value == null) {
+                    throw new IOException("Invalid PKI message attribute: " + name);
+                }
+                table.put(key, value);
+            }
+
+            nameVals.addElement(name);
+            nameVals.addElement(table);
+        }
+
+        msg.mNameVals = nameVals;
+        return msg;
+    }
+
+    static boolean isStringTable(Object value) {
+
+        if (!(value instanceof Hashtable)) {
+            return false;
+        }
+
+        for (Map.Entry<?, ?> entry : ((Hashtable<?, ?>) value).entrySet()) {
+            if (!(entry.getKey() instanceof String) || !(entry.getValue() instanceof String)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    static void writeString(DataOutputStream out, String s) throws IOException {
+
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+
+        if (length > in.available()) {
+            throw new IOException("Invalid PKI message string length: " + length);
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
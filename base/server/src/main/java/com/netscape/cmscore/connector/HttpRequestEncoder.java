@@ -30,11 +30,20 @@ import org.mozilla.jss.netscape.security.util.Utils;
  * This represents a rquest encoder that serializes and
  * deserializes a request to a Remote Authority so that it can be sent through
  * the connector.
+ *
+ * HttpPKIMessages can also be encoded with HttpPKIMessageCodec. The sender
+ * advertises support for the compact format with the {@link #FORMAT_HEADER}
+ * request header, and the receiver replies in the compact format with the
+ * same response header only if the header was present, so the legacy
+ * format is used with older peers.
  */
 public class HttpRequestEncoder {
 
     public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(HttpRequestEncoder.class);
 
+    public static final String FORMAT_HEADER = "PKI-Message-Format";
+    public static final String COMPACT_FORMAT = "compact";
+
     /**
      * Encodes a request object.
      *
@@ -56,7 +65,27 @@ public class HttpRequestEncoder {
     }
 
     /**
-     * Decodes a String into an object.
+     * Encodes a request object, using the compact format for
+     * HttpPKIMessages if requested.
+     *
+     * @param r Object to serve as the source of the message.
+     * @param compact True to use the compact format.
+     * @return String containing encoded message.
+     * @exception IOException Failure of the encoding operation due to IO error.
+     */
+    public String encode(Object r, boolean compact)
+            throws IOException {
+
+        if (!compact || !(r instanceof HttpPKIMessage)) {
+            return encode(r);
+        }
+
+        byte[] data = HttpPKIMessageCodec.encode((HttpPKIMessage) r);
+        return Utils.base64encode(data, true);
+    }
+
+    /**
+     * Decodes a String in either format into an object.
      *
      * @return Object which is the result of the decoded message.
      * @exception IOException Failure of the decoding operation due to IO error.
@@ -69,6 +98,11 @@ public class HttpRequestEncoder {
         try {
 
             serial = Utils.base64decode(s);
+
+            if (HttpPKIMessageCodec.isCompact(serial)) {
+                return HttpPKIMessageCodec.decode(serial);
+            }
+
             ByteArrayInputStream ba = new ByteArrayInputStream(serial);
             ObjectInputStream is = new ObjectInputStream(ba);
 
@@ -18,10 +18,16 @@
 package com.netscape.cmscore.connector;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
@@ -42,6 +48,9 @@ import com.netscape.cmsutil.http.JssSSLSocketFactory;
  * Default interval is 5 minutes. The need to resend a message could arise
  * due to an error or the fact that the message could not be serviced
  * immediately.
+ *
+ * If a connection factory is provided, requests are resent in batches
+ * of up to the maximum number of connections in parallel.
  */
 public class Resender implements Runnable {
 
@@ -54,11 +63,14 @@ public class Resender implements Runnable {
     RequestQueue mQueue;
     protected RemoteAuthority mDest;
     ScheduledExecutorService executorService;
+    ExecutorService batchExecutorService;
 
     /* Vector of Request Id *Strings* */
     protected Vector<String> mRequestIds = new Vector<>();
 
     protected HttpConnection mConn = null;
+    protected HttpConnFactory mConnFactory;
+    protected int mBatchSize = 1;
 
     protected String mNickName = null;
     protected String mClientCiphers = null;
@@ -103,6 +115,19 @@ public class Resender implements Runnable {
         mQueue = engine.getRequestQueue();
     }
 
+    /**
+     * Resends requests in batches over connections from the factory.
+     *
+     * @param connFactory Connection factory shared with the connector.
+     * @param batchSize Maximum number of requests to resend in parallel.
+     *        This should be smaller than the pool size so resends do not
+     *        take all the connections needed by live requests.
+     */
+    public void setConnFactory(HttpConnFactory connFactory, int batchSize) {
+        mConnFactory = connFactory;
+        mBatchSize = Math.max(1, batchSize);
+    }
+
     // must be done after a subsystem 'start' so queue is initialized.
     private void initRequests() throws EBaseException {
         // get all requests in mAuthority that are still pending.
@@ -141,6 +166,14 @@ public class Resender implements Runnable {
         });
         executorService.scheduleWithFixedDelay(this, 0, mInterval, TimeUnit.SECONDS);
 
+        if (mConnFactory != null && mBatchSize > 1) {
+            batchExecutorService = Executors.newFixedThreadPool(mBatchSize, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    return new Thread(r, name + "Batch");
+                }
+            });
+        }
     }
 
     @Override
@@ -157,13 +190,16 @@ public class Resender implements Runnable {
             return;
 
         if (! connected) {
-            logger.debug("Connecting ...");
-            JssSSLSocketFactory factory = new JssSSLSocketFactory(mNickName, mClientCiphers);
-            factory.addSocketListener(engine.getClientSocketListener());
-
-            mConn = new HttpConnection(mDest, factory);
-            mConn.setCMSEngine(engine);
-            mConn.init();
+            // connections from the factory are used if there is one
+            if (mConnFactory == null) {
+                logger.debug("Connecting ...");
+                JssSSLSocketFactory factory = new JssSSLSocketFactory(mNickName, mClientCiphers);
+                factory.addSocketListener(engine.getClientSocketListener());
+
+                mConn = new HttpConnection(mDest, factory);
+                mConn.setCMSEngine(engine);
+                mConn.init();
+            }
 
             initRequests();
             connected = true;
@@ -174,6 +210,7 @@ public class Resender implements Runnable {
     public void stop() {
         // shutdown executorService without interrupting running task
         if (executorService != null) executorService.shutdown();
+        if (batchExecutorService != null) batchExecutorService.shutdown();
     }
 
     private void resend() {
@@ -184,44 +221,26 @@ public class Resender implements Runnable {
 
         // resend each request to CA to ping for status.
         Enumeration<String> enum1 = rids.elements();
+        List<Callable<Boolean>> batch = new ArrayList<>();
 
         while (enum1.hasMoreElements()) {
             // request ids are added as strings.
             String ridString = enum1.nextElement();
             RequestId rid = new RequestId(ridString);
-            Request r = null;
 
-            logger.debug("resend processing request id " + rid);
+            batch.add(() -> resend(rid, completedRids));
 
-            try {
-                r = requestRepository.readRequest(rid);
-            } catch (EBaseException e) {
-                // XXX bad case. should we remove the rid now ?
-                logger.warn(CMS.getLogMessage("CMSCORE_CONNECTOR_REQUEST_NOT_FOUND", rid.toString()), e);
+            if (batch.size() < mBatchSize && enum1.hasMoreElements()) {
                 continue;
             }
-            try {
-                if (r.getRequestStatus() != RequestStatus.SVC_PENDING) {
-                    // request not pending anymore - aborted or cancelled.
-                    completedRids.addElement(rid);
-                    logger.debug("request id " + rid + " no longer service pending");
-                } else {
-                    boolean completed = send(r);
-
-                    if (completed) {
-                        completedRids.addElement(rid);
-                        logger.info(CMS.getLogMessage("CMSCORE_CONNECTOR_REQUEST_COMPLETED", rid.toString()));
-                    }
-                }
-            } catch (IOException e) {
-                logger.warn(CMS.getLogMessage("CMSCORE_CONNECTOR_REQUEST_ERROR", rid.toString(), e.toString()), e);
-            } catch (EBaseException e) {
-                // if connection is down, don't send the remaining request
-                // as it will sure fail.
-                logger.warn(CMS.getLogMessage("CMSCORE_CONNECTOR_DOWN"), e);
-                if (e.toString().indexOf("connection not available") >= 0)
-                    break;
-            }
+
+            boolean available = runBatch(batch);
+            batch.clear();
+
+            // if connection is down, don't send the remaining request
+            // as it will sure fail.
+            if (!available)
+                break;
         }
 
         // remove completed ones from list so they won't be resent.
@@ -239,16 +258,99 @@ public class Resender implements Runnable {
         }
     }
 
+    /**
+     * Resends a batch of requests in parallel.
+     *
+     * @return false if the connection is not available.
+     */
+    private boolean runBatch(List<Callable<Boolean>> batch) {
+
+        if (batchExecutorService == null || batch.size() == 1) {
+            boolean available = true;
+            for (Callable<Boolean> task : batch) {
+                try {
+                    available &= task.call();
+                } catch (Exception e) {
+                    logger.warn("Resender: " + e.getMessage(), e);
+                }
+            }
+            return available;
+        }
+
+        boolean available = true;
+
+        try {
+            for (Future<Boolean> future : batchExecutorService.invokeAll(batch)) {
+                try {
+                    available &= future.get();
+                } catch (ExecutionException e) {
+                    logger.warn("Resender: " + e.getMessage(), e);
+                }
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        return available;
+    }
+
+    /**
+     * Resends a request.
+     *
+     * @return false if the connection is not available.
+     */
+    private boolean resend(RequestId rid, Vector<RequestId> completedRids) {
+
+        Request r = null;
+
+        logger.debug("resend processing request id " + rid);
+
+        try {
+            r = requestRepository.readRequest(rid);
+        } catch (EBaseException e) {
+            // XXX bad case. should we remove the rid now ?
+            logger.warn(CMS.getLogMessage("CMSCORE_CONNECTOR_REQUEST_NOT_FOUND", rid.toString()), e);
+            return true;
+        }
+        try {
+            if (r.getRequestStatus() != RequestStatus.SVC_PENDING) {
+                // request not pending anymore - aborted or cancelled.
+                completedRids.addElement(rid);
+                logger.debug("request id " + rid + " no longer service pending");
+            } else {
+                boolean completed = send(r);
+
+                if (completed) {
+                    completedRids.addElement(rid);
+                    logger.info(CMS.getLogMessage("CMSCORE_CONNECTOR_REQUEST_COMPLETED", rid.toString()));
+                }
+            }
+        } catch (IOException e) {
+            logger.warn(CMS.getLogMessage("CMSCORE_CONNECTOR_REQUEST_ERROR", rid.toString(), e.toString()), e);
+        } catch (EBaseException e) {
+            logger.warn(CMS.getLogMessage("CMSCORE_CONNECTOR_DOWN"), e);
+            if (e.toString().indexOf("connection not available") >= 0)
+                return false;
+        }
+
+        return true;
+    }
+
     // this is almost the same as connector's send.
     private boolean send(Request r)
             throws IOException, EBaseException {
 
+        HttpConnection conn = null;
+
         try {
             HttpPKIMessage tomsg = new HttpPKIMessage();
             HttpPKIMessage replymsg = null;
 
             tomsg.fromRequest(r);
-            replymsg = (HttpPKIMessage) mConn.send(tomsg);
+            conn = mConnFactory == null ? mConn : mConnFactory.getConn();
+            replymsg = (HttpPKIMessage) conn.send(tomsg);
             if (replymsg == null)
                 return false;
             logger.debug(r.getRequestId() + " resent to CA");
@@ -278,6 +380,10 @@ public class Resender implements Runnable {
             logger.warn(CMS.getLogMessage("CMSCORE_CONNECTOR_RESEND_ERROR", r.getRequestId().toString(), e.toString()), e);
             if (e.toString().indexOf("Connection refused by peer") > 0)
                 throw new EBaseException("connection not available");
+        } finally {
+            if (mConnFactory != null && conn != null) {
+                mConnFactory.returnConn(conn);
+            }
         }
         return false;
 
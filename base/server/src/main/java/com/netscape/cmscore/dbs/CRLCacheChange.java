@@ -0,0 +1,133 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.dbs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mozilla.jss.netscape.security.x509.RevokedCertificate;
+
+/**
+ * A class represents a single change to the CRL cache of an issuing
+ * point. Changes are appended to the CRL issuing point record between
+ * full cache updates so that a revocation only writes the new entry.
+ */
+public class CRLCacheChange implements Comparable<CRLCacheChange> {
+
+    public static final int REVOKED = 'R';
+    public static final int UNREVOKED = 'U';
+    public static final int EXPIRED = 'E';
+
+    // keeps sequence numbers unique within the same millisecond
+    private static final AtomicLong counter = new AtomicLong();
+
+    private long time;
+    private long sequence;
+    private int type;
+    private BigInteger serialNumber;
+    private RevokedCertificate entry;
+
+    public CRLCacheChange(int type, BigInteger serialNumber, RevokedCertificate entry) {
+        this(System.currentTimeMillis(), counter.incrementAndGet(), type, serialNumber, entry);
+    }
+
+    CRLCacheChange(long time, long sequence, int type, BigInteger serialNumber, RevokedCertificate entry) {
+        this.time = time;
+        this.sequence = sequence;
+        this.type = type;
+        this.serialNumber = serialNumber;
+        this.entry = entry;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public BigInteger getSerialNumber() {
+        return serialNumber;
+    }
+
+    public RevokedCertificate getEntry() {
+        return entry;
+    }
+
+    @Override
+    public int compareTo(CRLCacheChange other) {
+        int rc = Long.compare(time, other.time);
+        if (rc != 0) {
+            return rc;
+        }
+        return Long.compare(sequence, other.sequence);
+    }
+
+    public byte[] encode() throws IOException {
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bos);
+
+        out.writeByte(RevokedCertsCodec.VERSION);
+        out.writeLong(time);
+        RevokedCertsCodec.writeVarLong(out, sequence);
+        out.writeByte(type);
+
+        out.writeBoolean(entry != null);
+        if (entry == null) {
+            RevokedCertsCodec.writeBytes(out, serialNumber.toByteArray());
+        } else {
+            RevokedCertsCodec.encodeEntry(out, serialNumber, entry);
+        }
+
+        out.flush();
+        return bos.toByteArray();
+    }
+
+    public static CRLCacheChange decode(byte[] data) throws IOException {
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+
+        int version = in.readUnsignedByte();
+        if (version != RevokedCertsCodec.VERSION) {
+            throw new IOException("Unsupported CRL cache change version: " + version);
+        }
+
+        long time = in.readLong();
+        long sequence = RevokedCertsCodec.readVarLong(in);
+        int type = in.readUnsignedByte();
+
+        if (!in.readBoolean()) {
+            BigInteger serialNumber = new BigInteger(RevokedCertsCodec.readBytes(in));
+            return new CRLCacheChange(time, sequence, type, serialNumber, null);
+        }
+
+        RevokedCertificate entry = RevokedCertsCodec.decodeEntry(in);
+        return new CRLCacheChange(time, sequence, type, entry.getSerialNumber(), entry);
+    }
+}
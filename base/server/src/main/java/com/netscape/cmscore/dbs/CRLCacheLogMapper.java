@@ -0,0 +1,117 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.dbs;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Vector;
+
+import com.netscape.certsrv.base.EBaseException;
+import com.netscape.certsrv.dbs.DBAttrMapper;
+import com.netscape.certsrv.dbs.EDBException;
+import com.netscape.certsrv.dbs.IDBObj;
+import com.netscape.cmscore.apps.CMS;
+
+import netscape.ldap.LDAPAttribute;
+import netscape.ldap.LDAPAttributeSet;
+
+/**
+ * A class represents an attribute mapper that maps a list of
+ * CRL cache changes into a multi-valued LDAP attribute with one
+ * value per change, and vice versa.
+ *
+ * Mapping an empty list produces an attribute without values
+ * which removes the attribute when used in a replace operation.
+ */
+public class CRLCacheLogMapper extends DBAttrMapper {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CRLCacheLogMapper.class);
+
+    private String mLdapName = null;
+    private Vector<String> v = new Vector<>();
+
+    public CRLCacheLogMapper(String ldapName) {
+        mLdapName = ldapName;
+        v.addElement(mLdapName);
+    }
+
+    @Override
+    public Enumeration<String> getSupportedLDAPAttributeNames() {
+        return v.elements();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void mapObjectToLDAPAttributeSet(IDBObj parent, String name,
+            Object obj, LDAPAttributeSet attrs)
+            throws EBaseException {
+
+        try {
+            LDAPAttribute attr = new LDAPAttribute(mLdapName);
+
+            for (CRLCacheChange change : (List<CRLCacheChange>) obj) {
+                attr.addValue(change.encode());
+            }
+
+            logger.debug("CRLCacheLogMapper: Mapping " + name + " to " + mLdapName);
+            attrs.add(attr);
+
+        } catch (IOException e) {
+            logger.error("CRLCacheLogMapper: Unable to encode " + name + ": " + e.getMessage(), e);
+            throw new EDBException(CMS.getUserMessage("CMS_DBS_SERIALIZE_FAILED", name), e);
+        }
+    }
+
+    @Override
+    public void mapLDAPAttributeSetToObject(LDAPAttributeSet attrs,
+            String name, IDBObj parent) throws EBaseException {
+
+        LDAPAttribute attr = attrs.getAttribute(mLdapName);
+
+        if (attr == null) {
+            return;
+        }
+
+        List<CRLCacheChange> changes = new ArrayList<>();
+
+        try {
+            Enumeration<byte[]> values = attr.getByteValues();
+            while (values.hasMoreElements()) {
+                changes.add(CRLCacheChange.decode(values.nextElement()));
+            }
+
+        } catch (IOException e) {
+            logger.error("CRLCacheLogMapper: Unable to decode " + mLdapName + ": " + e.getMessage(), e);
+            throw new EDBException(CMS.getUserMessage("CMS_DBS_DESERIALIZE_FAILED", name), e);
+        }
+
+        // LDAP does not preserve the order of attribute values
+        Collections.sort(changes);
+
+        parent.set(name, changes);
+    }
+
+    @Override
+    public String mapSearchFilter(String name, String op,
+            String value) throws EBaseException {
+        return mLdapName + op + value;
+    }
+}
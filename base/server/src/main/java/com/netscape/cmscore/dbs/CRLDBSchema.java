@@ -43,5 +43,6 @@ public class CRLDBSchema {
     public static final String LDAP_ATTR_REVOKED_CERTS = "revokedCerts";
     public static final String LDAP_ATTR_UNREVOKED_CERTS = "unrevokedCerts";
     public static final String LDAP_ATTR_EXPIRED_CERTS = "expiredCerts";
+    public static final String LDAP_ATTR_CRL_CACHE_LOG = "crlCacheLog";
     public static final String LDAP_ATTR_DELTA_CRL = "deltaRevocationList";
 }
@@ -21,6 +21,7 @@ import java.math.BigInteger;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Vector;
 
 import org.mozilla.jss.netscape.security.x509.RevokedCertificate;
@@ -51,6 +52,7 @@ public class CRLIssuingPointRecord extends DBRecord {
     public static final String ATTR_REVOKED_CERTS = "revokedCerts";
     public static final String ATTR_UNREVOKED_CERTS = "unrevokedCerts";
     public static final String ATTR_EXPIRED_CERTS = "expiredCerts";
+    public static final String ATTR_CRL_CACHE_LOG = "crlCacheLog";
     public static final String ATTR_DELTA_CRL = "deltaRevocationList";
 
     public static final String CLEAN_CACHE = "-1";
@@ -70,6 +72,7 @@ public class CRLIssuingPointRecord extends DBRecord {
     protected Hashtable<BigInteger, RevokedCertificate> mRevokedCerts = null;
     protected Hashtable<BigInteger, RevokedCertificate> mUnrevokedCerts = null;
     protected Hashtable<BigInteger, RevokedCertificate> mExpiredCerts = null;
+    protected List<CRLCacheChange> mCRLCacheLog = null;
     protected byte mDeltaCRL[] = null;
     protected static Vector<String> mNames = new Vector<>();
     static {
@@ -87,6 +90,7 @@ public class CRLIssuingPointRecord extends DBRecord {
         mNames.addElement(ATTR_REVOKED_CERTS);
         mNames.addElement(ATTR_UNREVOKED_CERTS);
         mNames.addElement(ATTR_EXPIRED_CERTS);
+        mNames.addElement(ATTR_CRL_CACHE_LOG);
         mNames.addElement(ATTR_DELTA_CRL);
     }
 
@@ -169,6 +173,8 @@ public class CRLIssuingPointRecord extends DBRecord {
             mUnrevokedCerts = (Hashtable<BigInteger, RevokedCertificate>) obj;
         } else if (name.equalsIgnoreCase(ATTR_EXPIRED_CERTS)) {
             mExpiredCerts = (Hashtable<BigInteger, RevokedCertificate>) obj;
+        } else if (name.equalsIgnoreCase(ATTR_CRL_CACHE_LOG)) {
+            mCRLCacheLog = (List<CRLCacheChange>) obj;
         } else if (name.equalsIgnoreCase(ATTR_DELTA_CRL)) {
             mDeltaCRL = (byte[]) obj;
         } else {
@@ -206,6 +212,8 @@ public class CRLIssuingPointRecord extends DBRecord {
             return mUnrevokedCerts;
         } else if (name.equalsIgnoreCase(ATTR_EXPIRED_CERTS)) {
             return mExpiredCerts;
+        } else if (name.equalsIgnoreCase(ATTR_CRL_CACHE_LOG)) {
+            return mCRLCacheLog;
         } else if (name.equalsIgnoreCase(ATTR_DELTA_CRL)) {
             return mDeltaCRL;
         } else {
@@ -370,4 +378,14 @@ public class CRLIssuingPointRecord extends DBRecord {
     public Hashtable<BigInteger, RevokedCertificate> getExpiredCerts() {
         return mExpiredCerts == null ? null : (Hashtable<BigInteger, RevokedCertificate>) mExpiredCerts.clone();
     }
+
+    /**
+     * Retrieves changes to the CRL cache saved since the last
+     * full cache update, in the order they were made.
+     *
+     * @return list of CRL cache changes
+     */
+    public List<CRLCacheChange> getCRLCacheLog() {
+        return mCRLCacheLog;
+    }
 }
@@ -19,6 +19,8 @@ package com.netscape.cmscore.dbs;
 
 import java.math.BigInteger;
 import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
@@ -33,6 +35,7 @@ import org.mozilla.jss.netscape.security.x509.X509ExtensionException;
 
 import com.netscape.certsrv.base.EBaseException;
 import com.netscape.certsrv.base.MetaInfo;
+import com.netscape.certsrv.base.PKIException;
 import com.netscape.cmscore.apps.CMS;
 
 /**
@@ -111,6 +114,11 @@ public class CertRecord extends DBRecord {
 
     private BigInteger mId = null;
     private X509CertImpl mX509Certificate = null;
+    // DER encoding of the certificate until it is decoded
+    private byte[] mEncodedCertificate = null;
+    // validity read from the database without decoding the certificate
+    private Date mNotBefore = null;
+    private Date mNotAfter = null;
     private String mStatus = null;
     private String mAutoRenew = null;
     private MetaInfo mMetaInfo = null;
@@ -160,6 +168,9 @@ public class CertRecord extends DBRecord {
             mMetaInfo = (MetaInfo) obj;
         } else if (name.equalsIgnoreCase(ATTR_X509CERT)) {
             mX509Certificate = (X509CertImpl) obj;
+            mEncodedCertificate = null;
+            mNotBefore = null;
+            mNotAfter = null;
         } else if (name.equalsIgnoreCase(ATTR_CERT_STATUS)) {
             mStatus = (String) obj;
         } else if (name.equalsIgnoreCase(ATTR_AUTO_RENEW)) {
@@ -191,7 +202,7 @@ public class CertRecord extends DBRecord {
         } else if (name.equalsIgnoreCase(ATTR_META_INFO)) {
             return mMetaInfo;
         } else if (name.equalsIgnoreCase(ATTR_X509CERT)) {
-            return mX509Certificate;
+            return getCertificate();
         } else if (name.equalsIgnoreCase(ATTR_CERT_STATUS)) {
             return mStatus;
         } else if (name.equalsIgnoreCase(ATTR_AUTO_RENEW)) {
@@ -233,11 +244,56 @@ public class CertRecord extends DBRecord {
      * Retrieves certificate from certificate record.
      *
      * @return certificate
+     * @throws PKIException if the certificate retrieved from the
+     * database cannot be decoded
      */
-    public X509CertImpl getCertificate() {
+    public synchronized X509CertImpl getCertificate() {
+
+        if (mX509Certificate == null && mEncodedCertificate != null) {
+            try {
+                mX509Certificate = new X509CertImpl(mEncodedCertificate);
+            } catch (CertificateException e) {
+                throw new PKIException("Unable to decode cert " + mId + ": " + e.getMessage(), e);
+            }
+            mEncodedCertificate = null;
+        }
+
         return mX509Certificate;
     }
 
+    /**
+     * Retrieves the DER encoding of the certificate without
+     * decoding it if it has not been decoded yet.
+     *
+     * @return DER-encoded certificate
+     */
+    public synchronized byte[] getEncodedCertificate() throws CertificateEncodingException {
+
+        if (mEncodedCertificate != null) {
+            return mEncodedCertificate;
+        }
+
+        return mX509Certificate == null ? null : mX509Certificate.getEncoded();
+    }
+
+    /**
+     * Stores the DER encoding of the certificate retrieved from
+     * the database. The certificate is decoded on first access.
+     */
+    synchronized void setEncodedCertificate(byte[] der) {
+        mX509Certificate = null;
+        mEncodedCertificate = der;
+    }
+
+    /**
+     * Stores the validity period retrieved from the database so that
+     * it is available without the certificate.
+     */
+    void setValidity(Date notBefore, Date notAfter) {
+        mNotBefore = notBefore;
+        mNotAfter = notAfter;
+    }
+
     /**
      * Retrieves meta information.
      *
@@ -316,18 +372,24 @@ public class CertRecord extends DBRecord {
      * @return certificate serial number
      */
     public BigInteger getCertificateSerialNumber() {
-        return mX509Certificate.getSerialNumber();
+        return getCertificate().getSerialNumber();
     }
 
     /**
      * Retrieves not after.
      */
     public Date getNotAfter() {
-        return mX509Certificate.getNotAfter();
+        if (mNotAfter != null) {
+            return mNotAfter;
+        }
+        return getCertificate().getNotAfter();
     }
 
     public Date getNotBefore() {
-        return mX509Certificate.getNotBefore();
+        if (mNotBefore != null) {
+            return mNotBefore;
+        }
+        return getCertificate().getNotBefore();
     }
 
     /**
@@ -0,0 +1,106 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.dbs;
+
+import java.math.BigInteger;
+
+import netscape.ldap.LDAPAttribute;
+import netscape.ldap.LDAPEntry;
+
+/**
+ * A change of an entry in the database reported by DBChangeNotifier.
+ */
+public class DBChangeEvent {
+
+    public enum Type {
+
+        /**
+         * An existing entry returned when a subscription is started
+         * without a position to resume from.
+         */
+        ENTRY,
+
+        ADD,
+        MODIFY,
+        DELETE,
+        MODDN
+    }
+
+    private Type type;
+    private LDAPEntry entry;
+    private String previousDN;
+    private boolean resumed;
+
+    public DBChangeEvent(Type type, LDAPEntry entry) {
+        this.type = type;
+        this.entry = entry;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public LDAPEntry getEntry() {
+        return entry;
+    }
+
+    public String getDN() {
+        return entry.getDN();
+    }
+
+    /**
+     * Returns the DN of the entry before a MODDN change.
+     */
+    public String getPreviousDN() {
+        return previousDN;
+    }
+
+    public void setPreviousDN(String previousDN) {
+        this.previousDN = previousDN;
+    }
+
+    /**
+     * Returns true if the change happened while the subscription
+     * was disconnected and was found when it resumed. Changes found
+     * this way are reported as MODIFY or DELETE.
+     */
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    public void setResumed(boolean resumed) {
+        this.resumed = resumed;
+    }
+
+    /**
+     * Returns the entryUSN of the entry, or null if the
+     * USN plugin is not enabled.
+     */
+    public BigInteger getEntryUSN() {
+        LDAPAttribute attr = entry.getAttribute(DBChangeNotifier.ATTR_ENTRY_USN);
+        if (attr == null) {
+            return null;
+        }
+        return new BigInteger(attr.getStringValueArray()[0]);
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + entry.getDN();
+    }
+}
@@ -0,0 +1,46 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.dbs;
+
+/**
+ * A listener of changes in the database.
+ *
+ * The methods of a listener are called in order on the thread
+ * of its subscription.
+ */
+public interface DBChangeListener {
+
+    /**
+     * Called when the search of the subscription is started or
+     * restarted after the connection was lost.
+     *
+     * If resumed is false, the existing entries follow as ENTRY
+     * events (unless the subscription only reports changes), so any
+     * state built from previous events should be discarded. If resumed
+     * is true, only the changes since the last event follow.
+     *
+     * @param resumed whether the subscription resumed from its last change
+     */
+    default void changesStarted(boolean resumed) throws Exception {
+    }
+
+    /**
+     * Called for each entry returned by the subscription.
+     */
+    void entryChanged(DBChangeEvent event) throws Exception;
+}
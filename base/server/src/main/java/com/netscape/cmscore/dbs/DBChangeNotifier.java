@@ -0,0 +1,592 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.dbs;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.netscape.cmsutil.ldap.LDAPUtil;
+
+import netscape.ldap.LDAPConnection;
+import netscape.ldap.LDAPEntry;
+import netscape.ldap.LDAPException;
+import netscape.ldap.LDAPMessage;
+import netscape.ldap.LDAPResponse;
+import netscape.ldap.LDAPSearchConstraints;
+import netscape.ldap.LDAPSearchListener;
+import netscape.ldap.LDAPSearchResult;
+import netscape.ldap.LDAPSearchResults;
+import netscape.ldap.controls.LDAPEntryChangeControl;
+import netscape.ldap.controls.LDAPPersistSearchControl;
+
+/**
+ * A service which notifies subscribers of changes in the database.
+ *
+ * The persistent searches of all subscriptions share one connection
+ * and one reader thread. Events are handed over to the thread of each
+ * subscription.
+ *
+ * When the connection is lost it is reestablished with an increasing
+ * delay. A subscription which has received all the existing entries
+ * with entryUSN resumes from the highest one: it receives the entries
+ * changed or deleted (from their tombstones) while it was disconnected
+ * instead of all the entries again.
+ */
+public class DBChangeNotifier implements Runnable {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(DBChangeNotifier.class);
+
+    public static final String ATTR_ENTRY_USN = "entryUSN";
+
+    private DBSubsystem dbSubsystem;
+
+    private long retryInterval; // milliseconds
+    private long maxRetryInterval; // milliseconds
+    private long nextRetryInterval;
+
+    private List<DBChangeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    // subscriptions by the message ID of their persistent search
+    private Map<Integer, DBChangeSubscription> searches = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+    private LDAPConnection conn;
+    private LDAPSearchListener listener;
+    private boolean reconnecting;
+    private volatile boolean running;
+
+    /**
+     * @param dbSubsystem database subsystem to get the connection from
+     * @param retryInterval initial reconnect delay in milliseconds
+     * @param maxRetryInterval maximum reconnect delay in milliseconds
+     */
+    public DBChangeNotifier(DBSubsystem dbSubsystem, long retryInterval, long maxRetryInterval) {
+        this.dbSubsystem = dbSubsystem;
+        this.retryInterval = retryInterval;
+        this.maxRetryInterval = maxRetryInterval;
+        this.nextRetryInterval = retryInterval;
+    }
+
+    public synchronized void start() {
+
+        logger.info("DBChangeNotifier: Starting change notifier");
+        running = true;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DBChangeNotifier-connect");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts delivering the changes of a subscription.
+     */
+    public synchronized void subscribe(DBChangeSubscription subscription) {
+
+        logger.info("DBChangeNotifier: Subscribing " + subscription);
+
+        subscription.start();
+        subscriptions.add(subscription);
+
+        if (conn == null) {
+            // the search is started when connected
+            if (!reconnecting) {
+                scheduleConnect(0);
+            }
+            return;
+        }
+
+        try {
+            startSearch(subscription);
+
+        } catch (LDAPException e) {
+            logger.warn("DBChangeNotifier: Unable to subscribe " + subscription + ": " + e.getMessage(), e);
+            disconnect();
+            scheduleConnect(nextRetryInterval());
+        }
+    }
+
+    /**
+     * Stops delivering the changes of a subscription.
+     */
+    public synchronized void unsubscribe(DBChangeSubscription subscription) {
+
+        logger.info("DBChangeNotifier: Unsubscribing " + subscription);
+
+        if (!subscriptions.remove(subscription)) {
+            return;
+        }
+
+        int messageID = subscription.getMessageID();
+        searches.remove(messageID);
+
+        if (conn != null && messageID > 0) {
+            try {
+                conn.abandon(messageID);
+            } catch (LDAPException e) {
+                logger.warn("DBChangeNotifier: Unable to abandon search: " + e.getMessage(), e);
+            }
+        }
+
+        subscription.stop();
+    }
+
+    synchronized void scheduleConnect(long delay) {
+
+        if (!running) {
+            return;
+        }
+
+        logger.info("DBChangeNotifier: Connecting in " + delay + " ms");
+        reconnecting = true;
+        scheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized long nextRetryInterval() {
+        long interval = nextRetryInterval;
+        nextRetryInterval = Math.min(nextRetryInterval * 2, maxRetryInterval);
+        return interval;
+    }
+
+    synchronized void connect() {
+
+        reconnecting = false;
+
+        if (!running || conn != null || subscriptions.isEmpty()) {
+            return;
+        }
+
+        try {
+            conn = dbSubsystem.getConn();
+
+            for (DBChangeSubscription subscription : subscriptions) {
+                startSearch(subscription);
+            }
+
+            // connected successfully, reset the delay
+            nextRetryInterval = retryInterval;
+
+        } catch (Exception e) {
+            logger.warn("DBChangeNotifier: Unable to monitor changes: " + e.getMessage(), e);
+            disconnect();
+            scheduleConnect(nextRetryInterval());
+        }
+    }
+
+    /**
+     * Starts the persistent search of a subscription on the current
+     * connection. If the subscription has a position to resume from,
+     * the changes since that position are delivered as well, otherwise
+     * the existing entries are delivered unless the subscription only
+     * reports changes.
+     */
+    void startSearch(DBChangeSubscription subscription) throws LDAPException {
+
+        BigInteger lastUSN = subscription.getLastUSN();
+        boolean resume = lastUSN != null;
+
+        String[] attrs = getAttributes(subscription);
+
+        // the persistent search only returns the changes, the existing
+        // entries are retrieved with a regular search so it is known
+        // when all of them have been received
+        LDAPPersistSearchControl persistCtrl = new LDAPPersistSearchControl(
+                subscription.getChangeTypes(),
+                true,  // changes only
+                true,  // return entry change controls
+                true); // critical
+
+        LDAPSearchConstraints cons = new LDAPSearchConstraints();
+        cons.setServerControls(persistCtrl);
+        cons.setBatchSize(1);
+        cons.setMaxResults(0);
+        cons.setServerTimeLimit(0);
+
+        // start the persistent search before retrieving the existing
+        // entries or the missed changes so no change is lost in between,
+        // listeners ignore changes that they have already seen by their
+        // entryUSN
+
+        subscription.loadStarted();
+
+        boolean first = listener == null;
+        listener = conn.search(
+                subscription.getBaseDN(),
+                subscription.getScope(),
+                subscription.getFilter(),
+                attrs,
+                false,
+                listener,
+                cons);
+
+        // the reader holds the results of the new search until
+        // it is registered since this method is synchronized
+        subscription.dispatchStarted(resume);
+
+        for (int messageID : listener.getMessageIDs()) {
+            if (!searches.containsKey(messageID)) {
+                subscription.setMessageID(messageID);
+                searches.put(messageID, subscription);
+                break;
+            }
+        }
+
+        if (first) {
+            Thread reader = new Thread(this, "DBChangeNotifier");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        if (resume) {
+            resume(subscription, attrs, lastUSN);
+
+        } else if (!subscription.isChangesOnly()) {
+            load(subscription, attrs);
+        }
+
+        subscription.loadFinished();
+    }
+
+    /**
+     * Delivers the existing entries of a subscription.
+     */
+    void load(DBChangeSubscription subscription, String[] attrs) throws LDAPException {
+
+        logger.info("DBChangeNotifier: Retrieving entries for " + subscription);
+
+        LDAPSearchConstraints cons = new LDAPSearchConstraints();
+        cons.setMaxResults(0);
+
+        LDAPSearchResults results = conn.search(
+                subscription.getBaseDN(),
+                subscription.getScope(),
+                subscription.getFilter(),
+                attrs,
+                false,
+                cons);
+
+        while (results.hasMoreElements()) {
+            subscription.dispatch(new DBChangeEvent(DBChangeEvent.Type.ENTRY, results.next()));
+        }
+    }
+
+    /**
+     * Delivers the entries changed or deleted after the given entryUSN.
+     */
+    void resume(DBChangeSubscription subscription, String[] attrs, BigInteger lastUSN)
+            throws LDAPException {
+
+        String usn = lastUSN.add(BigInteger.ONE).toString();
+        logger.info("DBChangeNotifier: Retrieving changes for " + subscription + " since entryUSN " + usn);
+
+        LDAPSearchConstraints cons = new LDAPSearchConstraints();
+        cons.setMaxResults(0);
+
+        // changed entries
+        if ((subscription.getChangeTypes() & (LDAPPersistSearchControl.ADD
+                | LDAPPersistSearchControl.MODIFY
+                | LDAPPersistSearchControl.MODDN)) != 0) {
+
+            LDAPSearchResults results = conn.search(
+                    subscription.getBaseDN(),
+                    subscription.getScope(),
+                    "(&" + subscription.getFilter() + "(" + ATTR_ENTRY_USN + ">=" + usn + "))",
+                    attrs,
+                    false,
+                    cons);
+
+            while (results.hasMoreElements()) {
+                DBChangeEvent event = new DBChangeEvent(DBChangeEvent.Type.MODIFY, results.next());
+                event.setResumed(true);
+                subscription.dispatch(event);
+            }
+        }
+
+        // deleted entries
+        if ((subscription.getChangeTypes() & LDAPPersistSearchControl.DELETE) != 0) {
+
+            List<String> tombstoneAttrs = new ArrayList<>(Arrays.asList(attrs));
+            tombstoneAttrs.add("nsUniqueId");
+
+            // tombstones keep the attributes of the deleted entries
+            // so they match the filter of the subscription
+
+            LDAPSearchResults results = conn.search(
+                    subscription.getBaseDN(),
+                    LDAPConnection.SCOPE_SUB,
+                    "(&(objectclass=nsTombstone)" + subscription.getFilter() + "(" + ATTR_ENTRY_USN + ">=" + usn + "))",
+                    tombstoneAttrs.toArray(new String[0]),
+                    false,
+                    cons);
+
+            while (results.hasMoreElements()) {
+                DBChangeEvent event = createDeleteEvent(results.next());
+                event.setResumed(true);
+                subscription.dispatch(event);
+            }
+        }
+    }
+
+    /**
+     * Creates a DELETE event for a tombstone. The event has the DN of
+     * the deleted entry, so listeners can handle it like a deletion
+     * reported by the persistent search.
+     */
+    DBChangeEvent createDeleteEvent(LDAPEntry tombstone) {
+        String dn = getOriginalDN(tombstone.getDN());
+        LDAPEntry entry = new LDAPEntry(dn, tombstone.getAttributeSet());
+        return new DBChangeEvent(DBChangeEvent.Type.DELETE, entry);
+    }
+
+    /**
+     * Returns the DN of the entry deleted by a tombstone. 389-DS puts
+     * the nsUniqueId of the deleted entry in front of its DN, either as
+     * a separate RDN (e.g. nsuniqueid=...,cn=test,dc=example,dc=com) or
+     * in older versions as part of its RDN (e.g. nsuniqueid=...+cn=test,
+     * dc=example,dc=com), so it is removed from the DN. Other DNs are
+     * returned unchanged.
+     */
+    static String getOriginalDN(String dn) {
+
+        boolean tombstone = false;
+        List<String> avas = new ArrayList<>();
+
+        // split the first RDN at the unescaped plus signs
+        int start = 0;
+        int i = 0;
+
+        for (; i <= dn.length(); i++) {
+
+            if (i < dn.length() && dn.charAt(i) == '\\') {
+                i++;
+                continue;
+            }
+
+            if (i < dn.length() && dn.charAt(i) != '+' && dn.charAt(i) != ',') {
+                continue;
+            }
+
+            String ava = dn.substring(start, i).trim();
+            start = i + 1;
+
+            if (ava.toLowerCase().startsWith("nsuniqueid=")) {
+                tombstone = true;
+            } else {
+                avas.add(ava);
+            }
+
+            if (i == dn.length() || dn.charAt(i) == ',') {
+                break;
+            }
+        }
+
+        if (!tombstone) {
+            return dn;
+        }
+
+        String parentDN = start < dn.length() ? dn.substring(start).trim() : "";
+
+        if (avas.isEmpty()) {
+            return parentDN;
+        }
+
+        String rdn = String.join("+", avas);
+        return parentDN.isEmpty() ? rdn : rdn + "," + parentDN;
+    }
+
+    /**
+     * Returns the attributes of a subscription including the entryUSN.
+     */
+    String[] getAttributes(DBChangeSubscription subscription) {
+
+        String[] attrs = subscription.getAttributes();
+        if (attrs == null) {
+            return new String[] { "*", ATTR_ENTRY_USN };
+        }
+
+        for (String attr : attrs) {
+            if (ATTR_ENTRY_USN.equalsIgnoreCase(attr)) {
+                return attrs;
+            }
+        }
+
+        String[] list = Arrays.copyOf(attrs, attrs.length + 1);
+        list[attrs.length] = ATTR_ENTRY_USN;
+        return list;
+    }
+
+    /**
+     * Reads the results of all persistent searches and hands them over
+     * to their subscriptions until the connection is lost.
+     */
+    @Override
+    public void run() {
+
+        LDAPSearchListener current;
+        synchronized (this) {
+            current = listener;
+        }
+
+        logger.info("DBChangeNotifier: Monitoring changes");
+
+        try {
+            while (running) {
+
+                // blocks until the next result, returns null
+                // once all searches have been abandoned
+                LDAPMessage message = current.getResponse();
+                if (message == null) {
+                    break;
+                }
+
+                DBChangeSubscription subscription;
+                synchronized (this) {
+                    subscription = searches.get(message.getMessageID());
+                }
+
+                if (message instanceof LDAPSearchResult result) {
+
+                    if (subscription == null || subscription.isStopped()) {
+                        continue;
+                    }
+
+                    subscription.dispatch(createEvent(result));
+
+                } else if (message instanceof LDAPResponse response) {
+
+                    // a persistent search only ends on error
+                    searches.remove(message.getMessageID());
+
+                    if (subscription != null && subscriptions.contains(subscription)) {
+                        throw new LDAPException(
+                                "Search for " + subscription + " ended: " + response.getErrorMessage(),
+                                response.getResultCode());
+                    }
+                }
+            }
+
+        } catch (Exception e) {
+            if (running) {
+                logger.warn("DBChangeNotifier: Lost connection: " + e.getMessage(), e);
+            }
+        }
+
+        synchronized (this) {
+            if (current != listener) {
+                // replaced by a new connection
+                return;
+            }
+
+            disconnect();
+
+            if (running && !subscriptions.isEmpty()) {
+                scheduleConnect(nextRetryInterval());
+            }
+        }
+
+        logger.info("DBChangeNotifier: Stopped monitoring changes");
+    }
+
+    DBChangeEvent createEvent(LDAPSearchResult result) {
+
+        LDAPEntry entry = result.getEntry();
+
+        LDAPEntryChangeControl changeControl = (LDAPEntryChangeControl)
+                LDAPUtil.getControl(LDAPEntryChangeControl.class, result.getControls());
+
+        if (changeControl == null) {
+            return new DBChangeEvent(DBChangeEvent.Type.ENTRY, entry);
+        }
+
+        DBChangeEvent.Type type;
+        int changeType = changeControl.getChangeType();
+
+        switch (changeType) {
+        case LDAPPersistSearchControl.ADD:
+            type = DBChangeEvent.Type.ADD;
+            break;
+        case LDAPPersistSearchControl.DELETE:
+            type = DBChangeEvent.Type.DELETE;
+            break;
+        case LDAPPersistSearchControl.MODDN:
+            type = DBChangeEvent.Type.MODDN;
+            break;
+        default:
+            type = DBChangeEvent.Type.MODIFY;
+        }
+
+        DBChangeEvent event = new DBChangeEvent(type, entry);
+        event.setPreviousDN(changeControl.getPreviousDN());
+        return event;
+    }
+
+    /**
+     * Abandons the searches and returns the connection.
+     */
+    synchronized void disconnect() {
+
+        if (conn == null) {
+            return;
+        }
+
+        if (listener != null) {
+            try {
+                conn.abandon(listener);
+            } catch (LDAPException e) {
+                logger.debug("DBChangeNotifier: Unable to abandon searches: " + e.getMessage());
+            }
+        }
+
+        searches.clear();
+        for (DBChangeSubscription subscription : subscriptions) {
+            subscription.setMessageID(0);
+        }
+
+        dbSubsystem.returnConn(conn);
+        conn = null;
+        listener = null;
+    }
+
+    public synchronized void shutdown() {
+
+        logger.info("DBChangeNotifier: Shutting down change notifier");
+
+        running = false;
+
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+
+        disconnect();
+
+        for (DBChangeSubscription subscription : subscriptions) {
+            subscription.stop();
+        }
+
+        subscriptions.clear();
+    }
+}
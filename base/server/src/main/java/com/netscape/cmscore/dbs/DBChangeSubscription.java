@@ -0,0 +1,246 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.dbs;
+
+import java.math.BigInteger;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import netscape.ldap.LDAPConnection;
+import netscape.ldap.controls.LDAPPersistSearchControl;
+
+/**
+ * A subscription to the changes of the entries under a base DN.
+ *
+ * Events are delivered to the listener in order on a thread
+ * dedicated to the subscription, so a slow listener does not
+ * delay the other subscriptions.
+ */
+public class DBChangeSubscription {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(DBChangeSubscription.class);
+
+    public static final int ALL_CHANGES = LDAPPersistSearchControl.ADD
+            | LDAPPersistSearchControl.MODIFY
+            | LDAPPersistSearchControl.DELETE
+            | LDAPPersistSearchControl.MODDN;
+
+    private String name;
+    private String baseDN;
+    private int scope = LDAPConnection.SCOPE_SUB;
+    private String filter = "(objectclass=*)";
+    private String[] attributes;
+    private int changeTypes = ALL_CHANGES;
+    private boolean changesOnly;
+    private DBChangeListener listener;
+
+    private ExecutorService executor;
+
+    // message ID of the persistent search on the current connection
+    private int messageID;
+
+    // highest entryUSN received, used to resume after a reconnect
+    private volatile BigInteger lastUSN;
+
+    // the existing entries and the missed changes are not returned
+    // in entryUSN order, so the highest entryUSN received while they
+    // are retrieved only becomes the resume position once all of them
+    // have been received
+    private boolean loading;
+    private BigInteger pendingUSN;
+
+    /**
+     * @param name name of the subscription thread
+     * @param baseDN base DN of the entries
+     * @param listener listener of the changes
+     */
+    public DBChangeSubscription(String name, String baseDN, DBChangeListener listener) {
+        this.name = name;
+        this.baseDN = baseDN;
+        this.listener = listener;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getBaseDN() {
+        return baseDN;
+    }
+
+    public int getScope() {
+        return scope;
+    }
+
+    public void setScope(int scope) {
+        this.scope = scope;
+    }
+
+    /**
+     * Returns the LDAP filter of the entries.
+     */
+    public String getFilter() {
+        return filter;
+    }
+
+    public void setFilter(String filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Returns the LDAP attributes to retrieve, or null for all
+     * user attributes. The entryUSN is always retrieved.
+     */
+    public String[] getAttributes() {
+        return attributes;
+    }
+
+    public void setAttributes(String[] attributes) {
+        this.attributes = attributes;
+    }
+
+    /**
+     * Returns the types of changes to report as a combination of
+     * LDAPPersistSearchControl.ADD, MODIFY, DELETE, and MODDN.
+     */
+    public int getChangeTypes() {
+        return changeTypes;
+    }
+
+    public void setChangeTypes(int changeTypes) {
+        this.changeTypes = changeTypes;
+    }
+
+    /**
+     * Returns true if the existing entries are not reported
+     * when the subscription is started.
+     */
+    public boolean isChangesOnly() {
+        return changesOnly;
+    }
+
+    public void setChangesOnly(boolean changesOnly) {
+        this.changesOnly = changesOnly;
+    }
+
+    public DBChangeListener getListener() {
+        return listener;
+    }
+
+    int getMessageID() {
+        return messageID;
+    }
+
+    void setMessageID(int messageID) {
+        this.messageID = messageID;
+    }
+
+    /**
+     * Returns the highest entryUSN received, or null if the
+     * subscription cannot resume.
+     */
+    public BigInteger getLastUSN() {
+        return lastUSN;
+    }
+
+    /**
+     * Called before the existing entries or the missed changes are
+     * retrieved. Until loadFinished() is called the resume position
+     * does not advance, so if the connection is lost in between the
+     * subscription starts again from the previous position.
+     */
+    synchronized void loadStarted() {
+        loading = true;
+        pendingUSN = lastUSN;
+    }
+
+    /**
+     * Called after all the existing entries or the missed changes
+     * have been received.
+     */
+    synchronized void loadFinished() {
+        loading = false;
+        lastUSN = pendingUSN;
+    }
+
+    synchronized void updateUSN(BigInteger entryUSN) {
+
+        if (entryUSN == null) {
+            return;
+        }
+
+        if (loading) {
+            if (pendingUSN == null || entryUSN.compareTo(pendingUSN) > 0) {
+                pendingUSN = entryUSN;
+            }
+            return;
+        }
+
+        if (lastUSN == null || entryUSN.compareTo(lastUSN) > 0) {
+            lastUSN = entryUSN;
+        }
+    }
+
+    void start() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void stop() {
+        executor.shutdown();
+    }
+
+    boolean isStopped() {
+        return executor == null || executor.isShutdown();
+    }
+
+    void dispatchStarted(boolean resumed) {
+
+        logger.info("DBChangeSubscription: " + (resumed ? "Resuming " : "Starting ") + name);
+
+        executor.execute(() -> {
+            try {
+                listener.changesStarted(resumed);
+            } catch (Throwable e) {
+                logger.warn("DBChangeSubscription: Unable to start " + name + ": " + e.getMessage(), e);
+            }
+        });
+    }
+
+    void dispatch(DBChangeEvent event) {
+
+        updateUSN(event.getEntryUSN());
+
+        executor.execute(() -> {
+            try {
+                logger.debug("DBChangeSubscription: " + name + ": " + event);
+                listener.entryChanged(event);
+            } catch (Throwable e) {
+                logger.warn("DBChangeSubscription: Unable to process " + event + ": " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + baseDN + ")";
+    }
+}
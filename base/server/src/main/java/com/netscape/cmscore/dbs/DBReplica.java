@@ -0,0 +1,124 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.dbs;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.netscape.certsrv.ldap.ELdapException;
+import com.netscape.cmscore.ldapconn.LdapBoundConnFactory;
+import com.netscape.cmscore.ldapconn.LdapConnPoolStats;
+
+import netscape.ldap.LDAPConnection;
+import netscape.ldap.LDAPException;
+
+/**
+ * A read replica of the internal database.
+ *
+ * A replica which fails with a connection error is not used
+ * until the retry interval has elapsed.
+ */
+public class DBReplica {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(DBReplica.class);
+
+    private String id;
+    private LdapBoundConnFactory connFactory;
+    private int weight;
+
+    private volatile long downUntil;
+    private AtomicLong errors = new AtomicLong();
+    private LdapConnPoolStats.Histogram latencies = new LdapConnPoolStats.Histogram();
+
+    public DBReplica(String id, LdapBoundConnFactory connFactory, int weight) {
+        this.id = id;
+        this.connFactory = connFactory;
+        this.weight = weight;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public LdapBoundConnFactory getConnFactory() {
+        return connFactory;
+    }
+
+    public boolean isAvailable() {
+        return downUntil <= System.currentTimeMillis();
+    }
+
+    /**
+     * Stops using the replica for the retry interval.
+     *
+     * @param retryInterval retry interval in milliseconds
+     */
+    public void markDown(long retryInterval, Exception e) {
+        logger.warn("DBReplica: Replica " + id + " is unavailable: " + e.getMessage());
+        errors.incrementAndGet();
+        downUntil = System.currentTimeMillis() + retryInterval;
+    }
+
+    public LDAPConnection getConn() throws ELdapException {
+        return connFactory.getConn(false);
+    }
+
+    public void returnConn(LDAPConnection conn) {
+        connFactory.returnConn(conn);
+    }
+
+    public void recordLatency(long time) {
+        latencies.record(time);
+    }
+
+    /**
+     * Returns the histogram of the time taken by the reads
+     * sent to the replica.
+     */
+    public LdapConnPoolStats.Histogram getLatencies() {
+        return latencies;
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * Returns true if the exception indicates that the replica
+     * rather than the operation failed.
+     */
+    public static boolean isConnectionError(LDAPException e) {
+        switch (e.getLDAPResultCode()) {
+        case LDAPException.UNAVAILABLE:
+        case LDAPException.BUSY:
+        case LDAPException.SERVER_DOWN:
+        case LDAPException.CONNECT_ERROR:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return id + ": weight=" + weight + " errors=" + getErrors() + " latency: " + latencies;
+    }
+}
@@ -313,4 +313,29 @@ public class DBSSession implements AutoCloseable {
 
     public void abandon(LDAPSearchResults results) throws EBaseException {
     }
+
+    /**
+     * Opens a cursor over the objects that satisfy the filter.
+     * The cursor takes over this session and closes it when
+     * the cursor is closed.
+     *
+     * @param base search base
+     * @param filter search filter
+     * @param attrs attributes to retrieve, or null for all attributes
+     * @param maxSize maximum number of objects, 0 for no limit
+     * @param timeLimit time limit for each page in seconds, 0 for no limit
+     * @param sortAttribute LDAP attribute to sort by, or null
+     * @param pageSize number of objects retrieved at a time
+     */
+    public <T extends IDBObj> DBSearchCursor<T> openCursor(
+            String base,
+            String filter,
+            String[] attrs,
+            int maxSize,
+            int timeLimit,
+            String sortAttribute,
+            int pageSize
+            ) throws EBaseException {
+        return null;
+    }
 }
@@ -0,0 +1,297 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.dbs;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.netscape.certsrv.base.EBaseException;
+import com.netscape.certsrv.base.PKIException;
+import com.netscape.certsrv.dbs.EDBException;
+import com.netscape.certsrv.dbs.IDBObj;
+import com.netscape.cmsutil.ldap.LDAPPagedResultsControl;
+
+import netscape.ldap.LDAPConnection;
+import netscape.ldap.LDAPControl;
+import netscape.ldap.LDAPEntry;
+import netscape.ldap.LDAPException;
+import netscape.ldap.LDAPSearchConstraints;
+import netscape.ldap.LDAPSearchResults;
+import netscape.ldap.LDAPSortKey;
+import netscape.ldap.LDAPv3;
+import netscape.ldap.controls.LDAPSortControl;
+
+/**
+ * A cursor over the results of a search which retrieves the entries
+ * one page at a time with the simple paged results control.
+ *
+ * The next page is requested only after the current page has been
+ * consumed, so at most one page of entries is held in memory however
+ * many entries match. The cursor owns the database session it was
+ * opened on and returns it when closed, so it must be closed, e.g.
+ * in a try-with-resources statement.
+ *
+ * If the server does not support paging all entries are returned
+ * as a single page.
+ */
+public class DBSearchCursor<T extends IDBObj> implements Iterator<T>, AutoCloseable {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(DBSearchCursor.class);
+
+    private DBRegistry registry;
+    private DBSSession session;
+    private LDAPConnection conn;
+
+    private String base;
+    private String filter;
+    private String[] attrs;
+    private int maxSize;
+    private int timeLimit;
+    private String sortAttribute;
+    private int pageSize;
+
+    private LDAPSearchResults results; // current page
+    private byte[] cookie; // cookie for the next page
+    private int count;
+    private T next;
+    private boolean closed;
+
+    /**
+     * @param registry registry to convert entries into objects
+     * @param session session to close with the cursor
+     * @param conn connection of the session to search with
+     * @param base search base
+     * @param filter LDAP filter
+     * @param attrs LDAP attributes, or null for all attributes
+     * @param maxSize maximum number of entries, 0 for no limit
+     * @param timeLimit server time limit for each page in seconds, 0 for no limit
+     * @param sortAttribute LDAP attribute to sort by, or null
+     * @param pageSize number of entries in each page
+     */
+    public DBSearchCursor(
+            DBRegistry registry,
+            DBSSession session,
+            LDAPConnection conn,
+            String base,
+            String filter,
+            String[] attrs,
+            int maxSize,
+            int timeLimit,
+            String sortAttribute,
+            int pageSize) {
+
+        this.registry = registry;
+        this.session = session;
+        this.conn = conn;
+        this.base = base;
+        this.filter = filter;
+        this.attrs = attrs;
+        this.maxSize = maxSize;
+        this.timeLimit = timeLimit;
+        this.sortAttribute = sortAttribute;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Requests the first page so that search errors are reported
+     * when the cursor is opened.
+     */
+    public void open() throws LDAPException {
+        fetchPage(pageSize);
+    }
+
+    void fetchPage(int size) throws LDAPException {
+
+        if (maxSize > 0) {
+            size = Math.min(size, maxSize - count);
+        }
+
+        List<LDAPControl> controls = new ArrayList<>();
+        controls.add(new LDAPPagedResultsControl(false, size, cookie));
+
+        if (sortAttribute != null) {
+            controls.add(new LDAPSortControl(new LDAPSortKey(sortAttribute), true));
+        }
+
+        LDAPSearchConstraints cons = new LDAPSearchConstraints();
+        cons.setMaxResults(0); // the page size limits the results
+        cons.setServerTimeLimit(timeLimit);
+        cons.setServerControls(controls.toArray(new LDAPControl[0]));
+
+        results = conn.search(base, LDAPv3.SCOPE_ONE, filter, attrs, false, cons);
+    }
+
+    /**
+     * Returns the cookie for the next page from the response
+     * of the current page, or null if there are no more pages.
+     */
+    byte[] getNextCookie() throws LDAPException {
+
+        LDAPPagedResultsControl pagedResults =
+                LDAPPagedResultsControl.getResponseControl(results.getResponseControls());
+
+        if (pagedResults == null) {
+            return null;
+        }
+
+        return pagedResults.hasMorePages() ? pagedResults.getCookie() : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+
+        if (next != null) {
+            return true;
+        }
+
+        try {
+            while (!closed) {
+
+                if (maxSize > 0 && count >= maxSize) {
+                    break;
+                }
+
+                if (results == null) {
+                    fetchPage(pageSize);
+                }
+
+                if (results.hasMoreElements()) {
+
+                    LDAPEntry entry;
+                    try {
+                        entry = results.next();
+
+                    } catch (LDAPException e) {
+                        int code = e.getLDAPResultCode();
+                        if (code != LDAPException.SIZE_LIMIT_EXCEEDED && code != LDAPException.TIME_LIMIT_EXCEEDED) {
+                            throw e;
+                        }
+
+                        // return the entries found within the limits
+                        logger.info("DBSearchCursor: Search stopped: " + e.getMessage());
+                        break;
+                    }
+
+                    @SuppressWarnings("unchecked")
+                    T object = (T) registry.createObject(entry.getAttributeSet());
+                    if (object == null) {
+                        continue;
+                    }
+
+                    next = object;
+                    count++;
+                    return true;
+                }
+
+                // end of page
+                cookie = getNextCookie();
+                results = null;
+
+                if (cookie == null) {
+                    break;
+                }
+
+                logger.debug("DBSearchCursor: Requesting next page after " + count + " entries");
+            }
+
+        } catch (LDAPException | EBaseException e) {
+            close();
+            throw new PKIException("Unable to retrieve search results: " + e.getMessage(), e);
+        }
+
+        close();
+        return false;
+    }
+
+    @Override
+    public T next() {
+
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        T object = next;
+        next = null;
+        return object;
+    }
+
+    /**
+     * Returns the number of entries retrieved so far.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns a sequential stream of the remaining entries.
+     * Closing the stream closes the cursor.
+     */
+    public Stream<T> stream() {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(
+                this,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    /**
+     * Ends the search and returns the session.
+     */
+    @Override
+    public void close() {
+
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        next = null;
+
+        try {
+            if (results != null) {
+                // stop the page in progress
+                conn.abandon(results);
+
+            } else if (cookie != null) {
+                // tell the server to release the remaining pages
+                fetchPage(0);
+                while (results.hasMoreElements()) {
+                    results.nextElement();
+                }
+            }
+
+        } catch (LDAPException e) {
+            logger.warn("DBSearchCursor: Unable to end search: " + e.getMessage(), e);
+
+        } finally {
+            results = null;
+            cookie = null;
+
+            try {
+                session.close();
+            } catch (EDBException e) {
+                logger.warn("DBSearchCursor: Unable to close session: " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -18,7 +18,11 @@
 package com.netscape.cmscore.dbs;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.mozilla.jss.netscape.security.x509.CertificateValidity;
 
@@ -28,10 +32,12 @@ import com.netscape.certsrv.dbs.EDBException;
 import com.netscape.certsrv.dbs.EDBNotAvailException;
 import com.netscape.certsrv.ldap.ELdapException;
 import com.netscape.certsrv.ldap.ELdapServerDownException;
+import com.netscape.certsrv.ldap.LdapConnFactory;
 import com.netscape.cmscore.apps.CMS;
 import com.netscape.cmscore.apps.CMSEngine;
 import com.netscape.cmscore.apps.DatabaseConfig;
 import com.netscape.cmscore.apps.EngineConfig;
+import com.netscape.cmscore.base.ConfigStore;
 import com.netscape.cmscore.ldapconn.LDAPConfig;
 import com.netscape.cmscore.ldapconn.LdapAuthInfo;
 import com.netscape.cmscore.ldapconn.LdapBoundConnFactory;
@@ -65,6 +71,17 @@ public class DBSubsystem {
     public static final String ID = "dbs";
 
     public static final String PROP_NEXT_RANGE = "nextRange";
+
+    public static final String PROP_REPLICAS = "replicas";
+    public static final String PROP_REPLICA = "replica";
+    public static final String PROP_REPLICA_RETRY_INTERVAL = "replicaRetryInterval";
+    public static final String PROP_READ_YOUR_WRITES_WINDOW = "readYourWritesWindow";
+    public static final String PROP_SEARCH_PAGE_SIZE = "searchPageSize";
+    public static final String PROP_CHANGE_RETRY_INTERVAL = "changeRetryInterval";
+    public static final String PROP_CHANGE_MAX_RETRY_INTERVAL = "changeMaxRetryInterval";
+
+    public static final int DEFAULT_SEARCH_PAGE_SIZE = 500;
+
     public static final Set<String> DEFAULT_EXCLUDED_LDAP_ATTRS = Set.of(
             "req_x509info",
             "publickey",
@@ -82,7 +99,20 @@ public class DBSubsystem {
     private DBRegistry mRegistry;
     private String mBaseDN;
 
+    // read replicas, empty if reads go to the primary server
+    private List<DBReplica> replicas = Collections.emptyList();
+    private long replicaRetryInterval = 30000;
+    private long readYourWritesWindow = 5000;
+    private ThreadLocal<Long> lastWrite = new ThreadLocal<>();
+
+    // number of entries retrieved at a time by search cursors
+    private int searchPageSize = DEFAULT_SEARCH_PAGE_SIZE;
+
+    // shared persistent searches for change monitors
+    private DBChangeNotifier changeNotifier;
+
     private boolean mEnableSerialMgmt;
+    private boolean enableCompactCRLCache;
 
     protected Set<String> excludedLdapAttrs;
 
@@ -135,6 +165,10 @@ public class DBSubsystem {
         return mEnableSerialMgmt;
     }
 
+    public boolean getEnableCompactCRLCache() {
+        return enableCompactCRLCache;
+    }
+
     public void setEnableSerialMgmt(boolean v)
             throws EBaseException {
 
@@ -216,6 +250,9 @@ public class DBSubsystem {
             mEnableSerialMgmt = mDBConfig.getEnableSerialManagement();
             logger.debug("DBSubsystem: init()  mEnableSerialMgmt="+mEnableSerialMgmt);
 
+            enableCompactCRLCache = mDBConfig.getEnableCompactCRLCache();
+            logger.debug("DBSubsystem: init()  enableCompactCRLCache=" + enableCompactCRLCache);
+
             // initialize registry
             mRegistry = new LDAPRegistry();
             mRegistry.init(null);
@@ -258,6 +295,16 @@ public class DBSubsystem {
             throw e;
         }
 
+        initReplicas(socketConfig, passwordStore);
+
+        searchPageSize = ldapConfig.getInteger(PROP_SEARCH_PAGE_SIZE, DEFAULT_SEARCH_PAGE_SIZE);
+        logger.info("DBSubsystem: Search page size: " + searchPageSize);
+
+        long changeRetryInterval = ldapConfig.getInteger(PROP_CHANGE_RETRY_INTERVAL, 1) * 1000L;
+        long changeMaxRetryInterval = ldapConfig.getInteger(PROP_CHANGE_MAX_RETRY_INTERVAL, 60) * 1000L;
+        changeNotifier = new DBChangeNotifier(this, changeRetryInterval, changeMaxRetryInterval);
+        changeNotifier.start();
+
         try {
             // registers CMS database attributes
             DBRegistry reg = getRegistry();
@@ -355,13 +402,15 @@ public class DBSubsystem {
             reg.registerAttribute(CRLIssuingPointRecord.ATTR_CA_CERT, new
                     ByteArrayMapper(CRLDBSchema.LDAP_ATTR_CA_CERT));
             reg.registerAttribute(CRLIssuingPointRecord.ATTR_CRL_CACHE, new
-                    ObjectStreamMapper(CRLDBSchema.LDAP_ATTR_CRL_CACHE));
+                    RevokedCertsMapper(CRLDBSchema.LDAP_ATTR_CRL_CACHE, enableCompactCRLCache));
             reg.registerAttribute(CRLIssuingPointRecord.ATTR_REVOKED_CERTS, new
-                    ObjectStreamMapper(CRLDBSchema.LDAP_ATTR_REVOKED_CERTS));
+                    RevokedCertsMapper(CRLDBSchema.LDAP_ATTR_REVOKED_CERTS, enableCompactCRLCache));
             reg.registerAttribute(CRLIssuingPointRecord.ATTR_UNREVOKED_CERTS, new
-                    ObjectStreamMapper(CRLDBSchema.LDAP_ATTR_UNREVOKED_CERTS));
+                    RevokedCertsMapper(CRLDBSchema.LDAP_ATTR_UNREVOKED_CERTS, enableCompactCRLCache));
             reg.registerAttribute(CRLIssuingPointRecord.ATTR_EXPIRED_CERTS, new
-                    ObjectStreamMapper(CRLDBSchema.LDAP_ATTR_EXPIRED_CERTS));
+                    RevokedCertsMapper(CRLDBSchema.LDAP_ATTR_EXPIRED_CERTS, enableCompactCRLCache));
+            reg.registerAttribute(CRLIssuingPointRecord.ATTR_CRL_CACHE_LOG, new
+                    CRLCacheLogMapper(CRLDBSchema.LDAP_ATTR_CRL_CACHE_LOG));
 
             boolean registered = reg.isObjectClassRegistered(RepositoryRecord.class.getName());
             logger.debug("registered: " + registered);
@@ -436,6 +485,154 @@ public class DBSubsystem {
         return attrValue;
     }
 
+    /**
+     * Creates connection pools for the read replicas listed in
+     * internaldb.replicas. Each replica is configured with
+     * internaldb.replica.<id>.host, .port, and .weight and uses
+     * the credentials of the primary server. The replicas are only
+     * used by sessions created with createReadOnlySession().
+     */
+    void initReplicas(PKISocketConfig socketConfig, PasswordStore passwordStore) throws EBaseException {
+
+        String list = ldapConfig.getString(PROP_REPLICAS, "").trim();
+        if (list.isEmpty()) {
+            logger.debug("DBSubsystem: No read replicas");
+            return;
+        }
+
+        replicaRetryInterval = ldapConfig.getInteger(PROP_REPLICA_RETRY_INTERVAL, 30) * 1000L;
+        readYourWritesWindow = ldapConfig.getInteger(PROP_READ_YOUR_WRITES_WINDOW, 5000);
+
+        int minConns = ldapConfig.getInteger(LdapConnFactory.PROP_MINCONNS, 5);
+        int maxConns = ldapConfig.getInteger(LdapConnFactory.PROP_MAXCONNS, 1000);
+        LdapConnInfo primary = mLdapConnFactory.getConnInfo();
+
+        List<DBReplica> replicas = new ArrayList<>();
+
+        for (String id : list.split(",")) {
+            id = id.trim();
+            if (id.isEmpty()) {
+                continue;
+            }
+
+            ConfigStore replicaConfig = ldapConfig.getSubStore(PROP_REPLICA + "." + id);
+            String host = replicaConfig.getString("host");
+            int port = replicaConfig.getInteger("port", primary.getPort());
+            int weight = replicaConfig.getInteger("weight", 1);
+
+            if (weight <= 0) {
+                logger.info("DBSubsystem: Replica " + id + " is disabled");
+                continue;
+            }
+
+            logger.info("DBSubsystem: Replica " + id + ": " + host + ":" + port + " weight " + weight);
+
+            try {
+                LdapBoundConnFactory factory = new LdapBoundConnFactory(
+                        "DBSubsystem-replica-" + id,
+                        minConns,
+                        maxConns,
+                        new LdapConnInfo(host, port, primary.getSecure()),
+                        mLdapConnFactory.getAuthInfo());
+
+                if (engine != null) {
+                    factory.setAuditor(engine.getAuditor());
+                    factory.setSocketListener(engine.getClientSocketListener());
+                    factory.setApprovalCallback(engine.getApprovalCallback());
+                }
+
+                factory.init(socketConfig, passwordStore);
+                replicas.add(new DBReplica(id, factory, weight));
+
+            } catch (ELdapException e) {
+                // the server can run without the replica
+                logger.warn("DBSubsystem: Unable to initialize replica " + id + ": " + e.getMessage(), e);
+            }
+        }
+
+        this.replicas = Collections.unmodifiableList(replicas);
+        logger.info("DBSubsystem: Read replicas: " + replicas.size());
+    }
+
+    /**
+     * Returns the read replicas.
+     */
+    public List<DBReplica> getReplicas() {
+        return replicas;
+    }
+
+    public long getReplicaRetryInterval() {
+        return replicaRetryInterval;
+    }
+
+    public int getSearchPageSize() {
+        return searchPageSize;
+    }
+
+    /**
+     * Selects an available replica at random based on the weights,
+     * or returns null if reads should go to the primary server.
+     */
+    public DBReplica getReplica() {
+
+        if (replicas.isEmpty() || isRecentWrite()) {
+            return null;
+        }
+
+        int total = 0;
+        for (DBReplica replica : replicas) {
+            if (replica.isAvailable()) {
+                total += replica.getWeight();
+            }
+        }
+
+        if (total == 0) {
+            return null;
+        }
+
+        int n = ThreadLocalRandom.current().nextInt(total);
+        for (DBReplica replica : replicas) {
+            if (!replica.isAvailable()) {
+                continue;
+            }
+            n -= replica.getWeight();
+            if (n < 0) {
+                return replica;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Records a write by the current thread so its subsequent reads
+     * go to the primary server until the replicas have caught up.
+     */
+    public void recordWrite() {
+        if (!replicas.isEmpty()) {
+            lastWrite.set(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Returns true if the current thread has written to the primary
+     * server within the read-your-writes window.
+     */
+    public boolean isRecentWrite() {
+
+        Long time = lastWrite.get();
+        if (time == null) {
+            return false;
+        }
+
+        if (System.currentTimeMillis() - time < readYourWritesWindow) {
+            return true;
+        }
+
+        lastWrite.remove();
+        return false;
+    }
+
     /**
      * Retrieves internal DB configuration store.
      */
@@ -476,10 +673,19 @@ public class DBSubsystem {
      * Shutdowns this subsystem gracefully.
      */
     public void shutdown() {
+
+        if (changeNotifier != null) {
+            changeNotifier.shutdown();
+        }
+
         try {
             if (mLdapConnFactory != null) {
                 mLdapConnFactory.shutdown();
             }
+            for (DBReplica replica : replicas) {
+                logger.info("DBSubsystem: Replica " + replica);
+                replica.getConnFactory().shutdown();
+            }
         } catch (ELdapException e) {
 
             /*LogDoc
@@ -568,6 +774,32 @@ public class DBSubsystem {
         return new LDAPSession(this, conn);
     }
 
+    /**
+     * Creates a database session whose reads may be sent to a read
+     * replica. The results may not reflect the most recent writes
+     * so it should only be used for listing and searching.
+     */
+    public DBSSession createReadOnlySession() throws EDBException {
+        LDAPSession session = (LDAPSession) createSession();
+        session.setReadOnly(true);
+        return session;
+    }
+
+    /**
+     * Returns the notifier of changes in the database.
+     */
+    public DBChangeNotifier getChangeNotifier() {
+        return changeNotifier;
+    }
+
+    /**
+     * Gets a connection to the primary server. The connection
+     * must be returned with returnConn().
+     */
+    public LDAPConnection getConn() throws ELdapException {
+        return mLdapConnFactory.getConn();
+    }
+
     public void returnConn(LDAPConnection conn) {
         mLdapConnFactory.returnConn(conn);
     }
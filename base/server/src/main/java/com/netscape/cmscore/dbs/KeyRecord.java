@@ -18,12 +18,14 @@
 package com.netscape.cmscore.dbs;
 
 import java.math.BigInteger;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Vector;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
 import org.mozilla.jss.asn1.OBJECT_IDENTIFIER;
 import org.mozilla.jss.crypto.EncryptionAlgorithm;
 import org.mozilla.jss.crypto.IVParameterSpec;
@@ -53,6 +55,7 @@ public class KeyRecord extends DBRecord {
     public static final String ATTR_OWNER_NAME = "keyOwnerName";
     public static final String ATTR_PRIVATE_KEY_DATA = "privateKey";
     public static final String ATTR_PUBLIC_KEY_DATA = "publicKey";
+    public static final String ATTR_PUBLIC_KEY_FINGERPRINT = "publicKeyFingerprint";
     public static final String ATTR_DATE_OF_RECOVERY = "dateOfRecovery";
     public static final String ATTR_CREATE_TIME = "keyCreateTime";
     public static final String ATTR_MODIFY_TIME = "keyModifyTime";
@@ -74,6 +77,7 @@ public class KeyRecord extends DBRecord {
     private String mAlgorithm = null;
     private byte mPrivateKey[] = null;
     private byte mPublicKey[] = null;
+    private String mPublicKeyFingerprint = null;
     private Integer mSize = null;
     private String mOwnerName = null;
     private Date mDatesOfRecovery[] = null;
@@ -95,6 +99,7 @@ public class KeyRecord extends DBRecord {
         mNames.addElement(ATTR_ALGORITHM);
         mNames.addElement(ATTR_PRIVATE_KEY_DATA);
         mNames.addElement(ATTR_PUBLIC_KEY_DATA);
+        mNames.addElement(ATTR_PUBLIC_KEY_FINGERPRINT);
         mNames.addElement(ATTR_DATE_OF_RECOVERY);
         mNames.addElement(ATTR_META_INFO);
         mNames.addElement(ATTR_CREATE_TIME);
@@ -152,6 +157,8 @@ public class KeyRecord extends DBRecord {
             mPrivateKey = (byte[]) object;
         } else if (name.equalsIgnoreCase(ATTR_PUBLIC_KEY_DATA)) {
             mPublicKey = (byte[]) object;
+        } else if (name.equalsIgnoreCase(ATTR_PUBLIC_KEY_FINGERPRINT)) {
+            mPublicKeyFingerprint = (String) object;
         } else if (name.equalsIgnoreCase(ATTR_DATE_OF_RECOVERY)) {
             mDatesOfRecovery = (Date[]) object;
         } else if (name.equalsIgnoreCase(ATTR_META_INFO)) {
@@ -195,6 +202,8 @@ public class KeyRecord extends DBRecord {
             return mPrivateKey;
         } else if (name.equalsIgnoreCase(ATTR_PUBLIC_KEY_DATA)) {
             return mPublicKey;
+        } else if (name.equalsIgnoreCase(ATTR_PUBLIC_KEY_FINGERPRINT)) {
+            return mPublicKeyFingerprint;
         } else if (name.equalsIgnoreCase(ATTR_DATE_OF_RECOVERY)) {
             return mDatesOfRecovery;
         } else if (name.equalsIgnoreCase(ATTR_CREATE_TIME)) {
@@ -370,6 +379,38 @@ public class KeyRecord extends DBRecord {
         mPublicKey = key;
     }
 
+    /**
+     * Retrieves the fingerprint of the public key.
+     *
+     * @return hex-encoded SHA-256 hash of the public key data
+     */
+    public String getPublicKeyFingerprint() {
+        return mPublicKeyFingerprint;
+    }
+
+    /**
+     * Sets the fingerprint of the public key.
+     */
+    public void setPublicKeyFingerprint(String fingerprint) {
+        mPublicKeyFingerprint = fingerprint;
+    }
+
+    /**
+     * Creates the fingerprint of a public key.
+     *
+     * @param publicKey DER-encoded SubjectPublicKeyInfo
+     * @return hex-encoded SHA-256 hash of the public key
+     * @exception EBaseException failed to create fingerprint
+     */
+    public static String createPublicKeyFingerprint(byte publicKey[]) throws EBaseException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Hex.encodeHexString(digest.digest(publicKey));
+        } catch (NoSuchAlgorithmException e) {
+            throw new EBaseException("Unable to create public key fingerprint: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Retrieves the date(s) of revocation.
      *
@@ -27,6 +27,7 @@ import com.netscape.certsrv.dbs.EDBRecordNotFoundException;
 import com.netscape.certsrv.dbs.IDBObj;
 import com.netscape.certsrv.dbs.Modification;
 import com.netscape.certsrv.dbs.ModificationSet;
+import com.netscape.certsrv.ldap.ELdapException;
 import com.netscape.cmscore.apps.CMS;
 
 import netscape.ldap.LDAPAttribute;
@@ -60,6 +61,24 @@ public class LDAPSession extends DBSSession {
     private DBSubsystem dbSubsystem;
     private LDAPConnection mConn = null;
 
+    // connection to a read replica, checked out on the first read
+    private DBReplica replica;
+    private LDAPConnection replicaConn;
+
+    // true if the session has written to the primary server
+    private boolean written;
+
+    // true if reads may be sent to a read replica
+    private boolean readOnly;
+
+    /**
+     * An LDAP operation which can be sent to either the primary
+     * server or a read replica.
+     */
+    interface LDAPOperation<T> {
+        T execute(LDAPConnection conn) throws LDAPException;
+    }
+
     /**
      * Constructs a database session.
      *
@@ -81,15 +100,129 @@ public class LDAPSession extends DBSSession {
         return mConn;
     }
 
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Allows reads in this session to be sent to a read replica.
+     * Only sessions whose callers can tolerate slightly stale
+     * results should be marked read-only.
+     */
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
     /**
      * Closes this session.
      */
     @Override
     public void close() throws EDBException {
+        releaseReplica();
         // return ldap connection.
         dbSubsystem.returnConn(mConn);
     }
 
+    void recordWrite() {
+        written = true;
+        dbSubsystem.recordWrite();
+    }
+
+    /**
+     * Returns the connection for reads. Read-only sessions use a read
+     * replica if available unless the session or the current thread
+     * has recently written to the primary server. All other sessions
+     * read from the primary server.
+     */
+    LDAPConnection getReadConnection() {
+
+        if (!readOnly || written || dbSubsystem.isRecentWrite()) {
+            return mConn;
+        }
+
+        if (replicaConn != null) {
+            return replicaConn;
+        }
+
+        DBReplica replica = dbSubsystem.getReplica();
+        if (replica == null) {
+            return mConn;
+        }
+
+        LDAPConnection conn;
+        try {
+            conn = replica.getConn();
+
+        } catch (ELdapException e) {
+            replica.markDown(dbSubsystem.getReplicaRetryInterval(), e);
+            return mConn;
+        }
+
+        if (conn == null) {
+            // the replica is busy, not down
+            logger.debug("LDAPSession: No connection available for replica " + replica);
+            return mConn;
+        }
+
+        try {
+            conn.setOption(LDAPv3.SIZELIMIT, Integer.valueOf(0));
+
+        } catch (LDAPException e) {
+            replica.returnConn(conn);
+            replica.markDown(dbSubsystem.getReplicaRetryInterval(), e);
+            return mConn;
+        }
+
+        this.replica = replica;
+        this.replicaConn = conn;
+
+        return conn;
+    }
+
+    void releaseReplica() {
+
+        if (replicaConn == null) {
+            return;
+        }
+
+        replica.returnConn(replicaConn);
+        replica = null;
+        replicaConn = null;
+    }
+
+    /**
+     * Executes a read operation on a replica if the session is
+     * read-only and a replica is available. If the
+     * replica cannot be reached the operation is retried on the
+     * primary server.
+     */
+    <T> T executeRead(LDAPOperation<T> op) throws LDAPException {
+
+        LDAPConnection conn = getReadConnection();
+        if (conn == mConn) {
+            return op.execute(mConn);
+        }
+
+        long start = System.currentTimeMillis();
+
+        try {
+            T result = op.execute(conn);
+            replica.recordLatency(System.currentTimeMillis() - start);
+            return result;
+
+        } catch (LDAPException e) {
+
+            if (!DBReplica.isConnectionError(e)) {
+                throw e;
+            }
+
+            replica.markDown(dbSubsystem.getReplicaRetryInterval(), e);
+            releaseReplica();
+
+            return op.execute(mConn);
+        }
+    }
+
     /**
      * Adds object to backend database. For example,
      *
@@ -124,6 +257,7 @@ public class LDAPSession extends DBSSession {
              * @message LDAPSession: begin LDAP add <entry>
              */
             mConn.add(e);
+            recordWrite();
 
         } catch (LDAPException e) {
             if (e.getLDAPResultCode() == LDAPException.UNAVAILABLE) {
@@ -156,12 +290,7 @@ public class LDAPSession extends DBSSession {
             throws EBaseException {
 
         try {
-            String ldapattrs[] = null;
-
-            if (attrs != null) {
-                ldapattrs = dbSubsystem.getRegistry(
-                        ).getLDAPAttributes(attrs);
-            }
+            String ldapattrs[] = attrs == null ? null : dbSubsystem.getRegistry().getLDAPAttributes(attrs);
 
             logger.info("LDAPSession: Retrieving " + name);
 
@@ -170,9 +299,9 @@ public class LDAPSession extends DBSSession {
              * @phase local ldap read
              * @message LDAPSession: begin LDAP read <entry>
              */
-            LDAPSearchResults res = mConn.search(name,
+            LDAPSearchResults res = executeRead(conn -> conn.search(name,
                     LDAPv3.SCOPE_BASE, "(objectclass=*)",
-                    ldapattrs, false);
+                    ldapattrs, false));
             LDAPEntry entry = (LDAPEntry) res.nextElement();
             LDAPAttributeSet attrSet = entry.getAttributeSet();
 
@@ -209,6 +338,7 @@ public class LDAPSession extends DBSSession {
 
         try {
             mConn.delete(name);
+            recordWrite();
         } catch (LDAPException e) {
             if (e.getLDAPResultCode() == LDAPException.UNAVAILABLE)
                 throw new EDBNotAvailException(
@@ -262,6 +392,7 @@ public class LDAPSession extends DBSSession {
              * @message LDAPSession: begin LDAP modify <entry>
              */
             mConn.modify(name, ldapMods);
+            recordWrite();
 
         } catch (LDAPException e) {
 
@@ -316,8 +447,8 @@ public class LDAPSession extends DBSSession {
 
             cons.setMaxResults(maxSize);
 
-            LDAPSearchResults res = mConn.search(base,
-                    LDAPv3.SCOPE_ONE, ldapfilter, ldapattrs, false, cons);
+            LDAPSearchResults res = executeRead(conn -> conn.search(base,
+                    LDAPv3.SCOPE_ONE, ldapfilter, ldapattrs, false, cons));
 
             return new DBSearchResults(dbSubsystem.getRegistry(),
                     res);
@@ -351,8 +482,8 @@ public class LDAPSession extends DBSSession {
                 cons.setServerControls( sortCtrl );
             }
 
-            LDAPSearchResults res = mConn.search(base,
-                    LDAPv3.SCOPE_ONE, ldapfilter, ldapattrs, false, cons);
+            LDAPSearchResults res = executeRead(conn -> conn.search(base,
+                    LDAPv3.SCOPE_ONE, ldapfilter, ldapattrs, false, cons));
 
             return new DBSearchResults(dbSubsystem.getRegistry(),
                     res);
@@ -381,8 +512,8 @@ public class LDAPSession extends DBSSession {
             cons.setMaxResults(maxSize);
             cons.setServerTimeLimit(timeLimit);
 
-            LDAPSearchResults res = mConn.search(base,
-                    LDAPv3.SCOPE_ONE, ldapfilter, ldapattrs, false, cons);
+            LDAPSearchResults res = executeRead(conn -> conn.search(base,
+                    LDAPv3.SCOPE_ONE, ldapfilter, ldapattrs, false, cons));
 
             return new DBSearchResults(dbSubsystem.getRegistry(),
                     res);
@@ -417,8 +548,8 @@ public class LDAPSession extends DBSSession {
                 cons.setServerControls( sortCtrl );
             }
 
-            LDAPSearchResults res = mConn.search(base,
-                    LDAPv3.SCOPE_ONE, ldapfilter, ldapattrs, false, cons);
+            LDAPSearchResults res = executeRead(conn -> conn.search(base,
+                    LDAPv3.SCOPE_ONE, ldapfilter, ldapattrs, false, cons));
 
             return new DBSearchResults(dbSubsystem.getRegistry(),
                     res);
@@ -445,10 +576,7 @@ public class LDAPSession extends DBSSession {
             String ldapfilter = dbSubsystem.getRegistry().getFilter(filter);
             logger.info("LDAPSession: Searching " + base + " for " + ldapfilter);
 
-            String ldapattrs[] = null;
-            if (attrs != null) {
-                ldapattrs = dbSubsystem.getRegistry().getLDAPAttributes(attrs);
-            }
+            String ldapattrs[] = attrs == null ? null : dbSubsystem.getRegistry().getLDAPAttributes(attrs);
 
             /*LogDoc
              *
@@ -459,8 +587,8 @@ public class LDAPSession extends DBSSession {
 
             cons.setMaxResults(0);
 
-            LDAPSearchResults res = mConn.search(base,
-                    LDAPv3.SCOPE_ONE, ldapfilter, ldapattrs, false, cons);
+            LDAPSearchResults res = executeRead(conn -> conn.search(base,
+                    LDAPv3.SCOPE_ONE, ldapfilter, ldapattrs, false, cons));
 
             return new DBSearchResults(dbSubsystem.getRegistry(),
                     res);
@@ -521,6 +649,47 @@ public class LDAPSession extends DBSSession {
         }
     }
 
+    @Override
+    public <T extends IDBObj> DBSearchCursor<T> openCursor(
+            String base,
+            String filter,
+            String[] attrs,
+            int maxSize,
+            int timeLimit,
+            String sortAttribute,
+            int pageSize
+            ) throws EBaseException {
+
+        try {
+            String ldapfilter = dbSubsystem.getRegistry().getFilter(filter);
+            logger.info("LDAPSession: Opening cursor on " + base + " for " + ldapfilter);
+
+            String ldapattrs[] = attrs == null ? null : dbSubsystem.getRegistry().getLDAPAttributes(attrs);
+
+            // all pages must be retrieved from the same server
+            DBSearchCursor<T> cursor = new DBSearchCursor<>(
+                    dbSubsystem.getRegistry(),
+                    this,
+                    getReadConnection(),
+                    base,
+                    ldapfilter,
+                    ldapattrs,
+                    maxSize,
+                    timeLimit,
+                    sortAttribute,
+                    pageSize);
+
+            cursor.open();
+            return cursor;
+
+        } catch (LDAPException e) {
+            if (e.getLDAPResultCode() == LDAPException.UNAVAILABLE)
+                throw new EDBNotAvailException(
+                        CMS.getUserMessage("CMS_DBS_INTERNAL_DIR_UNAVAILABLE"));
+            throw new EDBException("Unable to search LDAP record: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public void abandon(LDAPSearchResults results) throws EBaseException {
 
@@ -548,7 +717,7 @@ public class LDAPSession extends DBSSession {
 
         logger.debug("LDAPSession: createVirtualList(" + base + ", " + filter + ")");
 
-        return new LDAPVirtualList<>(dbSubsystem.getRegistry(), mConn, base,
+        return new LDAPVirtualList<>(dbSubsystem.getRegistry(), getReadConnection(), base,
                 filter, attrs);
     }
 
@@ -560,7 +729,7 @@ public class LDAPSession extends DBSSession {
 
         logger.debug("LDAPSession: createVirtualList(" + base + ", " + filter + ")");
 
-        return new LDAPVirtualList<>(dbSubsystem.getRegistry(), mConn, base,
+        return new LDAPVirtualList<>(dbSubsystem.getRegistry(), getReadConnection(), base,
                 filter, attrs, sortKey);
     }
 
@@ -572,7 +741,7 @@ public class LDAPSession extends DBSSession {
 
         logger.debug("LDAPSession: createVirtualList(" + base + ", " + filter + ")");
 
-        return new LDAPVirtualList<>(dbSubsystem.getRegistry(), mConn, base,
+        return new LDAPVirtualList<>(dbSubsystem.getRegistry(), getReadConnection(), base,
                 filter, attrs, sortKey);
     }
 
@@ -585,7 +754,7 @@ public class LDAPSession extends DBSSession {
 
         logger.debug("LDAPSession: createVirtualList(" + base + ", " + filter + ")");
 
-        return new LDAPVirtualList<>(dbSubsystem.getRegistry(), mConn, base,
+        return new LDAPVirtualList<>(dbSubsystem.getRegistry(), getReadConnection(), base,
                 filter, attrs, sortKey, pageSize);
     }
 
@@ -598,7 +767,7 @@ public class LDAPSession extends DBSSession {
 
         logger.debug("LDAPSession: createVirtualList(" + base + ", " + filter + ")");
 
-        return new LDAPVirtualList<>(dbSubsystem.getRegistry(), mConn, base,
+        return new LDAPVirtualList<>(dbSubsystem.getRegistry(), getReadConnection(), base,
                 filter, attrs, sortKey, pageSize);
     }
 
@@ -608,7 +777,7 @@ public class LDAPSession extends DBSSession {
 
         logger.debug("LDAPSession: createVirtualList(" + base + ", " + filter + ")");
 
-        return new LDAPVirtualList<>(dbSubsystem.getRegistry(), mConn, base,
+        return new LDAPVirtualList<>(dbSubsystem.getRegistry(), getReadConnection(), base,
                 filter, attrs, startFrom, sortKey, pageSize);
 
     }
@@ -23,6 +23,7 @@ import java.util.Hashtable;
 
 import com.netscape.certsrv.base.EBaseException;
 import com.netscape.certsrv.dbs.EDBException;
+import com.netscape.certsrv.dbs.IDBObj;
 import com.netscape.cmscore.apps.CMS;
 import com.netscape.cmscore.apps.CMSEngine;
 import com.netscape.cmscore.apps.DatabaseConfig;
@@ -141,6 +142,79 @@ public abstract class Repository {
         return mBaseDN;
     }
 
+    /**
+     * Opens a cursor over the records in this repository that
+     * satisfy the filter. The records are retrieved one page at
+     * a time as the cursor is consumed. The cursor must be closed.
+     *
+     * @param filter search filter
+     * @param attrs attributes to retrieve, or null for all attributes
+     * @param maxSize maximum number of records, 0 for no limit
+     * @param timeLimit time limit for each page in seconds, 0 for no limit
+     * @param sortAttribute LDAP attribute to sort by, or null
+     * @return cursor over the records
+     * @exception EBaseException failed to search
+     */
+    public <T extends IDBObj> DBSearchCursor<T> openCursor(
+            String filter,
+            String[] attrs,
+            int maxSize,
+            int timeLimit,
+            String sortAttribute) throws EBaseException {
+
+        DBSSession session = dbSubsystem.createSession();
+        return openCursor(session, filter, attrs, maxSize, timeLimit, sortAttribute);
+    }
+
+    /**
+     * Opens a cursor like openCursor() but the records may be
+     * retrieved from a read replica, so they may not reflect the
+     * most recent changes.
+     *
+     * @param filter search filter
+     * @param attrs attributes to retrieve, or null for all attributes
+     * @param maxSize maximum number of records, 0 for no limit
+     * @param timeLimit time limit for each page in seconds, 0 for no limit
+     * @param sortAttribute LDAP attribute to sort by, or null
+     * @return cursor over the records
+     * @exception EBaseException failed to search
+     */
+    public <T extends IDBObj> DBSearchCursor<T> openReadOnlyCursor(
+            String filter,
+            String[] attrs,
+            int maxSize,
+            int timeLimit,
+            String sortAttribute) throws EBaseException {
+
+        DBSSession session = dbSubsystem.createReadOnlySession();
+        return openCursor(session, filter, attrs, maxSize, timeLimit, sortAttribute);
+    }
+
+    private <T extends IDBObj> DBSearchCursor<T> openCursor(
+            DBSSession session,
+            String filter,
+            String[] attrs,
+            int maxSize,
+            int timeLimit,
+            String sortAttribute) throws EBaseException {
+
+        try {
+            // the cursor closes the session
+            return session.openCursor(
+                    mBaseDN,
+                    filter,
+                    attrs,
+                    maxSize,
+                    timeLimit,
+                    sortAttribute,
+                    dbSubsystem.getSearchPageSize());
+
+        } catch (EBaseException | RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+
     public int getRadix() {
         return mRadix;
     }
@@ -0,0 +1,327 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.dbs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Hashtable;
+import java.util.Map;
+
+import org.mozilla.jss.netscape.security.util.DerInputStream;
+import org.mozilla.jss.netscape.security.x509.CRLExtensions;
+import org.mozilla.jss.netscape.security.x509.CRLReasonExtension;
+import org.mozilla.jss.netscape.security.x509.Extension;
+import org.mozilla.jss.netscape.security.x509.RevocationReason;
+import org.mozilla.jss.netscape.security.x509.RevokedCertImpl;
+import org.mozilla.jss.netscape.security.x509.RevokedCertificate;
+
+/**
+ * Compact binary encoding for tables of revoked certificates
+ * stored in CRL issuing point records.
+ *
+ * The encoding starts with the "RC" magic and a version byte followed
+ * by the number of entries and then one column per field, with entries
+ * sorted by serial number:
+ * <ul>
+ * <li>serial numbers, each encoded as the delta from the previous one
+ * <li>one flag byte per entry holding the revocation reason code or a
+ *     marker for entries without extensions or with other extensions
+ * <li>revocation dates, each encoded as the zig-zag delta in
+ *     milliseconds from the previous one
+ * <li>DER-encoded extensions of entries which cannot be represented
+ *     by a reason code alone
+ * </ul>
+ *
+ * Data written by ObjectStreamMapper starts with the Java serialization
+ * magic (0xACED) so the two formats can be told apart when reading.
+ */
+public class RevokedCertsCodec {
+
+    public static final int VERSION = 1;
+
+    static final byte MAGIC_0 = 'R';
+    static final byte MAGIC_1 = 'C';
+
+    // flag byte values; reason codes use the low values
+    static final int NULL_EXTENSIONS = 0x7F;
+    static final int RAW_EXTENSIONS = 0x7E;
+    static final int EMPTY_EXTENSIONS = 0x7D;
+    static final int REASON_MASK = 0x7F;
+    static final int NULL_DATE = 0x80;
+
+    /**
+     * Returns true if the data is in the compact format.
+     */
+    public static boolean isCompact(byte[] data) {
+        return data != null && data.length >= 3 && data[0] == MAGIC_0 && data[1] == MAGIC_1;
+    }
+
+    public static byte[] encode(Map<BigInteger, RevokedCertificate> entries) throws IOException {
+
+        BigInteger[] serialNumbers = entries.keySet().toArray(new BigInteger[0]);
+        Arrays.sort(serialNumbers);
+
+        RevokedCertificate[] values = new RevokedCertificate[serialNumbers.length];
+        for (int i = 0; i < serialNumbers.length; i++) {
+            values[i] = entries.get(serialNumbers[i]);
+        }
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(16 + serialNumbers.length * 12);
+        DataOutputStream out = new DataOutputStream(bos);
+
+        out.writeByte(MAGIC_0);
+        out.writeByte(MAGIC_1);
+        out.writeByte(VERSION);
+        writeVarLong(out, serialNumbers.length);
+
+        BigInteger prevSerialNumber = BigInteger.ZERO;
+        for (BigInteger serialNumber : serialNumbers) {
+            writeBytes(out, serialNumber.subtract(prevSerialNumber).toByteArray());
+            prevSerialNumber = serialNumber;
+        }
+
+        for (RevokedCertificate entry : values) {
+            int flags = getReasonFlag(entry == null ? null : entry.getExtensions());
+            if (entry == null || entry.getRevocationDate() == null) {
+                flags |= NULL_DATE;
+            }
+            out.writeByte(flags);
+        }
+
+        long prevTime = 0;
+        for (RevokedCertificate entry : values) {
+            Date date = entry == null ? null : entry.getRevocationDate();
+            if (date == null) {
+                continue;
+            }
+            long time = date.getTime();
+            writeVarLong(out, zigZag(time - prevTime));
+            prevTime = time;
+        }
+
+        for (RevokedCertificate entry : values) {
+            CRLExtensions exts = entry == null ? null : entry.getExtensions();
+            if (getReasonFlag(exts) == RAW_EXTENSIONS) {
+                writeBytes(out, encodeExtensions(exts));
+            }
+        }
+
+        out.flush();
+        return bos.toByteArray();
+    }
+
+    public static Hashtable<BigInteger, RevokedCertificate> decode(byte[] data) throws IOException {
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+
+        if (in.readByte() != MAGIC_0 || in.readByte() != MAGIC_1) {
+            throw new IOException("Invalid revoked certificates encoding");
+        }
+
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported revoked certificates encoding version: " + version);
+        }
+
+        int size = (int) readVarLong(in);
+
+        BigInteger[] serialNumbers = new BigInteger[size];
+        BigInteger prevSerialNumber = BigInteger.ZERO;
+        for (int i = 0; i < size; i++) {
+            prevSerialNumber = prevSerialNumber.add(new BigInteger(readBytes(in)));
+            serialNumbers[i] = prevSerialNumber;
+        }
+
+        int[] flags = new int[size];
+        for (int i = 0; i < size; i++) {
+            flags[i] = in.readUnsignedByte();
+        }
+
+        Date[] dates = new Date[size];
+        long prevTime = 0;
+        for (int i = 0; i < size; i++) {
+            if ((flags[i] & NULL_DATE) != 0) {
+                continue;
+            }
+            prevTime += unZigZag(readVarLong(in));
+            dates[i] = new Date(prevTime);
+        }
+
+        Hashtable<BigInteger, RevokedCertificate> entries = new Hashtable<>(Math.max(11, size * 4 / 3 + 1));
+
+        for (int i = 0; i < size; i++) {
+            CRLExtensions exts = decodeExtensions(flags[i] & REASON_MASK, in);
+            entries.put(serialNumbers[i], new RevokedCertImpl(serialNumbers[i], dates[i], exts));
+        }
+
+        return entries;
+    }
+
+    /**
+     * Encodes a single revoked certificate entry.
+     */
+    static void encodeEntry(DataOutputStream out, BigInteger serialNumber, RevokedCertificate entry)
+            throws IOException {
+
+        writeBytes(out, serialNumber.toByteArray());
+
+        Date date = entry == null ? null : entry.getRevocationDate();
+        CRLExtensions exts = entry == null ? null : entry.getExtensions();
+
+        int flags = getReasonFlag(exts);
+        if (date == null) {
+            flags |= NULL_DATE;
+        }
+        out.writeByte(flags);
+
+        if (date != null) {
+            out.writeLong(date.getTime());
+        }
+
+        if ((flags & REASON_MASK) == RAW_EXTENSIONS) {
+            writeBytes(out, encodeExtensions(exts));
+        }
+    }
+
+    /**
+     * Decodes a single revoked certificate entry.
+     */
+    static RevokedCertificate decodeEntry(DataInputStream in) throws IOException {
+
+        BigInteger serialNumber = new BigInteger(readBytes(in));
+        int flags = in.readUnsignedByte();
+
+        Date date = null;
+        if ((flags & NULL_DATE) == 0) {
+            date = new Date(in.readLong());
+        }
+
+        CRLExtensions exts = decodeExtensions(flags & REASON_MASK, in);
+        return new RevokedCertImpl(serialNumber, date, exts);
+    }
+
+    static int getReasonFlag(CRLExtensions exts) {
+
+        if (exts == null) {
+            return NULL_EXTENSIONS;
+        }
+
+        if (exts.isEmpty()) {
+            return EMPTY_EXTENSIONS;
+        }
+
+        if (exts.size() == 1) {
+            Extension ext = exts.elementAt(0);
+            if (ext instanceof CRLReasonExtension reasonExt && !ext.isCritical()) {
+                int code = reasonExt.getReason().getCode();
+                if (code >= 0 && code < EMPTY_EXTENSIONS && RevocationReason.valueOf(code) != null) {
+                    return code;
+                }
+            }
+        }
+
+        return RAW_EXTENSIONS;
+    }
+
+    static CRLExtensions decodeExtensions(int flag, DataInputStream in) throws IOException {
+
+        if (flag == NULL_EXTENSIONS) {
+            return null;
+        }
+
+        if (flag == EMPTY_EXTENSIONS) {
+            return new CRLExtensions();
+        }
+
+        try {
+            if (flag == RAW_EXTENSIONS) {
+                return new CRLExtensions(new DerInputStream(readBytes(in)));
+            }
+
+            CRLExtensions exts = new CRLExtensions();
+            CRLReasonExtension ext = new CRLReasonExtension(RevocationReason.valueOf(flag));
+            exts.set(CRLReasonExtension.NAME, ext);
+            return exts;
+
+        } catch (IOException e) {
+            throw e;
+
+        } catch (Exception e) {
+            throw new IOException("Unable to decode CRL entry extensions: " + e.getMessage(), e);
+        }
+    }
+
+    static byte[] encodeExtensions(CRLExtensions exts) throws IOException {
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            exts.encode(out, false);
+            return out.toByteArray();
+
+        } catch (IOException e) {
+            throw e;
+
+        } catch (Exception e) {
+            throw new IOException("Unable to encode CRL entry extensions: " + e.getMessage(), e);
+        }
+    }
+
+    static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = (int) readVarLong(in);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid variable-length integer");
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
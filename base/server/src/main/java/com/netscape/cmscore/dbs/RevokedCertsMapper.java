@@ -0,0 +1,159 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.dbs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigInteger;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Vector;
+
+import org.mozilla.jss.netscape.security.x509.RevokedCertificate;
+
+import com.netscape.certsrv.base.EBaseException;
+import com.netscape.certsrv.dbs.DBAttrMapper;
+import com.netscape.certsrv.dbs.EDBException;
+import com.netscape.certsrv.dbs.IDBObj;
+import com.netscape.cmscore.apps.CMS;
+
+import netscape.ldap.LDAPAttribute;
+import netscape.ldap.LDAPAttributeSet;
+
+/**
+ * A class represents an attribute mapper that maps a table of
+ * revoked certificates into an LDAP attribute, and vice versa.
+ *
+ * If the compact format is enabled the table is written using the
+ * encoding in RevokedCertsCodec, otherwise it is written with Java
+ * serialization like ObjectStreamMapper so that replicas running
+ * older versions can still read it. Both formats are accepted when
+ * reading.
+ */
+public class RevokedCertsMapper extends DBAttrMapper {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RevokedCertsMapper.class);
+
+    private String mLdapName = null;
+    private boolean compact;
+    private Vector<String> v = new Vector<>();
+
+    /**
+     * Constructs revoked certificates mapper.
+     */
+    public RevokedCertsMapper(String ldapName) {
+        this(ldapName, false);
+    }
+
+    /**
+     * Constructs revoked certificates mapper.
+     *
+     * @param ldapName LDAP attribute name
+     * @param compact true to write the compact format
+     */
+    public RevokedCertsMapper(String ldapName, boolean compact) {
+        mLdapName = ldapName;
+        this.compact = compact;
+        v.addElement(mLdapName);
+    }
+
+    /**
+     * Retrieves a list of supported ldap attributes.
+     */
+    @Override
+    public Enumeration<String> getSupportedLDAPAttributeNames() {
+        return v.elements();
+    }
+
+    /**
+     * Maps object to ldap attribute set.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void mapObjectToLDAPAttributeSet(IDBObj parent, String name,
+            Object obj, LDAPAttributeSet attrs)
+            throws EBaseException {
+
+        try {
+            byte[] data;
+
+            if (compact) {
+                data = RevokedCertsCodec.encode((Map<BigInteger, RevokedCertificate>) obj);
+
+            } else {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                try (ObjectOutputStream os = new ObjectOutputStream(bos)) {
+                    os.writeObject(obj);
+                }
+                data = bos.toByteArray();
+            }
+
+            logger.debug("RevokedCertsMapper: Mapping " + name + " to " + mLdapName + " (" + data.length + " bytes)");
+            attrs.add(new LDAPAttribute(mLdapName, data));
+
+        } catch (IOException e) {
+            logger.error(CMS.getLogMessage("CMSCORE_DBS_OBJECTSTREAM_MAPPER_ERROR", e.toString()), e);
+            throw new EDBException(CMS.getUserMessage("CMS_DBS_SERIALIZE_FAILED", name), e);
+        }
+    }
+
+    /**
+     * Maps LDAP attributes into object, and put the object
+     * into 'parent'.
+     */
+    @Override
+    public void mapLDAPAttributeSetToObject(LDAPAttributeSet attrs,
+            String name, IDBObj parent) throws EBaseException {
+
+        LDAPAttribute attr = attrs.getAttribute(mLdapName);
+
+        if (attr == null) {
+            return;
+        }
+
+        byte[] data = attr.getByteValues().nextElement();
+
+        try {
+            if (RevokedCertsCodec.isCompact(data)) {
+                parent.set(name, RevokedCertsCodec.decode(data));
+                return;
+            }
+
+            logger.debug("RevokedCertsMapper: Reading serialized " + mLdapName);
+            ObjectInputStream is = new ObjectInputStream(new ByteArrayInputStream(data));
+            parent.set(name, is.readObject());
+
+        } catch (IOException | ClassNotFoundException e) {
+            logger.error("RevokedCertsMapper: Unable to decode " + mLdapName + ": " + e.getMessage(), e);
+            throw new EDBException(
+                    CMS.getUserMessage("CMS_DBS_DESERIALIZE_FAILED", name), e);
+        }
+    }
+
+    /**
+     * Maps search filters into LDAP search filter.
+     */
+    @Override
+    public String mapSearchFilter(String name, String op,
+            String value) throws EBaseException {
+        return mLdapName + op + value;
+    }
+}
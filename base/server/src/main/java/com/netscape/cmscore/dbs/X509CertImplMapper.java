@@ -306,7 +306,20 @@ public class X509CertImplMapper extends DBAttrMapper {
                 attr = attrs.getAttribute(
                             CertDBSchema.LDAP_ATTR_SIGNED_CERT + ";binary");
             }
-            if (attr != null) {
+            if (parent instanceof CertRecord certRecord) {
+
+                // keep the dates so that searches projected to the
+                // validity period do not need the certificate
+                certRecord.setValidity(
+                        getDate(attrs, CertDBSchema.LDAP_ATTR_NOT_BEFORE),
+                        getDate(attrs, CertDBSchema.LDAP_ATTR_NOT_AFTER));
+
+                // decode the certificate on first access
+                if (attr != null) {
+                    certRecord.setEncodedCertificate(attr.getByteValues().nextElement());
+                }
+
+            } else if (attr != null) {
                 byte der[] = attr.getByteValues().nextElement();
                 X509CertImpl impl = new X509CertImpl(der);
 
@@ -324,6 +337,16 @@ public class X509CertImplMapper extends DBAttrMapper {
         }
     }
 
+    private Date getDate(LDAPAttributeSet attrs, String name) {
+
+        LDAPAttribute attr = attrs.getAttribute(name);
+        if (attr == null) {
+            return null;
+        }
+
+        return DateMapper.dateFromDB(attr.getStringValues().nextElement());
+    }
+
     @Override
     public String mapSearchFilter(String name, String op, String value)
             throws EBaseException {
@@ -17,6 +17,15 @@
 // --- END COPYRIGHT BLOCK ---
 package com.netscape.cmscore.ldapconn;
 
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 import com.netscape.certsrv.base.EBaseException;
 import com.netscape.certsrv.ldap.ELdapException;
 import com.netscape.certsrv.ldap.ELdapServerDownException;
@@ -39,6 +48,12 @@ import netscape.ldap.LDAPv3;
  * the maximum limit of connections is exceeded, the factory
  * should provide proper synchronization to resolve contention issues.
  *
+ * Connections are checked out and returned without a global lock.
+ * The number of connections in use is bounded by a semaphore, and
+ * callers wait at most maxWait milliseconds for a connection if
+ * configured. Idle connections are validated and the master connection
+ * is reestablished in the background every validationInterval seconds.
+ *
  * XXX not sure how useful this is given that LDAPConnection itself can
  * be shared by multiple threads and cloned.
  */
@@ -46,13 +61,34 @@ public class LdapBoundConnFactory extends LdapConnFactory {
 
     public static final String PROP_LDAPCONNINFO = "ldapconn";
     public static final String PROP_LDAPAUTHINFO = "ldapauth";
+    public static final String PROP_MAXWAIT = "maxWait";
+    public static final String PROP_VALIDATION_INTERVAL = "validationInterval";
+
+    static final AtomicIntegerFieldUpdater<LdapBoundConnection> IDLE =
+            AtomicIntegerFieldUpdater.newUpdater(LdapBoundConnection.class, "idle");
 
     LdapAuthInfo mAuthInfo;
     PasswordStore passwordStore;
 
     boolean doCloning = true;
-    LdapBoundConnection mMasterConn; // master connection object.
-    LdapBoundConnection[] mConns;
+    volatile LdapBoundConnection mMasterConn; // master connection object.
+
+    // maximum time to wait for a connection in milliseconds, 0 to wait indefinitely
+    int mMaxWait = 0;
+
+    // interval between validations of idle connections in seconds, 0 to disable
+    int mValidationInterval = 60;
+
+    Semaphore mPermits; // connections which can still be checked out
+    Deque<LdapBoundConnection> mConns = new ConcurrentLinkedDeque<>(); // idle connections
+    AtomicInteger mIdleCount = new AtomicInteger();
+    AtomicInteger mTotalCount = new AtomicInteger();
+
+    LdapConnPoolStats stats = new LdapConnPoolStats();
+    ScheduledExecutorService validator;
+
+    // number of timeouts when the utilization was last logged
+    long lastTimeouts;
 
     /**
      * Constructor for initializing from the config store.
@@ -177,6 +213,9 @@ public class LdapBoundConnFactory extends LdapConnFactory {
         doCloning = dbConfig.getBoolean("doCloning", true);
         logger.debug("LdapBoundConnFactory: doCloning: " + doCloning);
 
+        mMaxWait = dbConfig.getInteger(PROP_MAXWAIT, mMaxWait);
+        mValidationInterval = dbConfig.getInteger(PROP_VALIDATION_INTERVAL, mValidationInterval);
+
         init();
     }
 
@@ -211,7 +250,10 @@ public class LdapBoundConnFactory extends LdapConnFactory {
         logger.debug("LdapBoundConnFactory: secure: " + mConnInfo.getSecure());
         logger.debug("LdapBoundConnFactory: authentication: " + mAuthInfo.getAuthType());
 
-        mConns = new LdapBoundConnection[mMaxConns];
+        logger.debug("LdapBoundConnFactory: max wait: " + mMaxWait);
+        logger.debug("LdapBoundConnFactory: validation interval: " + mValidationInterval);
+
+        mPermits = new Semaphore(mMaxConns, true);
 
         if (mMinConns > 0) {
             // Create connection handle and make initial connection
@@ -220,6 +262,19 @@ public class LdapBoundConnFactory extends LdapConnFactory {
             // initalize minimum number of connection handles available.
             makeMinimum();
         }
+
+        if (mValidationInterval > 0) {
+            validator = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "LdapBoundConnFactory-" + id);
+                thread.setDaemon(true);
+                return thread;
+            });
+            validator.scheduleWithFixedDelay(
+                    this::validate,
+                    mValidationInterval,
+                    mValidationInterval,
+                    TimeUnit.SECONDS);
+        }
     }
 
     /**
@@ -227,7 +282,7 @@ public class LdapBoundConnFactory extends LdapConnFactory {
      *
      * @exception ELdapException if any error occurs.
      */
-    protected void makeConnection(boolean errorIfDown) throws ELdapException {
+    protected synchronized void makeConnection(boolean errorIfDown) throws ELdapException {
 
         logger.debug("LdapBoundConnFactory: makeConnection(" + errorIfDown + ")");
 
@@ -242,7 +297,7 @@ public class LdapBoundConnFactory extends LdapConnFactory {
      *
      * @exception ELdapException if any error occurs.
      */
-    private LdapBoundConnection makeNewConnection(boolean errorIfDown) throws ELdapException {
+    LdapBoundConnection makeNewConnection(boolean errorIfDown) throws ELdapException {
 
         logger.debug("LdapBoundConnFactory: makeNewConnection(" + errorIfDown + ")");
 
@@ -285,37 +340,174 @@ public class LdapBoundConnFactory extends LdapConnFactory {
         return conn;
     }
 
+    /**
+     * makes a connection for the pool, cloned from the master
+     * connection if possible.
+     */
+    private LdapBoundConnection createConnection() throws ELdapException {
+
+        LdapBoundConnection master = mMasterConn;
+        LdapBoundConnection conn;
+
+        if (mMinConns > 0 && doCloning && master != null && master.isConnected()) {
+            conn = (LdapBoundConnection) master.clone();
+        } else {
+            conn = makeNewConnection(true);
+        }
+
+        try {
+            resetOptions(conn);
+        } catch (LDAPException e) {
+            throw new ELdapException("Unable to set LDAP size limit: " + e.getMessage(), e);
+        }
+
+        conn.idle = 0;
+        return conn;
+    }
+
+    /**
+     * Resets the SIZELIMIT option if the previous owner changed it so the
+     * next owner always starts with the default.
+     */
+    private void resetOptions(LDAPConnection conn) throws LDAPException {
+        Object sizeLimit = conn.getOption(LDAPv3.SIZELIMIT);
+        if (!(sizeLimit instanceof Integer) || (Integer) sizeLimit != mMaxResults) {
+            conn.setOption(LDAPv3.SIZELIMIT, mMaxResults);
+        }
+    }
+
     /**
      * makes the minumum number of connections
      */
-    private void makeMinimum() throws ELdapException {
+    private synchronized void makeMinimum() throws ELdapException {
         String method = "LdapBoundConnFactory.makeMinimum: ";
-        boolean cloning = false;
-        int realMin = Math.max(mMinConns, 1);
-        if (mMasterConn != null && mMasterConn.isConnected() && doCloning) {
-            logger.debug(method + "connections will be cloned from the master");
-            cloning = true;
-        } else {
-            logger.debug(method + "master conn not available.");
+        logger.debug(method + "begins: total connections: " + mTotalCount.get());
+        logger.debug(method + "begins: available connections: " + mIdleCount.get());
+
+        while (mIdleCount.get() < mMinConns && mTotalCount.get() < mMaxConns) {
+            LdapBoundConnection conn = createConnection();
+            mTotalCount.incrementAndGet();
+            addIdleConn(conn);
         }
 
-        int increment;
-        logger.debug(method + "begins: total connections: " + mTotal);
-        logger.debug(method + "begins: available connections: " + mNumConns);
+        logger.debug(method + "ends: total connections: " + mTotalCount.get());
+        logger.debug(method + "ends: number of connections: " + mIdleCount.get());
+    }
+
+    private void addIdleConn(LdapBoundConnection conn) {
+        conn.idle = 1;
+        mIdleCount.incrementAndGet();
+        mConns.offerFirst(conn);
+    }
+
+    private LdapBoundConnection pollIdleConn() {
+        LdapBoundConnection conn = mConns.pollFirst();
+        if (conn != null) {
+            mIdleCount.decrementAndGet();
+            conn.idle = 0;
+        }
+        return conn;
+    }
+
+    private void closeConn(LdapBoundConnection conn) {
+        mTotalCount.decrementAndGet();
+        try {
+            conn.disconnect();
+        } catch (LDAPException e) {
+            logger.warn("LdapBoundConnFactory: Unable to disconnect: " + e.getMessage(), e);
+        }
+    }
 
-        if (mNumConns < realMin && mTotal <= mMaxConns) {
-            increment = Math.min(realMin - mNumConns, mMaxConns - mTotal);
-            logger.debug(method + "increasing minimum connections by " + increment);
+    /**
+     * Reestablishes the master connection and replaces idle connections
+     * which are no longer usable. Runs in the background so that callers
+     * do not have to reconnect while checking out connections.
+     */
+    void validate() {
 
-            for (int i = increment - 1; i >= 0; i--) {
-                mConns[i] = cloning ? (LdapBoundConnection) mMasterConn.clone() : makeNewConnection(true);
+        try {
+            LdapBoundConnection master = mMasterConn;
+            if (mMinConns > 0 && (master == null || !master.isConnected())) {
+                logger.info("LdapBoundConnFactory: Reestablishing master connection for " + id);
+                makeConnection(true);
             }
 
-            mTotal += increment;
-            mNumConns += increment;
+            // validate each idle connection at most once, taking a permit
+            // so the number of connections stays bounded
+            int count = mIdleCount.get();
+            for (int i = 0; i < count && mPermits.tryAcquire(); i++) {
+                try {
+                    LdapBoundConnection conn = pollIdleConn();
+                    if (conn == null) {
+                        break;
+                    }
+
+                    if (isValid(conn)) {
+                        conn.idle = 1;
+                        mIdleCount.incrementAndGet();
+                        mConns.offerLast(conn);
+                    } else {
+                        logger.info("LdapBoundConnFactory: Removing invalid connection from " + id);
+                        closeConn(conn);
+                    }
+
+                } finally {
+                    mPermits.release();
+                }
+            }
+
+            makeMinimum();
+
+        } catch (Exception e) {
+            logger.warn("LdapBoundConnFactory: Unable to validate connections: " + e.getMessage(), e);
+        }
+
+        logUtilization();
+    }
+
+    /**
+     * Logs the current pool utilization. Logged at INFO level when callers
+     * are waiting for a connection or have timed out since the previous
+     * call, otherwise at DEBUG level.
+     */
+    void logUtilization() {
+
+        long timeouts = stats.getTimeouts();
+        boolean contended = getQueueLength() > 0 || timeouts > lastTimeouts;
+        lastTimeouts = timeouts;
+
+        if (!contended && !logger.isDebugEnabled()) {
+            return;
+        }
+
+        String message = "LdapBoundConnFactory: " + id + " pool utilization: "
+                + "busy=" + getBusyConns() + "/" + mMaxConns
+                + " idle=" + freeConn()
+                + " total=" + totalConn()
+                + " waiting=" + getQueueLength()
+                + " " + stats;
+
+        if (contended) {
+            logger.info(message);
+        } else {
+            logger.debug(message);
+        }
+    }
+
+    private boolean isValid(LdapBoundConnection conn) {
 
-            logger.debug(method + "ends: total connections: " + mTotal);
-            logger.debug(method + "ends: number of connections: " + mNumConns);
+        if (!conn.isConnected()) {
+            return false;
+        }
+
+        try {
+            // read root DSE without attributes
+            conn.read("", new String[] { "1.1" });
+            return true;
+
+        } catch (LDAPException e) {
+            logger.debug("LdapBoundConnFactory: Invalid connection: " + e.getMessage());
+            return false;
         }
     }
 
@@ -366,85 +558,71 @@ public class LdapBoundConnFactory extends LdapConnFactory {
      * }
      * </pre>
      */
-    public synchronized LdapBoundConnection getConn(boolean waitForConn)
+    public LdapBoundConnection getConn(boolean waitForConn)
             throws ELdapException {
-        LdapBoundConnection conn = null;
-        String method = "LdapBoundConnFactory (" + id + ").getConn: ";
-        logger.debug(method + "initial values. Total: " + mTotal + ", pool: " + mNumConns);
 
-        if (mMasterConn != null)
-            logger.debug(method + "master connection is connected: " + mMasterConn.isConnected());
-        else
-            logger.debug(method + "master connection is null");
-
-        if ((mMasterConn == null || !mMasterConn.isConnected()) && mMinConns > 0) {
-            try {
-                makeConnection(true);
-            } catch (ELdapException e) {
-                mMasterConn = null;
-                throw new ELdapException("LdapBoundConnFactory: Unable to create master connection. " + e.getMessage(), e);
+        long startTime = System.currentTimeMillis();
+
+        if (mMasterConn == null && mMinConns > 0) {
+            // the validator reestablishes a disconnected master connection,
+            // but a missing one has to be created before cloning
+            synchronized (this) {
+                if (mMasterConn == null) {
+                    try {
+                        makeConnection(true);
+                    } catch (ELdapException e) {
+                        throw new ELdapException("LdapBoundConnFactory: Unable to create master connection. " + e.getMessage(), e);
+                    }
+                }
             }
         }
 
-        if (mNumConns == 0) {
-            makeMinimum();
-        }
-
-
-        while (mNumConns == 0) {
+        if (!mPermits.tryAcquire()) {
             logger.warn("LdapBoundConnFactory: waiting connections for " + mConnInfo.getHost() + ":" + mConnInfo.getPort());
             if (!waitForConn) {
                 logger.warn("LdapBoundConnFactory: out of LDAP connections");
                 return null;
             }
             try {
-                wait();
+                if (mMaxWait <= 0) {
+                    mPermits.acquire();
+
+                } else if (!mPermits.tryAcquire(mMaxWait, TimeUnit.MILLISECONDS)) {
+                    stats.recordTimeout();
+                    throw new ELdapException("LdapBoundConnFactory: No LDAP connection available for " + id + " after " + mMaxWait + " ms");
+                }
+
             } catch (InterruptedException e) {
-                logger.warn("LdapBoundConnFactory: connection wait interrupted");
-                return null;
-            }
-            if (mMinConns == 0) {
-                makeMinimum();
+                Thread.currentThread().interrupt();
+                throw new ELdapException("LdapBoundConnFactory: Interrupted while waiting for LDAP connection for " + id, e);
             }
         }
 
-        mNumConns--;
-        conn = mConns[mNumConns];
-        mConns[mNumConns] = null;
-        logger.debug("LdapBoundConnFactory: number of connections: " + mNumConns);
-
+        LdapBoundConnection conn = pollIdleConn();
 
         if (conn == null || !conn.isConnected()) {
-            logger.debug("LdapBoundConnFactory: reestablishing connection");
+
+            if (conn != null) {
+                logger.debug("LdapBoundConnFactory: reestablishing connection");
+                closeConn(conn);
+            }
+
             try {
-                if (mMinConns > 0 &&
-                        doCloning &&
-                        mMasterConn != null) {
-                    conn = (LdapBoundConnection) mMasterConn.clone();
-                } else {
-                    conn = makeNewConnection(true);
-                }
+                conn = createConnection();
             } catch (ELdapException e) {
-                mTotal--;
+                mPermits.release();
                 String message = "Unable to reestablish LDAP connection: " + e.getMessage();
                 logger.error("LdapBoundConnFactory: " + message, e);
                 throw new ELdapException(message, e);
             }
-            logger.debug("LdapBoundConnFactory: connection reestablished");
-        }
 
+            mTotalCount.incrementAndGet();
+        }
 
+        long now = System.currentTimeMillis();
+        stats.getWaitTimes().record(now - startTime);
+        conn.checkoutTime = now;
 
-        try {
-            // Before returning the connection, set the SIZELIMIT option; this
-            // ensures that if the connection is recycled and the previous owner
-            // changed the SIZELIMIT option to a different value, the next owner
-            // always starts with the default.
-            conn.setOption(LDAPv3.SIZELIMIT, mMaxResults);
-        } catch (LDAPException e) {
-            throw new ELdapException("Unable to set LDAP size limit: " + e.getMessage(), e);
-        }
-        logger.debug(method + " final values. Total: " + mTotal + ", pool: " + mNumConns);
         return conn;
     }
 
@@ -467,9 +645,7 @@ public class LdapBoundConnFactory extends LdapConnFactory {
      * </pre>
      */
     @Override
-    public synchronized void returnConn(LDAPConnection conn) {
-        String method = "LdapBoundConnFactory (" + id + ").returnConn: ";
-        logger.debug(method + "initial values. Total: " + mTotal + ", pool: " + mNumConns);
+    public void returnConn(LDAPConnection conn) {
 
         if (conn == null) {
             return;
@@ -494,28 +670,32 @@ public class LdapBoundConnFactory extends LdapConnFactory {
 
         }
 
-        for (int i = 0; i < mNumConns; i++) {
-            if (mConns[i] == conn) {
-                logger.warn("LdapBoundConnFactory: Connection already returned");
-                --mTotal;
-                notifyAll();
-                return;
-            }
+        if (!IDLE.compareAndSet(boundconn, 0, 1)) {
+            logger.warn("LdapBoundConnFactory: Connection already returned");
+            return;
         }
 
-        if (mNumConns < mMinConns) {
-            mConns[mNumConns++] = boundconn;
-        } else {
+        stats.getCheckoutTimes().record(System.currentTimeMillis() - boundconn.checkoutTime);
+
+        boolean keep = mIdleCount.get() < mMinConns && boundconn.isConnected();
+
+        if (keep) {
             try {
-                boundconn.disconnect();
-            } catch(LDAPException e) {
-                logger.warn("LdapBoundConnFactory: Unable to disconnect: " + e.getMessage(), e);
+                resetOptions(boundconn);
+            } catch (LDAPException e) {
+                logger.warn("LdapBoundConnFactory: Unable to reset LDAP size limit: " + e.getMessage(), e);
+                keep = false;
             }
-            --mTotal;
         }
-        notifyAll();
-        logger.debug(method + " final values. Total: " + mTotal + ", pool: " + mNumConns);
 
+        if (keep) {
+            mIdleCount.incrementAndGet();
+            mConns.offerFirst(boundconn);
+        } else {
+            closeConn(boundconn);
+        }
+
+        mPermits.release();
     }
 
     /**
@@ -528,14 +708,12 @@ public class LdapBoundConnFactory extends LdapConnFactory {
     public synchronized void reset()
             throws ELdapException {
         logger.debug("Destroying LdapBoundConnFactory(" + id + ")");
-        if (mNumConns == mTotal) {
-            for (int i = 0; i < mNumConns; i++) {
-                try {
-                    mConns[i].disconnect();
-                } catch (LDAPException e) {
-                    logger.warn("LdapBoundConnFactory: Unable to disconnect: " + e.getMessage(), e);
-                }
-                mConns[i] = null;
+        stopValidator();
+
+        if (mIdleCount.get() == mTotalCount.get()) {
+            LdapBoundConnection conn;
+            while ((conn = pollIdleConn()) != null) {
+                closeConn(conn);
             }
             if (mMasterConn != null) {
                 try {
@@ -547,9 +725,8 @@ public class LdapBoundConnFactory extends LdapConnFactory {
                 }
             }
             mMasterConn = null;
-            mTotal = 0;
-            mNumConns = 0;
-            mConns = new LdapBoundConnection[mMaxConns];
+            mTotalCount.set(0);
+            mIdleCount.set(0);
         } else {
             String message = "Unable to reset LDAP connection factory due to outstanding connections";
             logger.error("LdapBoundConnFactory: " + message);
@@ -564,12 +741,12 @@ public class LdapBoundConnFactory extends LdapConnFactory {
     public synchronized void shutdown() throws ELdapException {
 
         logger.debug("Destroying LdapBoundConnFactory(" + id + ")");
+        logger.info("LdapBoundConnFactory: " + id + " pool statistics: " + stats);
+        stopValidator();
 
-        for (int i = 0; i < mNumConns; i++) {
-            if (mConns[i] != null) {
-                mConns[i].close();
-                mConns[i] = null;
-            }
+        LdapBoundConnection conn;
+        while ((conn = pollIdleConn()) != null) {
+            conn.close();
         }
 
         if (mMasterConn != null) {
@@ -578,14 +755,49 @@ public class LdapBoundConnFactory extends LdapConnFactory {
             mMasterConn = null;
         }
 
-        mTotal = 0;
-        mNumConns = 0;
+        mTotalCount.set(0);
+        mIdleCount.set(0);
 
         if (mAuthInfo != null) {
             mAuthInfo.reset();
         }
     }
 
+    private void stopValidator() {
+        if (validator != null) {
+            validator.shutdownNow();
+            validator = null;
+        }
+    }
+
+    @Override
+    public int freeConn() {
+        return mIdleCount.get();
+    }
+
+    @Override
+    public int totalConn() {
+        return mTotalCount.get();
+    }
+
+    /**
+     * Returns the number of connections checked out.
+     */
+    public int getBusyConns() {
+        return mMaxConns - mPermits.availablePermits();
+    }
+
+    /**
+     * Returns the number of callers waiting for a connection.
+     */
+    public int getQueueLength() {
+        return mPermits.getQueueLength();
+    }
+
+    public LdapConnPoolStats getStats() {
+        return stats;
+    }
+
     /**
      * return ldap authentication info
      */
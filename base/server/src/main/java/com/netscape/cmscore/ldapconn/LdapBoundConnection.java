@@ -46,6 +46,18 @@ public class LdapBoundConnection extends LDAPConnection {
     private boolean mAuthenticated;
     LdapBoundConnFactory connectionFactory;
 
+    // pool state maintained by LdapBoundConnFactory
+    volatile int idle;
+    long checkoutTime;
+
+    /**
+     * Instantiates a connection which is not connected yet.
+     * Used by tests which do not need an LDAP server.
+     */
+    LdapBoundConnection() {
+        super();
+    }
+
     /**
      * Instantiates a connection to a ldap server, secure or non-secure
      * connection with LDAP basic bind DN and password authentication.
@@ -0,0 +1,132 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.ldapconn;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Statistics of an LDAP connection pool: how long callers wait for
+ * a connection and how long they keep it.
+ */
+public class LdapConnPoolStats {
+
+    // upper bounds of the histogram buckets in milliseconds,
+    // followed by a bucket for longer times
+    public static final long[] BUCKETS = {
+            1, 5, 10, 50, 100, 500, 1000, 5000, 10000, 60000
+    };
+
+    private Histogram waitTimes = new Histogram();
+    private Histogram checkoutTimes = new Histogram();
+    private AtomicLong timeouts = new AtomicLong();
+
+    /**
+     * Returns the histogram of the time spent waiting for a connection.
+     */
+    public Histogram getWaitTimes() {
+        return waitTimes;
+    }
+
+    /**
+     * Returns the histogram of the time between checking out
+     * and returning a connection.
+     */
+    public Histogram getCheckoutTimes() {
+        return checkoutTimes;
+    }
+
+    /**
+     * Returns the number of requests which gave up waiting for a connection.
+     */
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    void recordTimeout() {
+        timeouts.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return "wait: " + waitTimes + ", checkout: " + checkoutTimes + ", timeouts: " + getTimeouts();
+    }
+
+    public static class Histogram {
+
+        private AtomicLongArray counts = new AtomicLongArray(BUCKETS.length + 1);
+        private AtomicLong count = new AtomicLong();
+        private AtomicLong totalTime = new AtomicLong();
+        private AtomicLong maxTime = new AtomicLong();
+
+        public void record(long time) {
+
+            int i = 0;
+            while (i < BUCKETS.length && time > BUCKETS[i]) {
+                i++;
+            }
+
+            counts.incrementAndGet(i);
+            count.incrementAndGet();
+            totalTime.addAndGet(time);
+            maxTime.accumulateAndGet(time, Math::max);
+        }
+
+        /**
+         * Returns the number of events in each bucket of {@link #BUCKETS}
+         * followed by the number of longer events.
+         */
+        public long[] getCounts() {
+            long[] result = new long[counts.length()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = counts.get(i);
+            }
+            return result;
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getAverageTime() {
+            long n = count.get();
+            return n == 0 ? 0 : totalTime.get() / n;
+        }
+
+        public long getMaxTime() {
+            return maxTime.get();
+        }
+
+        @Override
+        public String toString() {
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("count=").append(getCount());
+            sb.append(" avg=").append(getAverageTime()).append("ms");
+            sb.append(" max=").append(getMaxTime()).append("ms");
+
+            long[] c = getCounts();
+            for (int i = 0; i < c.length; i++) {
+                sb.append(i < BUCKETS.length ? " <=" + BUCKETS[i] : " >" + BUCKETS[BUCKETS.length - 1]);
+                sb.append("ms:").append(c[i]);
+            }
+
+            return sb.toString();
+        }
+    }
+}
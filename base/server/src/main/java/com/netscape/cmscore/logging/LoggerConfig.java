@@ -29,6 +29,10 @@ public class LoggerConfig extends ConfigStore {
     public static final String LAST_HASH_FILE_NAME = "lastHashFileName";
     public static final String BUFFER_SIZE = "bufferSize";
     public static final String FLUSH_INTERVAL = "flushInterval";
+    public static final String ASYNC = "async";
+    public static final String QUEUE_SIZE = "queueSize";
+    public static final String SYNC_INTERVAL = "syncInterval";
+    public static final String SYNC_EVENTS = "syncEvents";
 
     /**
      * The default output stream buffer size in bytes
@@ -40,6 +44,11 @@ public class LoggerConfig extends ConfigStore {
      */
     public static final int DEFAULT_FLUSH_INTERVAL = 5;
 
+    /**
+     * The default number of events queued for the asynchronous writer
+     */
+    public static final int DEFAULT_QUEUE_SIZE = 8192;
+
     public LoggerConfig() {
     }
 
@@ -102,4 +111,28 @@ public class LoggerConfig extends ConfigStore {
     public int getFlushInterval() throws EBaseException {
         return getInteger(FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL);
     }
+
+    public boolean getAsync() throws EBaseException {
+        return getBoolean(ASYNC, false);
+    }
+
+    public int getQueueSize() throws EBaseException {
+        return getInteger(QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+    }
+
+    /**
+     * Returns the maximum time in milliseconds between two syncs
+     * of the log file to disk in asynchronous mode, or 0 to disable.
+     */
+    public int getSyncInterval() throws EBaseException {
+        return getInteger(SYNC_INTERVAL, 0);
+    }
+
+    /**
+     * Returns the maximum number of events between two syncs
+     * of the log file to disk in asynchronous mode, or 0 to disable.
+     */
+    public int getSyncEvents() throws EBaseException {
+        return getInteger(SYNC_EVENTS, 0);
+    }
 }
@@ -74,6 +74,15 @@ public class Group implements IAttrSet {
         mName = name;
     }
 
+    /**
+     * Constructs a copy of a group.
+     */
+    public Group(Group group) {
+        mName = group.mName;
+        mMembers = new Vector<>(group.mMembers);
+        mDescription = group.mDescription;
+    }
+
     /**
      * Retrieves the group name.
      *
@@ -0,0 +1,209 @@
+//
+// Copyright Red Hat, Inc.
+//
+// SPDX-License-Identifier: GPL-2.0-or-later
+//
+package com.netscape.cmscore.usrgrp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of users and group memberships retrieved by UGSubsystem.
+ *
+ * Entries expire after the configured TTL and each table is bounded
+ * by the configured size. Users are invalidated as a whole when any
+ * user or user certificate is modified, and memberships when any
+ * group is modified, since these operations are rare compared to
+ * lookups.
+ *
+ * Cached users and groups are copied when they are stored and when
+ * they are returned so callers cannot modify the cached instances.
+ * Lookups should get the current generation before reading from LDAP
+ * and pass it to the put method, so a result read before an
+ * invalidation is not cached after it.
+ */
+public class UGCache {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(UGCache.class);
+
+    private int maxSize;
+    private long ttl;
+
+    // users by user ID or DN
+    private Map<String, Entry<User>> users = new ConcurrentHashMap<>();
+
+    // users by certificate string
+    private Map<String, Entry<User>> usersByCert = new ConcurrentHashMap<>();
+
+    // memberships by user DN and group name
+    private Map<String, Entry<Boolean>> memberships = new ConcurrentHashMap<>();
+
+    // groups by user DN
+    private Map<String, Entry<List<Group>>> groupsByUser = new ConcurrentHashMap<>();
+
+    // incremented when users or groups are invalidated
+    private AtomicLong userGeneration = new AtomicLong();
+    private AtomicLong groupGeneration = new AtomicLong();
+
+    private AtomicLong hits = new AtomicLong();
+    private AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxSize maximum number of entries per table
+     * @param ttl time to live in milliseconds
+     */
+    public UGCache(int maxSize, long ttl) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+    }
+
+    public long getUserGeneration() {
+        return userGeneration.get();
+    }
+
+    public long getGroupGeneration() {
+        return groupGeneration.get();
+    }
+
+    public User getUser(String userID) {
+        return copy(get(users, userID));
+    }
+
+    public void putUser(String userID, User user, long generation) {
+        put(users, userID, copy(user), userGeneration, generation);
+    }
+
+    public User getUserByCert(String certString) {
+        return copy(get(usersByCert, certString));
+    }
+
+    public void putUserByCert(String certString, User user, long generation) {
+        put(usersByCert, certString, copy(user), userGeneration, generation);
+    }
+
+    public Boolean isMemberOf(String userDN, String groupName) {
+        return get(memberships, userDN + "\n" + groupName);
+    }
+
+    public void putMembership(String userDN, String groupName, boolean member, long generation) {
+        put(memberships, userDN + "\n" + groupName, member, groupGeneration, generation);
+    }
+
+    public List<Group> getGroupsByUser(String userDN) {
+        return copy(get(groupsByUser, userDN));
+    }
+
+    public void putGroupsByUser(String userDN, List<Group> groups, long generation) {
+        put(groupsByUser, userDN, copy(groups), groupGeneration, generation);
+    }
+
+    public void invalidateUsers() {
+        logger.debug("UGCache: Invalidating users");
+        userGeneration.incrementAndGet();
+        users.clear();
+        usersByCert.clear();
+    }
+
+    public void invalidateGroups() {
+        logger.debug("UGCache: Invalidating groups");
+        groupGeneration.incrementAndGet();
+        memberships.clear();
+        groupsByUser.clear();
+    }
+
+    public void clear() {
+        invalidateUsers();
+        invalidateGroups();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private <T> T get(Map<String, Entry<T>> map, String key) {
+
+        Entry<T> entry = map.get(key);
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        if (entry.expiration < System.currentTimeMillis()) {
+            map.remove(key, entry);
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    private <T> void put(
+            Map<String, Entry<T>> map,
+            String key,
+            T value,
+            AtomicLong currentGeneration,
+            long generation) {
+
+        if (currentGeneration.get() != generation) {
+            // invalidated after the value was read
+            return;
+        }
+
+        if (!map.containsKey(key) && map.size() >= maxSize) {
+            // evict an arbitrary entry
+            Iterator<String> i = map.keySet().iterator();
+            if (i.hasNext()) {
+                map.remove(i.next());
+            }
+        }
+
+        Entry<T> entry = new Entry<>(value, System.currentTimeMillis() + ttl);
+        map.put(key, entry);
+
+        if (currentGeneration.get() != generation) {
+            // invalidated while the value was being stored
+            map.remove(key, entry);
+        }
+    }
+
+    private static User copy(User user) {
+        return user == null ? null : new User(user);
+    }
+
+    private static List<Group> copy(List<Group> groups) {
+
+        if (groups == null) {
+            return null;
+        }
+
+        List<Group> list = new ArrayList<>(groups.size());
+        for (Group group : groups) {
+            list.add(new Group(group));
+        }
+
+        return Collections.unmodifiableList(list);
+    }
+
+    static class Entry<T> {
+
+        T value;
+        long expiration;
+
+        Entry(T value, long expiration) {
+            this.value = value;
+            this.expiration = expiration;
+        }
+    }
+}
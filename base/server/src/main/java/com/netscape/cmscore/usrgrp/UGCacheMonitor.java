@@ -0,0 +1,137 @@
+//
+// Copyright Red Hat, Inc.
+//
+// SPDX-License-Identifier: GPL-2.0-or-later
+//
+package com.netscape.cmscore.usrgrp;
+
+import com.netscape.certsrv.ldap.ELdapException;
+import com.netscape.cmscore.ldapconn.LdapBoundConnFactory;
+
+import netscape.ldap.LDAPConnection;
+import netscape.ldap.LDAPDN;
+import netscape.ldap.LDAPEntry;
+import netscape.ldap.LDAPSearchConstraints;
+import netscape.ldap.LDAPSearchResults;
+import netscape.ldap.controls.LDAPPersistSearchControl;
+
+/**
+ * Invalidates the UGSubsystem cache when users or groups
+ * are modified in LDAP, for example by a clone.
+ *
+ * The persistent search uses a dedicated connection factory
+ * so it does not hold a connection from the UGSubsystem pool.
+ */
+public class UGCacheMonitor implements Runnable {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(UGCacheMonitor.class);
+
+    UGSubsystem ugSubsystem;
+    UGCache cache;
+    LdapBoundConnFactory connFactory;
+    LDAPPersistSearchControl searchControl;
+    volatile boolean running;
+    volatile LDAPConnection conn;
+
+    public UGCacheMonitor(UGSubsystem ugSubsystem, UGCache cache, LdapBoundConnFactory connFactory) {
+        this.ugSubsystem = ugSubsystem;
+        this.cache = cache;
+        this.connFactory = connFactory;
+
+        searchControl = new LDAPPersistSearchControl(
+                LDAPPersistSearchControl.ADD
+                        | LDAPPersistSearchControl.MODIFY
+                        | LDAPPersistSearchControl.DELETE
+                        | LDAPPersistSearchControl.MODDN,
+                true,  // return subsequent changes only
+                true,  // return controls
+                true); // persistent search control is critical
+    }
+
+    @Override
+    public void run() {
+
+        running = true;
+        String groupBaseDN = LDAPDN.normalize("ou=groups," + ugSubsystem.mBaseDN).toLowerCase();
+
+        while (running) { // restart persistent search in case it's interrupted
+
+            try {
+                conn = connFactory.getConn();
+
+                LDAPSearchConstraints searchConstraints = conn.getSearchConstraints();
+                searchConstraints.setServerControls(searchControl);
+                searchConstraints.setBatchSize(1);
+                searchConstraints.setServerTimeLimit(0);
+
+                logger.info("UGCacheMonitor: Start monitoring users and groups");
+
+                LDAPSearchResults results = conn.search(
+                        ugSubsystem.mBaseDN,
+                        LDAPConnection.SCOPE_SUB,
+                        "(|(objectClass=person)(objectClass=groupOfUniqueNames))",
+                        new String[] { "cn" },
+                        true,
+                        searchConstraints);
+
+                while (running && results.hasMoreElements()) {
+
+                    LDAPEntry entry = results.next();
+                    String dn = entry.getDN();
+                    logger.debug("UGCacheMonitor: Entry changed: " + dn);
+
+                    if (LDAPDN.normalize(dn).toLowerCase().endsWith(groupBaseDN)) {
+                        cache.invalidateGroups();
+                    } else {
+                        cache.invalidateUsers();
+                    }
+                }
+
+                logger.info("UGCacheMonitor: Stop monitoring users and groups");
+
+            } catch (Throwable e) {
+                if (!running) {
+                    // disconnected by stop()
+                    break;
+                }
+
+                logger.error("UGCacheMonitor: Unable to monitor users and groups: " + e.getMessage(), e);
+
+                // changes might have been missed
+                cache.clear();
+
+                try {
+                    Thread.sleep(10 * 1000); // wait 10s then restart persistent search
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+
+            } finally {
+                if (conn != null) {
+                    connFactory.returnConn(conn);
+                    conn = null;
+                }
+            }
+        }
+
+        try {
+            connFactory.shutdown();
+        } catch (ELdapException e) {
+            logger.warn("UGCacheMonitor: Unable to shutdown connection: " + e.getMessage(), e);
+        }
+    }
+
+    public void stop() {
+        running = false; // terminate the loop gracefully
+
+        // abandon the persistent search
+        LDAPConnection conn = this.conn;
+        if (conn != null) {
+            try {
+                conn.disconnect();
+            } catch (Exception e) {
+                logger.debug("UGCacheMonitor: Unable to disconnect: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Vector;
@@ -38,7 +39,9 @@ import com.netscape.certsrv.usrgrp.EUsrGrpException;
 import com.netscape.cmscore.apps.CMSEngine;
 import com.netscape.cmscore.ldapconn.LDAPConfig;
 import com.netscape.cmscore.ldapconn.LdapBoundConnFactory;
+import com.netscape.cmscore.ldapconn.LdapConnInfo;
 import com.netscape.cmscore.ldapconn.PKISocketConfig;
+import com.netscape.cmscore.util.StatsSubsystem;
 import com.netscape.cmsutil.ldap.LDAPUtil;
 import com.netscape.cmsutil.password.PasswordStore;
 
@@ -82,6 +85,13 @@ public class UGSubsystem {
     protected transient LdapBoundConnFactory mLdapConnFactory = null;
     protected String mBaseDN = null;
 
+    protected UGCache cache;
+    protected UGCacheMonitor cacheMonitor;
+
+    private LDAPConfig ldapConfig;
+    private PKISocketConfig socketConfig;
+    private PasswordStore passwordStore;
+
     /**
      * Constructs LDAP based usr/grp management
      */
@@ -101,6 +111,10 @@ public class UGSubsystem {
             PKISocketConfig socketConfig,
             PasswordStore passwordStore) throws Exception {
 
+        this.ldapConfig = ldapConfig;
+        this.socketConfig = socketConfig;
+        this.passwordStore = passwordStore;
+
         mBaseDN = ldapConfig.getBaseDN();
 
         mLdapConnFactory = new LdapBoundConnFactory("UGSubsystem");
@@ -112,10 +126,93 @@ public class UGSubsystem {
         mLdapConnFactory.init(socketConfig, ldapConfig, passwordStore);
     }
 
+    /**
+     * Initializes the user and group cache.
+     */
+    public void initCache(UGSubsystemConfig config) throws EBaseException {
+
+        if (!config.getCacheEnabled()) {
+            return;
+        }
+
+        int size = config.getCacheSize();
+        int ttl = config.getCacheTTL();
+        logger.info("UGSubsystem: Creating cache with size " + size + " and TTL " + ttl + "s");
+
+        cache = new UGCache(size, ttl * 1000L);
+
+        if (config.getCacheMonitorEnabled()) {
+            logger.info("UGSubsystem: Starting cache monitor");
+
+            // the persistent search holds its connection permanently
+            // so it should not take one from the shared pool
+            LdapBoundConnFactory monitorConnFactory = new LdapBoundConnFactory(
+                    "UGCacheMonitor",
+                    1,
+                    1,
+                    new LdapConnInfo(ldapConfig.getConnectionConfig()),
+                    mLdapConnFactory.getAuthInfo());
+
+            if (engine != null) {
+                monitorConnFactory.setAuditor(engine.getAuditor());
+                monitorConnFactory.setSocketListener(engine.getClientSocketListener());
+                monitorConnFactory.setApprovalCallback(engine.getApprovalCallback());
+            }
+
+            monitorConnFactory.init(socketConfig, passwordStore);
+
+            cacheMonitor = new UGCacheMonitor(this, cache, monitorConnFactory);
+
+            Thread thread = new Thread(cacheMonitor, "UGCacheMonitor");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public UGCache getCache() {
+        return cache;
+    }
+
+    protected void invalidateUsers() {
+        if (cache != null) {
+            cache.invalidateUsers();
+        }
+    }
+
+    protected void invalidateGroups() {
+        if (cache != null) {
+            cache.invalidateGroups();
+        }
+    }
+
+    /**
+     * Records a cache lookup in the statistics.
+     */
+    protected void updateCacheStats(boolean hit) {
+
+        if (engine == null) {
+            return;
+        }
+
+        StatsSubsystem statsSub = (StatsSubsystem) engine.getSubsystem(StatsSubsystem.ID);
+        if (statsSub != null) {
+            statsSub.incCounter(hit ? "usrgrp_cache_hit" : "usrgrp_cache_miss");
+        }
+    }
+
     /**
      * Disconnects usr/grp manager from the LDAP
      */
     public void shutdown() {
+
+        if (cacheMonitor != null) {
+            cacheMonitor.stop();
+        }
+
+        if (cache != null) {
+            cache.clear();
+        }
+
         try {
             if (mLdapConnFactory != null) {
                 mLdapConnFactory.reset();
@@ -144,6 +241,16 @@ public class UGSubsystem {
             return null;
         }
 
+        long generation = cache == null ? 0 : cache.getUserGeneration();
+
+        if (cache != null) {
+            User user = cache.getUser(userID);
+            updateCacheStats(user != null);
+            if (user != null) {
+                return user;
+            }
+        }
+
         String userDN;
 
         if (userID.indexOf('=') < 0) { // user ID is not a DN
@@ -172,7 +279,13 @@ public class UGSubsystem {
             Enumeration<User> e = buildUsers(res);
 
             // user found
-            return e.nextElement();
+            User user = e.nextElement();
+
+            if (cache != null) {
+                cache.putUser(userID, user, generation);
+            }
+
+            return user;
 
         } catch (ELdapException e) {
             throw new EUsrGrpException("Unable to retrieve user: " + userID + ": " + e.getMessage(), e);
@@ -197,17 +310,35 @@ public class UGSubsystem {
             return null;
         }
 
+        String certString = getCertificateString(cert);
+
+        long generation = cache == null ? 0 : cache.getUserGeneration();
+
+        if (cache != null) {
+            User user = cache.getUserByCert(certString);
+            updateCacheStats(user != null);
+            if (user != null) {
+                return user;
+            }
+        }
+
         LDAPConnection ldapconn = null;
 
         try {
             ldapconn = getConn();
-            String filter = LDAP_ATTR_USER_CERT_STRING + "=" + LDAPUtil.escapeFilter(getCertificateString(cert));
+            String filter = LDAP_ATTR_USER_CERT_STRING + "=" + LDAPUtil.escapeFilter(certString);
             LDAPSearchResults res =
                     ldapconn.search(getUserBaseDN(),
                             LDAPConnection.SCOPE_SUB, filter, null, false);
             Enumeration<User> e = buildUsers(res);
 
-            return e.nextElement();
+            User user = e.nextElement();
+
+            if (cache != null) {
+                cache.putUserByCert(certString, user, generation);
+            }
+
+            return user;
 
         } catch (LDAPException e) {
             logger.warn("Unable to find user: " + e.getMessage(), e);
@@ -817,6 +948,7 @@ public class UGSubsystem {
             throw new EUsrGrpException("Unable to add user certificate: " + e.getMessage(), e);
 
         } finally {
+            invalidateUsers();
             if (ldapconn != null) {
                 returnConn(ldapconn);
             }
@@ -859,6 +991,7 @@ public class UGSubsystem {
             throw new EUsrGrpException("Unable to add seeAlso: " + e.getMessage(), e);
 
         } finally {
+            invalidateUsers();
             if (ldapconn != null) {
                 returnConn(ldapconn);
             }
@@ -901,6 +1034,7 @@ public class UGSubsystem {
             throw new EUsrGrpException("Unable to remove seeAlso: " + e.getMessage(), e);
 
         } finally {
+            invalidateUsers();
             if (ldapconn != null) {
                 returnConn(ldapconn);
             }
@@ -1005,6 +1139,7 @@ public class UGSubsystem {
                 throw new EUsrGrpException("Unable to remove user certificate: " + e.getMessage(), e);
 
             } finally {
+                invalidateUsers();
                 if (ldapconn != null)
                     returnConn(ldapconn);
             }
@@ -1038,6 +1173,7 @@ public class UGSubsystem {
             throw new EUsrGrpException("Unable to add user to group: " + e.getMessage(), e);
 
         } finally {
+            invalidateGroups();
             if (ldapconn != null)
                 returnConn(ldapconn);
         }
@@ -1066,6 +1202,7 @@ public class UGSubsystem {
             throw new EUsrGrpException("Unable to remove user from group: " + e.getMessage(), e);
 
         } finally {
+            invalidateGroups();
             if (ldapconn != null)
                 returnConn(ldapconn);
         }
@@ -1101,6 +1238,8 @@ public class UGSubsystem {
             logger.error("Unable to remove user: " + e.getMessage(), e);
 
         } finally {
+            invalidateUsers();
+            invalidateGroups();
             if (ldapconn != null)
                 returnConn(ldapconn);
         }
@@ -1240,6 +1379,7 @@ public class UGSubsystem {
             throw new EUsrGrpException("Unable to modify user: " + e.getMessage(), e);
 
         } finally {
+            invalidateUsers();
             if (ldapconn != null)
                 returnConn(ldapconn);
         }
@@ -1358,6 +1498,18 @@ public class UGSubsystem {
             return null;
         }
 
+        // only cache the unfiltered groups
+        boolean cacheable = cache != null && StringUtils.isEmpty(filter);
+        long generation = cacheable ? cache.getGroupGeneration() : 0;
+
+        if (cacheable) {
+            List<Group> groups = cache.getGroupsByUser(userDn);
+            updateCacheStats(groups != null);
+            if (groups != null) {
+                return Collections.enumeration(groups);
+            }
+        }
+
         // search groups where the user is a member
         String ldapFilter = "(&(objectclass=groupofuniquenames)(uniqueMember=" + LDAPUtil.escapeFilter(userDn) + ")";
 
@@ -1385,7 +1537,15 @@ public class UGSubsystem {
                     attrs,
                     false);
 
-            return buildGroups(res);
+            Enumeration<Group> groups = buildGroups(res);
+
+            if (cacheable) {
+                List<Group> list = Collections.list(groups);
+                cache.putGroupsByUser(userDn, list, generation);
+                return Collections.enumeration(list);
+            }
+
+            return groups;
 
         } catch (LDAPException e) {
             logger.warn("Unable to find groups by user: " + e.getMessage(), e);
@@ -1590,6 +1750,17 @@ public class UGSubsystem {
      * by running an ldap search for the user in the group
      */
     protected boolean isMemberOfLdapGroup(String userid, String groupname) {
+
+        long generation = cache == null ? 0 : cache.getGroupGeneration();
+
+        if (cache != null) {
+            Boolean member = cache.isMemberOf(userid, groupname);
+            updateCacheStats(member != null);
+            if (member != null) {
+                return member;
+            }
+        }
+
         String basedn = "cn=" + LDAPUtil.escapeRDNValue(groupname) + ",ou=groups," + mBaseDN;
         LDAPConnection ldapconn = null;
         boolean founduser = false;
@@ -1618,6 +1789,10 @@ public class UGSubsystem {
                 founduser = true;
             }
             logger.trace("authorization result: " + founduser);
+
+            if (cache != null) {
+                cache.putMembership(userid, groupname, founduser, generation);
+            }
         } catch (LDAPException e) {
             String errMsg =
                     "isMemberOfLdapGroup: could not find group " + groupname + ". Error " + e;
@@ -1697,6 +1872,7 @@ public class UGSubsystem {
             throw new EUsrGrpException("Unable to add group: " + e.getMessage(), e);
 
         } finally {
+            invalidateGroups();
             if (ldapconn != null)
                 returnConn(ldapconn);
         }
@@ -1725,6 +1901,7 @@ public class UGSubsystem {
             throw new EUsrGrpException("Unable to remove group: " + e.getMessage(), e);
 
         } finally {
+            invalidateGroups();
             if (ldapconn != null)
                 returnConn(ldapconn);
         }
@@ -1785,6 +1962,7 @@ public class UGSubsystem {
             throw new EUsrGrpException("Unable to modify group: " + e.getMessage(), e);
 
         } finally {
+            invalidateGroups();
             if (ldapconn != null)
                 returnConn(ldapconn);
         }
@@ -27,4 +27,32 @@ public class UGSubsystemConfig extends ConfigStore {
     public LDAPConfig getLDAPConfig() throws EBaseException {
         return getSubStore("ldap", LDAPConfig.class);
     }
+
+    /**
+     * Returns usrgrp.cache.enable parameter.
+     */
+    public boolean getCacheEnabled() throws EBaseException {
+        return getBoolean("cache.enable", false);
+    }
+
+    /**
+     * Returns usrgrp.cache.size parameter.
+     */
+    public int getCacheSize() throws EBaseException {
+        return getInteger("cache.size", 1000);
+    }
+
+    /**
+     * Returns usrgrp.cache.ttl parameter in seconds.
+     */
+    public int getCacheTTL() throws EBaseException {
+        return getInteger("cache.ttl", 60);
+    }
+
+    /**
+     * Returns usrgrp.cache.monitor parameter.
+     */
+    public boolean getCacheMonitorEnabled() throws EBaseException {
+        return getBoolean("cache.monitor", false);
+    }
 }
@@ -163,6 +163,30 @@ public class User implements JSONSerializer {
     public User() {
     }
 
+    /**
+     * Constructs a copy of a user.
+     */
+    public User(User user) {
+        userid = user.userid;
+        userDN = user.userDN;
+        fullName = user.fullName;
+        password = user.password;
+        email = user.email;
+        phone = user.phone;
+        state = user.state;
+        certDN = user.certDN;
+        userType = user.userType;
+        x509Certs = user.x509Certs == null ? null : user.x509Certs.clone();
+        tpsProfiles = user.tpsProfiles == null ? null : new ArrayList<>(user.tpsProfiles);
+
+        if (user.attrs != null) {
+            attrs = new ArrayList<>(user.attrs.size());
+            for (LDAPAttribute attr : user.attrs) {
+                attrs.add(new LDAPAttribute(attr));
+            }
+        }
+    }
+
     @Deprecated
     public User(String userid) {
         this.userid = userid;
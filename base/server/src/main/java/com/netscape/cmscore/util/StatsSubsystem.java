@@ -151,6 +151,20 @@ public class StatsSubsystem extends Subsystem {
         }
     }
 
+    /**
+     * Increments the number of operations of a top-level event
+     * which is counted but not timed, for example cache hits.
+     */
+    public synchronized void incCounter(String id) {
+        StatsEvent st = mAllTrans.getSubEvent(id);
+        if (st == null) {
+            st = new StatsEvent(mAllTrans);
+            st.setName(id);
+            mAllTrans.addSubEvent(st);
+        }
+        st.incNoOfOperations(1);
+    }
+
     /**
      * Resets counters.
      */
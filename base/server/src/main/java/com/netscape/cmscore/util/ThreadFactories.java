@@ -0,0 +1,78 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2024 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factories of named threads.
+ */
+public class ThreadFactories {
+
+    public static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ThreadFactories.class);
+
+    /**
+     * Creates a factory of virtual threads named with the prefix
+     * followed by a counter.
+     *
+     * Virtual threads are only available in Java 21 or later, so
+     * they are created reflectively while the code is built for
+     * older versions.
+     *
+     * @param prefix thread name prefix
+     * @return thread factory, or null if the JVM does not support
+     * virtual threads
+     */
+    public static ThreadFactory createVirtualThreadFactory(String prefix) {
+
+        try {
+            // Thread.ofVirtual().name(prefix, 0).factory()
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+
+            Method name = builderClass.getMethod("name", String.class, long.class);
+            builder = name.invoke(builder, prefix, 0L);
+
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+
+        } catch (ReflectiveOperationException e) {
+            logger.debug("ThreadFactories: Virtual threads not available: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Creates a factory of daemon platform threads named with the
+     * prefix followed by a counter.
+     *
+     * @param prefix thread name prefix
+     * @return thread factory
+     */
+    public static ThreadFactory createDaemonThreadFactory(String prefix) {
+
+        AtomicInteger counter = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
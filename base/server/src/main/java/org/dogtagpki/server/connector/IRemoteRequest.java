@@ -101,6 +101,10 @@ public interface IRemoteRequest {
     public static final String CA_RESPONSE_Certificate_b64 = "b64";
     public static final String CA_RESPONSE_Certificate_SubjectDN = "SubjectDN";
     public static final String CA_RESPONSE_Certificate_serial = "serialno";
+    // comma-separated decimal serial numbers of the certs revoked by a revoke request
+    public static final String CA_RESPONSE_REVOKED_SERIALS = "revokedSerialNumbers";
+    // comma-separated decimal serial numbers of the certs taken off hold by an unrevoke request
+    public static final String CA_RESPONSE_UNREVOKED_SERIALS = "unrevokedSerialNumbers";
     public static final String CA_RESPONSE_Certificate_chain_b64 = "certChainBase64";
     public static final String CA_RESPONSE_Certificate_RevocationReason = "revocationReason";
 
@@ -0,0 +1,211 @@
+package com.netscape.cmscore.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Vector;
+
+import org.junit.jupiter.api.Test;
+
+public class ConfigStoreTest {
+
+    static ConfigStore load(String... lines) throws Exception {
+        ConfigStore config = new ConfigStore();
+        String content = String.join("\n", lines);
+        config.load(new ByteArrayInputStream(content.getBytes(StandardCharsets.ISO_8859_1)));
+        return config;
+    }
+
+    /**
+     * Lists the sub-store names by scanning all properties.
+     */
+    static List<String> scanSubStoreNames(ConfigStore store) {
+        List<String> names = new ArrayList<>();
+        for (String name : store.getProperties().keySet()) {
+            int i = name.indexOf('.');
+            if (i < 0) continue;
+            name = name.substring(0, i);
+            if (!names.contains(name)) names.add(name);
+        }
+        return names;
+    }
+
+    @Test
+    public void testNames() throws Exception {
+
+        ConfigStore config = load(
+                "param1=value1",
+                "configStore1.param11=value11",
+                "configStore1.param12=value12",
+                "configStore1.subStore1.param111=value111",
+                "configStore1.subStore1.param112=value112",
+                "configStore2.param21=value21",
+                "a-.x=1",
+                "a.x=2",
+                "a=3");
+
+        assertEquals(List.of("a", "param1"), Collections.list(config.getPropertyNames()));
+        assertEquals(scanSubStoreNames(config), config.getSubStoreNames());
+
+        ConfigStore store1 = config.getSubStore("configStore1");
+        assertEquals(List.of("param11", "param12"), Collections.list(store1.getPropertyNames()));
+        assertEquals(List.of("subStore1"), store1.getSubStoreNames());
+
+        ConfigStore subStore1 = store1.getSubStore("subStore1");
+        assertEquals("value111", subStore1.getString("param111"));
+        assertEquals(new Vector<>(), subStore1.getSubStoreNames());
+
+        ConfigStore missing = config.getSubStore("missing");
+        assertFalse(missing.getPropertyNames().hasMoreElements());
+        assertTrue(missing.getSubStoreNames().isEmpty());
+    }
+
+    @Test
+    public void testProperties() throws Exception {
+
+        ConfigStore config = load(
+                "ca.a=1",
+                "ca.b.c=2",
+                "ca.b.d.e=3",
+                "cab=4");
+
+        Map<String, String> expected = new TreeMap<>();
+        expected.put("a", "1");
+        expected.put("b.c", "2");
+        expected.put("b.d.e", "3");
+
+        ConfigStore ca = config.getSubStore("ca");
+        assertEquals(expected, ca.getProperties());
+        assertEquals(3, ca.size());
+        assertEquals(4, config.size());
+    }
+
+    @Test
+    public void testUpdates() throws Exception {
+
+        ConfigStore config = load(
+                "ca.a=1",
+                "ca.b.c=2");
+
+        ConfigStore ca = config.getSubStore("ca");
+        ca.putString("d.e", "3");
+        assertEquals(List.of("b", "d"), ca.getSubStoreNames());
+
+        ca.remove("b.c");
+        assertEquals(List.of("d"), ca.getSubStoreNames());
+
+        ca.removeSubStore("d");
+        assertTrue(ca.getSubStoreNames().isEmpty());
+        assertEquals(List.of("a"), Collections.list(ca.getPropertyNames()));
+
+        config.clear();
+        assertTrue(config.getSubStoreNames().isEmpty());
+        assertEquals(0, config.size());
+    }
+
+    @Test
+    public void testReference() throws Exception {
+
+        ConfigStore config = load(
+                "kra.ldap.host=server1",
+                "ca.ldap=kra.ldap");
+
+        ConfigStore ldap = config.getSubStore("ca").getSubStore("ldap");
+        assertEquals("kra.ldap", ldap.getName());
+        assertEquals("server1", ldap.getString("host"));
+    }
+
+    @Test
+    public void testSubStoreCache() throws Exception {
+
+        ConfigStore config = load(
+                "ca.a=1",
+                "kra.a=2");
+
+        ConfigStore ca = config.getSubStore("ca");
+        assertSame(ca, config.getSubStore("ca"));
+
+        // a new reference is followed
+        config.putString("ca", "kra");
+        assertEquals("kra", config.getSubStore("ca").getName());
+    }
+
+    @Test
+    public void testTypedValues() throws Exception {
+
+        ConfigStore config = load(
+                "int=1",
+                "bool=true",
+                "big=0x10");
+
+        assertEquals(1, config.getInteger("int"));
+        assertTrue(config.getBoolean("bool"));
+        assertEquals(BigInteger.valueOf(16), config.getBigInteger("big"));
+
+        config.putInteger("int", 2);
+        config.putBoolean("bool", false);
+        config.putBigInteger("big", BigInteger.TEN);
+
+        assertEquals(2, config.getInteger("int"));
+        assertFalse(config.getBoolean("bool"));
+        assertEquals(BigInteger.TEN, config.getBigInteger("big"));
+
+        config.remove("int");
+        assertEquals(3, config.getInteger("int", 3));
+        assertNull(config.get("int"));
+    }
+
+    /**
+     * Walks nested sub-stores the way the subsystems do during startup.
+     */
+    @Test
+    public void testNestedSubStores() throws Exception {
+
+        StringBuilder sb = new StringBuilder();
+        for (int p = 0; p < 20; p++) {
+            String profile = "ca.Policy.profile" + p;
+            for (int r = 0; r < 5; r++) {
+                String rule = profile + ".rule" + r;
+                sb.append(rule).append(".enable=true\n");
+                sb.append(rule).append(".implName=Impl").append(r).append('\n');
+                for (int q = 0; q < 8; q++) {
+                    sb.append(rule).append(".param").append(q).append('=').append(q).append('\n');
+                }
+            }
+        }
+
+        ConfigStore config = new ConfigStore();
+        config.load(new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.ISO_8859_1)));
+
+        int rules = 0;
+        ConfigStore policies = config.getSubStore("ca").getSubStore("Policy");
+        assertEquals(scanSubStoreNames(policies), policies.getSubStoreNames());
+
+        for (String profileName : policies.getSubStoreNames()) {
+            ConfigStore profile = policies.getSubStore(profileName);
+            assertEquals(scanSubStoreNames(profile), profile.getSubStoreNames());
+
+            for (String ruleName : profile.getSubStoreNames()) {
+                ConfigStore rule = profile.getSubStore(ruleName);
+
+                assertTrue(rule.getBoolean("enable"));
+                assertEquals(10, Collections.list(rule.getPropertyNames()).size());
+                rules++;
+            }
+        }
+
+        assertEquals(20 * 5, rules);
+        assertEquals(20 * 5 * 10, config.size());
+    }
+}
@@ -0,0 +1,98 @@
+package com.netscape.cmscore.cert;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.Hashtable;
+
+import org.junit.jupiter.api.Test;
+import org.mozilla.jss.netscape.security.x509.RevokedCertImpl;
+import org.mozilla.jss.netscape.security.x509.RevokedCertificate;
+
+public class RevokedCertIndexTest {
+
+    @Test
+    public void testLookup() throws Exception {
+
+        Hashtable<BigInteger, RevokedCertificate> entries = new Hashtable<>();
+
+        long time = 1600000000000L;
+        BigInteger[] serialNumbers = {
+                BigInteger.ONE,
+                BigInteger.valueOf(127),
+                BigInteger.valueOf(128),
+                BigInteger.valueOf(255),
+                BigInteger.valueOf(65536),
+                new BigInteger("123456789012345678901234567890"),
+                BigInteger.valueOf(-5)
+        };
+
+        for (int i = 0; i < serialNumbers.length; i++) {
+            entries.put(serialNumbers[i], new RevokedCertImpl(serialNumbers[i], new Date(time + i), null));
+        }
+
+        RevokedCertIndex index = RevokedCertIndex.create(entries);
+        assertEquals(serialNumbers.length, index.size());
+
+        for (int i = 0; i < serialNumbers.length; i++) {
+            assertTrue(index.contains(serialNumbers[i]));
+            assertEquals(new Date(time + i), index.getRevocationDate(serialNumbers[i]));
+        }
+
+        assertFalse(index.contains(BigInteger.ZERO));
+        assertFalse(index.contains(BigInteger.valueOf(129)));
+        assertFalse(index.contains(BigInteger.valueOf(-1)));
+        assertNull(index.getRevocationDate(BigInteger.valueOf(256)));
+        assertEquals(RevokedCertIndex.NO_DATE, index.getRevocationTime(BigInteger.TWO));
+    }
+
+    @Test
+    public void testBuilder() throws Exception {
+
+        BigInteger[] serialNumbers = {
+                BigInteger.valueOf(-129),
+                BigInteger.ZERO,
+                BigInteger.valueOf(255),
+                new BigInteger("123456789012345678901234567890")
+        };
+
+        RevokedCertIndex.Builder builder = new RevokedCertIndex.Builder(1);
+        for (int i = 0; i < serialNumbers.length; i++) {
+            builder.add(serialNumbers[i], i == 1 ? RevokedCertIndex.NO_DATE : i);
+        }
+
+        RevokedCertIndex index = builder.build();
+        assertEquals(serialNumbers.length, index.size());
+
+        for (int i = 0; i < serialNumbers.length; i++) {
+            assertEquals(serialNumbers[i], index.getSerialNumber(i));
+            assertTrue(index.contains(serialNumbers[i]));
+        }
+
+        assertEquals(RevokedCertIndex.NO_DATE, index.getRevocationTime(1));
+        assertEquals(3, index.getRevocationTime(3));
+        assertNull(index.getRevocationDate(BigInteger.ZERO));
+    }
+
+    @Test
+    public void testBuilderOrder() throws Exception {
+
+        RevokedCertIndex.Builder builder = new RevokedCertIndex.Builder(0);
+        builder.add(BigInteger.TWO, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> builder.add(BigInteger.ONE, 0));
+        assertThrows(IllegalArgumentException.class, () -> builder.add(BigInteger.TWO, 0));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        RevokedCertIndex index = RevokedCertIndex.create(new Hashtable<>());
+        assertEquals(0, index.size());
+        assertFalse(index.contains(BigInteger.ONE));
+    }
+}
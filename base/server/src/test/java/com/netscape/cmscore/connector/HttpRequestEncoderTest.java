@@ -0,0 +1,78 @@
+package com.netscape.cmscore.connector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Hashtable;
+import java.util.Vector;
+
+import org.junit.jupiter.api.Test;
+import org.mozilla.jss.netscape.security.util.Utils;
+
+public class HttpRequestEncoderTest {
+
+    HttpRequestEncoder encoder = new HttpRequestEncoder();
+
+    HttpPKIMessage createMessage() {
+
+        HttpPKIMessage msg = new HttpPKIMessage();
+        msg.reqType = "enrollment";
+        msg.reqId = "12345";
+        msg.reqStatus = "begin";
+        msg.reqRealm = null;
+
+        Hashtable<String, String> table = new Hashtable<>();
+        table.put("subject", "CN=Test User,O=EXAMPLE");
+        table.put("keyType", "RSA");
+
+        msg.mNameVals.addElement("profileId");
+        msg.mNameVals.addElement("caServerKeygen_UserCert");
+        msg.mNameVals.addElement("certInfo");
+        msg.mNameVals.addElement(table);
+
+        return msg;
+    }
+
+    @Test
+    public void testCompactRoundTrip() throws Exception {
+
+        HttpPKIMessage msg = createMessage();
+        Vector<Object> expected = new Vector<>(msg.mNameVals);
+
+        msg.mNameVals.addElement("unsupported");
+        msg.mNameVals.addElement(Integer.valueOf(1));
+
+        String encoded = encoder.encode(msg, true);
+        assertTrue(HttpPKIMessageCodec.isCompact(Utils.base64decode(encoded)));
+
+        HttpPKIMessage result = (HttpPKIMessage) encoder.decode(encoded);
+        assertEquals("enrollment", result.getReqType());
+        assertEquals("12345", result.getReqId());
+        assertEquals("begin", result.getReqStatus());
+        assertNull(result.getReqRealm());
+
+        // unsupported attributes are skipped
+        assertEquals(expected, result.mNameVals);
+    }
+
+    @Test
+    public void testLegacyFormat() throws Exception {
+
+        HttpPKIMessage msg = createMessage();
+        msg.reqRealm = "";
+
+        String legacy = encoder.encode(msg, false);
+        assertFalse(HttpPKIMessageCodec.isCompact(Utils.base64decode(legacy)));
+
+        HttpPKIMessage result = (HttpPKIMessage) encoder.decode(legacy);
+        assertEquals("enrollment", result.getReqType());
+        assertEquals("12345", result.getReqId());
+        assertEquals(msg.mNameVals, result.mNameVals);
+
+        // the compact format should be smaller
+        String compact = encoder.encode(msg, true);
+        assertTrue(compact.length() < legacy.length());
+    }
+}
@@ -0,0 +1,59 @@
+package com.netscape.cmscore.dbs;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+import com.netscape.certsrv.base.PKIException;
+
+import netscape.ldap.LDAPAttribute;
+import netscape.ldap.LDAPAttributeSet;
+
+public class CertRecordTest {
+
+    @Test
+    public void testProjectedValidity() throws Exception {
+
+        // second precision as stored in the database
+        Date notBefore = new Date(1700000000000L);
+        Date notAfter = new Date(1800000000000L);
+
+        LDAPAttributeSet attrs = new LDAPAttributeSet();
+        attrs.add(new LDAPAttribute(CertDBSchema.LDAP_ATTR_NOT_BEFORE, DateMapper.dateToDB(notBefore)));
+        attrs.add(new LDAPAttribute(CertDBSchema.LDAP_ATTR_NOT_AFTER, DateMapper.dateToDB(notAfter)));
+
+        CertRecord record = new CertRecord();
+        new X509CertImplMapper().mapLDAPAttributeSetToObject(attrs, CertRecord.ATTR_X509CERT, record);
+
+        assertEquals(notBefore, record.getNotBefore());
+        assertEquals(notAfter, record.getNotAfter());
+        assertNull(record.getCertificate());
+    }
+
+    @Test
+    public void testLazyDecoding() throws Exception {
+
+        byte[] der = new byte[] { 0x30, 0x03, 0x02, 0x01, 0x01 };
+
+        LDAPAttributeSet attrs = new LDAPAttributeSet();
+        attrs.add(new LDAPAttribute(CertDBSchema.LDAP_ATTR_SIGNED_CERT + ";binary", der));
+
+        CertRecord record = new CertRecord();
+        new X509CertImplMapper().mapLDAPAttributeSetToObject(attrs, CertRecord.ATTR_X509CERT, record);
+
+        // the encoding is available without decoding
+        assertArrayEquals(der, record.getEncodedCertificate());
+
+        // an invalid certificate is reported on access
+        assertThrows(PKIException.class, () -> record.getCertificate());
+        assertThrows(PKIException.class, () -> record.get(CertRecord.ATTR_X509CERT));
+
+        // the encoding is still available
+        assertArrayEquals(der, record.getEncodedCertificate());
+    }
+}
@@ -0,0 +1,156 @@
+package com.netscape.cmscore.dbs;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+
+import netscape.ldap.LDAPAttribute;
+import netscape.ldap.LDAPAttributeSet;
+import netscape.ldap.LDAPEntry;
+import netscape.ldap.util.DN;
+
+public class DBChangeNotifierTest {
+
+    @Test
+    public void testAttributes() throws Exception {
+
+        DBChangeNotifier notifier = new DBChangeNotifier(null, 1000, 60000);
+        DBChangeSubscription subscription = new DBChangeSubscription("test", "dc=example,dc=com", event -> {});
+
+        // all user attributes
+        assertArrayEquals(
+                new String[] { "*", "entryUSN" },
+                notifier.getAttributes(subscription));
+
+        // entryUSN is added once
+        subscription.setAttributes(new String[] { "cn" });
+        assertArrayEquals(
+                new String[] { "cn", "entryUSN" },
+                notifier.getAttributes(subscription));
+
+        subscription.setAttributes(new String[] { "cn", "entryusn" });
+        assertArrayEquals(
+                new String[] { "cn", "entryusn" },
+                notifier.getAttributes(subscription));
+    }
+
+    @Test
+    public void testLastUSN() throws Exception {
+
+        DBChangeSubscription subscription = new DBChangeSubscription("test", "dc=example,dc=com", event -> {});
+        subscription.start();
+
+        try {
+            assertNull(subscription.getLastUSN());
+
+            subscription.dispatch(createEvent("10"));
+            subscription.dispatch(createEvent("12"));
+
+            // replicated changes may arrive with a lower USN
+            subscription.dispatch(createEvent("11"));
+
+            assertEquals(new BigInteger("12"), subscription.getLastUSN());
+
+        } finally {
+            subscription.stop();
+        }
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+
+        DBChangeSubscription subscription = new DBChangeSubscription("test", "dc=example,dc=com", event -> {});
+        subscription.start();
+
+        try {
+            // connection lost while retrieving the existing entries
+            subscription.loadStarted();
+            subscription.dispatch(createEvent("12"));
+            assertNull(subscription.getLastUSN());
+
+            // the entries are retrieved again
+            subscription.loadStarted();
+            subscription.dispatch(createEvent("12"));
+            subscription.dispatch(createEvent("10"));
+            subscription.loadFinished();
+            assertEquals(new BigInteger("12"), subscription.getLastUSN());
+
+            // connection lost while retrieving the missed changes
+            subscription.loadStarted();
+            subscription.dispatch(createEvent("15"));
+            assertEquals(new BigInteger("12"), subscription.getLastUSN());
+
+            // the changes are retrieved again
+            subscription.loadStarted();
+            subscription.dispatch(createEvent("15"));
+            subscription.dispatch(createEvent("13"));
+            subscription.loadFinished();
+            assertEquals(new BigInteger("15"), subscription.getLastUSN());
+
+        } finally {
+            subscription.stop();
+        }
+    }
+
+    @Test
+    public void testTombstone() throws Exception {
+
+        DBChangeNotifier notifier = new DBChangeNotifier(null, 1000, 60000);
+
+        LDAPAttributeSet attrs = new LDAPAttributeSet();
+        attrs.add(new LDAPAttribute("objectClass", new String[] { "top", "certProfile", "nsTombstone" }));
+        attrs.add(new LDAPAttribute("cn", "caServerCert"));
+        attrs.add(new LDAPAttribute("nsUniqueId", "4d2c3a01-a2d411ee-8a1cb6f2-7b1b4b3c"));
+
+        LDAPEntry tombstone = new LDAPEntry(
+                "nsuniqueid=4d2c3a01-a2d411ee-8a1cb6f2-7b1b4b3c,cn=caServerCert,ou=certificateProfiles,ou=ca,o=pki-tomcat-CA",
+                attrs);
+
+        DBChangeEvent event = notifier.createDeleteEvent(tombstone);
+        assertEquals(DBChangeEvent.Type.DELETE, event.getType());
+        assertEquals("cn=caServerCert,ou=certificateProfiles,ou=ca,o=pki-tomcat-CA", event.getDN());
+
+        // the deleted entry is a direct child of the container again
+        DN containerDN = new DN("ou=certificateProfiles,ou=ca,o=pki-tomcat-CA");
+        assertEquals(containerDN.countRDNs() + 1, new DN(event.getDN()).countRDNs());
+
+        // the attributes of the deleted entry are kept
+        assertEquals(
+                "4d2c3a01-a2d411ee-8a1cb6f2-7b1b4b3c",
+                event.getEntry().getAttribute("nsUniqueId").getStringValueArray()[0]);
+
+        // older tombstones have the nsUniqueId in the RDN
+        assertEquals(
+                "cn=caServerCert,ou=certificateProfiles,ou=ca,o=pki-tomcat-CA",
+                DBChangeNotifier.getOriginalDN(
+                        "nsuniqueid=4d2c3a01-a2d411ee-8a1cb6f2-7b1b4b3c+cn=caServerCert,ou=certificateProfiles,ou=ca,o=pki-tomcat-CA"));
+
+        // other DNs are not changed
+        assertEquals(
+                "cn=caServerCert,ou=certificateProfiles,ou=ca,o=pki-tomcat-CA",
+                DBChangeNotifier.getOriginalDN("cn=caServerCert,ou=certificateProfiles,ou=ca,o=pki-tomcat-CA"));
+    }
+
+    @Test
+    public void testRetryInterval() throws Exception {
+
+        DBChangeNotifier notifier = new DBChangeNotifier(null, 1000, 5000);
+
+        assertEquals(1000, notifier.nextRetryInterval());
+        assertEquals(2000, notifier.nextRetryInterval());
+        assertEquals(4000, notifier.nextRetryInterval());
+        assertEquals(5000, notifier.nextRetryInterval());
+        assertEquals(5000, notifier.nextRetryInterval());
+    }
+
+    DBChangeEvent createEvent(String entryUSN) {
+        LDAPAttributeSet attrs = new LDAPAttributeSet();
+        attrs.add(new LDAPAttribute(DBChangeNotifier.ATTR_ENTRY_USN, entryUSN));
+        LDAPEntry entry = new LDAPEntry("cn=test,dc=example,dc=com", attrs);
+        return new DBChangeEvent(DBChangeEvent.Type.MODIFY, entry);
+    }
+}
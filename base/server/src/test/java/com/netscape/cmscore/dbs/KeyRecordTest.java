@@ -0,0 +1,33 @@
+package com.netscape.cmscore.dbs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class KeyRecordTest {
+
+    @Test
+    public void testPublicKeyFingerprint() throws Exception {
+
+        assertEquals(
+                "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+                KeyRecord.createPublicKeyFingerprint(new byte[0]));
+
+        String fingerprint = KeyRecord.createPublicKeyFingerprint("key1".getBytes(StandardCharsets.UTF_8));
+        assertEquals(64, fingerprint.length());
+        assertNotEquals(fingerprint, KeyRecord.createPublicKeyFingerprint("key2".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testFingerprintAttribute() throws Exception {
+
+        KeyRecord record = new KeyRecord();
+        record.set(KeyRecord.ATTR_PUBLIC_KEY_FINGERPRINT, "abcd");
+
+        assertEquals("abcd", record.getPublicKeyFingerprint());
+        assertEquals("abcd", record.get(KeyRecord.ATTR_PUBLIC_KEY_FINGERPRINT));
+    }
+}
@@ -0,0 +1,102 @@
+package com.netscape.cmscore.dbs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.Hashtable;
+
+import org.junit.jupiter.api.Test;
+import org.mozilla.jss.netscape.security.x509.CRLExtensions;
+import org.mozilla.jss.netscape.security.x509.CRLReasonExtension;
+import org.mozilla.jss.netscape.security.x509.InvalidityDateExtension;
+import org.mozilla.jss.netscape.security.x509.RevocationReason;
+import org.mozilla.jss.netscape.security.x509.RevokedCertImpl;
+import org.mozilla.jss.netscape.security.x509.RevokedCertificate;
+
+public class RevokedCertsCodecTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+
+        Hashtable<BigInteger, RevokedCertificate> entries = new Hashtable<>();
+
+        CRLExtensions reasonExts = new CRLExtensions();
+        reasonExts.set(CRLReasonExtension.NAME, new CRLReasonExtension(RevocationReason.KEY_COMPROMISE));
+
+        CRLExtensions rawExts = new CRLExtensions();
+        rawExts.set(CRLReasonExtension.NAME, new CRLReasonExtension(RevocationReason.CERTIFICATE_HOLD));
+        rawExts.set(InvalidityDateExtension.NAME, new InvalidityDateExtension(new Date(1500000000000L)));
+
+        BigInteger serial1 = new BigInteger("12345678901234567890");
+        BigInteger serial2 = BigInteger.valueOf(5);
+        BigInteger serial3 = BigInteger.valueOf(1000);
+
+        entries.put(serial1, new RevokedCertImpl(serial1, new Date(1600000000000L), reasonExts));
+        entries.put(serial2, new RevokedCertImpl(serial2, new Date(1700000000000L), null));
+        entries.put(serial3, new RevokedCertImpl(serial3, new Date(1550000000000L), rawExts));
+
+        byte[] data = RevokedCertsCodec.encode(entries);
+        assertTrue(RevokedCertsCodec.isCompact(data));
+
+        Hashtable<BigInteger, RevokedCertificate> result = RevokedCertsCodec.decode(data);
+        assertEquals(3, result.size());
+
+        RevokedCertificate entry1 = result.get(serial1);
+        assertEquals(new Date(1600000000000L), entry1.getRevocationDate());
+        CRLReasonExtension reason1 = (CRLReasonExtension) entry1.getExtensions().elementAt(0);
+        assertEquals(RevocationReason.KEY_COMPROMISE, reason1.getReason());
+
+        RevokedCertificate entry2 = result.get(serial2);
+        assertEquals(new Date(1700000000000L), entry2.getRevocationDate());
+        assertNull(entry2.getExtensions());
+
+        RevokedCertificate entry3 = result.get(serial3);
+        assertEquals(new Date(1550000000000L), entry3.getRevocationDate());
+        assertEquals(2, entry3.getExtensions().size());
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        byte[] data = RevokedCertsCodec.encode(new Hashtable<>());
+        assertTrue(RevokedCertsCodec.isCompact(data));
+        assertEquals(0, RevokedCertsCodec.decode(data).size());
+    }
+
+    @Test
+    public void testSerializedDataIsNotCompact() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream os = new ObjectOutputStream(bos)) {
+            os.writeObject(new Hashtable<BigInteger, RevokedCertificate>());
+        }
+        assertFalse(RevokedCertsCodec.isCompact(bos.toByteArray()));
+    }
+
+    @Test
+    public void testChangeRoundTrip() throws Exception {
+
+        BigInteger serial = BigInteger.valueOf(42);
+        CRLCacheChange change = new CRLCacheChange(
+                CRLCacheChange.REVOKED, serial, new RevokedCertImpl(serial, new Date(1600000000000L), null));
+
+        CRLCacheChange result = CRLCacheChange.decode(change.encode());
+
+        assertEquals(CRLCacheChange.REVOKED, result.getType());
+        assertEquals(serial, result.getSerialNumber());
+        assertEquals(change.getSequence(), result.getSequence());
+        assertEquals(new Date(1600000000000L), result.getEntry().getRevocationDate());
+
+        CRLCacheChange unrevoked = new CRLCacheChange(CRLCacheChange.UNREVOKED, serial, null);
+        result = CRLCacheChange.decode(unrevoked.encode());
+
+        assertEquals(CRLCacheChange.UNREVOKED, result.getType());
+        assertEquals(serial, result.getSerialNumber());
+        assertNull(result.getEntry());
+        assertTrue(change.compareTo(result) < 0);
+    }
+}
@@ -0,0 +1,187 @@
+package com.netscape.cmscore.ldapconn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.netscape.certsrv.ldap.ELdapException;
+import com.netscape.cmsutil.password.PasswordStore;
+
+import netscape.ldap.LDAPEntry;
+import netscape.ldap.LDAPException;
+
+public class LdapBoundConnFactoryTest {
+
+    @Test
+    public void testMaxConnections() throws Exception {
+
+        TestConnFactory factory = createFactory(0, 2);
+        factory.mMaxWait = 100;
+
+        LdapBoundConnection conn1 = factory.getConn(true);
+        LdapBoundConnection conn2 = factory.getConn(true);
+        assertEquals(2, factory.getBusyConns());
+
+        // pool exhausted
+        assertNull(factory.getConn(false));
+        assertThrows(ELdapException.class, () -> factory.getConn(true));
+        assertEquals(1, factory.getStats().getTimeouts());
+
+        factory.returnConn(conn1);
+        assertEquals(1, factory.getBusyConns());
+
+        LdapBoundConnection conn3 = factory.getConn(true);
+        assertNotNull(conn3);
+
+        factory.returnConn(conn2);
+        factory.returnConn(conn3);
+        assertEquals(0, factory.getBusyConns());
+    }
+
+    @Test
+    public void testInterruptedWait() throws Exception {
+
+        TestConnFactory factory = createFactory(0, 1);
+
+        LdapBoundConnection conn = factory.getConn(true);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(ELdapException.class, () -> factory.getConn(true));
+            assertTrue(Thread.currentThread().isInterrupted());
+
+        } finally {
+            Thread.interrupted();
+        }
+
+        factory.returnConn(conn);
+        assertEquals(0, factory.getBusyConns());
+    }
+
+    @Test
+    public void testDoubleReturn() throws Exception {
+
+        TestConnFactory factory = createFactory(1, 2);
+
+        LdapBoundConnection conn = factory.getConn(true);
+        assertEquals(1, factory.getBusyConns());
+
+        factory.returnConn(conn);
+        factory.returnConn(conn);
+
+        // the second return must not release another permit
+        // or put the connection in the pool twice
+        assertEquals(0, factory.getBusyConns());
+        assertEquals(1, factory.freeConn());
+
+        LdapBoundConnection conn1 = factory.getConn(true);
+        LdapBoundConnection conn2 = factory.getConn(true);
+        assertSame(conn, conn1);
+        assertNotSame(conn1, conn2);
+
+        assertNull(factory.getConn(false));
+
+        factory.returnConn(conn1);
+        factory.returnConn(conn2);
+    }
+
+    @Test
+    public void testValidate() throws Exception {
+
+        TestConnFactory factory = createFactory(2, 4);
+
+        // master connection and minimum idle connections
+        assertEquals(3, factory.connections.size());
+        assertEquals(2, factory.freeConn());
+        assertEquals(2, factory.totalConn());
+
+        TestConnection invalid = factory.connections.get(1);
+        invalid.connected = false;
+
+        factory.validate();
+
+        // the invalid connection is replaced
+        assertEquals(2, factory.freeConn());
+        assertEquals(2, factory.totalConn());
+        assertEquals(4, factory.connections.size());
+        assertFalse(invalid.connected);
+
+        for (int i = 0; i < 2; i++) {
+            LdapBoundConnection conn = factory.getConn(true);
+            assertNotSame(invalid, conn);
+            assertTrue(conn.isConnected());
+        }
+
+        // the validator reconnects the master connection
+        factory.connections.get(0).connected = false;
+        factory.validate();
+        assertTrue(factory.mMasterConn.isConnected());
+    }
+
+    TestConnFactory createFactory(int minConns, int maxConns) throws Exception {
+
+        TestConnFactory factory = new TestConnFactory(minConns, maxConns);
+        factory.doCloning = false;
+        factory.mValidationInterval = 0;
+        factory.init((PKISocketConfig) null, (PasswordStore) null);
+
+        return factory;
+    }
+
+    static class TestConnFactory extends LdapBoundConnFactory {
+
+        List<TestConnection> connections = new ArrayList<>();
+
+        TestConnFactory(int minConns, int maxConns) throws ELdapException {
+            super(
+                    "test",
+                    minConns,
+                    maxConns,
+                    new LdapConnInfo("localhost", 389),
+                    new LdapAuthInfo());
+        }
+
+        @Override
+        LdapBoundConnection makeNewConnection(boolean errorIfDown) {
+            TestConnection conn = new TestConnection();
+            conn.connectionFactory = this;
+            connections.add(conn);
+            return conn;
+        }
+    }
+
+    static class TestConnection extends LdapBoundConnection {
+
+        private static final long serialVersionUID = 1L;
+
+        boolean connected = true;
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public void disconnect() {
+            connected = false;
+        }
+
+        @Override
+        public LDAPEntry read(String dn, String[] attrs) throws LDAPException {
+            if (!connected) {
+                throw new LDAPException("Not connected", LDAPException.SERVER_DOWN);
+            }
+            return new LDAPEntry(dn);
+        }
+    }
+}
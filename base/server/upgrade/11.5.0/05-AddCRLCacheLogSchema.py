@@ -0,0 +1,82 @@
+#
+# Copyright Red Hat, Inc.
+#
+# SPDX-License-Identifier: GPL-2.0-or-later
+
+import logging
+
+import ldap
+
+import pki
+
+logger = logging.getLogger(__name__)
+
+CRL_CACHE_LOG_ATTR = \
+    "( crlCacheLog-oid NAME 'crlCacheLog' DESC 'CMS defined attribute' " \
+    "SYNTAX 1.3.6.1.4.1.1466.115.121.1.5 X-ORIGIN 'user defined' )"
+
+CRL_ISSUING_POINT_RECORD_CLASS = \
+    "( crlIssuingPointRecord-oid NAME 'crlIssuingPointRecord' DESC 'CMS defined class' " \
+    "SUP top STRUCTURAL MUST cn MAY ( dateOfCreate $ dateOfModify $ crlNumber $ " \
+    "crlSize $ thisUpdate $ nextUpdate $ deltaNumber $ deltaSize $ firstUnsaved $ " \
+    "certificateRevocationList $ deltaRevocationList $ crlCache $ revokedCerts $ " \
+    "unrevokedCerts $ expiredCerts $ crlCacheLog $ cACertificate ) " \
+    "X-ORIGIN 'user defined' )"
+
+
+class AddCRLCacheLogSchema(pki.server.upgrade.PKIServerUpgradeScriptlet):
+
+    def __init__(self):
+        super().__init__()
+        self.message = 'Add crlCacheLog attribute to database schema'
+
+    def upgrade_subsystem(self, instance, subsystem):
+
+        if subsystem.name != 'ca':
+            return
+
+        try:
+            con = subsystem.open_database()
+
+        except ldap.LDAPError as e:
+            logger.warning(
+                'Unable to connect to database: %s. '
+                'Run pki-server db-schema-upgrade to add crlCacheLog.', e)
+            return
+
+        try:
+            entries = con.ldap.search_s(
+                'cn=schema',
+                ldap.SCOPE_BASE,
+                '(objectClass=*)',
+                ['attributeTypes', 'objectClasses'])
+
+            attrs = entries[0][1]
+
+            attribute_types = attrs.get('attributeTypes', [])
+            if any(b"NAME 'crlCacheLog'" in value for value in attribute_types):
+                logger.info('Schema already has crlCacheLog')
+                return
+
+            mods = [(ldap.MOD_ADD, 'attributeTypes', [CRL_CACHE_LOG_ATTR.encode()])]
+
+            # replace the current crlIssuingPointRecord definition
+            for value in attrs.get('objectClasses', []):
+                if b"NAME 'crlIssuingPointRecord'" in value:
+                    mods.append((ldap.MOD_DELETE, 'objectClasses', [value]))
+
+            mods.append((
+                ldap.MOD_ADD,
+                'objectClasses',
+                [CRL_ISSUING_POINT_RECORD_CLASS.encode()]))
+
+            logger.info('Adding crlCacheLog to schema')
+            con.ldap.modify_s('cn=schema', mods)
+
+        except ldap.LDAPError as e:
+            logger.warning(
+                'Unable to update schema: %s. '
+                'Run pki-server db-schema-upgrade to add crlCacheLog.', e)
+
+        finally:
+            con.close()
@@ -0,0 +1,82 @@
+#
+# Copyright Red Hat, Inc.
+#
+# SPDX-License-Identifier: GPL-2.0-or-later
+
+import logging
+
+import ldap
+
+import pki
+
+logger = logging.getLogger(__name__)
+
+PUBLIC_KEY_FINGERPRINT_ATTR = \
+    "( publicKeyFingerprint-oid NAME 'publicKeyFingerprint' DESC 'CMS defined attribute' " \
+    "SYNTAX 1.3.6.1.4.1.1466.115.121.1.15 SINGLE-VALUE X-ORIGIN 'user defined' )"
+
+KEY_RECORD_CLASS = \
+    "( keyRecord-oid NAME 'keyRecord' DESC 'CMS defined class' SUP top STRUCTURAL " \
+    "MUST cn MAY ( serialno $ dateOfCreate $ dateOfModify $ keyState $ " \
+    "privateKeyData $ ownerName $ keySize $ metaInfo $ dateOfArchival $ " \
+    "dateOfRecovery $ algorithm $ publicKeyFormat $ publicKeyData $ " \
+    "publicKeyFingerprint $ archivedBy $ clientId $ dataType $ status $ realm ) " \
+    "X-ORIGIN 'user defined' )"
+
+
+class AddKeyFingerprintSchema(pki.server.upgrade.PKIServerUpgradeScriptlet):
+
+    def __init__(self):
+        super().__init__()
+        self.message = 'Add publicKeyFingerprint attribute to database schema'
+
+    def upgrade_subsystem(self, instance, subsystem):
+
+        if subsystem.name != 'kra':
+            return
+
+        try:
+            con = subsystem.open_database()
+
+        except ldap.LDAPError as e:
+            logger.warning(
+                'Unable to connect to database: %s. '
+                'Run pki-server db-schema-upgrade to add publicKeyFingerprint.', e)
+            return
+
+        try:
+            entries = con.ldap.search_s(
+                'cn=schema',
+                ldap.SCOPE_BASE,
+                '(objectClass=*)',
+                ['attributeTypes', 'objectClasses'])
+
+            attrs = entries[0][1]
+
+            attribute_types = attrs.get('attributeTypes', [])
+            if any(b"NAME 'publicKeyFingerprint'" in value for value in attribute_types):
+                logger.info('Schema already has publicKeyFingerprint')
+                return
+
+            mods = [(ldap.MOD_ADD, 'attributeTypes', [PUBLIC_KEY_FINGERPRINT_ATTR.encode()])]
+
+            # replace the current keyRecord definition
+            for value in attrs.get('objectClasses', []):
+                if b"NAME 'keyRecord'" in value:
+                    mods.append((ldap.MOD_DELETE, 'objectClasses', [value]))
+
+            mods.append((
+                ldap.MOD_ADD,
+                'objectClasses',
+                [KEY_RECORD_CLASS.encode()]))
+
+            logger.info('Adding publicKeyFingerprint to schema')
+            con.ldap.modify_s('cn=schema', mods)
+
+        except ldap.LDAPError as e:
+            logger.warning(
+                'Unable to update schema: %s. '
+                'Run pki-server db-schema-upgrade to add publicKeyFingerprint.', e)
+
+        finally:
+            con.close()
@@ -0,0 +1,95 @@
+//
+// Copyright Red Hat, Inc.
+//
+// SPDX-License-Identifier: GPL-2.0-or-later
+//
+package org.dogtagpki.server.tks.cli;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.dogtagpki.cli.CLI;
+import org.dogtagpki.server.cli.SubsystemCLI;
+import org.dogtagpki.server.tks.servlet.SecureChannelProtocol;
+import org.dogtagpki.server.tks.servlet.SymKeyCache;
+import org.mozilla.jss.crypto.CryptoToken;
+import org.mozilla.jss.crypto.SymmetricKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netscape.cmsutil.crypto.CryptoUtil;
+
+/**
+ * Measures how many symmetric key lookups by nickname can be done
+ * per second with and without the key cache. Every session key
+ * derivation starts with such lookups for the master key.
+ */
+public class TKSSymKeyBenchmarkCLI extends SubsystemCLI {
+
+    public static Logger logger = LoggerFactory.getLogger(TKSSymKeyBenchmarkCLI.class);
+
+    public TKSSymKeyBenchmarkCLI(CLI parent) {
+        super("symkey-benchmark", "Benchmark TKS symmetric key lookups", parent);
+    }
+
+    @Override
+    public void createOptions() {
+
+        Option option = new Option(null, "token", true, "Token name (default: internal)");
+        option.setArgName("name");
+        options.addOption(option);
+
+        option = new Option(null, "nickname", true, "Key nickname");
+        option.setArgName("nickname");
+        options.addOption(option);
+
+        option = new Option(null, "count", true, "Number of lookups (default: 1000)");
+        option.setArgName("count");
+        options.addOption(option);
+    }
+
+    @Override
+    public void execute(CommandLine cmd) throws Exception {
+
+        String nickname = cmd.getOptionValue("nickname");
+        if (nickname == null) {
+            throw new Exception("Missing key nickname");
+        }
+
+        String tokenName = cmd.getOptionValue("token", CryptoUtil.INTERNAL_TOKEN_NAME);
+        int count = Integer.parseInt(cmd.getOptionValue("count", "1000"));
+
+        initializeTomcatJSS();
+
+        CryptoToken token = CryptoUtil.getKeyStorageToken(tokenName);
+        SymKeyCache cache = SecureChannelProtocol.getSymKeyCache();
+
+        cache.setEnabled(false);
+        if (SecureChannelProtocol.getSymKeyByName(token, nickname) == null) {
+            throw new Exception("Key not found: " + nickname);
+        }
+
+        double uncached = run(token, nickname, count);
+        System.out.printf("  Without cache: %.1f lookups/s%n", uncached);
+
+        cache.setEnabled(true);
+        double cached = run(token, nickname, count);
+        System.out.printf("  With cache: %.1f lookups/s%n", cached);
+
+        logger.info("Cache: " + cache);
+    }
+
+    double run(CryptoToken token, String nickname, int count) throws Exception {
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < count; i++) {
+            SymmetricKey key = SecureChannelProtocol.getSymKeyByName(token, nickname);
+            if (key == null) {
+                throw new Exception("Key not found: " + nickname);
+            }
+        }
+
+        long time = System.nanoTime() - start;
+        return count * 1e9 / time;
+    }
+}
@@ -74,6 +74,9 @@ public class SecureChannelProtocol {
     static final int AES_192_BITS = 192;
     static final int AES_256_BITS = 256;
 
+    // master, transport and developer key handles
+    static SymKeyCache symKeyCache = new SymKeyCache();
+
     private static SymmetricKey.Usage session_key_usages[] = {
         SymmetricKey.Usage.WRAP,
         SymmetricKey.Usage.UNWRAP,
@@ -1156,12 +1159,26 @@ public class SecureChannelProtocol {
         return unwrapped;
     }
 
+    public static SymKeyCache getSymKeyCache() {
+        return symKeyCache;
+    }
+
     public static SymmetricKey getSymKeyByName(CryptoToken token, String name) throws EBaseException {
 
         String method = "SecureChannelProtocol.getSymKeyByName:";
         if (token == null || name == null) {
             throw new EBaseException(method + "Invalid input data!");
         }
+
+        return symKeyCache.get(token, name, SecureChannelProtocol::findSymKeyByName);
+    }
+
+    static SymmetricKey findSymKeyByName(CryptoToken token, String name) throws EBaseException {
+
+        String method = "SecureChannelProtocol.findSymKeyByName:";
+        if (token == null || name == null) {
+            throw new EBaseException(method + "Invalid input data!");
+        }
         SymmetricKey[] keys;
 
         logger.debug(method + "Searching for sym key: " + name);
@@ -1866,6 +1883,10 @@ public class SecureChannelProtocol {
             throw new EBaseException(e);
         }
 
+        // look up the master keys again in case they were changed
+        symKeyCache.invalidate(newToken, fullNewMasterKeyName);
+        symKeyCache.invalidate(token, fullOldMasterKeyName);
+
         try {
             if (newToken != null) {
                 masterKey = getSymKeyByName(newToken, fullNewMasterKeyName);
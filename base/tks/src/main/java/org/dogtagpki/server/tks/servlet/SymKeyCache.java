@@ -0,0 +1,193 @@
+//
+// Copyright Red Hat, Inc.
+//
+// SPDX-License-Identifier: GPL-2.0-or-later
+//
+package org.dogtagpki.server.tks.servlet;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mozilla.jss.crypto.CryptoToken;
+import org.mozilla.jss.crypto.SymmetricKey;
+import org.mozilla.jss.crypto.TokenException;
+
+import com.netscape.certsrv.base.EBaseException;
+
+/**
+ * Cache of symmetric key handles by token and nickname.
+ *
+ * Finding a key by nickname requires listing all symmetric keys
+ * on the token, which is slow on tokens with many key versions.
+ * Only keys which are found are cached so keys imported later
+ * are still found.
+ *
+ * The keys of a token are dropped when the token is found to be
+ * logged out since the handles may not survive a new login.
+ * Entries also expire after a while in case the token was logged
+ * out and in again between lookups.
+ */
+public class SymKeyCache {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SymKeyCache.class);
+
+    public static final int DEFAULT_TTL = 300; // seconds
+
+    /**
+     * Finds a key on a token.
+     */
+    public interface Loader {
+        SymmetricKey load(CryptoToken token, String name) throws EBaseException;
+    }
+
+    static class Entry {
+
+        SymmetricKey key;
+        long expires;
+
+        Entry(SymmetricKey key, long expires) {
+            this.key = key;
+            this.expires = expires;
+        }
+    }
+
+    private Map<String, Entry> keys = new ConcurrentHashMap<>();
+
+    // tokens which were logged in when their keys were looked up
+    private Set<String> loggedInTokens = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean enabled = true;
+    private volatile long ttl = DEFAULT_TTL * 1000;
+
+    private AtomicLong hits = new AtomicLong();
+    private AtomicLong misses = new AtomicLong();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * Sets how long a key stays in the cache.
+     *
+     * @param ttl time to live in seconds
+     */
+    public void setTTL(long ttl) {
+        this.ttl = ttl * 1000;
+    }
+
+    /**
+     * Returns the key from the cache, or finds the key with the
+     * loader and caches it.
+     *
+     * @return the key, or null if the key does not exist
+     */
+    public SymmetricKey get(CryptoToken token, String name, Loader loader) throws EBaseException {
+
+        if (!enabled) {
+            return loader.load(token, name);
+        }
+
+        String tokenName = getTokenName(token);
+        checkLogin(token, tokenName);
+
+        String id = tokenName + ":" + name;
+        long now = System.currentTimeMillis();
+
+        Entry entry = keys.get(id);
+        if (entry != null && entry.expires > now) {
+            hits.incrementAndGet();
+            return entry.key;
+        }
+
+        misses.incrementAndGet();
+
+        SymmetricKey key = loader.load(token, name);
+        if (key == null) {
+            keys.remove(id);
+            return null;
+        }
+
+        keys.put(id, new Entry(key, now + ttl));
+        return key;
+    }
+
+    /**
+     * Drops the keys of a token if it is no longer logged in.
+     */
+    void checkLogin(CryptoToken token, String tokenName) {
+
+        boolean loggedIn;
+        try {
+            loggedIn = token.isLoggedIn();
+        } catch (TokenException e) {
+            loggedIn = false;
+        }
+
+        if (loggedIn) {
+            loggedInTokens.add(tokenName);
+            return;
+        }
+
+        if (loggedInTokens.remove(tokenName)) {
+            logger.info("SymKeyCache: Token " + tokenName + " logged out, dropping cached keys");
+            invalidate(tokenName);
+        }
+    }
+
+    /**
+     * Drops a key from the cache.
+     */
+    public void invalidate(CryptoToken token, String name) throws EBaseException {
+        if (token == null || name == null) {
+            return;
+        }
+        keys.remove(getTokenName(token) + ":" + name);
+    }
+
+    /**
+     * Drops all keys of a token from the cache.
+     */
+    public void invalidate(String tokenName) {
+        String prefix = tokenName + ":";
+        keys.keySet().removeIf(id -> id.startsWith(prefix));
+    }
+
+    public void clear() {
+        keys.clear();
+        loggedInTokens.clear();
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    static String getTokenName(CryptoToken token) throws EBaseException {
+        try {
+            return token.getName();
+        } catch (TokenException e) {
+            throw new EBaseException("Unable to get token name: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "keys=" + size() + " hits=" + getHits() + " misses=" + getMisses();
+    }
+}
@@ -115,6 +115,19 @@ public class TokenServlet extends CMSServlet {
     @Override
     public void init(ServletConfig config) throws ServletException {
         super.init(config);
+
+        TKSEngine engine = TKSEngine.getInstance();
+        TKSEngineConfig cs = engine.getConfig();
+
+        try {
+            SymKeyCache symKeyCache = SecureChannelProtocol.getSymKeyCache();
+            symKeyCache.setEnabled(cs.getBoolean("tks.symKeyCache.enable", true));
+            symKeyCache.setTTL(cs.getInteger("tks.symKeyCache.ttl", SymKeyCache.DEFAULT_TTL));
+            logger.info("TokenServlet: Symmetric key cache enabled: " + symKeyCache.isEnabled());
+
+        } catch (EBaseException e) {
+            throw new ServletException(e);
+        }
     }
 
     /**
@@ -20,6 +20,8 @@ package com.netscape.cmstools.ca;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.cli.CommandLine;
 import org.dogtagpki.cli.CommandCLI;
@@ -27,6 +29,7 @@ import org.dogtagpki.cli.CommandCLI;
 import com.netscape.certsrv.ca.CACertClient;
 import com.netscape.certsrv.cert.CertData;
 import com.netscape.certsrv.cert.CertRequestInfo;
+import com.netscape.certsrv.cert.CertRevokeRequest;
 import com.netscape.certsrv.dbs.certdb.CertId;
 import com.netscape.certsrv.request.RequestStatus;
 import com.netscape.cmstools.cli.MainCLI;
@@ -47,7 +50,7 @@ public class CACertReleaseHoldCLI extends CommandCLI {
 
     @Override
     public void printHelp() {
-        formatter.printHelp(getFullName() + " <Serial Number> [OPTIONS...]", options);
+        formatter.printHelp(getFullName() + " <Serial Number> [<Serial Number>...] [OPTIONS...]", options);
     }
 
     @Override
@@ -60,17 +63,27 @@ public class CACertReleaseHoldCLI extends CommandCLI {
 
         String[] cmdArgs = cmd.getArgs();
 
-        if (cmdArgs.length != 1) {
+        if (cmdArgs.length < 1) {
             throw new Exception("Missing Serial Number.");
         }
 
-        CertId certID = new CertId(cmdArgs[0]);
+        List<CertId> certIDs = new ArrayList<>();
+        for (String cmdArg : cmdArgs) {
+            certIDs.add(new CertId(cmdArg));
+        }
 
         MainCLI mainCLI = (MainCLI) getRoot();
         mainCLI.init();
 
         CACertClient certClient = certCLI.getCertClient();
 
+        if (certIDs.size() > 1) {
+            releaseHolds(cmd, certClient, certIDs);
+            return;
+        }
+
+        CertId certID = certIDs.get(0);
+
         if (!cmd.hasOption("force")) {
 
             CertData certData = certClient.getCert(certID);
@@ -112,4 +125,75 @@ public class CACertReleaseHoldCLI extends CommandCLI {
                     + certRequestInfo.getRequestStatus());
         }
     }
+
+    /**
+     * Places multiple certificates off-hold with a single request.
+     */
+    public void releaseHolds(
+            CommandLine cmd,
+            CACertClient certClient,
+            List<CertId> certIDs) throws Exception {
+
+        if (!cmd.hasOption("force")) {
+
+            System.out.println("Placing certificates off-hold:");
+
+            boolean first = true;
+            for (CertId certID : certIDs) {
+                if (first) {
+                    first = false;
+                } else {
+                    System.out.println();
+                }
+                CertData certData = certClient.getCert(certID);
+                CACertCLI.printCertData(certData, false, false);
+            }
+
+            System.out.print("Are you sure (Y/N)? ");
+            System.out.flush();
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+            String line = reader.readLine();
+            if (!line.equalsIgnoreCase("Y")) {
+                return;
+            }
+        }
+
+        CertRevokeRequest request = new CertRevokeRequest();
+        request.setSerialNumbers(certIDs);
+
+        CertRequestInfo certRequestInfo = certClient.unrevokeCerts(request);
+
+        if (logger.isInfoEnabled()) {
+            CACertRequestCLI.printCertRequestInfo(certRequestInfo);
+        }
+
+        if (certRequestInfo.getRequestStatus() != RequestStatus.COMPLETE) {
+            MainCLI.printMessage("Request \"" + certRequestInfo.getRequestID().toHexString() + "\": "
+                    + certRequestInfo.getRequestStatus());
+            return;
+        }
+
+        if (certRequestInfo.getOperationResult().equals(CertRequestInfo.RES_ERROR)) {
+            String error = certRequestInfo.getErrorMessage();
+            if (error != null) {
+                System.out.println(error);
+            }
+            MainCLI.printMessage("Could not place " + certIDs.size() + " certificate(s) off-hold");
+            return;
+        }
+
+        MainCLI.printMessage("Placed " + certIDs.size() + " certificate(s) off-hold");
+
+        boolean first = true;
+        for (CertId certID : certIDs) {
+            if (first) {
+                first = false;
+            } else {
+                System.out.println();
+            }
+            CertData certData = certClient.getCert(certID);
+            CACertCLI.printCertData(certData, false, false);
+        }
+    }
 }
@@ -20,6 +20,8 @@ package com.netscape.cmstools.ca;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.Option;
@@ -50,7 +52,7 @@ public class CACertRevokeCLI extends CommandCLI {
 
     @Override
     public void printHelp() {
-        formatter.printHelp(getFullName() + " <Serial Number> [OPTIONS...]", options);
+        formatter.printHelp(getFullName() + " <Serial Number> [<Serial Number>...] [OPTIONS...]", options);
     }
 
     @Override
@@ -84,11 +86,18 @@ public class CACertRevokeCLI extends CommandCLI {
 
         String[] cmdArgs = cmd.getArgs();
 
-        if (cmdArgs.length != 1) {
+        if (cmdArgs.length < 1) {
             throw new Exception("Missing Serial Number.");
         }
 
-        CertId certID = new CertId(cmdArgs[0]);
+        List<CertId> certIDs = new ArrayList<>();
+        for (String cmdArg : cmdArgs) {
+            certIDs.add(new CertId(cmdArg));
+        }
+
+        if (certIDs.size() > 1 && cmd.hasOption("ca")) {
+            throw new Exception("Unable to revoke multiple CA signing certificates.");
+        }
 
         String string = cmd.getOptionValue("reason", RevocationReason.UNSPECIFIED.toString());
         RevocationReason reason = RevocationReason.valueOf(string);
@@ -101,6 +110,13 @@ public class CACertRevokeCLI extends CommandCLI {
         mainCLI.init();
 
         CACertClient certClient = certCLI.getCertClient();
+
+        if (certIDs.size() > 1) {
+            revokeCerts(cmd, certClient, certIDs, reason);
+            return;
+        }
+
+        CertId certID = certIDs.get(0);
         CertData certData = certClient.reviewCert(certID);
 
         if (!cmd.hasOption("force")) {
@@ -167,4 +183,100 @@ public class CACertRevokeCLI extends CommandCLI {
                     + certRequestInfo.getRequestStatus());
         }
     }
+
+    /**
+     * Revokes multiple certificates with a single request.
+     */
+    public void revokeCerts(
+            CommandLine cmd,
+            CACertClient certClient,
+            List<CertId> certIDs,
+            RevocationReason reason) throws Exception {
+
+        // get the nonce of each certificate
+        List<CertData> certs = new ArrayList<>();
+        List<Long> nonces = new ArrayList<>();
+        for (CertId certID : certIDs) {
+            CertData certData = certClient.reviewCert(certID);
+            certs.add(certData);
+            nonces.add(certData.getNonce());
+        }
+
+        if (!cmd.hasOption("force")) {
+
+            if (reason == RevocationReason.CERTIFICATE_HOLD) {
+                System.out.println("Placing certificates on-hold:");
+            } else if (reason == RevocationReason.REMOVE_FROM_CRL) {
+                System.out.println("Placing certificates off-hold:");
+            } else {
+                System.out.println("Revoking certificates:");
+            }
+
+            boolean first = true;
+            for (CertData certData : certs) {
+                if (first) {
+                    first = false;
+                } else {
+                    System.out.println();
+                }
+                CACertCLI.printCertData(certData, false, false);
+                logger.info("Nonce: " + certData.getNonce());
+            }
+
+            System.out.print("Are you sure (Y/N)? ");
+            System.out.flush();
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+            String line = reader.readLine();
+            if (!line.equalsIgnoreCase("Y")) {
+                return;
+            }
+        }
+
+        CertRevokeRequest request = new CertRevokeRequest();
+        request.setReason(reason.getLabel());
+        request.setComments(cmd.getOptionValue("comments"));
+        request.setSerialNumbers(certIDs);
+        request.setNonces(nonces);
+
+        CertRequestInfo certRequestInfo = certClient.revokeCerts(request);
+
+        if (logger.isInfoEnabled()) {
+            CACertRequestCLI.printCertRequestInfo(certRequestInfo);
+        }
+
+        if (certRequestInfo.getRequestStatus() != RequestStatus.COMPLETE) {
+            MainCLI.printMessage("Request \"" + certRequestInfo.getRequestID().toHexString() + "\": "
+                    + certRequestInfo.getRequestStatus());
+            return;
+        }
+
+        if (certRequestInfo.getOperationResult().equals(CertRequestInfo.RES_ERROR)) {
+            String error = certRequestInfo.getErrorMessage();
+            if (error != null) {
+                System.out.println(error);
+            }
+            MainCLI.printMessage("Could not revoke " + certIDs.size() + " certificate(s)");
+            return;
+        }
+
+        if (reason == RevocationReason.CERTIFICATE_HOLD) {
+            MainCLI.printMessage("Placed " + certIDs.size() + " certificate(s) on-hold");
+        } else if (reason == RevocationReason.REMOVE_FROM_CRL) {
+            MainCLI.printMessage("Placed " + certIDs.size() + " certificate(s) off-hold");
+        } else {
+            MainCLI.printMessage("Revoked " + certIDs.size() + " certificate(s)");
+        }
+
+        boolean first = true;
+        for (CertId certID : certIDs) {
+            if (first) {
+                first = false;
+            } else {
+                System.out.println();
+            }
+            CertData certData = certClient.getCert(certID);
+            CACertCLI.printCertData(certData, false, false);
+        }
+    }
 }
@@ -108,6 +108,7 @@ public class TPSEngine extends CMSEngine {
     public static final String CFG_RECV_BUF_SIZE = "tps.recvBufSize";
     public static final String CFG_CONNECTION_PREFIX = "tps.connection";
     public static final String CFG_CONNECTION_MAX_MESSAGE_SIZE = "maxMessageSize";
+    public static final String CFG_CONNECTION_MAX_SESSIONS = "maxSessions";
 
     public static final String CFG_AUTHS_ENABLE = "auth.enable";
     public static final String CFG_PROFILE_MAPPING_ORDER = "mapping.order";
@@ -18,7 +18,9 @@
 package org.dogtagpki.server.tps;
 
 import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -31,7 +33,8 @@ import org.dogtagpki.tps.TPSConnection;
  */
 @WebServlet(
         name = "tps",
-        urlPatterns = "/tps"
+        urlPatterns = "/tps",
+        asyncSupported = true
 )
 public class TPSServlet extends HttpServlet {
 
@@ -59,6 +62,38 @@ public class TPSServlet extends HttpServlet {
         	return;
         }
 
+        // The session exchanges many messages with the client and
+        // waits for the backend subsystems in between, so run it
+        // without holding a connector thread.
+
+        AsyncContext context = request.startAsync();
+        context.setTimeout(0); // sessions are bounded by the client
+
+        TPSEngine engine = TPSEngine.getInstance();
+        TPSSubsystem subsystem = (TPSSubsystem) engine.getSubsystem(TPSSubsystem.ID);
+
+        try {
+            subsystem.executeSession(() -> {
+                try {
+                    process(request, response);
+
+                } catch (Throwable e) {
+                    logger.error("TPSServlet: Unable to process TPS session: " + e.getMessage(), e);
+
+                } finally {
+                    context.complete();
+                }
+            });
+
+        } catch (RejectedExecutionException e) {
+            logger.warn("Returning 503 Service Unavailable - " + e.getMessage());
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            context.complete();
+        }
+    }
+
+    public void process(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
         response.setHeader("Transfer-Encoding", "chunked");
         response.flushBuffer();
 
@@ -21,6 +21,11 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.commons.lang3.StringUtils;
 import org.dogtagpki.server.tps.authentication.AuthenticationManager;
@@ -51,6 +56,7 @@ import com.netscape.cmscore.base.ConfigStorage;
 import com.netscape.cmscore.base.ConfigStore;
 import com.netscape.cmscore.base.FileConfigStorage;
 import com.netscape.cmscore.dbs.DBSubsystem;
+import com.netscape.cmscore.util.ThreadFactories;
 import com.netscape.cmsutil.crypto.CryptoUtil;
 
 /**
@@ -62,6 +68,9 @@ public class TPSSubsystem extends Subsystem implements IAuthority {
 
     public final static String ID = "tps";
 
+    // max concurrent token sessions on platform threads
+    public final static int DEFAULT_MAX_SESSIONS = 200;
+
     public String id;
     public String nickname;
     public Subsystem owner;
@@ -84,6 +93,12 @@ public class TPSSubsystem extends Subsystem implements IAuthority {
     public Map<TokenStatus, Collection<TokenStatus>> uiTransitions;
     public Map<TokenStatus, Collection<TokenStatus>> operationTransitions;
 
+    // runs token sessions outside of the connector threads
+    ExecutorService sessionExecutor;
+
+    // limits concurrent token sessions, null if unlimited
+    Semaphore sessionPermits;
+
     @Override
     public String getId() {
         return id;
@@ -147,6 +162,7 @@ public class TPSSubsystem extends Subsystem implements IAuthority {
                 defaultConfig, cs, TPSEngine.CFG_OPERATIONS_ALLOWED_TRANSITIONS);
 
         configureTPSConnection(cs);
+        configureSessionExecutor(cs);
         tdb = new TokenDB(this);
     }
 
@@ -297,6 +313,71 @@ public class TPSSubsystem extends Subsystem implements IAuthority {
         }
     }
 
+    /**
+     * Configures the executor of token sessions. Sessions run on
+     * virtual threads if the JVM supports them, otherwise on platform
+     * threads, in which case the number of concurrent sessions is
+     * limited to DEFAULT_MAX_SESSIONS unless configured.
+     */
+    public void configureSessionExecutor(ConfigStore cs) throws EBaseException {
+
+        String configValue = TPSEngine.CFG_CONNECTION_PREFIX + "." + TPSEngine.CFG_CONNECTION_MAX_SESSIONS;
+        int maxSessions = cs.getInteger(configValue, 0);
+
+        ThreadFactory threadFactory = ThreadFactories.createVirtualThreadFactory("TPSSession-");
+
+        if (threadFactory != null) {
+            logger.info("TPSSubsystem: Using virtual threads for sessions");
+
+        } else {
+            threadFactory = ThreadFactories.createDaemonThreadFactory("TPSSession-");
+
+            if (maxSessions <= 0) {
+                // each session holds a platform thread
+                maxSessions = DEFAULT_MAX_SESSIONS;
+            }
+        }
+
+        logger.info("TPSSubsystem: Max sessions: " + (maxSessions > 0 ? maxSessions : "unlimited"));
+
+        if (maxSessions > 0) {
+            sessionPermits = new Semaphore(maxSessions);
+        }
+
+        sessionExecutor = Executors.newCachedThreadPool(threadFactory);
+    }
+
+    /**
+     * Runs a token session asynchronously.
+     *
+     * @throws RejectedExecutionException if the maximum number of
+     * sessions has been reached or the subsystem is shutting down
+     */
+    public void executeSession(Runnable session) {
+
+        if (sessionPermits != null && !sessionPermits.tryAcquire()) {
+            throw new RejectedExecutionException("Too many TPS sessions");
+        }
+
+        try {
+            sessionExecutor.execute(() -> {
+                try {
+                    session.run();
+                } finally {
+                    if (sessionPermits != null) {
+                        sessionPermits.release();
+                    }
+                }
+            });
+
+        } catch (RejectedExecutionException e) {
+            if (sessionPermits != null) {
+                sessionPermits.release();
+            }
+            throw e;
+        }
+    }
+
     @Override
     public void startup() throws EBaseException {
         logger.debug("TPSSubsystem: startup() begins");
@@ -311,6 +392,10 @@ public class TPSSubsystem extends Subsystem implements IAuthority {
 
     @Override
     public void shutdown() {
+        if (sessionExecutor != null) {
+            // let running sessions finish
+            sessionExecutor.shutdown();
+        }
     }
 
     @Override
@@ -24,6 +24,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.dogtagpki.server.tps.cms.CARemoteRequestHandler;
@@ -615,97 +616,190 @@ public class TokenDB {
         return true;
     }
 
-    private void revokeCert(TokenRecord tokenRecord, TPSCertRecord cert, String tokenReason,
+    /**
+     * Certificates that are revoked or unrevoked with a single request
+     * since they are issued by the same CA and share the revocation reason.
+     */
+    static class CertRevocationBatch {
+
+        String connID;
+        String certAki;
+        RevocationReason reason;
+        List<TPSCertRecord> certs = new ArrayList<>();
+
+        CertRevocationBatch(String connID, String certAki, RevocationReason reason) {
+            this.connID = connID;
+            this.certAki = certAki;
+            this.reason = reason;
+        }
+
+        List<String> getSerialNumbers() {
+            List<String> serialNumbers = new ArrayList<>();
+            for (TPSCertRecord cert : certs) {
+                // decimal serial number
+                serialNumbers.add(cert.getSerialNumberInBigInteger().toString());
+            }
+            return serialNumbers;
+        }
+    }
+
+    private void revokeCerts(TokenRecord tokenRecord, Collection<TPSCertRecord> certs, String tokenReason,
             String ipAddress, String remoteUser) throws Exception {
 
-        String method = "TokenDB.revokeCert";
+        String method = "TokenDB.revokeCerts";
         String logMsg;
 
         logger.debug(method + "begins: tokenReason=" + tokenReason);
 
         TPSEngine engine = TPSEngine.getInstance();
-        try {
+        TPSEngineConfig configStore = engine.getConfig();
 
-            TPSEngineConfig configStore = engine.getConfig();
+        // group the certs so that each CA revokes them with a single request
+        Map<String, CertRevocationBatch> batches = new LinkedHashMap<>();
+
+        for (TPSCertRecord cert : certs) {
+            try {
+                checkShouldRevoke(tokenRecord, cert, tokenReason, ipAddress, remoteUser);
+
+            } catch (TPSException e) {
+                logMsg = "certificate not revoked: " + cert.getSerialNumber() + ": " + e;
+                logger.debug(method + ": " + logMsg);
+                if (e.getStatus() == TPSStatus.STATUS_NO_ERROR) {
+                    tdbActivity(ActivityDatabase.OP_TOKEN_MODIFY, tokenRecord,
+                            ipAddress, e.getMessage(), "success", remoteUser);
+                    continue;
+                }
+
+                tdbActivity(ActivityDatabase.OP_CERT_REVOCATION, tokenRecord,
+                        ipAddress, e.getMessage(), "failure", remoteUser);
+
+                // bail out if revocation failed; This will allow the token
+                // status info to be consistent with that of the certs on the
+                // CA
+                throw e;
+            }
 
             // get conn ID
             String config = "op.enroll." + cert.getType() + ".keyGen." + cert.getKeyType() + ".ca.conn";
             logger.debug(method + ": " + " getting config: " + config);
             String connID = configStore.getString(config);
 
-            RevocationReason revokeReason = RevocationReason.UNSPECIFIED;
-
-            checkShouldRevoke(tokenRecord, cert, tokenReason, ipAddress, remoteUser);
-
-            logMsg = "certificate to be revoked:" + cert.getSerialNumber();
-            logger.debug(method + ": " + logMsg);
-
             // get revoke reason
             config = "op.enroll." + cert.getType() + ".keyGen." + cert.getKeyType() +
                     ".recovery." + tokenReason + ".revokeCert.reason";
             logger.debug(method + ": " + " getting config: " + config);
             int reasonInt = configStore.getInteger(config, 0);
-            revokeReason = RevocationReason.valueOf(reasonInt);
+            RevocationReason revokeReason = RevocationReason.valueOf(reasonInt);
+
+            logMsg = "certificate to be revoked:" + cert.getSerialNumber();
+            logger.debug(method + ": " + logMsg);
+
+            String key = connID + ":" + cert.getCertificate() + ":" + reasonInt;
+            batches.computeIfAbsent(key,
+                    k -> new CertRevocationBatch(connID, cert.getCertificate(), revokeReason))
+                    .certs.add(cert);
+        }
+
+        for (CertRevocationBatch batch : batches.values()) {
+
+            CARemoteRequestHandler caRH = new CARemoteRequestHandler(batch.connID);
+            List<String> serialNumbers = batch.getSerialNumbers();
+            logger.debug(method + ": revoking dec serials: " + serialNumbers);
 
-            CARemoteRequestHandler caRH = new CARemoteRequestHandler(connID);
-            BigInteger bInt = cert.getSerialNumberInBigInteger();
-            String serialStr = bInt.toString();
-            logger.debug(method + ": found cert hex serial: " + cert.getSerialNumber() +
-                    " dec serial: " + serialStr);
             CARevokeCertResponse response =
-                    caRH.revokeCertificate(true, serialStr, cert.getCertificate(),
-                            revokeReason);
+                    caRH.revokeCertificates(true, serialNumbers, batch.certAki,
+                            batch.reason);
             logger.debug(method + ": response status: " + response.getStatus());
 
-            // update certificate status
-            if (revokeReason == RevocationReason.CERTIFICATE_HOLD) {
-                updateCertsStatus(cert.getSerialNumber(), cert.getIssuedBy(),
-                        TokenCertStatus.ONHOLD.toString());
+            List<String> revokedSerialNumbers = response.getRevokedSerialNumbers();
+            List<String> notRevoked = new ArrayList<>();
+
+            if (response.getStatus() != 0) {
+                for (TPSCertRecord cert : batch.certs) {
+                    notRevoked.add(cert.getSerialNumber());
+                }
+
+            } else if (revokedSerialNumbers == null && batch.certs.size() > 1) {
+                // the CA does not report which certs matched the filter,
+                // so revoke the certs one at a time
+                logger.debug(method + ": revoked certs not reported by CA, revoking separately");
+
+                for (TPSCertRecord cert : batch.certs) {
+                    response = caRH.revokeCertificate(true,
+                            cert.getSerialNumberInBigInteger().toString(), batch.certAki,
+                            batch.reason);
+                    logger.debug(method + ": response status: " + response.getStatus());
+
+                    if (response.getStatus() != 0) {
+                        notRevoked.add(cert.getSerialNumber());
+                        continue;
+                    }
+
+                    updateRevokedCert(tokenRecord, cert, batch.reason, ipAddress, remoteUser);
+                }
+
             } else {
-                updateCertsStatus(cert.getSerialNumber(), cert.getIssuedBy(),
-                        TokenCertStatus.REVOKED.toString());
+                for (TPSCertRecord cert : batch.certs) {
+
+                    String serialNumber = cert.getSerialNumberInBigInteger().toString();
+                    if (revokedSerialNumbers != null && !revokedSerialNumbers.contains(serialNumber)) {
+                        notRevoked.add(cert.getSerialNumber());
+                        continue;
+                    }
+
+                    updateRevokedCert(tokenRecord, cert, batch.reason, ipAddress, remoteUser);
+                }
             }
 
-            logMsg = "certificate revoked: " + cert.getSerialNumber();
-            logger.debug(method + ": " + logMsg);
+            if (!notRevoked.isEmpty()) {
+                logMsg = "certificates not revoked by CA: " + notRevoked;
+                logger.warn(method + ": " + logMsg);
 
-            tdbActivity(ActivityDatabase.OP_CERT_REVOCATION, tokenRecord,
-                    ipAddress, logMsg, "success", remoteUser);
+                tdbActivity(ActivityDatabase.OP_CERT_REVOCATION, tokenRecord,
+                        ipAddress, logMsg, "failure", remoteUser);
 
-        } catch (TPSException e) {
-            logMsg = "certificate not revoked: " + cert.getSerialNumber() + ": " + e;
-            logger.debug(method + ": " + logMsg);
-            if (e.getStatus() == TPSStatus.STATUS_NO_ERROR) {
-                tdbActivity(ActivityDatabase.OP_TOKEN_MODIFY, tokenRecord,
-                        ipAddress, e.getMessage(), "success", remoteUser);
-                return;
+                // bail out if revocation failed; This will allow the token
+                // status info to be consistent with that of the certs on the
+                // CA
+                throw new TPSException(method + ": " + logMsg);
             }
+        }
+    }
+
+    private void updateRevokedCert(TokenRecord tokenRecord, TPSCertRecord cert, RevocationReason reason,
+            String ipAddress, String remoteUser) throws Exception {
 
-            tdbActivity(ActivityDatabase.OP_CERT_REVOCATION, tokenRecord,
-                    ipAddress, e.getMessage(), "failure", remoteUser);
+        String method = "TokenDB.updateRevokedCert";
 
-            // bail out if revocation failed; This will allow the token
-            // status info to be consistent with that of the certs on the
-            // CA
-            throw e;
+        // update certificate status
+        if (reason == RevocationReason.CERTIFICATE_HOLD) {
+            updateCertsStatus(cert.getSerialNumber(), cert.getIssuedBy(),
+                    TokenCertStatus.ONHOLD.toString());
+        } else {
+            updateCertsStatus(cert.getSerialNumber(), cert.getIssuedBy(),
+                    TokenCertStatus.REVOKED.toString());
         }
+
+        String logMsg = "certificate revoked: " + cert.getSerialNumber();
+        logger.debug(method + ": " + logMsg);
+
+        tdbActivity(ActivityDatabase.OP_CERT_REVOCATION, tokenRecord,
+                ipAddress, logMsg, "success", remoteUser);
     }
 
-    private void unrevokeCert(TokenRecord tokenRecord, TPSCertRecord cert, String tokenReason,
+    private void unrevokeCerts(TokenRecord tokenRecord, Collection<TPSCertRecord> certs,
             String ipAddress, String remoteUser) throws Exception {
 
-        String method = "TokenDB.unrevokeCert";
+        String method = "TokenDB.unrevokeCerts";
         String logMsg;
 
         TPSEngine engine = TPSEngine.getInstance();
-        try {
-            TPSEngineConfig configStore = engine.getConfig();
+        TPSEngineConfig configStore = engine.getConfig();
 
-            // get conn ID
-            String config = "op.enroll." + cert.getType() + ".keyGen." + cert.getKeyType() + ".ca.conn";
-            String connID = configStore.getString(config);
+        // group the certs so that each CA unrevokes them with a single request
+        Map<String, CertRevocationBatch> batches = new LinkedHashMap<>();
 
-            RevocationReason revokeReason = RevocationReason.UNSPECIFIED;
+        for (TPSCertRecord cert : certs) {
 
             logMsg = "called to unrevoke";
             logger.debug(method + ": " + logMsg);
@@ -713,43 +807,117 @@ public class TokenDB {
             if (!cert.getStatus().equalsIgnoreCase(TokenCertStatus.ONHOLD.toString())) {
                 logMsg = "certificate record current status is not revoked_on_hold; cannot unrevoke";
                 logger.warn(method + ": " + logMsg);
-                return; // TODO: continue or bail?
+                continue; // TODO: continue or bail?
             }
 
-            CARemoteRequestHandler caRH = new CARemoteRequestHandler(connID);
-            BigInteger bInt = cert.getSerialNumberInBigInteger();
-            String serialStr = bInt.toString();
-            logger.debug(method + ": found cert hex serial: " + cert.getSerialNumber() +
-                    " dec serial: " + serialStr);
-            CARevokeCertResponse response =
-                    caRH.revokeCertificate(false, serialStr, cert.getCertificate(),
-                            revokeReason);
-            logger.debug(method + ": response status: " + response.getStatus());
+            // get conn ID
+            String config = "op.enroll." + cert.getType() + ".keyGen." + cert.getKeyType() + ".ca.conn";
+            String connID = configStore.getString(config);
 
-            // update certificate status
-            updateCertsStatus(cert.getSerialNumber(), cert.getIssuedBy(),
-                    TokenCertStatus.ACTIVE.toString());
+            String key = connID + ":" + cert.getCertificate();
+            batches.computeIfAbsent(key,
+                    k -> new CertRevocationBatch(connID, cert.getCertificate(), RevocationReason.UNSPECIFIED))
+                    .certs.add(cert);
+        }
 
-            logMsg = "certificate unrevoked: " + cert.getSerialNumber();
-            logger.debug(method + ": " + logMsg);
+        for (CertRevocationBatch batch : batches.values()) {
 
-            tdbActivity(ActivityDatabase.OP_CERT_RESTORATION, tokenRecord,
-                    ipAddress, logMsg, "success", remoteUser);
+            List<String> serialNumbers = batch.getSerialNumbers();
+            logger.debug(method + ": unrevoking dec serials: " + serialNumbers);
 
-        } catch (Exception e) {
-            logMsg = "certificate not unrevoked: " + cert.getSerialNumber() + " : " + e.getMessage();
-            logger.warn(method + ": " + logMsg, e);
+            CARemoteRequestHandler caRH;
+            CARevokeCertResponse response;
+
+            try {
+                caRH = new CARemoteRequestHandler(batch.connID);
+                response = caRH.revokeCertificates(false, serialNumbers, batch.certAki,
+                        batch.reason);
+                logger.debug(method + ": response status: " + response.getStatus());
+
+            } catch (Exception e) {
+                logMsg = "certificates not unrevoked: " + serialNumbers + " : " + e.getMessage();
+                logger.warn(method + ": " + logMsg, e);
+
+                tdbActivity(ActivityDatabase.OP_CERT_RESTORATION, tokenRecord,
+                        ipAddress, e.getMessage(), "failure", remoteUser);
+
+                // bail out if unrevocation failed; This will allow the token
+                // status info to be consistent with that of the certs on the
+                // CA
+                throw e;
+            }
+
+            List<String> unrevokedSerialNumbers = response.getUnrevokedSerialNumbers();
+            List<String> notUnrevoked = new ArrayList<>();
+
+            if (response.getStatus() != 0) {
+                for (TPSCertRecord cert : batch.certs) {
+                    notUnrevoked.add(cert.getSerialNumber());
+                }
 
-            tdbActivity(ActivityDatabase.OP_CERT_RESTORATION, tokenRecord,
-                    ipAddress, e.getMessage(), "failure", remoteUser);
+            } else if (unrevokedSerialNumbers == null && batch.certs.size() > 1) {
+                // the CA does not report which certs were taken off hold,
+                // so unrevoke the certs one at a time
+                logger.debug(method + ": unrevoked certs not reported by CA, unrevoking separately");
 
-            // bail out if unrevocation failed; This will allow the token
-            // status info to be consistent with that of the certs on the
-            // CA
-            throw e;
+                for (TPSCertRecord cert : batch.certs) {
+                    response = caRH.revokeCertificate(false,
+                            cert.getSerialNumberInBigInteger().toString(), batch.certAki,
+                            batch.reason);
+                    logger.debug(method + ": response status: " + response.getStatus());
+
+                    if (response.getStatus() != 0) {
+                        notUnrevoked.add(cert.getSerialNumber());
+                        continue;
+                    }
+
+                    updateUnrevokedCert(tokenRecord, cert, ipAddress, remoteUser);
+                }
+
+            } else {
+                for (TPSCertRecord cert : batch.certs) {
+
+                    String serialNumber = cert.getSerialNumberInBigInteger().toString();
+                    if (unrevokedSerialNumbers != null && !unrevokedSerialNumbers.contains(serialNumber)) {
+                        notUnrevoked.add(cert.getSerialNumber());
+                        continue;
+                    }
+
+                    updateUnrevokedCert(tokenRecord, cert, ipAddress, remoteUser);
+                }
+            }
+
+            if (!notUnrevoked.isEmpty()) {
+                logMsg = "certificates not unrevoked by CA: " + notUnrevoked;
+                logger.warn(method + ": " + logMsg);
+
+                tdbActivity(ActivityDatabase.OP_CERT_RESTORATION, tokenRecord,
+                        ipAddress, logMsg, "failure", remoteUser);
+
+                // bail out if unrevocation failed; This will allow the token
+                // status info to be consistent with that of the certs on the
+                // CA
+                throw new TPSException(method + ": " + logMsg);
+            }
         }
     }
 
+    private void updateUnrevokedCert(TokenRecord tokenRecord, TPSCertRecord cert,
+            String ipAddress, String remoteUser) throws Exception {
+
+        String method = "TokenDB.updateUnrevokedCert";
+
+        // update certificate status
+        updateCertsStatus(cert.getSerialNumber(), cert.getIssuedBy(),
+                TokenCertStatus.ACTIVE.toString());
+
+        String logMsg = "certificate unrevoked: " + cert.getSerialNumber();
+        logger.debug(method + ": " + logMsg);
+
+        tdbActivity(ActivityDatabase.OP_CERT_RESTORATION, tokenRecord,
+                ipAddress, logMsg, "success", remoteUser);
+    }
+
     private void checkShouldRevoke(TokenRecord tokenRecord, TPSCertRecord cert, String tokenReason,
             String ipAddress, String remoteUser) throws Exception {
 
@@ -866,12 +1034,10 @@ public class TokenDB {
             }
         }
 
-        for (TPSCertRecord cert : certRecords) {
-            if (isRevoke) {
-                revokeCert(tokenRecord, cert, tokenReason, ipAddress, remoteUser);
-            } else {
-                unrevokeCert(tokenRecord, cert, tokenReason, ipAddress, remoteUser);
-            }
+        if (isRevoke) {
+            revokeCerts(tokenRecord, certRecords, tokenReason, ipAddress, remoteUser);
+        } else {
+            unrevokeCerts(tokenRecord, certRecords, ipAddress, remoteUser);
         }
     }
 
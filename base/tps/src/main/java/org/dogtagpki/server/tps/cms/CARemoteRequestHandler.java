@@ -520,27 +520,27 @@ public class CARemoteRequestHandler extends RemoteRequestHandler
     }
 
     /**
-     * revokeCertificate provides the basic revocation of a certificate from
-     * the CA
+     * revokeCertificates provides the basic revocation of certificates from
+     * the CA. All certificates are revoked by a single revocation request.
      *
-     * @param serialno serial number of the cert to revoke
+     * @param serialnos serial numbers of the certs to revoke
      * @param reason reason to revoke per definition in RevocationReason
      *
      * @returns CARevokeCertResponse
      */
-    private CARevokeCertResponse revokeCertificate(
-            String serialno,
+    private CARevokeCertResponse revokeCertificates(
+            List<String> serialnos,
             RevocationReason reason)
             throws EBaseException {
-        return revokeCertificate(null, serialno, reason);
+        return revokeCertificates(null, serialnos, reason);
     }
-    private CARevokeCertResponse revokeCertificate(
+    private CARevokeCertResponse revokeCertificates(
             String caConn,
-            String serialno,
+            List<String> serialnos,
             RevocationReason reason)
             throws EBaseException {
 
-        String method = "CARemoteRequestHandler: revokeCertificate";
+        String method = "CARemoteRequestHandler: revokeCertificates";
         String revCAid = connid;
         if (caConn != null) {
             logger.debug(method +": passed in ca ID: " + caConn);
@@ -549,10 +549,22 @@ public class CARemoteRequestHandler extends RemoteRequestHandler
             logger.debug(method +": using default ca ID:" + connid);
         }
         logger.debug(method +": begins");
-        if (serialno == null || reason == null) {
+        if (serialnos == null || serialnos.isEmpty() || reason == null) {
             throw new EBaseException(method +": input parameter null.");
         }
-        logger.debug(method +": revoking serial#:" + serialno + "; reason String:" + reason.toString() + "; reason code:" + reason.getCode());
+        logger.debug(method +": revoking serial#:" + serialnos + "; reason String:" + reason.toString() + "; reason code:" + reason.getCode());
+
+        // match all certs with a single filter
+        StringBuilder filter = new StringBuilder();
+        if (serialnos.size() > 1) {
+            filter.append("(|");
+        }
+        for (String serialno : serialnos) {
+            filter.append("(" + IRemoteRequest.CA_REVOKE_SERIAL + "=" + serialno + ")");
+        }
+        if (serialnos.size() > 1) {
+            filter.append(")");
+        }
 
         TPSEngine engine = TPSEngine.getInstance();
         // ConfigStore conf = CMS.getConfigStore();
@@ -568,9 +580,8 @@ public class CARemoteRequestHandler extends RemoteRequestHandler
                 conn.send("revoke",
                         IRemoteRequest.CA_OP + "=" + IRemoteRequest.CA_REVOKE +
                                 "&" + IRemoteRequest.CA_REVOCATION_REASON + "=" + reason.getCode() +
-                                "&" + IRemoteRequest.CA_REVOKE_ALL + "=(" +
-                                IRemoteRequest.CA_REVOKE_SERIAL + "=" + serialno + ")&" +
-                                IRemoteRequest.CA_REVOKE_COUNT + "=1");
+                                "&" + IRemoteRequest.CA_REVOKE_ALL + "=" + filter +
+                                "&" + IRemoteRequest.CA_REVOKE_COUNT + "=" + serialnos.size());
         if (resp == null) {
             throw new EBaseException(method +" to connid: " + revCAid + ": response null.");
         }
@@ -612,24 +623,24 @@ public class CARemoteRequestHandler extends RemoteRequestHandler
     }
 
     /**
-     * unrevokeCertificate provides the basic unrevocation of a certificate from
-     * the CA
+     * unrevokeCertificates provides the basic unrevocation of certificates from
+     * the CA. All certificates are unrevoked by a single unrevocation request.
      *
-     * @param serialno serial number of the cert to unrevoke
+     * @param serialnos serial numbers of the certs to unrevoke
      *
      * @returns CARevokeCertResponse
      */
-    private CARevokeCertResponse unrevokeCertificate(
-            String serialno)
+    private CARevokeCertResponse unrevokeCertificates(
+            List<String> serialnos)
             throws EBaseException {
-        return unrevokeCertificate(null, serialno);
+        return unrevokeCertificates(null, serialnos);
     }
-    private CARevokeCertResponse unrevokeCertificate(
+    private CARevokeCertResponse unrevokeCertificates(
             String caConn,
-            String serialno)
+            List<String> serialnos)
             throws EBaseException {
 
-        String method = "CARemoteRequestHandler: unrevokeCertificate()";
+        String method = "CARemoteRequestHandler: unrevokeCertificates()";
         String unrevCAid = connid;
         if (caConn != null) {
             logger.debug(method + ": passed in ca ID: " + caConn);
@@ -637,8 +648,8 @@ public class CARemoteRequestHandler extends RemoteRequestHandler
         } else {
             logger.debug(method + ": using default ca ID:" + connid);
         }
-        logger.debug(method + ": begins on serial#:" + serialno);
-        if (serialno == null) {
+        logger.debug(method + ": begins on serial#:" + serialnos);
+        if (serialnos == null || serialnos.isEmpty()) {
             throw new EBaseException(method + ": input parameter null.");
         }
 
@@ -652,7 +663,7 @@ public class CARemoteRequestHandler extends RemoteRequestHandler
         logger.debug(method + ": sending request to CA");
         HttpResponse resp =
                 conn.send("unrevoke",
-                        IRemoteRequest.CA_UNREVOKE_SERIAL + "=" + serialno);
+                        IRemoteRequest.CA_UNREVOKE_SERIAL + "=" + String.join("+", serialnos));
         if (resp == null) {
             throw new EBaseException(method + " to connid: " + unrevCAid + ": response null.");
         }
@@ -722,12 +733,12 @@ public class CARemoteRequestHandler extends RemoteRequestHandler
         } catch (Exception e) {
             throw new EBaseException(method + ": getCertAkiString failed:" + e);
         }
-        return revokeFromOtherCA(revoke, cert.getSerialNumber().toString(), certAkiString, reason);
+        return revokeFromOtherCA(revoke, List.of(cert.getSerialNumber().toString()), certAkiString, reason);
     }
 
     private CARevokeCertResponse revokeFromOtherCA(
             boolean revoke, // true==revoke; false==unrevoke
-            String serialno,
+            List<String> serialnos,
             String certAkiString,
             RevocationReason reason)
             throws EBaseException {
@@ -748,7 +759,7 @@ public class CARemoteRequestHandler extends RemoteRequestHandler
                 String caSkiString = getCaSki(ca);
                 if (certAkiString.equals(caSkiString)) {
                     logger.debug(method + " cert AKI and caCert SKI matched");
-                    return revoke ? revokeCertificate(ca, serialno, reason) : unrevokeCertificate(ca, serialno);
+                    return revoke ? revokeCertificates(ca, serialnos, reason) : unrevokeCertificates(ca, serialnos);
                 }
                 // not a match then iterate to next ca in list
                 logger.debug(method + " cert AKI and caCert SKI not matched");
@@ -883,8 +894,28 @@ public class CARemoteRequestHandler extends RemoteRequestHandler
             String certAkiString,
             RevocationReason reason)
             throws EBaseException {
+        return revokeCertificates(revoke, List.of(serialno), certAkiString, reason);
+    }
 
-        String method = "CARemoteRequestHandler: revokeCertificate()";
+    /**
+     * revokeCertificates() revokes or unrevokes multiple certificates
+     * issued by the same CA with a single request, so the CA updates
+     * its repository and CRL caches once for all of them. It provides
+     * the same CA discovery as revokeCertificate().
+     *
+     * @param revoke true to revoke; false to unrevoke
+     * @param serialnos serial numbers of the certs
+     * @param certAkiString AKI of the certs
+     * @param reason RevocationReason for the base revokeCertificates() function
+     */
+    public CARevokeCertResponse revokeCertificates(
+            boolean revoke, // true==revoke; false==unrevoke
+            List<String> serialnos,
+            String certAkiString,
+            RevocationReason reason)
+            throws EBaseException {
+
+        String method = "CARemoteRequestHandler: revokeCertificates()";
         logger.debug(method +" begins with CA discovery");
 
         if (revoke == true && reason == null) {
@@ -902,7 +933,7 @@ public class CARemoteRequestHandler extends RemoteRequestHandler
             skipMatch = true;
         }
         if (skipMatch) {
-            return revoke ? revokeCertificate(serialno, reason) : unrevokeCertificate(serialno);
+            return revoke ? revokeCertificates(serialnos, reason) : unrevokeCertificates(serialnos);
         }
         /* now compare cert's AKI to the ca's SKI
          *   if matched, continue,
@@ -911,9 +942,9 @@ public class CARemoteRequestHandler extends RemoteRequestHandler
         logger.debug(method +" cert AKI and caCert SKI matching begins");
         if (certAkiString.equals(caSkiString)) {
             logger.debug(method +" cert AKI and caCert SKI matched");
-            return revoke ? revokeCertificate(serialno, reason) : unrevokeCertificate(serialno);
+            return revoke ? revokeCertificates(serialnos, reason) : unrevokeCertificates(serialnos);
         }
         logger.debug(method +" cert AKI and caCert SKI of the designated issuing ca do not match...calling revokeFromOtherCA to search for another ca");
-        return revokeFromOtherCA(revoke, serialno, certAkiString, reason);
+        return revokeFromOtherCA(revoke, serialnos, certAkiString, reason);
     }
 }
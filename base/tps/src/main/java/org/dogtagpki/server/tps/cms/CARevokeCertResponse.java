@@ -18,7 +18,9 @@
 
 package org.dogtagpki.server.tps.cms;
 
+import java.util.Arrays;
 import java.util.Hashtable;
+import java.util.List;
 
 import org.dogtagpki.server.connector.IRemoteRequest;
 
@@ -41,4 +43,28 @@ public class CARevokeCertResponse extends RemoteResponse
     public String getErrorString() {
         return (String) nameValTable.get(IRemoteRequest.RESPONSE_ERROR_STRING);
     }
+
+    /**
+     * Returns the decimal serial numbers of the certs revoked by
+     * the CA, or null if the CA does not report them.
+     */
+    public List<String> getRevokedSerialNumbers() {
+        String value = (String) nameValTable.get(IRemoteRequest.CA_RESPONSE_REVOKED_SERIALS);
+        if (value == null) {
+            return null;
+        }
+        return Arrays.asList(value.split(","));
+    }
+
+    /**
+     * Returns the decimal serial numbers of the certs taken off hold
+     * by the CA, or null if the CA does not report them.
+     */
+    public List<String> getUnrevokedSerialNumbers() {
+        String value = (String) nameValTable.get(IRemoteRequest.CA_RESPONSE_UNREVOKED_SERIALS);
+        if (value == null) {
+            return null;
+        }
+        return Arrays.asList(value.split(","));
+    }
 }